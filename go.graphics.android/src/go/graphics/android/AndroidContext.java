@@ -431,6 +431,24 @@ public class AndroidContext implements GLDrawContext {
 		GLES11.glBindBuffer(GLES11.GL_ARRAY_BUFFER, 0);
 	}
 
+	@Override
+	public void drawTrianglesWithTextureColored(int textureid,
+			int geometryindex, int colorindex, int triangleCount) {
+		glBindTexture(textureid);
+
+		GLES11.glBindBuffer(GLES11.GL_ARRAY_BUFFER, geometryindex);
+		GLES11.glVertexPointer(3, GLES11.GL_FLOAT, 5 * 4, 0);
+		GLES11.glTexCoordPointer(2, GLES11.GL_FLOAT, 5 * 4, 3 * 4);
+		GLES11.glBindBuffer(GLES11.GL_ARRAY_BUFFER, colorindex);
+		GLES11.glColorPointer(4, GLES11.GL_UNSIGNED_BYTE, 0, 0);
+
+		GLES11.glEnableClientState(GLES11.GL_COLOR_ARRAY);
+		GLES11.glDrawArrays(GLES11.GL_TRIANGLES, 0, triangleCount * 3);
+		GLES11.glDisableClientState(GLES11.GL_COLOR_ARRAY);
+
+		GLES11.glBindBuffer(GLES11.GL_ARRAY_BUFFER, 0);
+	}
+
 	@Override
 	public int storeGeometry(float[] geometry) {
 		int bytes = 4 * geometry.length;
@@ -236,6 +236,24 @@ JNIEXPORT void JNICALL Java_go_graphics_nativegl_NativeGLWrapper_drawTrianglesWi
 	glBindBuffer(GL_ARRAY_BUFFER, 0);
 }
 
+JNIEXPORT void JNICALL Java_go_graphics_nativegl_NativeGLWrapper_drawTrianglesWithTextureColored__IIII(
+		JNIEnv *env, jobject obj, int textureid, int geometryindex,
+		int colorindex, int triangleCount) {
+	bindTexture(textureid);
+
+	glBindBuffer(GL_ARRAY_BUFFER, geometryindex);
+	glVertexPointer(3, GL_FLOAT, 5 * 4, 0);
+	glTexCoordPointer(2, GL_FLOAT, 5 * 4, (void*) (3 * 4));
+	glBindBuffer(GL_ARRAY_BUFFER, colorindex);
+	glColorPointer(4, GL_UNSIGNED_BYTE, 0, 0);
+
+	glEnableClientState(GL_COLOR_ARRAY);
+	glDrawArrays(GL_TRIANGLES, 0, triangleCount * 3);
+	glDisableClientState(GL_COLOR_ARRAY);
+
+	glBindBuffer(GL_ARRAY_BUFFER, 0);
+}
+
 JNIEXPORT jint JNICALL Java_go_graphics_nativegl_NativeGLWrapper_makeWidthValid(
 		JNIEnv *env, jobject obj, jint width) {
 	return supportedTextureSize(width);
@@ -62,6 +62,10 @@ class NativeGLWrapper implements GLDrawContext, GLDrawContext.GLBuffer {
 	public native void drawTrianglesWithTextureColored(int textureid,
 	        int geometryindex, int triangleCount);
 
+	@Override
+	public native void drawTrianglesWithTextureColored(int textureid,
+	        int geometryindex, int colorindex, int triangleCount);
+
 	@Override
 	public native int makeWidthValid(int width);
 
@@ -339,6 +339,38 @@ public class JOGLDrawContext implements GLDrawContext {
 		}
 	}
 
+	@Override
+	public void drawTrianglesWithTextureColored(int textureid,
+			int geometryindex, int colorindex, int triangleCount) {
+		gl2.glBindTexture(GL.GL_TEXTURE_2D, textureid);
+		gl2.glEnableClientState(GL2.GL_COLOR_ARRAY);
+
+		if (canUseVBOs) {
+			gl2.glBindBuffer(GL2.GL_ARRAY_BUFFER, geometryindex);
+			gl2.glVertexPointer(3, GL2.GL_FLOAT, 5 * 4, 0);
+			gl2.glTexCoordPointer(2, GL2.GL_FLOAT, 5 * 4, 3 * 4);
+			gl2.glBindBuffer(GL2.GL_ARRAY_BUFFER, colorindex);
+			gl2.glColorPointer(4, GL2.GL_UNSIGNED_BYTE, 0, 0);
+
+			gl2.glDrawArrays(GL2.GL_TRIANGLES, 0, triangleCount * 3);
+
+			gl2.glBindBuffer(GL2.GL_ARRAY_BUFFER, 0);
+		} else {
+			ByteBuffer buffer = geometries.get(geometryindex).duplicate();
+			buffer.position(0);
+			gl2.glVertexPointer(3, GL2.GL_FLOAT, 5 * 4, buffer);
+			buffer.position(3 * 4);
+			gl2.glTexCoordPointer(2, GL2.GL_FLOAT, 5 * 4, buffer);
+			ByteBuffer colors = geometries.get(colorindex).duplicate();
+			colors.position(0);
+			gl2.glColorPointer(4, GL2.GL_UNSIGNED_BYTE, 0, colors);
+
+			gl2.glDrawArrays(GL2.GL_TRIANGLES, 0, triangleCount * 3);
+		}
+
+		gl2.glDisableClientState(GL2.GL_COLOR_ARRAY);
+	}
+
 	@Override
 	public int storeGeometry(float[] geometry) {
 		if (canUseVBOs) {
@@ -91,6 +91,21 @@ public interface GLDrawContext {
 
 	void drawTrianglesWithTextureColored(int textureid, int geometryindex, int triangleCount);
 
+	/**
+	 * Draws colored triangles with a texture, taking the colors from a separate geometry. This way, the colors can be changed without writing the
+	 * positions again.
+	 * 
+	 * @param textureid
+	 *            The id of the texture
+	 * @param geometryindex
+	 *            A geometry with 5 floats per vertex: x,y,z,u,v
+	 * @param colorindex
+	 *            A geometry with 4 bytes per vertex: r,g,b,a
+	 * @param triangleCount
+	 *            The number of triangles to draw.
+	 */
+	void drawTrianglesWithTextureColored(int textureid, int geometryindex, int colorindex, int triangleCount);
+
 	int makeWidthValid(int width);
 
 	int makeHeightValid(int height);
@@ -6,6 +6,7 @@ import jsettlers.common.buildings.IBuilding;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.mapobject.IMapObject;
@@ -101,6 +102,10 @@ public class BuildingtestMap implements IGraphicsGrid {
 
 	}
 
+	@Override
+	public void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+	}
+
 	@Override
 	public int nextDrawableX(int x, int y, int maxX) {
 		return x + 1;
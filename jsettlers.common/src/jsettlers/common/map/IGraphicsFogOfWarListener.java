@@ -0,0 +1,19 @@
+package jsettlers.common.map;
+
+/**
+ * This interface can be used by the user of the IGraphicsGrid to get notified if the fog of war has changed.
+ */
+public interface IGraphicsFogOfWarListener {
+	/**
+	 * This method is called if the visible status of at least one position in the given region has changed. The region includes the min and max
+	 * coordinates.
+	 * <p />
+	 * NOTE: This method is called by the fog of war thread, or by the thread toggling the fog of war.
+	 * 
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 */
+	void fogOfWarChanged(int minX, int minY, int maxX, int maxY);
+}
@@ -114,10 +114,21 @@ public interface IGraphicsGrid {
 	 */
 	void setBackgroundListener(IGraphicsBackgroundListener backgroundListener);
 
+	/**
+	 * This method can be used to set a {@link IGraphicsFogOfWarListener} to this {@link IGraphicsGrid}. <br>
+	 * 
+	 * @see IGraphicsFogOfWarListener
+	 * 
+	 * @param fogOfWarListener
+	 *            listener to be set.
+	 */
+	void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener);
+
 	/**
 	 * Gets the next x coordinate that might contain a drawable Object.
 	 * 
 	 * @param x
+	 *            The x coordinate to search after. To include a coordinate in the search, pass the coordinate - 1.
 	 * @param y
 	 * @param maxX
 	 *            the maximum x that needs to be searched.
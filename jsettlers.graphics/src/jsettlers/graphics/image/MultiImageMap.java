@@ -2,13 +2,29 @@ package jsettlers.graphics.image;
 
 import go.graphics.GLDrawContext;
 
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 
 import jsettlers.common.resources.ResourceManager;
 import jsettlers.graphics.map.draw.GLPreloadTask;
@@ -17,16 +33,31 @@ import jsettlers.graphics.reader.AdvancedDatFileReader;
 import jsettlers.graphics.reader.DatBitmapReader;
 import jsettlers.graphics.reader.ImageArrayProvider;
 import jsettlers.graphics.reader.ImageMetadata;
-import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.translator.DatBitmapTranslator;
 import jsettlers.graphics.sequence.ArraySequence;
 import jsettlers.graphics.sequence.Sequence;
 
 /**
  * This is a map of multile images of one sequence. It always contains the settler image and the torso
- * 
+ * <p>
+ * The map is stored in a cache file together with the positions of the images. The cache is only used if it has been created from the same dat
+ * file with the same sequences, otherwise the sequences are decoded in parallel and the cache is written again.
+ *
  * @author michael
  */
 public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
+	private static final int CACHE_MAGIC = 0x4a534d49;
+	/**
+	 * Needs to be increased whenever the format of the cache file changes.
+	 */
+	private static final int CACHE_VERSION = 2;
+	/**
+	 * Length of magic, version, byte order and key at the start of the cache file.
+	 */
+	private static final int CACHE_PREFIX_LENGTH = 4 + 4 + 1 + 8;
+	private static final int INFLATE_CHUNK_SIZE = 64 * 1024;
+
+	private static ForkJoinPool decodePool;
 
 	private final int width;
 	private final int height;
@@ -40,13 +71,19 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 	private ShortBuffer buffers;
 	private ByteBuffer byteBuffer;
 
+	private final String id;
 	private final File cacheFile;
+	private long cacheKey;
 
 	public MultiImageMap(int width, int height, String id) {
+		this(width, height, id, new File(new File(ResourceManager.getSaveDirectory(), "cache"), "cache-" + id));
+	}
+
+	MultiImageMap(int width, int height, String id, File cacheFile) {
 		this.width = width;
 		this.height = height;
-		File root = new File(ResourceManager.getSaveDirectory(), "cache");
-		cacheFile = new File(root, "cache-" + id);
+		this.id = id;
+		this.cacheFile = cacheFile;
 	}
 
 	private void allocateBuffers() {
@@ -55,51 +92,52 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 		buffers = byteBuffer.asShortBuffer();
 	}
 
-	public synchronized void addSequences(AdvancedDatFileReader dfr, int[] sequenceIndexes,
-			Sequence<Image>[] addTo) throws IOException {
-		allocateBuffers();
+	private static synchronized ForkJoinPool getDecodePool() {
+		if (decodePool == null) {
+			decodePool = new ForkJoinPool();
+		}
+		return decodePool;
+	}
 
-		ImageMetadata settlermeta = new ImageMetadata();
-		ImageMetadata torsometa = new ImageMetadata();
-		for (int seqindex : sequenceIndexes) {
-			long[] settlers = dfr.getSettlerPointers(seqindex);
-			long[] torsos = dfr.getTorsoPointers(seqindex);
+	/**
+	 * Sets the pool the sequences are decoded with, so that the tests can compare a serial with a parallel decoding.
+	 *
+	 * @param pool
+	 *            The pool to use for all following decodings.
+	 */
+	static synchronized void setDecodePool(ForkJoinPool pool) {
+		decodePool = pool;
+	}
 
-			Image[] images = new Image[settlers.length];
-			for (int i = 0; i < settlers.length; i++) {
-				// System.out.println("Processing seq + " + seqindex +
-				// ", image " + i + ":");
-
-				ByteReader reader;
-				reader = dfr.getReaderForPointer(settlers[i]);
-				DatBitmapReader.uncompressImage(reader,
-						AdvancedDatFileReader.SETTLER_TRANSLATOR, settlermeta,
-						this);
-				int settlerx = drawx - settlermeta.width;
-				int settlery = linetop;
-
-				int torsox = 0;
-				int torsoy = 0;
-				if (torsos != null) {
-					reader = dfr.getReaderForPointer(torsos[i]);
-					if (reader != null) {
-						DatBitmapReader.uncompressImage(reader,
-								AdvancedDatFileReader.TORSO_TRANSLATOR,
-								torsometa, this);
-						torsox = drawx - torsometa.width;
-						torsoy = linetop;
-					}
-				}
-				// System.out.println("Got image Data: settlerx = " + settlerx +
-				// ", settlery = " + settlery + ", w=" + settlermeta.width +
-				// ", h=" + settlermeta.height);
-
-				images[i] =
-						new MultiImageImage(this, settlermeta, settlerx,
-								settlery, torsos == null ? null : torsometa,
-								torsox, torsoy);
-			}
-			addTo[seqindex] = new ArraySequence<Image>(images);
+	/**
+	 * Adds the given sequences of the dat file to this map. They are read from the cache file if it is up to date, otherwise they are decoded and
+	 * the cache file is written.
+	 *
+	 * @param dfr
+	 *            The dat file to read the sequences from.
+	 * @param sequenceIndexes
+	 *            The indexes of the settler sequences to add.
+	 * @param addTo
+	 *            The array the created sequences are stored in.
+	 * @throws IOException
+	 *             If the sequences could not be decoded.
+	 */
+	public synchronized void load(AdvancedDatFileReader dfr, int[] sequenceIndexes, Sequence<Image>[] addTo) throws IOException {
+		long start = System.nanoTime();
+		cacheKey = calculateCacheKey(dfr.getFile(), sequenceIndexes);
+
+		List<SequencePlacement> placements = readCacheIfValid();
+		if (placements != null) {
+			System.out.println("Loaded image map " + id + " from cache in " + (System.nanoTime() - start) / 1000000 + " ms");
+		} else {
+			placements = decodeSequences(dfr, sequenceIndexes);
+			writeCache(placements);
+			System.out.println("Decoded image map " + id + " with " + getDecodePool().getParallelism() + " threads in "
+					+ (System.nanoTime() - start) / 1000000 + " ms");
+		}
+
+		for (SequencePlacement placement : placements) {
+			addTo[placement.sequenceIndex] = createSequence(placement);
 		}
 
 		// request a opengl rerender, or do it ourselves on the next image
@@ -108,45 +146,213 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 		ImageProvider.getInstance().addPreloadTask(this);
 	}
 
+	private long calculateCacheKey(File datFile, int[] sequenceIndexes) {
+		long key = 0xcbf29ce484222325L;
+		key = hash(key, width);
+		key = hash(key, height);
+		for (int sequenceIndex : sequenceIndexes) {
+			key = hash(key, sequenceIndex);
+		}
+		key = hash(key, datFile.getName().hashCode());
+		key = hash(key, datFile.length());
+		return hash(key, datFile.lastModified());
+	}
+
+	private static long hash(long hash, long value) {
+		return (hash ^ value) * 0x100000001b3L;
+	}
+
 	/**
-	 * Forces the regeneration of the cache file.
+	 * Decodes the sequences with one task per sequence and draws them into the buffer in the order of the sequence indexes.
 	 */
-	public synchronized void writeCache() {
-		FileOutputStream out = null;
+	private List<SequencePlacement> decodeSequences(AdvancedDatFileReader dfr, int[] sequenceIndexes) throws IOException {
+		ForkJoinPool pool = getDecodePool();
+		List<DecodeSequenceTask> tasks = new ArrayList<DecodeSequenceTask>();
+		for (int seqindex : sequenceIndexes) {
+			DecodeSequenceTask task = new DecodeSequenceTask(dfr, dfr.getSettlerPointers(seqindex), dfr.getTorsoPointers(seqindex));
+			pool.execute(task);
+			tasks.add(task);
+		}
+
+		allocateBuffers();
+		List<SequencePlacement> placements = new ArrayList<SequencePlacement>();
+		for (int i = 0; i < sequenceIndexes.length; i++) {
+			DecodedSequence sequence;
+			try {
+				sequence = tasks.get(i).get();
+			} catch (ExecutionException e) {
+				throw new IOException("Error decoding sequence " + sequenceIndexes[i], e.getCause());
+			} catch (InterruptedException e) {
+				throw new IOException("Interrupted while decoding sequence " + sequenceIndexes[i], e);
+			}
+
+			PlacedImage[] settlers = new PlacedImage[sequence.settlers.length];
+			PlacedImage[] torsos = sequence.torsos == null ? null : new PlacedImage[settlers.length];
+			for (int j = 0; j < settlers.length; j++) {
+				settlers[j] = draw(sequence.settlers[j]);
+				if (torsos != null) {
+					torsos[j] = draw(sequence.torsos[j]);
+				}
+			}
+			placements.add(new SequencePlacement(sequenceIndexes[i], settlers, torsos));
+		}
+		return placements;
+	}
+
+	private PlacedImage draw(DecodedImage image) throws IOException {
+		startImage(image.metadata.width, image.metadata.height);
+		for (short[] line : image.lines) {
+			writeLine(line, line.length);
+		}
+		return new PlacedImage(image.metadata, drawx - image.metadata.width, linetop);
+	}
+
+	private Sequence<Image> createSequence(SequencePlacement placement) {
+		Image[] images = new Image[placement.settlers.length];
+		for (int i = 0; i < images.length; i++) {
+			PlacedImage settler = placement.settlers[i];
+			PlacedImage torso = placement.torsos == null ? null : placement.torsos[i];
+
+			images[i] = new MultiImageImage(this, settler.metadata, settler.x, settler.y, torso == null ? null : torso.metadata,
+					torso == null ? 0 : torso.x, torso == null ? 0 : torso.y);
+		}
+		return new ArraySequence<Image>(images);
+	}
+
+	/**
+	 * Writes the image positions and the compressed image data to the cache file.
+	 */
+	private void writeCache(List<SequencePlacement> placements) {
 		try {
 			cacheFile.getParentFile().mkdirs();
-			cacheFile.delete();
 			File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
-			out = new FileOutputStream(tempFile);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
 
 			try {
+				out.writeInt(CACHE_MAGIC);
+				out.writeInt(CACHE_VERSION);
+				out.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+				out.writeLong(cacheKey);
+
+				out.writeInt(placements.size());
+				for (SequencePlacement placement : placements) {
+					placement.write(out);
+				}
+
+				DeflaterOutputStream compressed = new DeflaterOutputStream(out, deflater);
 				byte[] line = new byte[this.width * 2];
 				byteBuffer.rewind();
 				while (byteBuffer.hasRemaining()) {
 					byteBuffer.get(line);
-					out.write(line);
+					compressed.write(line);
 				}
+				byteBuffer.rewind();
+				compressed.finish();
 			} finally {
 				out.close();
+				deflater.end();
 			}
 
+			cacheFile.delete();
 			tempFile.renameTo(cacheFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Reads the image positions from the cache file and the image data to the buffer.
+	 *
+	 * @return The image positions or <code>null</code> if there is no cache file for the current key.
+	 */
+	private List<SequencePlacement> readCacheIfValid() {
+		if (!cacheFile.isFile()) {
+			return null;
+		}
+
+		try {
+			if (!hasValidCachePrefix()) {
+				System.out.println("Image map cache " + cacheFile + " is outdated.");
+				return null;
+			}
+
+			ByteBuffer cache = mapCacheFile();
+			cache.position(CACHE_PREFIX_LENGTH);
 
+			int sequences = cache.getInt();
+			List<SequencePlacement> placements = new ArrayList<SequencePlacement>(sequences);
+			for (int i = 0; i < sequences; i++) {
+				placements.add(SequencePlacement.read(cache));
+			}
+
+			allocateBuffers();
+			inflate(cache, byteBuffer);
+			return placements;
+		} catch (Exception e) {
+			System.err.println("Could not read image map cache " + cacheFile + ": " + e);
 			buffers = null;
 			byteBuffer = null;
-		} catch (IOException e) {
-			if (out != null) {
-				try {
-					out.close();
-				} catch (IOException e1) {
+			return null;
+		}
+	}
+
+	/**
+	 * Checks the prefix without mapping the file, so an outdated file is not locked while it is replaced.
+	 */
+	private boolean hasValidCachePrefix() throws IOException {
+		DataInputStream in = new DataInputStream(new FileInputStream(cacheFile));
+		try {
+			return in.readInt() == CACHE_MAGIC && in.readInt() == CACHE_VERSION
+					&& in.readBoolean() == (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) && in.readLong() == cacheKey;
+		} catch (EOFException e) {
+			return false;
+		} finally {
+			in.close();
+		}
+	}
+
+	private ByteBuffer mapCacheFile() throws IOException {
+		RandomAccessFile in = new RandomAccessFile(cacheFile, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void inflate(ByteBuffer in, ByteBuffer out) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			byte[] input = new byte[INFLATE_CHUNK_SIZE];
+			byte[] output = new byte[INFLATE_CHUNK_SIZE];
+			while (!inflater.finished()) {
+				if (inflater.needsInput()) {
+					int length = Math.min(input.length, in.remaining());
+					if (length == 0) {
+						throw new EOFException("Image map cache ends unexpectedly.");
+					}
+					in.get(input, 0, length);
+					inflater.setInput(input, 0, length);
 				}
+
+				int inflated = inflater.inflate(output);
+				if (inflated > out.remaining()) {
+					throw new IOException("Image map cache contains too much data.");
+				}
+				out.put(output, 0, inflated);
 			}
-			e.printStackTrace();
+		} catch (DataFormatException e) {
+			throw new IOException("Image map cache is corrupt.", e);
+		} finally {
+			inflater.end();
 		}
-	}
 
-	public synchronized boolean hasCache() {
-		return cacheFile.isFile();
+		if (out.hasRemaining()) {
+			throw new EOFException("Image map cache contains too little data.");
+		}
+		out.rewind();
 	}
 
 	@Override
@@ -197,7 +403,7 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 
 	/**
 	 * Gets the texture index.
-	 * 
+	 *
 	 * @param gl
 	 * @return
 	 */
@@ -217,21 +423,8 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 
 	private synchronized void loadTexture(GLDrawContext gl) throws IOException,
 			IOException {
-		if (buffers == null) {
-			allocateBuffers();
-			FileInputStream in = new FileInputStream(cacheFile);
-			try {
-				byte[] line = new byte[this.width * 2];
-				while (in.available() > 0) {
-					if (in.read(line) <= 0) {
-						throw new IOException();
-					}
-					byteBuffer.put(line);
-				}
-				byteBuffer.rewind();
-			} finally {
-				in.close();
-			}
+		if (buffers == null && readCacheIfValid() == null) {
+			throw new IOException("Could not load image map " + id + " from the cache.");
 		}
 
 		buffers.rewind();
@@ -249,4 +442,150 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 	public void run(GLDrawContext context) {
 		getTexture(context);
 	}
+
+	/**
+	 * Decodes the images of one settler sequence and its torsos.
+	 */
+	private static class DecodeSequenceTask extends RecursiveTask<DecodedSequence> {
+		private static final long serialVersionUID = 1L;
+
+		private final AdvancedDatFileReader dfr;
+		private final long[] settlers;
+		private final long[] torsos;
+
+		DecodeSequenceTask(AdvancedDatFileReader dfr, long[] settlers, long[] torsos) {
+			this.dfr = dfr;
+			this.settlers = settlers;
+			this.torsos = torsos;
+		}
+
+		@Override
+		protected DecodedSequence compute() {
+			try {
+				DecodedImage[] settlerImages = new DecodedImage[settlers.length];
+				DecodedImage[] torsoImages = torsos == null ? null : new DecodedImage[settlers.length];
+				for (int i = 0; i < settlers.length; i++) {
+					settlerImages[i] = decode(settlers[i], AdvancedDatFileReader.SETTLER_TRANSLATOR);
+					if (torsoImages != null) {
+						torsoImages[i] = decode(torsos[i], AdvancedDatFileReader.TORSO_TRANSLATOR);
+					}
+				}
+				return new DecodedSequence(settlerImages, torsoImages);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private DecodedImage decode(long pointer, DatBitmapTranslator<? extends Image> translator) throws IOException {
+			DecodedImage image = new DecodedImage();
+			DatBitmapReader.uncompressImage(dfr.getReaderForPointer(pointer), translator, image.metadata, image);
+			return image;
+		}
+	}
+
+	private static class DecodedSequence {
+		final DecodedImage[] settlers;
+		final DecodedImage[] torsos;
+
+		DecodedSequence(DecodedImage[] settlers, DecodedImage[] torsos) {
+			this.settlers = settlers;
+			this.torsos = torsos;
+		}
+	}
+
+	/**
+	 * Stores the lines of a decoded image until it is drawn to the map.
+	 */
+	private static class DecodedImage implements ImageArrayProvider {
+		final ImageMetadata metadata = new ImageMetadata();
+		short[][] lines;
+		private int line;
+
+		@Override
+		public void startImage(int width, int height) {
+			lines = new short[height][];
+			line = 0;
+		}
+
+		@Override
+		public void writeLine(short[] data, int length) {
+			lines[line++] = Arrays.copyOf(data, length);
+		}
+	}
+
+	/**
+	 * The position of an image in the map.
+	 */
+	private static class PlacedImage {
+		final ImageMetadata metadata;
+		final int x;
+		final int y;
+
+		PlacedImage(ImageMetadata metadata, int x, int y) {
+			this.metadata = metadata;
+			this.x = x;
+			this.y = y;
+		}
+
+		static PlacedImage read(ByteBuffer in) {
+			ImageMetadata metadata = new ImageMetadata();
+			metadata.width = in.getInt();
+			metadata.height = in.getInt();
+			metadata.offsetX = in.getInt();
+			metadata.offsetY = in.getInt();
+			return new PlacedImage(metadata, in.getInt(), in.getInt());
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(metadata.width);
+			out.writeInt(metadata.height);
+			out.writeInt(metadata.offsetX);
+			out.writeInt(metadata.offsetY);
+			out.writeInt(x);
+			out.writeInt(y);
+		}
+	}
+
+	/**
+	 * The positions of the images of one settler sequence.
+	 */
+	private static class SequencePlacement {
+		final int sequenceIndex;
+		final PlacedImage[] settlers;
+		final PlacedImage[] torsos;
+
+		SequencePlacement(int sequenceIndex, PlacedImage[] settlers, PlacedImage[] torsos) {
+			this.sequenceIndex = sequenceIndex;
+			this.settlers = settlers;
+			this.torsos = torsos;
+		}
+
+		static SequencePlacement read(ByteBuffer in) {
+			int sequenceIndex = in.getInt();
+			int length = in.getInt();
+			boolean hasTorsos = in.get() != 0;
+
+			PlacedImage[] settlers = new PlacedImage[length];
+			PlacedImage[] torsos = hasTorsos ? new PlacedImage[length] : null;
+			for (int i = 0; i < length; i++) {
+				settlers[i] = PlacedImage.read(in);
+				if (hasTorsos) {
+					torsos[i] = PlacedImage.read(in);
+				}
+			}
+			return new SequencePlacement(sequenceIndex, settlers, torsos);
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(sequenceIndex);
+			out.writeInt(settlers.length);
+			out.writeBoolean(torsos != null);
+			for (int i = 0; i < settlers.length; i++) {
+				settlers[i].write(out);
+				if (torsos != null) {
+					torsos[i].write(out);
+				}
+			}
+		}
+	}
 }
@@ -164,6 +164,7 @@ public final class MapContent implements RegionContent, GOEventHandlerProvider,
 		this.connector.addListener(this);
 
 		map.setBackgroundListener(background);
+		map.setFogOfWarListener(background);
 	}
 
 	private void resizeTo(int newWindowWidth, int newWindowHeight) {
@@ -384,21 +385,13 @@ public final class MapContent implements RegionContent, GOEventHandlerProvider,
 			if (y >= height) {
 				break;
 			}
-			linePartuallyVisible = false;
 
 			int endX = Math.min(area.getLineEndX(line), width - 1);
 			int startX = Math.max(area.getLineStartX(line), 0);
-			for (int x = startX; x <= endX; x = map.nextDrawableX(x, y, endX)) {
+			for (int x = map.nextDrawableX(startX - 1, y, endX); x <= endX; x = map.nextDrawableX(x, y, endX)) {
 				drawTile(x, y);
-				if (!linePartuallyVisible) {
-					double drawspacey =
-							this.context.getConverter().getViewY(x, y,
-									this.context.getHeight(x, y));
-					if (drawspacey > bottomdrawy) {
-						linePartuallyVisible = true;
-					}
-				}
 			}
+			linePartuallyVisible = isLinePartiallyVisible(y, startX, endX, bottomdrawy);
 		}
 
 		// if (map.getConstructionPreviewBuilding() != null) {
@@ -426,6 +419,20 @@ public final class MapContent implements RegionContent, GOEventHandlerProvider,
 		context.getDrawBuffer().flush();
 	}
 
+	/**
+	 * Checks if a point of the line is drawn above the bottom of the screen. This does not depend on the tiles that were drawn, so the drawing does
+	 * not stop at an empty line.
+	 */
+	private boolean isLinePartiallyVisible(int y, int startX, int endX, double bottomdrawy) {
+		for (int x = startX; x <= endX; x++) {
+			double drawspacey = this.context.getConverter().getViewY(x, y, this.context.getHeight(x, y));
+			if (drawspacey > bottomdrawy) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private void drawTile(int x, int y) {
 		IMapObject object = map.getMapObjectsAt(x, y);
 		if (object != null) {
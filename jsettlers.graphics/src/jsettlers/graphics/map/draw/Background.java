@@ -3,16 +3,31 @@ package jsettlers.graphics.map.draw;
 import go.graphics.GLDrawContext;
 import go.graphics.GLDrawContext.GLBuffer;
 
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.BitSet;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
 
 import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.map.shapes.MapRectangle;
 import jsettlers.common.position.FloatRectangle;
+import jsettlers.common.resources.ResourceManager;
 import jsettlers.graphics.map.MapDrawContext;
 import jsettlers.graphics.reader.AdvancedDatFileReader;
 import jsettlers.graphics.reader.DatBitmapReader;
@@ -24,7 +39,7 @@ import jsettlers.graphics.reader.ImageMetadata;
  * 
  * @author michael
  */
-public class Background implements IGraphicsBackgroundListener {
+public class Background implements IGraphicsBackgroundListener, IGraphicsFogOfWarListener {
 
 	private static final int LAND_FILE = 0;
 
@@ -38,6 +53,17 @@ public class Background implements IGraphicsBackgroundListener {
 	 */
 	private static final int TEXTURE_GRID = 32;
 
+	private static final int TEXTURE_CACHE_MAGIC = 0x4a534247;
+	/**
+	 * Needs to be increased whenever the format of the cache file or the way the texture is generated changes.
+	 */
+	private static final int TEXTURE_CACHE_VERSION = 1;
+	/**
+	 * Length of magic, version, byte order, key and checksum, padded so that the texture data is aligned.
+	 */
+	private static final int TEXTURE_CACHE_HEADER_LENGTH = 32;
+	private static final int TEXTURE_CACHE_DATA_LENGTH = TEXTURE_SIZE * TEXTURE_SIZE * 2;
+
 	/**
 	 * Where are the textures on the map?
 	 * <p>
@@ -816,50 +842,200 @@ public class Background implements IGraphicsBackgroundListener {
 			// ...
 	};
 
+	/**
+	 * The map is divided into chunks of CHUNK_SIZE * CHUNK_SIZE tiles. Each chunk keeps its geometry, so it only needs to be written again if the
+	 * landscape changes.
+	 */
+	private static final int CHUNK_SIZE = 32;
+
+	/**
+	 * How many chunks are kept if they are not on the screen any more.
+	 */
+	private static final int MAX_CACHED_CHUNKS = 64;
+
 	private static final short FLOAT_SIZE = 4;
 	/**
-	 * How many bytes are needed per vertex
+	 * How many bytes are needed per vertex in the geometry buffer: x, y, z, u, v
 	 */
-	private static final short VERTEX_SIZE = 6 * FLOAT_SIZE;
+	private static final short VERTEX_SIZE = 5 * FLOAT_SIZE;
+	/**
+	 * How many bytes are needed per vertex in the color buffer: r, g, b, a
+	 */
+	private static final short COLOR_SIZE = 4;
 
 	private static final byte DIM_MAX = 20;
 
-	private static final byte[] BLACK = new byte[] {
-			0, 0, 0, (byte) 255
-	};
+	private static int texture = -1;
 
 	/**
-	 * Offset of color definition in bytes, relative to vertex start
+	 * The chunks in the order they were drawn, the least recently drawn one first.
 	 */
-	// private static final int COLOR_OFFSET = 5 * FLOAT_SIZE;
+	private final LinkedHashMap<Integer, BackgroundChunk> chunks = new LinkedHashMap<Integer, BackgroundChunk>(16, .75f, true);
 
-	private byte[] fogOfWarStatus = new byte[1];
-	private MapRectangle oldBufferPosition = null;
-	private int bufferwidth = 1;; // in map points.
-	private int bufferheight = 1; // in map points.
+	/**
+	 * Keys of the chunks the landscape changed in. Guarded by itself, because the changes are reported by the logic thread.
+	 */
+	private final Set<Integer> changedChunks = new HashSet<Integer>();
 
-	private static int texture = -1;
+	/**
+	 * Keys of the chunks the visible status changed in. Guarded by itself, because the changes are reported by the fog of war thread.
+	 */
+	private final Set<Integer> fogOfWarChangedChunks = new HashSet<Integer>();
 
-	private int geometryindex = -1;
+	private int frame = 0;
 
-	private int geometrytirs;
+	private static Object preloadMutex = new Object();
 
-	private BitSet geometryInvalid = new BitSet();
+	private static ShortBuffer preloadedTexture = null;
 
-	private static Object preloadMutex = new Object();
+	private static ShortBuffer getTexture() {
+		AdvancedDatFileReader reader =
+				ImageProvider.getInstance().getFileReader(LAND_FILE);
+		if (reader == null) {
+			System.err.println("Could not get a file reader for the landscape file.");
+			return toDirectBuffer(new short[TEXTURE_SIZE * TEXTURE_SIZE]);
+		}
 
-	private static short[] preloadedTexture = null;
+		return getTexture(reader, new File(new File(ResourceManager.getSaveDirectory(), "cache"), "cache-background"));
+	}
+
+	/**
+	 * Gets the texture data from the cache file or generates it, if the cache file has not been created for the current landscape file and
+	 * texture positions.
+	 *
+	 * @param reader
+	 *            The reader of the landscape file.
+	 * @param cacheFile
+	 *            The cache file to use.
+	 * @return The texture data in a direct buffer.
+	 */
+	static ShortBuffer getTexture(AdvancedDatFileReader reader, File cacheFile) {
+		long starttime = System.currentTimeMillis();
+
+		long cacheKey = calculateTextureCacheKey(reader.getFile());
+		try {
+			ShortBuffer cached = readTextureCache(cacheFile, cacheKey);
+			if (cached != null) {
+				System.out.println("Background texture loaded from cache in "
+						+ (System.currentTimeMillis() - starttime) + "ms");
+				return cached;
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read background texture cache: " + e);
+		}
 
-	private static short[] getTexture() {
 		short[] data = new short[TEXTURE_SIZE * TEXTURE_SIZE];
 		try {
-			addTextures(data);
+			addTextures(reader, data);
+			writeTextureCache(cacheFile, cacheKey, data);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		System.out.println("Background texture data created in "
+				+ (System.currentTimeMillis() - starttime) + "ms");
+		return toDirectBuffer(data);
+	}
+
+	private static ShortBuffer toDirectBuffer(short[] data) {
+		ShortBuffer buffer =
+				ByteBuffer.allocateDirect(data.length * 2).order(
+						ByteOrder.nativeOrder()).asShortBuffer();
+		buffer.put(data);
+		buffer.rewind();
+		return buffer;
+	}
+
+	private static long calculateTextureCacheKey(File landFile) {
+		long key = hash(0xcbf29ce484222325L, TEXTURE_SIZE);
+		key = hash(key, TEXTURE_GRID);
+		for (int[] position : TEXTURE_POSITIONS) {
+			for (int value : position) {
+				key = hash(key, value);
+			}
+		}
+		key = hash(key, landFile.getName().hashCode());
+		key = hash(key, landFile.length());
+		return hash(key, landFile.lastModified());
+	}
+
+	private static long hash(long hash, long value) {
+		return (hash ^ value) * 0x100000001b3L;
+	}
+
+	private static long calculateChecksum(ShortBuffer data) {
+		long checksum = 0xcbf29ce484222325L;
+		for (int i = 0; i < data.limit(); i++) {
+			checksum = hash(checksum, data.get(i));
+		}
+		return checksum;
+	}
+
+	/**
+	 * Maps the texture data of the cache file.
+	 *
+	 * @return The texture data or <code>null</code> if the cache file is missing, outdated or damaged.
+	 */
+	private static ShortBuffer readTextureCache(File cacheFile, long cacheKey) throws IOException {
+		if (cacheFile.length() != TEXTURE_CACHE_HEADER_LENGTH + TEXTURE_CACHE_DATA_LENGTH) {
+			return null;
+		}
+
+		// the header is checked without mapping the file, so an outdated file is not locked while it is replaced.
+		long checksum;
+		DataInputStream in = new DataInputStream(new FileInputStream(cacheFile));
+		try {
+			if (in.readInt() != TEXTURE_CACHE_MAGIC || in.readInt() != TEXTURE_CACHE_VERSION
+					|| in.readBoolean() != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) || in.readLong() != cacheKey) {
+				return null;
+			}
+			checksum = in.readLong();
+		} catch (EOFException e) {
+			return null;
+		} finally {
+			in.close();
+		}
+
+		ShortBuffer data;
+		RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+		try {
+			data = file.getChannel().map(FileChannel.MapMode.READ_ONLY, TEXTURE_CACHE_HEADER_LENGTH, TEXTURE_CACHE_DATA_LENGTH)
+					.order(ByteOrder.nativeOrder()).asShortBuffer();
+		} finally {
+			file.close();
+		}
+
+		if (calculateChecksum(data) != checksum) {
+			System.err.println("Background texture cache is damaged.");
+			return null;
+		}
 		return data;
 	}
 
+	private static void writeTextureCache(File cacheFile, long cacheKey, short[] data) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate(TEXTURE_CACHE_DATA_LENGTH).order(ByteOrder.nativeOrder());
+		bytes.asShortBuffer().put(data);
+
+		cacheFile.getParentFile().mkdirs();
+		File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(TEXTURE_CACHE_MAGIC);
+			out.writeInt(TEXTURE_CACHE_VERSION);
+			out.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+			out.writeLong(cacheKey);
+			out.writeLong(calculateChecksum(bytes.asShortBuffer()));
+			while (out.size() < TEXTURE_CACHE_HEADER_LENGTH) {
+				out.writeByte(0);
+			}
+			out.write(bytes.array());
+		} finally {
+			out.close();
+		}
+
+		cacheFile.delete();
+		tempFile.renameTo(cacheFile);
+	}
+
 	public static void preloadTexture() {
 		synchronized (preloadMutex) {
 			if (preloadedTexture == null) {
@@ -878,7 +1054,7 @@ public class Background implements IGraphicsBackgroundListener {
 	private static int getTexture(GLDrawContext context) {
 		if (texture < 0) {
 			long starttime = System.currentTimeMillis();
-			short[] data;
+			ShortBuffer data;
 			synchronized (preloadMutex) {
 				if (preloadedTexture != null) {
 					data = preloadedTexture;
@@ -888,13 +1064,8 @@ public class Background implements IGraphicsBackgroundListener {
 					data = getTexture();
 				}
 			}
-			ByteBuffer buffer =
-					ByteBuffer.allocateDirect(data.length * 2).order(
-							ByteOrder.nativeOrder());
-			buffer.asShortBuffer().put(data);
 			texture =
-					context.generateTexture(TEXTURE_SIZE, TEXTURE_SIZE,
-							buffer.asShortBuffer());
+					context.generateTexture(TEXTURE_SIZE, TEXTURE_SIZE, data);
 
 			System.out.println("Background texture generated in "
 					+ (System.currentTimeMillis() - starttime) + "ms");
@@ -929,16 +1100,13 @@ public class Background implements IGraphicsBackgroundListener {
 	/**
 	 * Generates the texture data.
 	 * 
+	 * @param reader
+	 *            The reader of the landscape file.
 	 * @param data
 	 *            The texture data buffer.
 	 * @throws IOException
 	 */
-	private static void addTextures(short[] data) throws IOException {
-		AdvancedDatFileReader reader =
-				ImageProvider.getInstance().getFileReader(LAND_FILE);
-		if (reader == null) {
-			throw new IOException("Could not get a file reader for the file.");
-		}
+	private static void addTextures(AdvancedDatFileReader reader, short[] data) throws IOException {
 		ImageWriter imageWriter = new ImageWriter();
 		imageWriter.data = data;
 
@@ -1287,184 +1455,371 @@ public class Background implements IGraphicsBackgroundListener {
 	 * 
 	 * @param context
 	 *            The context to draw at.
-	 * @param screen2
+	 * @param screen
+	 *            The screen area to draw.
 	 */
 	public void drawMapContent(MapDrawContext context, FloatRectangle screen) {
-		// float[] geometry = getGeometry(context);
 		GLDrawContext gl = context.getGl();
-		MapRectangle screenArea =
-				context.getConverter().getMapForScreen(screen);
-		if (!gl.isGeometryValid(geometryindex)
-				|| screenArea.getLineLength() + 1 != bufferwidth
-				|| screenArea.getLines() != bufferheight) {
-			regenerateGeometry(gl, screenArea);
-			oldBufferPosition = null;
-		}
+		MapRectangle screenArea = context.getConverter().getMapForScreen(screen);
+		int mapWidth = context.getMap().getWidth();
+		int mapHeight = context.getMap().getHeight();
+
+		invalidateChangedChunks();
+		frame++;
 
-		GLBuffer boundbuffer = gl.startWriteGeometry(geometryindex);
-		reloadGeometry(boundbuffer, screenArea, context);
-		gl.endWriteGeometry(geometryindex);
 		gl.glPushMatrix();
 		gl.glTranslatef(0, 0, -.1f);
 		gl.glScalef(1, 1, 0);
 		gl.glMultMatrixf(context.getConverter().getMatrixWithHeight(), 0);
 		gl.color(1, 1, 1, 1);
-		gl.drawTrianglesWithTextureColored(getTexture(context.getGl()),
-				geometryindex, geometrytirs);
+		int textureIndex = getTexture(gl);
+
+		boolean geometryWritten = false;
+		int minChunkX = Integer.MAX_VALUE;
+		int maxChunkX = Integer.MIN_VALUE;
+		int firstY = screenArea.getLineY(0);
+		int lastLine = screenArea.getLines() - 1;
+		int minChunkY = Math.max(firstY, 0) / CHUNK_SIZE;
+		int maxY = Math.min(firstY + lastLine, mapHeight - 1);
+		int chunkY = minChunkY;
+		for (; chunkY * CHUNK_SIZE <= maxY; chunkY++) {
+			// the lines of the screen area in this row of chunks
+			int firstLine = Math.max(chunkY * CHUNK_SIZE - firstY, 0);
+			int endLine = Math.min(chunkY * CHUNK_SIZE + CHUNK_SIZE - 1 - firstY, lastLine);
+			int minX = Math.min(screenArea.getLineStartX(firstLine), screenArea.getLineStartX(endLine));
+			int maxX = Math.min(Math.max(screenArea.getLineEndX(firstLine), screenArea.getLineEndX(endLine)) + 1, mapWidth - 1);
+
+			int chunkX = Math.max(minX, 0) / CHUNK_SIZE;
+			minChunkX = Math.min(minChunkX, chunkX);
+			for (; chunkX * CHUNK_SIZE <= maxX; chunkX++) {
+				geometryWritten |= getChunk(chunkX, chunkY, mapWidth, mapHeight).draw(context, gl, textureIndex, frame);
+			}
+			maxChunkX = Math.max(maxChunkX, chunkX - 1);
+		}
 
 		gl.glPopMatrix();
+
+		if (!geometryWritten && minChunkX <= maxChunkX) {
+			prepareChunkNearScreen(context, gl, minChunkX - 1, maxChunkX + 1, minChunkY - 1, chunkY, mapWidth, mapHeight);
+		}
+		removeUnusedChunks(gl);
 	}
 
-	private void regenerateGeometry(GLDrawContext gl, MapRectangle screenArea) {
-		if (gl.isGeometryValid(geometryindex)) {
-			gl.removeGeometry(geometryindex);
+	/**
+	 * Writes the geometry of the first chunk around the screen that does not exist yet, so that it does not need to be written when it is
+	 * scrolled into the screen. At most one chunk is prepared per frame to keep the frame times even.
+	 */
+	private void prepareChunkNearScreen(MapDrawContext context, GLDrawContext gl, int minChunkX, int maxChunkX, int minChunkY, int maxChunkY,
+			int mapWidth, int mapHeight) {
+		for (int chunkY = Math.max(minChunkY, 0); chunkY <= maxChunkY && chunkY * CHUNK_SIZE < mapHeight; chunkY++) {
+			for (int chunkX = Math.max(minChunkX, 0); chunkX <= maxChunkX && chunkX * CHUNK_SIZE < mapWidth; chunkX++) {
+				if (!chunks.containsKey(getChunkKey(chunkX, chunkY))) {
+					getChunk(chunkX, chunkY, mapWidth, mapHeight).prepareGeometry(context, gl);
+					return;
+				}
+			}
+		}
+	}
+
+	private BackgroundChunk getChunk(int chunkX, int chunkY, int mapWidth, int mapHeight) {
+		Integer key = getChunkKey(chunkX, chunkY);
+		BackgroundChunk chunk = chunks.get(key);
+		if (chunk == null) {
+			int minX = chunkX * CHUNK_SIZE;
+			int minY = chunkY * CHUNK_SIZE;
+			chunk = new BackgroundChunk(minX, minY, Math.min(CHUNK_SIZE, mapWidth - minX), Math.min(CHUNK_SIZE, mapHeight - minY));
+			chunks.put(key, chunk);
 		}
-		bufferwidth = niceRoundUp(screenArea.getLineLength() + 1);
-		bufferheight = niceRoundUp(screenArea.getLines());
-		int count = bufferheight * bufferwidth;
-		fogOfWarStatus = new byte[count * 4];
-		geometryInvalid = new BitSet(count);
-		geometrytirs = count * 2;
-
-		geometryindex = gl.generateGeometry(geometrytirs * 3 * VERTEX_SIZE);
+		return chunk;
 	}
 
-	private static int niceRoundUp(int i) {
-		// int base = 1;
-		// while (i > base) {
-		// base *= 2;
-		// }
-		// return base;
-		return i;
+	private static Integer getChunkKey(int chunkX, int chunkY) {
+		return (chunkX << 16) | chunkY;
+	}
+
+	private void invalidateChangedChunks() {
+		synchronized (changedChunks) {
+			for (Integer key : changedChunks) {
+				BackgroundChunk chunk = chunks.get(key);
+				if (chunk != null) {
+					chunk.invalidateGeometry();
+				}
+			}
+			changedChunks.clear();
+		}
+		synchronized (fogOfWarChangedChunks) {
+			for (Integer key : fogOfWarChangedChunks) {
+				BackgroundChunk chunk = chunks.get(key);
+				if (chunk != null) {
+					chunk.invalidateFogOfWar();
+				}
+			}
+			fogOfWarChangedChunks.clear();
+		}
 	}
 
 	/**
-	 * Gets the geometry of the background as array.
+	 * Deletes the least recently drawn chunks, so that at most {@link #MAX_CACHED_CHUNKS} are kept. Chunks drawn in this frame are never deleted.
 	 * 
-	 * @param boundbuffer
-	 *            The buffer of opengl.
-	 * @param context
-	 *            The context to use.
-	 * @return The geometry as float array.
+	 * @param gl
+	 *            The context the chunks were drawn with.
 	 */
-	private void reloadGeometry(GLBuffer boundbuffer, MapRectangle area,
-			MapDrawContext context) {
-		boolean hasInvalidFields = !geometryInvalid.isEmpty();
-
-		int width = context.getMap().getWidth();
-		int height = context.getMap().getHeight();
-		int oldbuffertop = 0;
-		int oldbufferbottom = 0;
-		if (oldBufferPosition != null) {
-			oldbuffertop = oldBufferPosition.getLineY(0);
-			oldbufferbottom = oldbuffertop + bufferheight; // excluding
+	private void removeUnusedChunks(GLDrawContext gl) {
+		Iterator<BackgroundChunk> iterator = chunks.values().iterator();
+		while (chunks.size() > MAX_CACHED_CHUNKS && iterator.hasNext()) {
+			BackgroundChunk chunk = iterator.next();
+			if (chunk.getLastDrawnFrame() == frame) {
+				break;
+			}
+			chunk.delete(gl);
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * A part of the background with a size of up to {@link Background#CHUNK_SIZE} * {@link Background#CHUNK_SIZE} tiles.
+	 * <p>
+	 * The positions and texture coordinates of the triangles are stored in one geometry that is only written when the chunk is created or the
+	 * landscape changed. The colors, that contain the height shading and the fog of war, are stored in a separate small geometry, so that a change
+	 * of the fog of war does not need to write the whole chunk. The fog of war is only read again if the visible status changed in the chunk or
+	 * a point of it is still dimmed towards its visible status.
+	 */
+	private static final class BackgroundChunk {
+		private final int minX;
+		private final int minY;
+		private final int width;
+		private final int height;
+		private final int pointsPerLine;
+		private final int triangles;
+
+		/**
+		 * The current fog of war value of each point, dimmed towards the visible status.
+		 */
+		private final byte[] fogOfWar;
+		/**
+		 * The visible status of each point when the chunk was drawn the last time.
+		 */
+		private final byte[] visibleStatus;
+		/**
+		 * The height shading of each point.
+		 */
+		private final float[] brightness;
+		private final byte[] pointColors;
+
+		private int geometryindex = -1;
+		private int colorindex = -1;
+		private boolean geometryInvalid = true;
+		private boolean colorsInvalid = true;
+		private boolean fogOfWarInvalid = true;
+		private boolean fogOfWarInitialized = false;
+		private int lastDrawnFrame;
+
+		BackgroundChunk(int minX, int minY, int width, int height) {
+			this.minX = minX;
+			this.minY = minY;
+			this.width = width;
+			this.height = height;
+			this.pointsPerLine = width + 1;
+			this.triangles = width * height * 2;
+
+			int points = pointsPerLine * (height + 1);
+			fogOfWar = new byte[points];
+			visibleStatus = new byte[points];
+			brightness = new float[points];
+			pointColors = new byte[points];
+		}
+
+		void invalidateGeometry() {
+			geometryInvalid = true;
+		}
+
+		void invalidateFogOfWar() {
+			fogOfWarInvalid = true;
+		}
+
+		int getLastDrawnFrame() {
+			return lastDrawnFrame;
 		}
-		for (int line = 0; line < bufferheight; line++) {
-
-			int y = area.getLineY(line);
-			int minx = area.getLineStartX(line);
-			int maxx = minx + bufferwidth;
-			int oldminx = 0;
-			int oldmaxx = 0; // excluding
-			if (y >= oldbuffertop && y < oldbufferbottom) {
-				oldminx = oldBufferPosition.getLineStartX(y - oldbuffertop);
-				oldmaxx = oldminx + bufferwidth;
+
+		/**
+		 * Draws the chunk.
+		 * 
+		 * @return true if and only if the geometry of the chunk had to be written.
+		 */
+		boolean draw(MapDrawContext context, GLDrawContext gl, int textureIndex, int frame) {
+			lastDrawnFrame = frame;
+
+			boolean geometryWritten = prepareGeometry(context, gl);
+			if (!gl.isGeometryValid(geometryindex) || !gl.isGeometryValid(colorindex)) {
+				return geometryWritten;
 			}
-			boolean lineIsInMap = y >= 0 && y < height;
-
-			for (int x = minx; x < maxx; x++) {
-				int bufferPosition = getBufferPosition(y, x);
-				if (oldminx > x || oldmaxx <= x) {
-					redrawPoint(boundbuffer, context, x, y, false,
-							bufferPosition);
-				} else if (lineIsInMap && x >= 0 && x < width) {
-					if (hasInvalidFields) {
-						boolean invalid = false;
-						synchronized (this) {
-							invalid = geometryInvalid.get(bufferPosition);
-							geometryInvalid.clear(bufferPosition);
-						}
-						if (invalid) {
-							redrawPoint(boundbuffer, context, x, y, true,
-									bufferPosition);
-						}
-					} else if (context.getVisibleStatus(x, y) != fogOfWarStatus[bufferPosition * 4]) {
-						redrawPoint(boundbuffer, context, x, y, true,
-								bufferPosition);
-						invalidatePoint(x - 1, y); // only for next pass
-						invalidatePoint(x - 1, y - 1);
-						invalidatePoint(x - 1, y - 1);
+
+			if ((fogOfWarInvalid && updateFogOfWar(context)) || colorsInvalid) {
+				writeColors(context, gl);
+				colorsInvalid = false;
+			}
+
+			gl.drawTrianglesWithTextureColored(textureIndex, geometryindex, colorindex, triangles);
+			return geometryWritten;
+		}
+
+		/**
+		 * Creates the geometries of this chunk and writes the positions and texture coordinates, if this was not done before.
+		 * 
+		 * @return true if and only if the geometry was written.
+		 */
+		boolean prepareGeometry(MapDrawContext context, GLDrawContext gl) {
+			if (!gl.isGeometryValid(geometryindex)) {
+				geometryindex = gl.generateGeometry(triangles * 3 * VERTEX_SIZE);
+				geometryInvalid = true;
+			}
+			if (!gl.isGeometryValid(colorindex)) {
+				colorindex = gl.generateGeometry(triangles * 3 * COLOR_SIZE);
+				colorsInvalid = true;
+			}
+			if (!geometryInvalid || !gl.isGeometryValid(geometryindex)) {
+				return false;
+			}
+
+			writeGeometry(context, gl);
+			geometryInvalid = false;
+			colorsInvalid = true;
+			return true;
+		}
+
+		void delete(GLDrawContext gl) {
+			if (gl.isGeometryValid(geometryindex)) {
+				gl.removeGeometry(geometryindex);
+			}
+			if (gl.isGeometryValid(colorindex)) {
+				gl.removeGeometry(colorindex);
+			}
+		}
+
+		private void writeGeometry(MapDrawContext context, GLDrawContext gl) {
+			int mapWidth = context.getMap().getWidth();
+			int mapHeight = context.getMap().getHeight();
+
+			GLBuffer buffer = gl.startWriteGeometry(geometryindex);
+			buffer.position(0);
+			for (int y = minY; y < minY + height; y++) {
+				for (int x = minX; x < minX + width; x++) {
+					if (x < mapWidth - 1 && y < mapHeight - 1) {
+						addTriangle1ToGeometry(context, buffer, x, y);
+						addTriangle2ToGeometry(context, buffer, x, y);
+					} else {
+						addPseudoTrianglesToGeometry(context, buffer, x, y);
 					}
 				}
 			}
+			gl.endWriteGeometry(geometryindex);
+
+			for (int y = minY; y <= minY + height; y++) {
+				for (int x = minX; x <= minX + width; x++) {
+					brightness[getPointIndex(x, y)] = getBrightness(context, x, y, mapWidth, mapHeight);
+				}
+			}
 		}
 
-		oldBufferPosition = area;
-	}
+		/**
+		 * Dims the fog of war of all points towards their visible status. The fog of war stays invalid while a point has not reached its visible
+		 * status.
+		 * 
+		 * @return true if and only if the fog of war of a point changed.
+		 */
+		private boolean updateFogOfWar(MapDrawContext context) {
+			int mapWidth = context.getMap().getWidth();
+			int mapHeight = context.getMap().getHeight();
+			boolean changed = false;
+			boolean fading = false;
+
+			for (int y = minY; y <= minY + height && y < mapHeight; y++) {
+				int index = getPointIndex(minX, y);
+				for (int x = minX; x <= minX + width && x < mapWidth; x++, index++) {
+					byte status = context.getVisibleStatus(x, y);
+					if (!fogOfWarInitialized) {
+						fogOfWar[index] = status;
+						visibleStatus[index] = status;
+					} else if (fogOfWar[index] != status || visibleStatus[index] != status) {
+						fogOfWar[index] = dim(fogOfWar[index], status);
+						visibleStatus[index] = status;
+						changed = true;
+						fading |= fogOfWar[index] != status;
+					}
+				}
+			}
+			fogOfWarInvalid = fading;
 
-	/**
-	 * Redraws a point on the map to the buffer.
-	 * 
-	 * @param boundbuffer
-	 *            The buffer to use
-	 * @param context
-	 *            The context
-	 * @param x
-	 *            The x coordinate of the point
-	 * @param y
-	 *            The y coordinate of the point
-	 * @param wasVisible
-	 *            true if and only if the point was already in the buffer.
-	 */
-	private void redrawPoint(GLBuffer boundbuffer, MapDrawContext context,
-			int x, int y, boolean wasVisible, int pointOffset) {
-		boundbuffer.position(pointOffset * 2 * 3 * VERTEX_SIZE);
-
-		if (x >= 0 && y >= 0 && x < context.getMap().getWidth() - 1
-				&& y < context.getMap().getHeight() - 1) {
-			if (wasVisible) {
-				dimFogOfWarBuffer(context, (pointOffset * 4), x, y);
-				dimFogOfWarBuffer(context, (pointOffset * 4) + 1, x + 1, y);
-				dimFogOfWarBuffer(context, (pointOffset * 4) + 2, x, y + 1);
-				dimFogOfWarBuffer(context, (pointOffset * 4) + 3, x + 1, y + 1);
-			} else {
-				addFogOfWarBuffer(context, (pointOffset * 4), x, y);
-				addFogOfWarBuffer(context, (pointOffset * 4) + 1, x + 1, y);
-				addFogOfWarBuffer(context, (pointOffset * 4) + 2, x, y + 1);
-				addFogOfWarBuffer(context, (pointOffset * 4) + 3, x + 1, y + 1);
+			if (!fogOfWarInitialized) {
+				fogOfWarInitialized = true;
+				return true;
 			}
-			addTrianglesToGeometry(context, boundbuffer, x, y, pointOffset * 4);
-		} else {
-			addPseudoTrianglesToGeometry(context, boundbuffer, x, y);
+			return changed;
+		}
+
+		private void writeColors(MapDrawContext context, GLDrawContext gl) {
+			int mapWidth = context.getMap().getWidth();
+			int mapHeight = context.getMap().getHeight();
+
+			for (int i = 0; i < pointColors.length; i++) {
+				if (visibleStatus[i] <= 0) {
+					pointColors[i] = 0;
+				} else {
+					float color = brightness[i] * fogOfWar[i] / CommonConstants.FOG_OF_WAR_VISIBLE;
+					pointColors[i] = (byte) (int) (color * 255f);
+				}
+			}
+
+			GLBuffer buffer = gl.startWriteGeometry(colorindex);
+			buffer.position(0);
+			for (int y = minY; y < minY + height; y++) {
+				for (int x = minX; x < minX + width; x++) {
+					if (x < mapWidth - 1 && y < mapHeight - 1) {
+						int topLeft = getPointIndex(x, y);
+						int bottomLeft = topLeft + pointsPerLine;
+						// the points in the same order as the triangles in the geometry.
+						addColor(buffer, pointColors[topLeft]);
+						addColor(buffer, pointColors[bottomLeft]);
+						addColor(buffer, pointColors[bottomLeft + 1]);
+						addColor(buffer, pointColors[topLeft]);
+						addColor(buffer, pointColors[bottomLeft + 1]);
+						addColor(buffer, pointColors[topLeft + 1]);
+					} else {
+						for (int i = 0; i < 6; i++) {
+							addColor(buffer, (byte) 0);
+						}
+					}
+				}
+			}
+			gl.endWriteGeometry(colorindex);
 		}
-	}
 
-	private synchronized void invalidatePoint(int x, int y) {
-		geometryInvalid.set(getBufferPosition(y, x));
+		private int getPointIndex(int x, int y) {
+			return (y - minY) * pointsPerLine + x - minX;
+		}
 	}
 
-	private void addFogOfWarBuffer(MapDrawContext context, int offset, int x,
-			int y) {
-		fogOfWarStatus[offset] = context.getVisibleStatus(x, y);
+	private static float getBrightness(MapDrawContext context, int x, int y, int mapWidth, int mapHeight) {
+		if (x <= 0 || x >= mapWidth - 2 || y <= 0 || y >= mapHeight - 2) {
+			return 0;
+		} else {
+			int height1 = context.getHeight(x, y - 1);
+			int height2 = context.getHeight(x, y);
+			float fcolor = 0.9f + (height1 - height2) * .1f;
+			if (fcolor > 1.0f) {
+				fcolor = 1.0f;
+			} else if (fcolor < 0.4f) {
+				fcolor = 0.4f;
+			}
+			return fcolor;
+		}
 	}
 
-	/**
-	 * Dims the fog of war buffer
-	 * 
-	 * @param context
-	 *            The context
-	 * @param offset
-	 *            The fog of war buffer offset
-	 * @param x
-	 *            The x coordinate of the tile
-	 * @param y
-	 *            The y coordinate of the tile.
-	 * @return true if and only if the dim has finished.
-	 */
-	private void dimFogOfWarBuffer(MapDrawContext context, int offset, int x,
-			int y) {
-		byte newFog = context.getVisibleStatus(x, y);
-		fogOfWarStatus[offset] = dim(fogOfWarStatus[offset], newFog);
+	private static void addColor(GLBuffer buffer, byte color) {
+		buffer.putByte(color);
+		buffer.putByte(color);
+		buffer.putByte(color);
+		buffer.putByte((byte) 255);
 	}
 
 	private static byte dim(byte value, byte dimTo) {
@@ -1481,35 +1836,6 @@ public class Background implements IGraphicsBackgroundListener {
 		}
 	}
 
-	private final int getBufferPosition(int y, int x) {
-		int linepos = y % bufferheight;
-		int colpos = x % bufferwidth;
-		while (linepos < 0) {
-			linepos += bufferheight;
-		}
-		while (colpos < 0) {
-			colpos += bufferwidth;
-		}
-
-		return (linepos * bufferwidth + colpos);
-	}
-
-	/**
-	 * Adds the two triangles for a point to the list of verteces
-	 * 
-	 * @param context
-	 * @param buffer
-	 * @param offset
-	 * @param x
-	 * @param y
-	 * @param fogOfWar
-	 */
-	private void addTrianglesToGeometry(MapDrawContext context,
-			GLBuffer buffer, int x, int y, int fogBase) {
-		addTriangle1ToGeometry(context, buffer, x, y, fogBase);
-		addTriangle2ToGeometry(context, buffer, x, y, fogBase);
-	}
-
 	private static void addPseudoTrianglesToGeometry(MapDrawContext context,
 			GLBuffer buffer, int x, int y) { // manually do
 												// everything...
@@ -1534,8 +1860,8 @@ public class Background implements IGraphicsBackgroundListener {
 	 * @param x
 	 * @param y
 	 */
-	private void addTriangle1ToGeometry(MapDrawContext context,
-			GLBuffer buffer, int x, int y, int fogBase) {
+	private static void addTriangle1ToGeometry(MapDrawContext context,
+			GLBuffer buffer, int x, int y) {
 		ELandscapeType toplandscape = context.getLandscape(x, y);
 		ELandscapeType leftlandscape = context.getLandscape(x, y + 1);
 		ELandscapeType rightlandscape = context.getLandscape(x + 1, y + 1);
@@ -1578,32 +1904,30 @@ public class Background implements IGraphicsBackgroundListener {
 			// top
 			float u = (relativeTexCoords[0] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[1] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x, y, u, v, fogBase + 0);
+			addPointToGeometry(context, buffer, x, y, u, v);
 		}
 		{
 			// left
 			float u = (relativeTexCoords[2] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[3] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x, y + 1, u, v, fogBase + 2);
+			addPointToGeometry(context, buffer, x, y + 1, u, v);
 		}
 		{
 			// right
 			float u = (relativeTexCoords[4] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[5] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x + 1, y + 1, u, v, fogBase + 3);
+			addPointToGeometry(context, buffer, x + 1, y + 1, u, v);
 		}
 	}
 
-	private void addPointToGeometry(MapDrawContext context, GLBuffer buffer,
-			int x, int y, float u, float v, int fogOffset) {
+	private static void addPointToGeometry(MapDrawContext context, GLBuffer buffer,
+			int x, int y, float u, float v) {
 		buffer.putFloat(x);
 		buffer.putFloat(y);
 		buffer.putFloat(context.getHeight(x, y));
 
 		buffer.putFloat(u);
 		buffer.putFloat(v);
-
-		addVertexcolor(context, buffer, x, y, fogOffset);
 	}
 
 	private static void addBlackPointToGeometry(MapDrawContext context,
@@ -1613,14 +1937,10 @@ public class Background implements IGraphicsBackgroundListener {
 		buffer.putFloat(context.getHeight(x, y));
 		buffer.putFloat(0);
 		buffer.putFloat(0);
-		buffer.putByte(BLACK[0]);
-		buffer.putByte(BLACK[1]);
-		buffer.putByte(BLACK[2]);
-		buffer.putByte(BLACK[3]);
 	}
 
-	private void addTriangle2ToGeometry(MapDrawContext context,
-			GLBuffer buffer, int x, int y, int fogBase) {
+	private static void addTriangle2ToGeometry(MapDrawContext context,
+			GLBuffer buffer, int x, int y) {
 		ELandscapeType leftlandscape = context.getLandscape(x, y);
 		ELandscapeType bottomlandscape = context.getLandscape(x + 1, y + 1);
 		ELandscapeType rightlandscape = context.getLandscape(x + 1, y);
@@ -1664,19 +1984,19 @@ public class Background implements IGraphicsBackgroundListener {
 			// left
 			float u = (relativeTexCoords[0] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[1] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x, y, u, v, fogBase + 0);
+			addPointToGeometry(context, buffer, x, y, u, v);
 		}
 		{
 			// bottom
 			float u = (relativeTexCoords[2] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[3] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x + 1, y + 1, u, v, fogBase + 3);
+			addPointToGeometry(context, buffer, x + 1, y + 1, u, v);
 		}
 		{
 			// right
 			float u = (relativeTexCoords[4] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[5] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x + 1, y, u, v, fogBase + 1);
+			addPointToGeometry(context, buffer, x + 1, y, u, v);
 		}
 
 	}
@@ -1689,50 +2009,34 @@ public class Background implements IGraphicsBackgroundListener {
 		}
 	}
 
-	private void addVertexcolor(MapDrawContext context, GLBuffer buffer, int x,
-			int y, int fogOffset) {
-		byte color;
-
-		if (x <= 0 || x >= context.getMap().getWidth() - 2 || y <= 0
-				|| y >= context.getMap().getHeight() - 2
-				|| context.getVisibleStatus(x, y) <= 0) {
-			color = 0;
-		} else {
-			int height1 = context.getHeight(x, y - 1);
-			int height2 = context.getHeight(x, y);
-			float fcolor = 0.9f + (height1 - height2) * .1f;
-			if (fcolor > 1.0f) {
-				fcolor = 1.0f;
-			} else if (fcolor < 0.4f) {
-				fcolor = 0.4f;
+	@Override
+	public void backgroundChangedAt(int x, int y) {
+		// the tiles around the point and the shading of the point below it depend on the point.
+		int minChunkX = Math.max(x - 1, 0) / CHUNK_SIZE;
+		int maxChunkX = Math.max(x, 0) / CHUNK_SIZE;
+		int minChunkY = Math.max(y - 1, 0) / CHUNK_SIZE;
+		int maxChunkY = Math.max(y + 1, 0) / CHUNK_SIZE;
+		synchronized (changedChunks) {
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+					changedChunks.add(getChunkKey(chunkX, chunkY));
+				}
 			}
-			fcolor *=
-					(float) fogOfWarStatus[fogOffset]
-							/ CommonConstants.FOG_OF_WAR_VISIBLE;
-			fcolor *= 255f;
-			color = (byte) (int) fcolor;
 		}
-
-		buffer.putByte(color);
-		buffer.putByte(color);
-		buffer.putByte(color);
-		buffer.putByte((byte) 255);
 	}
 
 	@Override
-	public void backgroundChangedAt(int x, int y) {
-		if (oldBufferPosition != null) {
-			if (oldBufferPosition.contains(x, y)) {
-				invalidatePoint(x, y);
-			}
-			if (oldBufferPosition.contains(x - 1, y)) {
-				invalidatePoint(x - 1, y);
-			}
-			if (oldBufferPosition.contains(x - 1, y - 1)) {
-				invalidatePoint(x - 1, y - 1);
-			}
-			if (oldBufferPosition.contains(x, y - 1)) {
-				invalidatePoint(x, y - 1);
+	public void fogOfWarChanged(int minX, int minY, int maxX, int maxY) {
+		// the points on the left and top border of a chunk are shared with the chunk before it.
+		int minChunkX = Math.max(minX - 1, 0) / CHUNK_SIZE;
+		int maxChunkX = Math.max(maxX, 0) / CHUNK_SIZE;
+		int minChunkY = Math.max(minY - 1, 0) / CHUNK_SIZE;
+		int maxChunkY = Math.max(maxY, 0) / CHUNK_SIZE;
+		synchronized (fogOfWarChangedChunks) {
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+					fogOfWarChangedChunks.add(getChunkKey(chunkX, chunkY));
+				}
 			}
 		}
 	}
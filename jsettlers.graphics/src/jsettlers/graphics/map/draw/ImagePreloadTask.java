@@ -3,11 +3,20 @@ package jsettlers.graphics.map.draw;
 import jsettlers.graphics.map.draw.settlerimages.SettlerImageMap;
 
 public class ImagePreloadTask implements Runnable {
+	/**
+	 * The settler image map, the background and the four image maps.
+	 */
+	private static final int STEPS = 6;
+
+	private volatile int finishedSteps = 0;
+
 	@Override
 	public void run() {
 		SettlerImageMap.getInstance();
+		finishedSteps++;
 
 		Background.preloadTexture();
+		finishedSteps++;
 
 		ImageProvider ip = ImageProvider.getInstance();
 		try {
@@ -58,6 +67,7 @@ public class ImagePreloadTask implements Runnable {
 			}, "1");
 		} catch (Throwable e) {
 		}
+		finishedSteps++;
 
 		try {
 			ip.getFileReader(10).generateImageMap(2048, 2048, new int[] {
@@ -102,6 +112,7 @@ public class ImagePreloadTask implements Runnable {
 		} catch (Throwable e) {
 			e.printStackTrace();
 		}
+		finishedSteps++;
 
 		try {
 			ip.getFileReader(11).generateImageMap(2048, 2048, new int[] {
@@ -170,6 +181,7 @@ public class ImagePreloadTask implements Runnable {
 		} catch (Throwable e) {
 			e.printStackTrace();
 		}
+		finishedSteps++;
 
 		try {
 			ip.getFileReader(12).generateImageMap(2048, 2048, new int[] {
@@ -208,5 +220,13 @@ public class ImagePreloadTask implements Runnable {
 		} catch (Throwable e) {
 			e.printStackTrace();
 		}
+		finishedSteps++;
+	}
+
+	/**
+	 * @return The part of the images that has been loaded, from 0 to 1.
+	 */
+	public float getProgress() {
+		return (float) finishedSteps / STEPS;
 	}
 }
@@ -78,6 +78,8 @@ public final class ImageProvider {
 	 */
 	private List<File> lookupPaths = new ArrayList<File>();
 
+	private ImagePreloadTask preloadTask = null;
+
 	private ImageProvider() {
 	}
 
@@ -256,11 +258,20 @@ public final class ImageProvider {
 	}
 
 	public Thread startPreloading() {
-		Thread thread = new Thread(new ImagePreloadTask(), "image preloader");
+		preloadTask = new ImagePreloadTask();
+		Thread thread = new Thread(preloadTask, "image preloader");
 		thread.start();
 		return thread;
 	}
 
+	/**
+	 * @return The progress of the last preloading started with {@link #startPreloading()}, from 0 to 1.
+	 */
+	public float getPreloadProgress() {
+		ImagePreloadTask task = preloadTask;
+		return task == null ? 1 : task.getProgress();
+	}
+
 	/**
 	 * Adds a preload task that is executed on the OpenGl thread with a opengl context.
 	 * <p>
@@ -2,7 +2,6 @@ package jsettlers.graphics.reader;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 import jsettlers.graphics.image.GuiImage;
 import jsettlers.graphics.image.Image;
@@ -13,7 +12,8 @@ import jsettlers.graphics.image.SettlerImage;
 import jsettlers.graphics.image.ShadowImage;
 import jsettlers.graphics.image.SingleImage;
 import jsettlers.graphics.image.Torso;
-import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
+import jsettlers.graphics.reader.bytereader.MappedByteReader;
 import jsettlers.graphics.reader.translator.DatBitmapTranslator;
 import jsettlers.graphics.reader.translator.GuiTranslator;
 import jsettlers.graphics.reader.translator.LandscapeTranslator;
@@ -190,7 +190,10 @@ public class AdvancedDatFileReader implements DatFileSet {
 	static final DatBitmapTranslator<GuiImage> GUI_TRANSLATOR =
 			new GuiTranslator();
 
-	private ByteReader reader = null;
+	/**
+	 * The mapping of the file. Every load creates its own reader of it, so images can be loaded by several threads.
+	 */
+	private MappedByteReader mapping = null;
 	private final File file;
 
 	/**
@@ -240,17 +243,8 @@ public class AdvancedDatFileReader implements DatFileSet {
 	@SuppressWarnings("unchecked")
 	public void initialize() {
 		try {
-			try {
-				reader = new ByteReader(new RandomAccessFile(file, "r"));
-				initFromReader(file, reader);
-
-			} catch (IOException e) {
-				if (reader != null) {
-					reader.close();
-					reader = null;
-				}
-				throw e;
-			}
+			mapping = MappedByteReader.map(file);
+			initFromReader(file, mapping.createReaderAt(0));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -287,7 +281,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 		}
 	}
 
-	private void initFromReader(File file, ByteReader reader)
+	private void initFromReader(File file, IByteReader reader)
 			throws IOException {
 		int[] sequenceIndexStarts =
 				readSequenceIndexStarts(file.length(), reader);
@@ -304,7 +298,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 	}
 
 	private static int[] readSequenceIndexStarts(long filelength,
-			ByteReader reader) throws IOException {
+			IByteReader reader) throws IOException {
 		reader.assumeToRead(FILE_START);
 		int fileSize = reader.read32();
 
@@ -342,7 +336,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 	 * @throws IOException
 	 *             if an read error occurred.
 	 */
-	private void readSequencesAt(ByteReader reader, int sequenceIndexStart)
+	private void readSequencesAt(IByteReader reader, int sequenceIndexStart)
 			throws IOException {
 		// read data index 0
 		reader.skipTo(sequenceIndexStart);
@@ -440,6 +434,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 		int position = settlerstarts[index];
 		long[] framePositions = readSequenceHeader(position);
 
+		IByteReader reader = mapping.createReaderAt(position);
 		SettlerImage[] images = new SettlerImage[framePositions.length];
 		for (int i = 0; i < framePositions.length; i++) {
 			reader.skipTo(framePositions[i]);
@@ -462,7 +457,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 	}
 
 	private long[] readSequenceHeader(int position) throws IOException {
-		reader.skipTo(position);
+		IByteReader reader = mapping.createReaderAt(position);
 
 		reader.assumeToRead(START);
 		int frameCount = reader.read8();
@@ -522,15 +517,14 @@ public class AdvancedDatFileReader implements DatFileSet {
 		}
 	}
 
-	public ByteReader getReaderForLandscape(int index) throws IOException {
+	public IByteReader getReaderForLandscape(int index) throws IOException {
 		initializeIfNeeded();
-		reader.skipTo(landscapestarts[index]);
-		return reader;
+		return mapping.createReaderAt(landscapestarts[index]);
 	}
 
 	private void loadLandscapeImage(int index) {
 		try {
-			reader.skipTo(landscapestarts[index]);
+			IByteReader reader = mapping.createReaderAt(landscapestarts[index]);
 			LandscapeImage image =
 					DatBitmapReader.getImage(LANDSCAPE_TRANSLATOR, reader);
 			landscapeimages[index] = image;
@@ -577,9 +571,14 @@ public class AdvancedDatFileReader implements DatFileSet {
 		}
 	}
 
+	public IByteReader getReaderForGui(int index) throws IOException {
+		initializeIfNeeded();
+		return mapping.createReaderAt(guistarts[index]);
+	}
+
 	private void loadGuiImage(int index) {
 		try {
-			reader.skipTo(guistarts[index]);
+			IByteReader reader = mapping.createReaderAt(guistarts[index]);
 			GuiImage image = DatBitmapReader.getImage(GUI_TRANSLATOR, reader);
 			guiimages[index] = image;
 		} catch (IOException e) {
@@ -603,16 +602,15 @@ public class AdvancedDatFileReader implements DatFileSet {
 	}
 
 	/**
-	 * Gets a reader positioned at the given settler
+	 * Gets a new reader positioned at the given settler
 	 * 
 	 * @param pointer
 	 * @return
 	 * @throws IOException
 	 */
-	public ByteReader getReaderForPointer(long pointer) throws IOException {
+	public IByteReader getReaderForPointer(long pointer) throws IOException {
 		initializeIfNeeded();
-		reader.skipTo(pointer);
-		return reader;
+		return mapping.createReaderAt(pointer);
 	}
 
 	public void generateImageMap(int width, int height, int[] sequences,
@@ -620,9 +618,13 @@ public class AdvancedDatFileReader implements DatFileSet {
 		initializeIfNeeded();
 
 		MultiImageMap map = new MultiImageMap(width, height, id);
-		if (!map.hasCache()) {
-			map.addSequences(this, sequences, settlersequences);
-			map.writeCache();
-		}
+		map.load(this, sequences, settlersequences);
+	}
+
+	/**
+	 * @return The dat file this reader reads.
+	 */
+	public File getFile() {
+		return file;
 	}
 }
\ No newline at end of file
@@ -3,7 +3,7 @@ package jsettlers.graphics.reader;
 import java.io.IOException;
 
 import jsettlers.graphics.image.Image;
-import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
 import jsettlers.graphics.reader.translator.DatBitmapTranslator;
 import jsettlers.graphics.reader.translator.HeaderType;
 
@@ -67,7 +67,7 @@ public final class DatBitmapReader<T extends Image> {
 	 * @return The short array given, or null if the short array was not big enough.
 	 * @throws IOException
 	 */
-	public static <T extends Image> void uncompressImage(ByteReader reader,
+	public static <T extends Image> void uncompressImage(IByteReader reader,
 			DatBitmapTranslator<T> translator, ImageMetadata metadata,
 			ImageArrayProvider array) throws IOException {
 		long currentPos = reader.getReadBytes();
@@ -122,7 +122,7 @@ public final class DatBitmapReader<T extends Image> {
 	 * @throws IOException
 	 */
 	private static <T extends Image> void readCompressedData(
-			ByteReader reader, DatBitmapTranslator<T> translator, int width,
+			IByteReader reader, DatBitmapTranslator<T> translator, int width,
 			int lines, ImageArrayProvider array) throws IOException {
 		short transparent = translator.getTransparentColor();
 		// TODO: buffer the buffer but be thread safe!
@@ -234,7 +234,7 @@ public final class DatBitmapReader<T extends Image> {
 	 *             If an read error occurred.
 	 */
 	public static <T extends Image> T getImage(
-			DatBitmapTranslator<T> translator, ByteReader reader)
+			DatBitmapTranslator<T> translator, IByteReader reader)
 			throws IOException {
 		ImageMetadata metadata = new ImageMetadata();
 		ShortArrayWriter array = new ShortArrayWriter();
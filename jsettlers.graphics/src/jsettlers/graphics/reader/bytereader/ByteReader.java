@@ -8,7 +8,7 @@ import java.io.RandomAccessFile;
  * 
  * @author michael
  */
-public class ByteReader {
+public class ByteReader implements IByteReader {
 
 	private static final int CACHE_SIZE = 10000;
 
@@ -0,0 +1,94 @@
+package jsettlers.graphics.reader.bytereader;
+
+import java.io.IOException;
+
+/**
+ * A little endian reader for the data of a dat file.
+ */
+public interface IByteReader {
+
+	/**
+	 * Reads a byte from the stream.
+	 *
+	 * @return The byte's value.
+	 * @throws IOException
+	 *             If an io error occured.
+	 */
+	int read8() throws IOException;
+
+	/**
+	 * Reads a 16 bit int.
+	 *
+	 * @return The int.
+	 * @throws IOException
+	 *             If an io error occured.
+	 */
+	int read16() throws IOException;
+
+	/**
+	 * Reads a signed 16 bit value.
+	 *
+	 * @return The signed 16 bit value
+	 * @throws IOException
+	 *             If an io error occured.
+	 */
+	int read16signed() throws IOException;
+
+	/**
+	 * Reads an int with 32 bit from the stram.
+	 *
+	 * @return The int's value.
+	 * @throws IOException
+	 *             If an IO error occured.
+	 */
+	int read32() throws IOException;
+
+	/**
+	 * Reads a byte stream from the stream.
+	 *
+	 * @param b
+	 *            The byte array to read to.
+	 * @param off
+	 *            The offset in the array
+	 * @param len
+	 *            The number of bytes to read.
+	 * @return The number of really read bytes.
+	 * @throws IOException
+	 *             If an io error occurred.
+	 */
+	int read(byte[] b, int off, int len) throws IOException;
+
+	/**
+	 * Assumes to read the given data.
+	 *
+	 * @param toRead
+	 *            The array that the read bytes should be like.
+	 * @throws IOException
+	 *             If the read data does not match the given data.
+	 */
+	void assumeToRead(byte[] toRead) throws IOException;
+
+	/**
+	 * Skipps to a given position.
+	 *
+	 * @param pos
+	 *            The position to go to.
+	 * @return The actual position we went to.
+	 * @throws IOException
+	 *             If an IO error occured.
+	 */
+	long skipTo(long pos) throws IOException;
+
+	/**
+	 * @return The position in the stream.
+	 */
+	long getReadBytes();
+
+	/**
+	 * Closes the underlying stream.
+	 *
+	 * @throws IOException
+	 *             If the close failed.
+	 */
+	void close() throws IOException;
+}
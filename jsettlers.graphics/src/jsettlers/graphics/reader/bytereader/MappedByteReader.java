@@ -0,0 +1,131 @@
+package jsettlers.graphics.reader.bytereader;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link IByteReader} reading from a memory mapping of the file.
+ * <p>
+ * The mapping is created once by {@link #map(File)}. Every reader has its own position, so several threads can read the same mapping
+ * concurrently as long as each thread uses its own reader, created with {@link #createReaderAt(long)}.
+ */
+public final class MappedByteReader implements IByteReader {
+
+	private final ByteBuffer mapping;
+	private final ByteBuffer buffer;
+
+	private MappedByteReader(ByteBuffer mapping, long pos) throws IOException {
+		this.mapping = mapping;
+		// a duplicate shares the content but has its own position.
+		this.buffer = mapping.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		skipTo(pos);
+	}
+
+	/**
+	 * Maps the given file into memory.
+	 *
+	 * @param file
+	 *            The file to map.
+	 * @return A reader at the start of the file.
+	 * @throws IOException
+	 *             If the file could not be mapped.
+	 */
+	public static MappedByteReader map(File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			// the mapping stays valid after the channel is closed.
+			FileChannel channel = in.getChannel();
+			return new MappedByteReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), 0);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Creates a new reader of the same mapping.
+	 *
+	 * @param pos
+	 *            The position the new reader starts at.
+	 * @return The new reader.
+	 * @throws IOException
+	 *             If the position is outside of the file.
+	 */
+	public MappedByteReader createReaderAt(long pos) throws IOException {
+		return new MappedByteReader(mapping, pos);
+	}
+
+	private void assertRemaining(int bytecount) throws EOFException {
+		if (buffer.remaining() < bytecount) {
+			throw new EOFException("Tried to read " + bytecount + " bytes at position " + buffer.position() + ", but the file ends at "
+					+ buffer.limit());
+		}
+	}
+
+	@Override
+	public int read8() throws IOException {
+		assertRemaining(1);
+		return 0xff & buffer.get();
+	}
+
+	@Override
+	public int read16() throws IOException {
+		assertRemaining(2);
+		return 0xffff & buffer.getShort();
+	}
+
+	@Override
+	public int read16signed() throws IOException {
+		assertRemaining(2);
+		return buffer.getShort();
+	}
+
+	@Override
+	public int read32() throws IOException {
+		assertRemaining(4);
+		return buffer.getInt();
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		assertRemaining(len);
+		buffer.get(b, off, len);
+		return len;
+	}
+
+	@Override
+	public void assumeToRead(byte[] toRead) throws IOException {
+		assertRemaining(toRead.length);
+		for (int i = 0; i < toRead.length; i++) {
+			byte read = buffer.get();
+			if (read != toRead[i]) {
+				throw new IOException("IO error: expected to read " + toRead[i] + " but got " + read);
+			}
+		}
+	}
+
+	@Override
+	public long skipTo(long pos) throws IOException {
+		if (pos < 0 || pos > buffer.limit()) {
+			throw new EOFException("Position " + pos + " is outside of the file with length " + buffer.limit());
+		}
+		buffer.position((int) pos);
+		return pos;
+	}
+
+	@Override
+	public long getReadBytes() {
+		return buffer.position();
+	}
+
+	/**
+	 * Does nothing, the mapping is released when it is not used any more.
+	 */
+	@Override
+	public void close() {
+	}
+}
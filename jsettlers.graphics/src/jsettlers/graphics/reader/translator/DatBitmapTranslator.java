@@ -4,7 +4,7 @@ import java.io.IOException;
 
 import jsettlers.graphics.image.Image;
 import jsettlers.graphics.reader.ImageMetadata;
-import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
 
 /**
  * This interfaces defines methods that a reader for bitmaps in dat files must provide to convert the dat files to opengl images.
@@ -29,7 +29,7 @@ public interface DatBitmapTranslator<T extends Image> {
 	 * @throws IOException
 	 *             If an error occured.
 	 */
-	short readUntransparentColor(ByteReader reader)
+	short readUntransparentColor(IByteReader reader)
 			throws IOException;
 
 	/**
@@ -4,7 +4,7 @@ import java.io.IOException;
 
 import jsettlers.graphics.image.GuiImage;
 import jsettlers.graphics.reader.ImageMetadata;
-import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
 
 public class GuiTranslator implements DatBitmapTranslator<GuiImage> {
 
@@ -14,7 +14,7 @@ public class GuiTranslator implements DatBitmapTranslator<GuiImage> {
 	}
 
 	@Override
-	public short readUntransparentColor(ByteReader reader) throws IOException {
+	public short readUntransparentColor(IByteReader reader) throws IOException {
 		return (short) ((reader.read16() << 1) | 0x01);
 	}
 
@@ -4,7 +4,7 @@ import java.io.IOException;
 
 import jsettlers.graphics.image.LandscapeImage;
 import jsettlers.graphics.reader.ImageMetadata;
-import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
 
 public class LandscapeTranslator implements DatBitmapTranslator<LandscapeImage> {
 	@Override
@@ -13,7 +13,7 @@ public class LandscapeTranslator implements DatBitmapTranslator<LandscapeImage>
 	}
 
 	@Override
-	public short readUntransparentColor(ByteReader reader) throws IOException {
+	public short readUntransparentColor(IByteReader reader) throws IOException {
 		return (short) ((reader.read16() << 1) | 0x01);
 	}
 
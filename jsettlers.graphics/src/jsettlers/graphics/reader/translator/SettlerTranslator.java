@@ -4,7 +4,7 @@ import java.io.IOException;
 
 import jsettlers.graphics.image.SettlerImage;
 import jsettlers.graphics.reader.ImageMetadata;
-import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
 
 /**
  * This class translates settler images.
@@ -30,7 +30,7 @@ public class SettlerTranslator implements DatBitmapTranslator<SettlerImage> {
 	}
 
 	@Override
-	public short readUntransparentColor(ByteReader reader)
+	public short readUntransparentColor(IByteReader reader)
 			throws IOException {
 		return (short) ((reader.read16() << 1) | 0x01);
 	}
@@ -4,7 +4,7 @@ import java.io.IOException;
 
 import jsettlers.graphics.image.ShadowImage;
 import jsettlers.graphics.reader.ImageMetadata;
-import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
 
 /**
  * This class translates shadows.
@@ -14,7 +14,7 @@ import jsettlers.graphics.reader.bytereader.ByteReader;
  */
 public class ShadowTranslator implements DatBitmapTranslator<ShadowImage> {
 	@Override
-	public short readUntransparentColor(ByteReader reader) throws IOException {
+	public short readUntransparentColor(IByteReader reader) throws IOException {
 		return 0;
 	}
 
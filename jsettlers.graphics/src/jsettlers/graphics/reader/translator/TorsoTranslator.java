@@ -4,7 +4,7 @@ import java.io.IOException;
 
 import jsettlers.graphics.image.Torso;
 import jsettlers.graphics.reader.ImageMetadata;
-import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
 
 public class TorsoTranslator implements DatBitmapTranslator<Torso> {
 	@Override
@@ -13,7 +13,7 @@ public class TorsoTranslator implements DatBitmapTranslator<Torso> {
 	}
 
 	@Override
-	public short readUntransparentColor(ByteReader reader) throws IOException {
+	public short readUntransparentColor(IByteReader reader) throws IOException {
 		int read = (reader.read8() & 0x1f); // only 5 bit.
 		return (short) (read << 11 | read << 6 | read << 1 | 0x01);
 		// return (short) ((read & 0xff) | 0xff00);
@@ -1,32 +1,65 @@
 package jsettlers.algorithms.borders;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.BitSet;
 
-import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
 
 /**
  * This thread calculates the positions that represent the border between the areas occupied by different players.
- * 
+ * <p />
+ * Positions that need to be checked are marked in a dirty bit set. The thread takes all marked positions as one batch, so a position is only
+ * calculated once per batch, even if it has been marked multiple times or is the neighbor of several marked positions. The positions of a batch
+ * are processed row by row on primitive arrays holding the players and blocked state of the rows.
+ *
  * @author Andreas Eberle
- * 
+ *
  */
 public class BordersThread implements Runnable {
 
 	private final IBordersThreadGrid grid;
-	private final LinkedBlockingQueue<ShortPoint2D> positionsQueue = new LinkedBlockingQueue<ShortPoint2D>();
+	private final short width;
+	private final short height;
 	private final Thread bordersThread;
 
+	private BitSet dirtyPositions;
+	private BitSet batchPositions;
+	private int queuedPositions = 0;
+	private long firstQueuedTime = 0;
+
+	private final BitSet affectedPositions;
+	private final byte[][] rowPlayers = new byte[3][];
+	private final boolean[][] rowNotBlocked = new boolean[3][];
+
+	private volatile int lastBatchSize;
+	private volatile long lastBatchLatency;
+	private volatile long maxBatchLatency;
+	private volatile long processedBatches;
+
 	private boolean canceled = false;
 
 	/**
 	 * This constructor creates a new instance of {@link BordersThread} and automatically launches a thread for it called "bordersThread".
-	 * 
+	 *
 	 * @param grid
 	 *            the grid on that the {@link BordersThread} will be operating
+	 * @param width
+	 *            width of the grid
+	 * @param height
+	 *            height of the grid
 	 */
-	public BordersThread(IBordersThreadGrid grid) {
+	public BordersThread(IBordersThreadGrid grid, short width, short height) {
 		this.grid = grid;
+		this.width = width;
+		this.height = height;
+
+		this.dirtyPositions = new BitSet(width * height);
+		this.batchPositions = new BitSet(width * height);
+		this.affectedPositions = new BitSet(width * height);
+		for (int i = 0; i < 3; i++) {
+			rowPlayers[i] = new byte[width + 2];
+			rowNotBlocked[i] = new boolean[width + 2];
+		}
+
 		this.bordersThread = new Thread(this);
 		this.bordersThread.setName("BordersThread");
 		this.bordersThread.setDaemon(true);
@@ -35,74 +68,206 @@ public class BordersThread implements Runnable {
 	@Override
 	public void run() {
 		while (!canceled) {
-			ShortPoint2D position = null;
-			while (position == null && !canceled) {
-				try {
-					position = positionsQueue.take();
-				} catch (InterruptedException e) {
+			try {
+				waitForPositions();
+				if (!canceled) {
+					calculateBatch();
 				}
+			} catch (InterruptedException e) {
+			} catch (Throwable t) {
+				System.err.println("BordersThread catched: ");
+				t.printStackTrace();
 			}
-			if (!canceled) {
-				calculateForPosition(position);
+		}
+	}
+
+	private synchronized void waitForPositions() throws InterruptedException {
+		while (queuedPositions == 0 && !canceled) {
+			wait();
+		}
+	}
+
+	/**
+	 * Calculates the borders of all positions marked since the last batch.
+	 *
+	 * @return true if positions have been calculated,<br>
+	 *         false if no positions have been marked.
+	 */
+	final boolean calculateBatch() {
+		BitSet batch;
+		int batchSize;
+		long queuedTime;
+		synchronized (this) {
+			if (queuedPositions == 0) {
+				return false;
 			}
+			batch = dirtyPositions;
+			dirtyPositions = batchPositions;
+			batchPositions = batch;
+			batchSize = queuedPositions;
+			queuedTime = firstQueuedTime;
+			queuedPositions = 0;
 		}
+
+		markAffectedPositions(batch);
+		batch.clear();
+		calculateAffectedPositions();
+
+		long latency = System.currentTimeMillis() - queuedTime;
+		lastBatchSize = batchSize;
+		lastBatchLatency = latency;
+		maxBatchLatency = Math.max(maxBatchLatency, latency);
+		processedBatches++;
+		return true;
 	}
 
-	private void calculateForPosition(ShortPoint2D position) {
-		short x = position.x;
-		short y = position.y;
-		byte player = grid.getPlayerIdAt(x, y);
-		boolean isBorder = false;
+	/**
+	 * Marks the given positions and their neighbors, as the border state of the neighbors depends on the player of the position.
+	 */
+	private void markAffectedPositions(BitSet batch) {
+		for (int idx = batch.nextSetBit(0); idx >= 0; idx = batch.nextSetBit(idx + 1)) {
+			int x = idx % width;
+			int y = idx / width;
 
-		if (grid.getBlockedPartition(x, y) > 0) { // the position is not a blocked landscape
-			for (EDirection currDir : EDirection.values) {
-				short currNeighborX = currDir.getNextTileX(x);
-				short currNeighborY = currDir.getNextTileY(y);
+			// the hexagonal neighbors are (x-1, y-1), (x, y-1), (x-1, y), (x+1, y), (x, y+1), (x+1, y+1)
+			if (y > 0) {
+				markRow(x - 1, x, y - 1);
+			}
+			markRow(x - 1, x + 1, y);
+			if (y < height - 1) {
+				markRow(x, x + 1, y + 1);
+			}
+		}
+	}
 
-				if (!grid.isInBounds(currNeighborX, currNeighborY)) {
-					continue;
-				}
+	private void markRow(int fromX, int toX, int y) {
+		int rowStart = y * width;
+		affectedPositions.set(rowStart + Math.max(fromX, 0), rowStart + Math.min(toX, width - 1) + 1);
+	}
 
-				byte neighborPlayer = grid.getPlayerIdAt(currNeighborX, currNeighborY);
-				boolean neighborIsBorder = false;
+	private void calculateAffectedPositions() {
+		int idx = affectedPositions.nextSetBit(0);
+		while (idx >= 0) {
+			int y = idx / width;
+			int rowStart = y * width;
+			int rowEnd = rowStart + width;
 
-				if (neighborPlayer != player && grid.getBlockedPartition(currNeighborX, currNeighborY) > 0) {
-					isBorder = true;
-				}
+			int lastIdx = affectedPositions.previousSetBit(rowEnd - 1);
+			int fromX = idx - rowStart;
+			int toX = lastIdx - rowStart;
 
-				if (neighborPlayer >= 0) { // this position is occupied by a player
+			loadRow(0, y - 1, fromX - 1, toX + 1);
+			loadRow(1, y, fromX - 1, toX + 1);
+			loadRow(2, y + 1, fromX - 1, toX + 1);
 
-					for (EDirection currNeighborDir : EDirection.values) {
-						short nextX = currNeighborDir.getNextTileX(currNeighborX);
-						short nextY = currNeighborDir.getNextTileY(currNeighborY);
+			for (; idx >= 0 && idx < rowEnd; idx = affectedPositions.nextSetBit(idx + 1)) {
+				int x = idx - rowStart;
+				grid.setBorderAt((short) x, (short) y, isBorder(x));
+			}
+		}
+		affectedPositions.clear();
+	}
 
-						if (grid.isInBounds(nextX, nextY) && grid.getPlayerIdAt(nextX, nextY) != neighborPlayer
-								&& grid.getBlockedPartition(nextX, nextY) > 0) {
-							neighborIsBorder = true;
-							break;
-						}
-					}
-				} // else the position is not occupied -> don't display a border here
+	/**
+	 * Loads the players and blocked states of the given row into the row arrays. Positions out of bounds are marked as blocked, so they never
+	 * cause a border.
+	 */
+	private void loadRow(int row, int y, int fromX, int toX) {
+		byte[] players = rowPlayers[row];
+		boolean[] notBlocked = rowNotBlocked[row];
+		boolean rowInBounds = y >= 0 && y < height;
 
-				grid.setBorderAt(currNeighborX, currNeighborY, neighborIsBorder);
+		for (int x = fromX; x <= toX; x++) {
+			if (rowInBounds && x >= 0 && x < width) {
+				players[x + 1] = grid.getPlayerIdAt((short) x, (short) y);
+				notBlocked[x + 1] = grid.getBlockedPartition((short) x, (short) y) > 0;
+			} else {
+				players[x + 1] = -1;
+				notBlocked[x + 1] = false;
 			}
 		}
+	}
+
+	/**
+	 * A position is a border, if it's occupied by a player, isn't blocked landscape and has a not blocked neighbor of another player.
+	 */
+	private boolean isBorder(int x) {
+		int i = x + 1;
+		byte player = rowPlayers[1][i];
+		if (player < 0 || !rowNotBlocked[1][i]) {
+			return false;
+		}
 
-		grid.setBorderAt(x, y, isBorder && player >= 0);
+		return isOtherPlayer(0, i - 1, player) || isOtherPlayer(0, i, player) || isOtherPlayer(1, i - 1, player)
+				|| isOtherPlayer(1, i + 1, player) || isOtherPlayer(2, i, player) || isOtherPlayer(2, i + 1, player);
+	}
+
+	private boolean isOtherPlayer(int row, int i, byte player) {
+		return rowNotBlocked[row][i] && rowPlayers[row][i] != player;
 	}
 
 	public void checkPosition(ShortPoint2D position) {
-		this.positionsQueue.offer(position);
+		checkPosition(position.x, position.y);
+	}
+
+	public synchronized void checkPosition(int x, int y) {
+		int idx = y * width + x;
+		if (!dirtyPositions.get(idx)) {
+			dirtyPositions.set(idx);
+			if (queuedPositions == 0) {
+				firstQueuedTime = System.currentTimeMillis();
+				notifyAll();
+			}
+			queuedPositions++;
+		}
 	}
 
-	public void checkPositions(Iterable<ShortPoint2D> positions) {
+	public synchronized void checkPositions(Iterable<ShortPoint2D> positions) {
 		for (ShortPoint2D currPos : positions) {
-			positionsQueue.offer(currPos);
+			checkPosition(currPos.x, currPos.y);
 		}
 	}
 
+	/**
+	 * @return The number of distinct positions waiting to be calculated.
+	 */
+	public synchronized int getQueueDepth() {
+		return queuedPositions;
+	}
+
+	/**
+	 * @return The number of distinct positions marked for the last calculated batch.
+	 */
+	public int getLastBatchSize() {
+		return lastBatchSize;
+	}
+
+	/**
+	 * @return The time in ms from marking the first position of the last batch until the batch has been calculated.
+	 */
+	public long getLastBatchLatency() {
+		return lastBatchLatency;
+	}
+
+	/**
+	 * @return The maximum time in ms from marking the first position of a batch until the batch has been calculated.
+	 */
+	public long getMaxBatchLatency() {
+		return maxBatchLatency;
+	}
+
+	/**
+	 * @return The number of batches calculated so far.
+	 */
+	public long getProcessedBatches() {
+		return processedBatches;
+	}
+
 	public void cancel() {
-		this.canceled = true;
+		synchronized (this) {
+			this.canceled = true;
+			notifyAll();
+		}
 		bordersThread.interrupt();
 	}
 
@@ -1,54 +1,75 @@
 package jsettlers.algorithms.fogofwar;
 
+import java.util.Arrays;
+
 import jsettlers.common.CommonConstants;
 import jsettlers.common.map.shapes.MapCircle;
 import jsettlers.common.map.shapes.MapCircleIterator;
 
 /**
  * Caches a {@link MapCircle} and the calculated view distances of the circles positions.
- * 
+ * <p />
+ * The positions of the core, which are fully visible for the viewer, are stored first. They are followed by the positions of the rim, whose
+ * sight decreases with the distance to the viewer.
+ *
  * @author Andreas Eberle
- * 
+ *
  */
 public final class CachedViewCircle {
 
 	final short[] x;
 	final short[] y;
 	final byte[] sight;
+	final int coreSize;
 	final int size;
 
-	public CachedViewCircle(int radius) {
-		radius -= FogOfWar.PADDING / 2;
+	public CachedViewCircle(int viewDistance) {
+		int radius = Math.min(viewDistance + FogOfWar.PADDING, FogOfWar.MAX_VIEWDISTANCE - 1) - FogOfWar.PADDING / 2;
 		MapCircle circle = new MapCircle(0, 0, radius + FogOfWar.PADDING);
+		final float squaredViewDistance = radius * radius;
 
-		size = countElements(circle);
-
-		x = new short[size];
-		y = new short[size];
-		sight = new byte[size];
+		int elements = countElements(circle);
+		short[] coreX = new short[elements];
+		short[] coreY = new short[elements];
+		int coreSize = 0;
+		short[] rimX = new short[elements];
+		short[] rimY = new short[elements];
+		byte[] rimSight = new byte[elements];
+		int rimSize = 0;
 
 		MapCircleIterator iter = circle.iterator();
-		final float squaredViewDistance = radius * radius;
-		int i = 0;
-
 		while (iter.hasNext()) {
-			int y = iter.nextY();
-			int x = iter.nextX();
-			this.x[i] = (short) x;
-			this.y[i] = (short) y;
+			int currY = iter.nextY();
+			int currX = iter.nextX();
 
-			double squaredDistance = MapCircle.getSquaredDistance(x, y);
-			byte newSight;
+			double squaredDistance = MapCircle.getSquaredDistance(currX, currY);
 			if (squaredDistance < squaredViewDistance) {
-				newSight = CommonConstants.FOG_OF_WAR_VISIBLE;
+				coreX[coreSize] = (short) currX;
+				coreY[coreSize] = (short) currY;
+				coreSize++;
 			} else {
-				newSight = (byte) (CommonConstants.FOG_OF_WAR_VISIBLE - (Math.sqrt(squaredDistance) - radius) / FogOfWar.PADDING
+				byte newSight = (byte) (CommonConstants.FOG_OF_WAR_VISIBLE - (Math.sqrt(squaredDistance) - radius) / FogOfWar.PADDING
 						* CommonConstants.FOG_OF_WAR_VISIBLE);
+				if (newSight > 0) {
+					rimX[rimSize] = (short) currX;
+					rimY[rimSize] = (short) currY;
+					rimSight[rimSize] = newSight;
+					rimSize++;
+				}
 			}
-			sight[i] = newSight;
-
-			i++;
 		}
+
+		this.coreSize = coreSize;
+		this.size = coreSize + rimSize;
+		this.x = new short[size];
+		this.y = new short[size];
+		this.sight = new byte[size];
+		System.arraycopy(coreX, 0, x, 0, coreSize);
+		System.arraycopy(coreY, 0, y, 0, coreSize);
+		Arrays.fill(sight, 0, coreSize, (byte) CommonConstants.FOG_OF_WAR_VISIBLE);
+		System.arraycopy(rimX, 0, x, coreSize, rimSize);
+		System.arraycopy(rimY, 0, y, coreSize, rimSize);
+		System.arraycopy(rimSight, 0, sight, coreSize, rimSize);
 	}
 
 	private int countElements(MapCircle circle) {
@@ -61,36 +82,4 @@ public final class CachedViewCircle {
 
 		return counter;
 	}
-
-	public CachedViewCircleIterator iterator(int xOffset, int yOffset) {
-		return new CachedViewCircleIterator(xOffset, yOffset);
-	}
-
-	public final class CachedViewCircleIterator {
-		private final int xOffset;
-		private final int yOffset;
-
-		private int idx;
-
-		public CachedViewCircleIterator(int xOffset, int yOffset) {
-			this.xOffset = xOffset;
-			this.yOffset = yOffset;
-		}
-
-		public boolean hasNext() {
-			return ++idx < size;
-		}
-
-		public int getCurrX() {
-			return x[idx] + xOffset;
-		}
-
-		public int getCurrY() {
-			return y[idx] + yOffset;
-		}
-
-		public byte getCurrSight() {
-			return sight[idx];
-		}
-	}
 }
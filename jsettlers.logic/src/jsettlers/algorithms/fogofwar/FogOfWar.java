@@ -2,37 +2,79 @@ package jsettlers.algorithms.fogofwar;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map.Entry;
 
-import jsettlers.algorithms.fogofwar.CachedViewCircle.CachedViewCircleIterator;
 import jsettlers.common.CommonConstants;
-import jsettlers.common.logging.MilliStopWatch;
-import jsettlers.common.logging.StopWatch;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.player.IPlayerable;
 import jsettlers.common.position.ShortPoint2D;
 
 /**
  * This class holds the fog of war for a given map and player.
- * 
+ * <p />
+ * The fog of war is updated incrementally: For every position, the number of viewers seeing it is counted. Only viewers that appeared, moved or
+ * vanished since the last update change the counts. Positions no viewer sees any more are dimmed down to explored.
+ * <p />
+ * Around the counted core, every view circle has a rim whose sight decreases with the distance to the viewer. The rim brightens the positions
+ * when the viewer is applied. When the positions are dimmed down, the rims of all viewers are applied again, like the former complete rebuild of
+ * the sight did, so the rim of a viewer that stays at its position doesn't fade.
+ * <p />
+ * Changes of the visible status are published to the {@link IGraphicsFogOfWarListener} in regions of {@link #CHANGED_REGION_SIZE}x
+ * {@link #CHANGED_REGION_SIZE} positions.
+ *
  * @author Andreas Eberle
  */
 public final class FogOfWar implements Serializable {
 	private static final long serialVersionUID = 1877994785778678510L;
+	/**
+	 * The sight is stored in the same format as before the incremental fog of war.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField("player", byte.class),
+			new ObjectStreamField("width", short.class), new ObjectStreamField("height", short.class),
+			new ObjectStreamField("sight", byte[][].class) };
+
 	/**
 	 * Longest distance any unit may look
 	 */
 	static final byte MAX_VIEWDISTANCE = 65;
 	static final int PADDING = 10;
 
-	private final byte player;
+	static final int CHANGED_REGION_SIZE = 32;
+	private static final int UPDATE_PERIOD = 100; // ms
+	private static final int DIM_DOWN_PERIOD = 800; // ms
+	private static final byte DIM_DOWN_SPEED = 10;
+
+	private byte player;
+
+	short width;
+	short height;
+
+	/**
+	 * The sight of the positions in row-major order.
+	 */
+	private transient byte[] sight;
+	private transient short[] viewerCounts;
+	private transient BitSet dimmingPositions;
+	/**
+	 * The brightest rim of the viewers at the dimming positions. This is only used while dimming down.
+	 */
+	private transient byte[] rimSight;
+	private transient BitSet changedRegions;
+	private transient int regionsPerRow;
 
-	final short width;
-	final short height;
-	byte[][] sight;
+	private transient IdentityHashMap<IViewDistancable, Viewer> viewers;
+	private transient CachedViewCircle[] cachedCircles;
+	private transient int updateCounter;
 
 	private transient boolean enabled = true;
 	transient private IFogOfWarGrid grid;
+	private transient IGraphicsFogOfWarListener listener;
 	private transient boolean canceled;
 
 	public FogOfWar(short width, short height) {
@@ -43,33 +85,88 @@ public final class FogOfWar implements Serializable {
 		this.width = width;
 		this.height = height;
 		this.player = player;
-		this.sight = new byte[width][height];
 
-		byte defaultSight = 0;
+		initTransients();
 		if (exploredOnStart) {
-			defaultSight = CommonConstants.FOG_OF_WAR_EXPLORED;
+			java.util.Arrays.fill(sight, (byte) CommonConstants.FOG_OF_WAR_EXPLORED);
 		}
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				sight[x][y] = defaultSight;
+	}
+
+	private void initTransients() {
+		sight = new byte[width * height];
+		viewerCounts = new short[width * height];
+		dimmingPositions = new BitSet(width * height);
+		rimSight = new byte[width * height];
+		regionsPerRow = (width + CHANGED_REGION_SIZE - 1) / CHANGED_REGION_SIZE;
+		changedRegions = new BitSet(regionsPerRow * ((height + CHANGED_REGION_SIZE - 1) / CHANGED_REGION_SIZE));
+		viewers = new IdentityHashMap<IViewDistancable, Viewer>();
+		cachedCircles = new CachedViewCircle[MAX_VIEWDISTANCE];
+		enabled = true;
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		byte[][] sight2D = new byte[width][height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				sight2D[x][y] = sight[getIdx(x, y)];
 			}
 		}
+
+		ObjectOutputStream.PutField fields = oos.putFields();
+		fields.put("player", player);
+		fields.put("width", width);
+		fields.put("height", height);
+		fields.put("sight", sight2D);
+		oos.writeFields();
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
-		ois.defaultReadObject();
-		enabled = true;
+		ObjectInputStream.GetField fields = ois.readFields();
+		player = fields.get("player", (byte) 0);
+		width = fields.get("width", (short) 0);
+		height = fields.get("height", (short) 0);
+		byte[][] sight2D = (byte[][]) fields.get("sight", null);
+
+		initTransients();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int idx = getIdx(x, y);
+				sight[idx] = sight2D[x][y];
+				if (sight[idx] > CommonConstants.FOG_OF_WAR_EXPLORED) {
+					dimmingPositions.set(idx); // no viewer is known yet
+				}
+			}
+		}
 	}
 
+	/**
+	 * Applies the current viewers and starts the thread updating the fog of war. The viewers are applied before this method returns, so
+	 * {@link #isVisible(int, int)} is correct right after a savegame has been loaded.
+	 *
+	 * @param grid
+	 */
 	public void start(IFogOfWarGrid grid) {
 		this.grid = grid;
+		update();
+		publishChangedRegions();
+
 		NewFoWThread thread = new NewFoWThread();
 		thread.start();
 	}
 
+	/**
+	 * Sets the listener that is informed about changes of the visible status.
+	 *
+	 * @param listener
+	 *            The listener or null to remove the current one.
+	 */
+	public void setListener(IGraphicsFogOfWarListener listener) {
+		this.listener = listener;
+	}
+
 	/**
 	 * Gets the visible status of a map pint
-	 * 
+	 *
 	 * @param x
 	 *            The x coordinate of the point in 0..(mapWidth - 1)
 	 * @param y
@@ -78,7 +175,7 @@ public final class FogOfWar implements Serializable {
 	 */
 	public final byte getVisibleStatus(int x, int y) {
 		if (enabled) {
-			return (byte) Math.min(sight[x][y], CommonConstants.FOG_OF_WAR_VISIBLE);
+			return (byte) Math.min(sight[getIdx(x, y)], CommonConstants.FOG_OF_WAR_VISIBLE);
 		} else {
 			return CommonConstants.FOG_OF_WAR_VISIBLE;
 		}
@@ -88,135 +185,250 @@ public final class FogOfWar implements Serializable {
 		return (CommonConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR || (playerable.getPlayerId() == player));
 	}
 
+	/**
+	 * Checks if the given position is currently seen by a viewer of the player.
+	 *
+	 * @param centerx
+	 * @param centery
+	 * @return true if the position is seen at the moment.
+	 */
 	public final boolean isVisible(int centerx, int centery) {
-		return sight[centerx][centery] >= CommonConstants.FOG_OF_WAR_VISIBLE;
+		return viewerCounts[getIdx(centerx, centery)] > 0;
 	}
 
 	public final void toggleEnabled() {
 		enabled = !enabled;
-	}
-
-	final class NewFoWThread extends Thread {
-		private static final byte DIM_DOWN_SPEED = 10;
-		private final CircleDrawer drawer;
-		private byte[][] buffer;
 
-		NewFoWThread() {
-			super("NewFoWThread");
-			super.setDaemon(true);
-			this.buffer = new byte[width][height];
-			drawer = new CircleDrawer();
+		IGraphicsFogOfWarListener listener = this.listener;
+		if (listener != null) { // the visible status of every position may have changed.
+			listener.fogOfWarChanged(0, 0, width - 1, height - 1);
 		}
+	}
 
-		@Override
-		public final void run() {
-			mySleep(500);
+	/**
+	 * Applies the changes of the viewers since the last update.
+	 */
+	final void update() {
+		updateCounter++;
+		updateViewers(grid.getBuildingViewDistancables());
+		updateViewers(grid.getMovableViewDistancables());
+
+		Iterator<Entry<IViewDistancable, Viewer>> iter = viewers.entrySet().iterator();
+		while (iter.hasNext()) {
+			Viewer viewer = iter.next().getValue();
+			if (viewer.lastUpdate != updateCounter) { // the viewer doesn't exist any more
+				removeCircle(viewer.x, viewer.y, viewer.viewDistance);
+				iter.remove();
+			}
+		}
+	}
 
-			while (!canceled) {
-				StopWatch watch = new MilliStopWatch();
-				watch.restart();
-				if (enabled) {
-					rebuildSight();
+	private void updateViewers(Iterable<? extends IViewDistancable> objects) {
+		for (IViewDistancable curr : objects) {
+			ShortPoint2D pos = curr.getPos();
+			short viewDistance = curr.getViewDistance();
+			boolean seeing = pos != null && viewDistance > 0 && isPlayerOK(curr);
+
+			Viewer viewer = viewers.get(curr);
+			if (viewer == null) {
+				if (seeing) {
+					viewer = new Viewer(pos.x, pos.y, viewDistance);
+					viewers.put(curr, viewer);
+					addCircle(pos.x, pos.y, viewDistance);
 				}
-				// watch.stop("NewFoWThread needed: ");
+			} else if (!seeing) {
+				removeCircle(viewer.x, viewer.y, viewer.viewDistance);
+				viewers.remove(curr);
+				viewer = null;
+			} else if (viewer.x != pos.x || viewer.y != pos.y || viewer.viewDistance != viewDistance) {
+				addCircle(pos.x, pos.y, viewDistance); // add first to keep the overlapping positions visible
+				removeCircle(viewer.x, viewer.y, viewer.viewDistance);
+				viewer.x = pos.x;
+				viewer.y = pos.y;
+				viewer.viewDistance = viewDistance;
+			}
 
-				mySleep(800);
+			if (viewer != null) {
+				viewer.lastUpdate = updateCounter;
 			}
 		}
+	}
 
-		private final void rebuildSight() {
-			drawer.setBuffer(buffer);
+	private void addCircle(int centerX, int centerY, int viewDistance) {
+		CachedViewCircle circle = getCachedCircle(viewDistance);
+		for (int i = 0; i < circle.coreSize; i++) {
+			int x = centerX + circle.x[i];
+			int y = centerY + circle.y[i];
+			if (isInBounds(x, y)) {
+				int idx = getIdx(x, y);
+				if (viewerCounts[idx]++ == 0) {
+					dimmingPositions.clear(idx);
+					setSight(x, y, idx, CommonConstants.FOG_OF_WAR_VISIBLE);
+				}
+			}
+		}
 
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					byte currSight = sight[x][y];
-
-					if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
-						byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
-						if (newSight < CommonConstants.FOG_OF_WAR_EXPLORED) {
-							buffer[x][y] = CommonConstants.FOG_OF_WAR_EXPLORED;
-						} else {
-							buffer[x][y] = newSight;
-						}
-					} else {
-						buffer[x][y] = sight[x][y];
+		for (int i = circle.coreSize; i < circle.size; i++) {
+			int x = centerX + circle.x[i];
+			int y = centerY + circle.y[i];
+			if (isInBounds(x, y)) {
+				int idx = getIdx(x, y);
+				if (sight[idx] < circle.sight[i]) {
+					setSight(x, y, idx, circle.sight[i]);
+					if (circle.sight[i] > CommonConstants.FOG_OF_WAR_EXPLORED) {
+						dimmingPositions.set(idx);
 					}
 				}
 			}
+		}
+	}
 
-			ConcurrentLinkedQueue<? extends IViewDistancable> buildings = grid.getBuildingViewDistancables();
-			applyViewDistances(buildings);
+	private void removeCircle(int centerX, int centerY, int viewDistance) {
+		CachedViewCircle circle = getCachedCircle(viewDistance);
+		for (int i = 0; i < circle.coreSize; i++) {
+			int x = centerX + circle.x[i];
+			int y = centerY + circle.y[i];
+			if (isInBounds(x, y)) {
+				int idx = getIdx(x, y);
+				if (--viewerCounts[idx] == 0) {
+					dimmingPositions.set(idx);
+				}
+			}
+		}
+	}
 
-			ConcurrentLinkedQueue<? extends IViewDistancable> movables = grid.getMovableViewDistancables();
-			applyViewDistances(movables);
+	/**
+	 * Dims down the sight of all positions no viewer sees until they are explored. Positions in the rim of a viewer keep the sight of the rim.
+	 */
+	final void dimDown() {
+		if (dimmingPositions.isEmpty()) {
+			return;
+		}
 
-			byte[][] temp = sight;
-			sight = buffer;
-			buffer = temp;
+		for (Viewer viewer : viewers.values()) {
+			applyRimSight(viewer.x, viewer.y, viewer.viewDistance);
 		}
 
-		private final void applyViewDistances(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
-			for (IViewDistancable curr : objects) {
-				if (isPlayerOK(curr)) {
-					short distance = curr.getViewDistance();
-					if (distance > 0) {
-						ShortPoint2D pos = curr.getPos();
-						if (pos != null)
-							drawer.drawCircleToBuffer(pos.x, pos.y, distance);
-					}
-				}
+		for (int idx = dimmingPositions.nextSetBit(0); idx >= 0; idx = dimmingPositions.nextSetBit(idx + 1)) {
+			int newSight = Math.max(sight[idx] - DIM_DOWN_SPEED, rimSight[idx]);
+			rimSight[idx] = 0;
+			if (newSight <= CommonConstants.FOG_OF_WAR_EXPLORED) {
+				newSight = CommonConstants.FOG_OF_WAR_EXPLORED;
+				dimmingPositions.clear(idx);
 			}
+			setSight(idx % width, idx / width, idx, newSight);
 		}
+	}
 
-		private final void mySleep(int ms) {
-			try {
-				Thread.sleep(ms);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+	/**
+	 * Stores the sight of the given viewer's rim at the dimming positions, if it is brighter than the rims stored before.
+	 */
+	private void applyRimSight(int centerX, int centerY, int viewDistance) {
+		CachedViewCircle circle = getCachedCircle(viewDistance);
+		for (int i = circle.coreSize; i < circle.size; i++) {
+			int x = centerX + circle.x[i];
+			int y = centerY + circle.y[i];
+			if (isInBounds(x, y)) {
+				int idx = getIdx(x, y);
+				if (rimSight[idx] < circle.sight[i] && dimmingPositions.get(idx)) {
+					rimSight[idx] = circle.sight[i];
+				}
 			}
 		}
+	}
 
+	/**
+	 * Informs the listener about all regions that changed since the last call.
+	 */
+	final void publishChangedRegions() {
+		IGraphicsFogOfWarListener listener = this.listener;
+		if (listener != null) {
+			for (int region = changedRegions.nextSetBit(0); region >= 0; region = changedRegions.nextSetBit(region + 1)) {
+				int minX = (region % regionsPerRow) * CHANGED_REGION_SIZE;
+				int minY = (region / regionsPerRow) * CHANGED_REGION_SIZE;
+				listener.fogOfWarChanged(minX, minY, Math.min(minX + CHANGED_REGION_SIZE, width) - 1,
+						Math.min(minY + CHANGED_REGION_SIZE, height) - 1);
+			}
+		}
+		changedRegions.clear();
 	}
 
-	final class CircleDrawer {
-		private byte[][] buffer;
-		private final CachedViewCircle[] cachedCircles = new CachedViewCircle[MAX_VIEWDISTANCE];
+	private void setSight(int x, int y, int idx, int newSight) {
+		if (Math.min(sight[idx], CommonConstants.FOG_OF_WAR_VISIBLE) != Math.min(newSight, CommonConstants.FOG_OF_WAR_VISIBLE)) {
+			changedRegions.set((y / CHANGED_REGION_SIZE) * regionsPerRow + x / CHANGED_REGION_SIZE);
+		}
+		sight[idx] = (byte) newSight;
+	}
 
-		public final void setBuffer(byte[][] buffer) {
-			this.buffer = buffer;
+	private CachedViewCircle getCachedCircle(int viewDistance) {
+		int idx = Math.min(viewDistance, MAX_VIEWDISTANCE - 1);
+		if (cachedCircles[idx] == null) {
+			cachedCircles[idx] = new CachedViewCircle(idx);
 		}
+		return cachedCircles[idx];
+	}
 
-		/**
-		 * Draws a circle to the buffer line. Each point is only brightened and onlydrawn if its x coordinate is in [0, mapWidth - 1] and its computed
-		 * y coordinate is bigger than 0.
-		 */
-		final void drawCircleToBuffer(int bufferX, int bufferY, int viewDistance) {
-			CachedViewCircle circle = getCachedCircle(viewDistance);
-			CachedViewCircleIterator iterator = circle.iterator(bufferX, bufferY);
+	private final int getIdx(int x, int y) {
+		return y * width + x;
+	}
 
-			while (iterator.hasNext()) {
-				final int x = iterator.getCurrX();
-				final int y = iterator.getCurrY();
+	private final boolean isInBounds(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+
+	final class NewFoWThread extends Thread {
+		NewFoWThread() {
+			super("NewFoWThread");
+			super.setDaemon(true);
+		}
+
+		@Override
+		public final void run() {
+			mySleep(500);
 
-				if (x >= 0 && x < width && y > 0 && y < height) {
-					byte oldSight = buffer[x][y];
-					if (oldSight < CommonConstants.FOG_OF_WAR_VISIBLE) {
-						byte newSight = iterator.getCurrSight();
-						if (oldSight < newSight) {
-							buffer[x][y] = newSight;
+			int timeSinceDimDown = 0;
+			while (!canceled) {
+				if (enabled) {
+					try {
+						update();
+						timeSinceDimDown += UPDATE_PERIOD;
+						if (timeSinceDimDown >= DIM_DOWN_PERIOD) {
+							dimDown();
+							timeSinceDimDown = 0;
 						}
+						publishChangedRegions();
+					} catch (Throwable t) {
+						System.err.println("NewFoWThread catched: ");
+						t.printStackTrace();
 					}
 				}
+
+				mySleep(UPDATE_PERIOD);
 			}
 		}
 
-		private CachedViewCircle getCachedCircle(int viewDistance) {
-			int radius = Math.min(viewDistance + PADDING, MAX_VIEWDISTANCE - 1);
-			if (cachedCircles[radius] == null) {
-				cachedCircles[radius] = new CachedViewCircle(radius);
+		private final void mySleep(int ms) {
+			try {
+				Thread.sleep(ms);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
 			}
+		}
+	}
 
-			return cachedCircles[radius];
+	/**
+	 * The state of a viewer when it has been applied the last time.
+	 */
+	private static final class Viewer {
+		short x;
+		short y;
+		short viewDistance;
+		int lastUpdate;
+
+		Viewer(short x, short y, short viewDistance) {
+			this.x = x;
+			this.y = y;
+			this.viewDistance = viewDistance;
 		}
 	}
 
@@ -70,6 +70,19 @@ public class Path implements Serializable {
 		initPath();
 	}
 
+	/**
+	 * Creates a copy of the positions of this path. The copy starts at the beginning of the path, independent of the progress of this path.
+	 * 
+	 * @return A new path with the same positions.
+	 */
+	public final Path copy() {
+		Path copy = new Path(pathX.length);
+		System.arraycopy(pathX, 0, copy.pathX, 0, pathX.length);
+		System.arraycopy(pathY, 0, copy.pathY, 0, pathY.length);
+		copy.initPath();
+		return copy;
+	}
+
 	/**
 	 * sets the given position to the given index of the path
 	 * 
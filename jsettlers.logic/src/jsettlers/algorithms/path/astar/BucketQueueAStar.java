@@ -35,6 +35,8 @@ public final class BucketQueueAStar extends AbstractAStar {
 
 	private final AbstractBucketQueue open;
 
+	private int closedMinX, closedMinY, closedMaxX, closedMaxY;
+
 	public BucketQueueAStar(IAStarPathMap map, short width, short height) {
 		this.map = map;
 		this.width = width;
@@ -74,6 +76,8 @@ public final class BucketQueueAStar extends AbstractAStar {
 
 		closedBitSet.clear();
 		openBitSet.clear();
+		closedMinX = closedMinY = Integer.MAX_VALUE;
+		closedMaxX = closedMaxY = Integer.MIN_VALUE;
 
 		open.clear();
 		boolean found = false;
@@ -162,6 +166,33 @@ public final class BucketQueueAStar extends AbstractAStar {
 	private final void setClosed(int x, int y) {
 		closedBitSet.set(getFlatIdx(x, y));
 		map.markAsClosed(x, y);
+
+		closedMinX = Math.min(closedMinX, x);
+		closedMaxX = Math.max(closedMaxX, x);
+		closedMinY = Math.min(closedMinY, y);
+		closedMaxY = Math.max(closedMaxY, y);
+	}
+
+	/**
+	 * The bounds of the positions closed by the last search. Only the positions in these bounds and their direct neighbors have been examined,
+	 * therefore the result of the search can only change if one of them changes.
+	 * 
+	 * @return Returns the minimum x coordinate of the closed positions of the last search.
+	 */
+	public final int getClosedMinX() {
+		return closedMinX;
+	}
+
+	public final int getClosedMinY() {
+		return closedMinY;
+	}
+
+	public final int getClosedMaxX() {
+		return closedMaxX;
+	}
+
+	public final int getClosedMaxY() {
+		return closedMaxY;
 	}
 
 	private final void initStartNode(int sx, int sy, int tx, int ty) {
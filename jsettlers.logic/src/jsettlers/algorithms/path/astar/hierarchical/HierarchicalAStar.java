@@ -0,0 +1,211 @@
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.InvalidStartPositionException;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.algorithms.path.astar.hierarchical.SectorGraph.Node;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Hierarchical path finding (HPA*) on the {@link SectorGraph}s of a map.
+ * <p />
+ * The start and the target are connected to the transitions of their sectors by searches inside the sectors. Then the abstract graph is searched
+ * with A* and the found transitions are refined to a path by searches inside the single sectors. Therefore a search only visits the positions of
+ * the start and target sectors and the sectors of the path.
+ * <p />
+ * Short paths, requesters starting on a blocked position and searches the graph can't solve are calculated by the given fallback
+ * {@link AbstractAStar}. The found paths are close to optimal, but not necessarily the shortest ones.
+ * <p />
+ * Every instance must only be used by one thread at a time, the {@link SectorGraphs} can be shared. NOTE: The searches inside the target sector
+ * start at the target, therefore the costs of the map need to be symmetric.
+ */
+public final class HierarchicalAStar extends AbstractAStar {
+	/**
+	 * Paths with a smaller on grid distance are calculated with the fallback.
+	 */
+	public static final int MIN_HIERARCHICAL_DISTANCE = 3 * SectorGraph.SECTOR_SIZE;
+
+	private final IAStarPathMap map;
+	private final SectorGraphs graphs;
+	private final AbstractAStar fallback;
+	private final short width;
+	private final short height;
+
+	private final SectorSearch startSearch;
+	private final SectorSearch targetSearch;
+	private final SectorSearch refineSearch;
+	private final IntMinHeap open = new IntMinHeap(256);
+	private final PositionList positions = new PositionList();
+
+	private float[] costs = new float[0];
+	private int[] parents = new int[0];
+	private float[] targetCosts = new float[0];
+	private int[] openStamps = new int[0];
+	private int[] closedStamps = new int[0];
+	private int[] targetStamps = new int[0];
+	private int stamp = 0;
+
+	public HierarchicalAStar(IAStarPathMap map, SectorGraphs graphs, AbstractAStar fallback, short width, short height) {
+		this.map = map;
+		this.graphs = graphs;
+		this.fallback = fallback;
+		this.width = width;
+		this.height = height;
+
+		this.startSearch = new SectorSearch(map, SectorGraph.SECTOR_SIZE);
+		this.targetSearch = new SectorSearch(map, SectorGraph.SECTOR_SIZE);
+		this.refineSearch = new SectorSearch(map, SectorGraph.SECTOR_SIZE);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		if (!isInBounds(sx, sy)) {
+			throw new InvalidStartPositionException("Start position is out of bounds!", sx, sy);
+		} else if (!isInBounds(tx, ty) || map.isBlocked(requester, tx, ty) || map.getBlockedPartition(sx, sy) != map.getBlockedPartition(tx, ty)) {
+			return null; // target can not be reached
+		} else if (ShortPoint2D.getOnGridDist(tx - sx, ty - sy) < MIN_HIERARCHICAL_DISTANCE || map.isBlocked(requester, sx, sy)) {
+			return fallback.findPath(requester, sx, sy, tx, ty);
+		}
+
+		SectorGraph graph = graphs.getGraph(requester);
+		graph.update();
+
+		Path path = findHierarchicalPath(requester, graph, sx, sy, tx, ty);
+		if (path == null) {
+			return fallback.findPath(requester, sx, sy, tx, ty);
+		}
+		return path;
+	}
+
+	private Path findHierarchicalPath(IPathCalculatable requester, SectorGraph graph, int sx, int sy, int tx, int ty) {
+		ensureCapacity(graph.getNodeIdBound());
+		stamp++;
+		open.clear();
+
+		int startSector = graph.getSectorIdx(sx, sy);
+		int targetSector = graph.getSectorIdx(tx, ty);
+		searchInSector(startSearch, requester, graph, startSector, sx, sy);
+		searchInSector(targetSearch, requester, graph, targetSector, tx, ty);
+
+		for (Node node : graph.getNodesOfSector(targetSector)) {
+			if (targetSearch.isReached(node.x, node.y)) {
+				targetStamps[node.id] = stamp;
+				targetCosts[node.id] = targetSearch.getCosts(node.x, node.y);
+			}
+		}
+		for (Node node : graph.getNodesOfSector(startSector)) {
+			if (startSearch.isReached(node.x, node.y)) {
+				openNode(node, startSearch.getCosts(node.x, node.y), -1, tx, ty);
+			}
+		}
+
+		Node bestTargetNode = null;
+		float bestCosts = Float.MAX_VALUE;
+
+		while (!open.isEmpty() && open.getMinRank() < bestCosts) {
+			int nodeId = open.deleteMin();
+			if (closedStamps[nodeId] == stamp) {
+				continue;
+			}
+			closedStamps[nodeId] = stamp;
+			Node node = graph.getNode(nodeId);
+			float nodeCosts = costs[nodeId];
+
+			if (targetStamps[nodeId] == stamp && nodeCosts + targetCosts[nodeId] < bestCosts) {
+				bestCosts = nodeCosts + targetCosts[nodeId];
+				bestTargetNode = node;
+			}
+
+			Node[] edges = node.edges;
+			float[] edgeCosts = node.edgeCosts;
+			for (int i = 0; i < edges.length; i++) {
+				Node neighbor = edges[i];
+				if (closedStamps[neighbor.id] != stamp) {
+					float newCosts = nodeCosts + edgeCosts[i];
+					if (openStamps[neighbor.id] != stamp || newCosts < costs[neighbor.id]) {
+						openNode(neighbor, newCosts, nodeId, tx, ty);
+					}
+				}
+			}
+		}
+
+		if (bestTargetNode == null) {
+			return null;
+		}
+		return refinePath(requester, graph, bestTargetNode);
+	}
+
+	private void openNode(Node node, float nodeCosts, int parentId, int tx, int ty) {
+		openStamps[node.id] = stamp;
+		costs[node.id] = nodeCosts;
+		parents[node.id] = parentId;
+		open.insert(node.id, nodeCosts + ShortPoint2D.getOnGridDist(tx - node.x, ty - node.y));
+	}
+
+	private Path refinePath(IPathCalculatable requester, SectorGraph graph, Node targetNode) {
+		// collect the abstract path from the start to the target node
+		int length = 0;
+		for (int id = targetNode.id; id >= 0; id = parents[id]) {
+			length++;
+		}
+		Node[] abstractPath = new Node[length];
+		for (int id = targetNode.id; id >= 0; id = parents[id]) {
+			abstractPath[--length] = graph.getNode(id);
+		}
+
+		positions.clear();
+		startSearch.appendPathFromStart(positions, abstractPath[0].x, abstractPath[0].y);
+		for (int i = 1; i < abstractPath.length; i++) {
+			Node from = abstractPath[i - 1];
+			Node to = abstractPath[i];
+			if (from.sector != to.sector) {
+				positions.add(to.x, to.y);
+			} else {
+				int sector = from.sector;
+				if (!refineSearch.search(requester, from.x, from.y, graph.getSectorMinX(sector), graph.getSectorMinY(sector),
+						graph.getSectorMaxX(sector), graph.getSectorMaxY(sector), to.x, to.y)) {
+					return null;
+				}
+				refineSearch.appendPathFromStart(positions, to.x, to.y);
+			}
+		}
+		targetSearch.appendPathToStart(positions, targetNode.x, targetNode.y);
+
+		Path path = new Path(positions.size());
+		for (int i = 0; i < positions.size(); i++) {
+			path.insertAt(i, positions.getX(i), positions.getY(i));
+		}
+		path.initPath();
+		return path;
+	}
+
+	private static void searchInSector(SectorSearch search, IPathCalculatable requester, SectorGraph graph, int sector, int x, int y) {
+		search.search(requester, x, y, graph.getSectorMinX(sector), graph.getSectorMinY(sector), graph.getSectorMaxX(sector),
+				graph.getSectorMaxY(sector), -1, -1);
+	}
+
+	private void ensureCapacity(int numberOfIds) {
+		if (costs.length < numberOfIds) {
+			int newLength = numberOfIds * 2;
+			costs = new float[newLength];
+			parents = new int[newLength];
+			targetCosts = new float[newLength];
+			openStamps = new int[newLength];
+			closedStamps = new int[newLength];
+			targetStamps = new int[newLength];
+			stamp = 0;
+		}
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+}
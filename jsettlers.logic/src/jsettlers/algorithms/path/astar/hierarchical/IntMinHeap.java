@@ -0,0 +1,90 @@
+package jsettlers.algorithms.path.astar.hierarchical;
+
+/**
+ * Binary min heap of int ids with float ranks. An id may be inserted multiple times; the caller has to skip outdated entries when popping them.
+ */
+final class IntMinHeap {
+	private int[] ids;
+	private float[] ranks;
+	private int size = 0;
+	private float lastRank;
+
+	IntMinHeap(int capacity) {
+		ids = new int[capacity];
+		ranks = new float[capacity];
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	float getMinRank() {
+		return ranks[0];
+	}
+
+	/**
+	 * 
+	 * @return Returns the rank of the id returned by the last call of {@link #deleteMin()}.
+	 */
+	float getLastRank() {
+		return lastRank;
+	}
+
+	void insert(int id, float rank) {
+		if (size == ids.length) {
+			int[] newIds = new int[size * 2];
+			float[] newRanks = new float[size * 2];
+			System.arraycopy(ids, 0, newIds, 0, size);
+			System.arraycopy(ranks, 0, newRanks, 0, size);
+			ids = newIds;
+			ranks = newRanks;
+		}
+
+		int idx = size++;
+		while (idx > 0) {
+			int parent = (idx - 1) >> 1;
+			if (ranks[parent] <= rank) {
+				break;
+			}
+			ids[idx] = ids[parent];
+			ranks[idx] = ranks[parent];
+			idx = parent;
+		}
+		ids[idx] = id;
+		ranks[idx] = rank;
+	}
+
+	int deleteMin() {
+		int result = ids[0];
+		lastRank = ranks[0];
+
+		size--;
+		int id = ids[size];
+		float rank = ranks[size];
+
+		int idx = 0;
+		while (true) {
+			int child = 2 * idx + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && ranks[child + 1] < ranks[child]) {
+				child++;
+			}
+			if (ranks[child] >= rank) {
+				break;
+			}
+			ids[idx] = ids[child];
+			ranks[idx] = ranks[child];
+			idx = child;
+		}
+		ids[idx] = id;
+		ranks[idx] = rank;
+
+		return result;
+	}
+}
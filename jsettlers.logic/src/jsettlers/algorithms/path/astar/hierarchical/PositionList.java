@@ -0,0 +1,55 @@
+package jsettlers.algorithms.path.astar.hierarchical;
+
+/**
+ * Growable list of positions used to assemble the refined path.
+ */
+final class PositionList {
+	private short[] xs = new short[256];
+	private short[] ys = new short[256];
+	private int size = 0;
+
+	void clear() {
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void setSize(int newSize) {
+		ensureCapacity(newSize);
+		size = newSize;
+	}
+
+	void add(int x, int y) {
+		ensureCapacity(size + 1);
+		xs[size] = (short) x;
+		ys[size] = (short) y;
+		size++;
+	}
+
+	void set(int idx, int x, int y) {
+		xs[idx] = (short) x;
+		ys[idx] = (short) y;
+	}
+
+	short getX(int idx) {
+		return xs[idx];
+	}
+
+	short getY(int idx) {
+		return ys[idx];
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > xs.length) {
+			int newLength = Math.max(capacity, xs.length * 2);
+			short[] newXs = new short[newLength];
+			short[] newYs = new short[newLength];
+			System.arraycopy(xs, 0, newXs, 0, size);
+			System.arraycopy(ys, 0, newYs, 0, size);
+			xs = newXs;
+			ys = newYs;
+		}
+	}
+}
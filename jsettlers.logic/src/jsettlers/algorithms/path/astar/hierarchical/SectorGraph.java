@@ -0,0 +1,396 @@
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Abstract graph of the map for the {@link HierarchicalAStar}, built for the blocking seen by one kind of requester.
+ * <p />
+ * The map is divided into square sectors of {@link #SECTOR_SIZE} positions. For every border between two sectors, the crossing position pairs
+ * are grouped into runs of neighboring crossings. Every run gets one transition in its middle or, if it is long, one at both of its ends. The
+ * positions of the transitions are the nodes of the graph. Nodes of neighboring sectors are connected by the crossing step, nodes of the same
+ * sector by the costs of the shortest path inside the sector.
+ * <p />
+ * Changes of the grid mark the sector dirty. Before the next search, the transitions of the dirty sectors and their neighbors are recalculated.
+ * The nodes and edges are kept in the order of their positions, therefore the graph only depends on the current grid and not on the order of the
+ * changes.
+ */
+public final class SectorGraph {
+	public static final int SECTOR_SIZE_SHIFT = 4;
+	public static final int SECTOR_SIZE = 1 << SECTOR_SIZE_SHIFT;
+	private static final int MAX_SINGLE_TRANSITION_RUN = 5;
+
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+	private static final int[] sectorNeighborDx = { 1, 0, 1, -1, 0, -1 };
+	private static final int[] sectorNeighborDy = { 0, 1, 1, 0, -1, -1 };
+
+	private final IAStarPathMap map;
+	private final IPathCalculatable requester;
+	private final int width;
+	private final int height;
+	private final int sectorsWidth;
+	private final int sectorsHeight;
+
+	private final Node[][] sectorNodes;
+	private final HashMap<Integer, Node> nodesByPosition = new HashMap<Integer, Node>();
+	private final ArrayList<Node> nodesById = new ArrayList<Node>();
+	private final ArrayList<Integer> freeIds = new ArrayList<Integer>();
+	private final BitSet dirtySectors;
+	private final SectorSearch sectorSearch;
+
+	private int rebuiltSectors = 0;
+
+	/**
+	 * Creates a new graph. All sectors are dirty and are built before the first search.
+	 * 
+	 * @param map
+	 * @param requester
+	 *            Requester used for {@link IAStarPathMap#isBlocked(IPathCalculatable, int, int)}. Only requesters with the same player and
+	 *            {@link IPathCalculatable#needsPlayersGround()} value may use this graph.
+	 * @param width
+	 * @param height
+	 */
+	public SectorGraph(IAStarPathMap map, IPathCalculatable requester, short width, short height) {
+		this.map = map;
+		this.requester = requester;
+		this.width = width;
+		this.height = height;
+		this.sectorsWidth = (width + SECTOR_SIZE - 1) >> SECTOR_SIZE_SHIFT;
+		this.sectorsHeight = (height + SECTOR_SIZE - 1) >> SECTOR_SIZE_SHIFT;
+
+		this.sectorNodes = new Node[sectorsWidth * sectorsHeight][];
+		for (int i = 0; i < sectorNodes.length; i++) {
+			sectorNodes[i] = new Node[0];
+		}
+		this.dirtySectors = new BitSet(sectorNodes.length);
+		this.dirtySectors.set(0, sectorNodes.length);
+		this.sectorSearch = new SectorSearch(map, SECTOR_SIZE);
+	}
+
+	/**
+	 * Marks the sector of the given position dirty. A position on the border of a sector also changes the transitions of the neighbor sectors,
+	 * they are recalculated with the dirty sector.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	public synchronized void invalidate(int x, int y) {
+		dirtySectors.set(getSectorIdx(x, y));
+	}
+
+	/**
+	 * Rebuilds the dirty sectors. This method is called before every search, it MUST NOT be called while the grid is changed.
+	 */
+	public synchronized void update() {
+		if (dirtySectors.isEmpty()) {
+			return;
+		}
+
+		BitSet affectedSectors = new BitSet(sectorNodes.length);
+		for (int sector = dirtySectors.nextSetBit(0); sector >= 0; sector = dirtySectors.nextSetBit(sector + 1)) {
+			affectedSectors.set(sector);
+			int sectorX = sector % sectorsWidth;
+			int sectorY = sector / sectorsWidth;
+			for (int i = 0; i < sectorNeighborDx.length; i++) {
+				int neighborX = sectorX + sectorNeighborDx[i];
+				int neighborY = sectorY + sectorNeighborDy[i];
+				if (isSectorInBounds(neighborX, neighborY)) {
+					affectedSectors.set(neighborX + neighborY * sectorsWidth);
+				}
+			}
+		}
+
+		// calculate the transitions of all borders of the affected sectors
+		HashMap<Integer, ArrayList<int[]>> crossingsOfSectors = new HashMap<Integer, ArrayList<int[]>>();
+		for (int sector = affectedSectors.nextSetBit(0); sector >= 0; sector = affectedSectors.nextSetBit(sector + 1)) {
+			ArrayList<int[]> crossings = new ArrayList<int[]>();
+			int sectorX = sector % sectorsWidth;
+			int sectorY = sector / sectorsWidth;
+			for (int i = 0; i < sectorNeighborDx.length; i++) {
+				int neighborX = sectorX + sectorNeighborDx[i];
+				int neighborY = sectorY + sectorNeighborDy[i];
+				if (isSectorInBounds(neighborX, neighborY)) {
+					addTransitions(crossings, sector, neighborX + neighborY * sectorsWidth);
+				}
+			}
+			crossingsOfSectors.put(sector, crossings);
+		}
+
+		// update the nodes of the affected sectors
+		for (int sector = affectedSectors.nextSetBit(0); sector >= 0; sector = affectedSectors.nextSetBit(sector + 1)) {
+			ArrayList<int[]> crossings = crossingsOfSectors.get(sector);
+			int[] positions = new int[crossings.size()];
+			for (int i = 0; i < positions.length; i++) {
+				positions[i] = crossings.get(i)[0];
+			}
+			Arrays.sort(positions);
+
+			ArrayList<Node> newNodes = new ArrayList<Node>();
+			for (int i = 0; i < positions.length; i++) {
+				if (i == 0 || positions[i] != positions[i - 1]) {
+					newNodes.add(getOrCreateNode(positions[i], sector));
+				}
+			}
+
+			for (Node oldNode : sectorNodes[sector]) {
+				if (!newNodes.contains(oldNode)) {
+					removeNode(oldNode);
+				}
+			}
+			sectorNodes[sector] = newNodes.toArray(new Node[newNodes.size()]);
+		}
+
+		// calculate the edges of the nodes of the affected sectors
+		for (int sector = affectedSectors.nextSetBit(0); sector >= 0; sector = affectedSectors.nextSetBit(sector + 1)) {
+			buildEdges(sector, crossingsOfSectors.get(sector));
+			rebuiltSectors++;
+		}
+
+		dirtySectors.clear();
+	}
+
+	private void buildEdges(int sector, ArrayList<int[]> crossings) {
+		Node[] nodes = sectorNodes[sector];
+		int minX = getSectorMinX(sector);
+		int minY = getSectorMinY(sector);
+		int maxX = getSectorMaxX(sector);
+		int maxY = getSectorMaxY(sector);
+
+		for (Node node : nodes) {
+			ArrayList<int[]> interEdges = new ArrayList<int[]>();
+			for (int[] crossing : crossings) {
+				if (crossing[0] == node.position) {
+					interEdges.add(crossing);
+				}
+			}
+
+			sectorSearch.search(requester, node.x, node.y, minX, minY, maxX, maxY, -1, -1);
+			int intraEdges = 0;
+			for (Node other : nodes) {
+				if (other != node && sectorSearch.isReached(other.x, other.y)) {
+					intraEdges++;
+				}
+			}
+
+			Node[] edges = new Node[interEdges.size() + intraEdges];
+			float[] edgeCosts = new float[edges.length];
+			int edgeIdx = 0;
+			for (int[] crossing : interEdges) {
+				Node other = nodesByPosition.get(crossing[1]);
+				edges[edgeIdx] = other;
+				edgeCosts[edgeIdx] = map.getCost(node.x, node.y, other.x, other.y);
+				edgeIdx++;
+			}
+			for (Node other : nodes) {
+				if (other != node && sectorSearch.isReached(other.x, other.y)) {
+					edges[edgeIdx] = other;
+					edgeCosts[edgeIdx] = sectorSearch.getCosts(other.x, other.y);
+					edgeIdx++;
+				}
+			}
+
+			node.edges = edges;
+			node.edgeCosts = edgeCosts;
+		}
+	}
+
+	/**
+	 * Adds the transitions between the two given sectors to the given list. Every transition is an int array containing the position in the first
+	 * sector and the position in the second sector.
+	 */
+	private void addTransitions(ArrayList<int[]> transitions, int sector, int neighborSector) {
+		boolean swapped = neighborSector < sector; // always calculate the crossings from the lower sector to get the same transitions for both
+		int fromSector = swapped ? neighborSector : sector;
+		int toSector = swapped ? sector : neighborSector;
+
+		ArrayList<int[]> crossings = new ArrayList<int[]>();
+		int minX = getSectorMinX(fromSector);
+		int minY = getSectorMinY(fromSector);
+		int maxX = getSectorMaxX(fromSector);
+		int maxY = getSectorMaxY(fromSector);
+		for (int y = minY; y <= maxY; y++) {
+			for (int x = minX; x <= maxX; x++) {
+				if (x != minX && x != maxX && y != minY && y != maxY) {
+					continue;
+				}
+				if (map.isBlocked(requester, x, y)) {
+					continue;
+				}
+
+				for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+					int nx = x + xDeltaArray[i];
+					int ny = y + yDeltaArray[i];
+					if (isInBounds(nx, ny) && getSectorIdx(nx, ny) == toSector && !map.isBlocked(requester, nx, ny)) {
+						crossings.add(new int[] { getPosition(x, y), getPosition(nx, ny) });
+					}
+				}
+			}
+		}
+
+		sortCrossings(crossings);
+
+		int runStart = 0;
+		for (int i = 1; i <= crossings.size(); i++) {
+			if (i == crossings.size() || !areNeighbors(crossings.get(i - 1), crossings.get(i))) {
+				int runLength = i - runStart;
+				if (runLength <= MAX_SINGLE_TRANSITION_RUN) {
+					addTransition(transitions, crossings.get(runStart + runLength / 2), swapped);
+				} else {
+					addTransition(transitions, crossings.get(runStart), swapped);
+					addTransition(transitions, crossings.get(i - 1), swapped);
+				}
+				runStart = i;
+			}
+		}
+	}
+
+	private static void addTransition(ArrayList<int[]> transitions, int[] crossing, boolean swapped) {
+		if (swapped) {
+			transitions.add(new int[] { crossing[1], crossing[0] });
+		} else {
+			transitions.add(crossing);
+		}
+	}
+
+	private static void sortCrossings(ArrayList<int[]> crossings) {
+		int[][] array = crossings.toArray(new int[crossings.size()][]);
+		Arrays.sort(array, new Comparator<int[]>() {
+			@Override
+			public int compare(int[] c1, int[] c2) {
+				if (c1[0] != c2[0]) {
+					return c1[0] < c2[0] ? -1 : 1;
+				}
+				return c1[1] < c2[1] ? -1 : (c1[1] == c2[1] ? 0 : 1);
+			}
+		});
+		crossings.clear();
+		crossings.addAll(Arrays.asList(array));
+	}
+
+	private boolean areNeighbors(int[] crossing1, int[] crossing2) {
+		return getDistance(crossing1[0], crossing2[0]) <= 1 && getDistance(crossing1[1], crossing2[1]) <= 1;
+	}
+
+	private int getDistance(int position1, int position2) {
+		return ShortPoint2D.getOnGridDist(position2 % width - position1 % width, position2 / width - position1 / width);
+	}
+
+	private Node getOrCreateNode(int position, int sector) {
+		Node node = nodesByPosition.get(position);
+		if (node == null) {
+			int id;
+			if (freeIds.isEmpty()) {
+				id = nodesById.size();
+				nodesById.add(null);
+			} else {
+				id = freeIds.remove(freeIds.size() - 1);
+			}
+
+			node = new Node(id, position, position % width, position / width, sector);
+			nodesById.set(id, node);
+			nodesByPosition.put(position, node);
+		}
+		return node;
+	}
+
+	private void removeNode(Node node) {
+		nodesByPosition.remove(node.position);
+		nodesById.set(node.id, null);
+		freeIds.add(node.id);
+	}
+
+	Node getNode(int id) {
+		return nodesById.get(id);
+	}
+
+	Node[] getNodesOfSector(int sector) {
+		return sectorNodes[sector];
+	}
+
+	/**
+	 * 
+	 * @return Returns an upper bound of the ids of the nodes.
+	 */
+	int getNodeIdBound() {
+		return nodesById.size();
+	}
+
+	int getSectorIdx(int x, int y) {
+		return (x >> SECTOR_SIZE_SHIFT) + (y >> SECTOR_SIZE_SHIFT) * sectorsWidth;
+	}
+
+	int getSectorMinX(int sector) {
+		return (sector % sectorsWidth) << SECTOR_SIZE_SHIFT;
+	}
+
+	int getSectorMinY(int sector) {
+		return (sector / sectorsWidth) << SECTOR_SIZE_SHIFT;
+	}
+
+	int getSectorMaxX(int sector) {
+		return Math.min(width - 1, getSectorMinX(sector) + SECTOR_SIZE - 1);
+	}
+
+	int getSectorMaxY(int sector) {
+		return Math.min(height - 1, getSectorMinY(sector) + SECTOR_SIZE - 1);
+	}
+
+	private boolean isSectorInBounds(int sectorX, int sectorY) {
+		return 0 <= sectorX && sectorX < sectorsWidth && 0 <= sectorY && sectorY < sectorsHeight;
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private int getPosition(int x, int y) {
+		return x + y * width;
+	}
+
+	/**
+	 * 
+	 * @return Returns the number of nodes of the graph.
+	 */
+	public synchronized int getNumberOfNodes() {
+		return nodesByPosition.size();
+	}
+
+	/**
+	 * 
+	 * @return Returns the number of sector rebuilds since the creation of this graph.
+	 */
+	public synchronized int getRebuiltSectors() {
+		return rebuiltSectors;
+	}
+
+	/**
+	 * A transition position of the graph.
+	 */
+	static final class Node {
+		final int id;
+		final int position;
+		final int x;
+		final int y;
+		final int sector;
+
+		Node[] edges = new Node[0];
+		float[] edgeCosts = new float[0];
+
+		Node(int id, int position, int x, int y, int sector) {
+			this.id = id;
+			this.position = position;
+			this.x = x;
+			this.y = y;
+			this.sector = sector;
+		}
+	}
+}
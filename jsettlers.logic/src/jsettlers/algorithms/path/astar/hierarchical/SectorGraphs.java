@@ -0,0 +1,101 @@
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import java.util.HashMap;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * The {@link SectorGraph}s of a map. Requesters that don't need their player's ground share one graph; for the other requesters, there is one
+ * graph per player. The graphs are created when they are used the first time.
+ * <p />
+ * An instance can be shared by multiple {@link HierarchicalAStar}s.
+ */
+public final class SectorGraphs {
+	private static final int NO_PLAYER_CONSTRAINT = -1;
+
+	private final IAStarPathMap map;
+	private final short width;
+	private final short height;
+
+	private final HashMap<Integer, SectorGraph> graphs = new HashMap<Integer, SectorGraph>();
+
+	public SectorGraphs(IAStarPathMap map, short width, short height) {
+		this.map = map;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * 
+	 * @param requester
+	 * @return Returns the graph for the given requester.
+	 */
+	public synchronized SectorGraph getGraph(IPathCalculatable requester) {
+		final boolean needsPlayersGround = requester.needsPlayersGround();
+		final byte playerId = requester.getPlayerId();
+		int constraint = needsPlayersGround ? playerId : NO_PLAYER_CONSTRAINT;
+
+		SectorGraph graph = graphs.get(constraint);
+		if (graph == null) {
+			graph = new SectorGraph(map, new ConstraintRequester(needsPlayersGround, playerId), width, height);
+			graphs.put(constraint, graph);
+		}
+		return graph;
+	}
+
+	/**
+	 * Needs to be called when the blocking of the given position changed.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	public synchronized void blockingChanged(int x, int y) {
+		for (SectorGraph graph : graphs.values()) {
+			graph.invalidate(x, y);
+		}
+	}
+
+	/**
+	 * Needs to be called when the player of the given position changed.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	public synchronized void playerChanged(int x, int y) {
+		for (Integer constraint : graphs.keySet()) {
+			if (constraint != NO_PLAYER_CONSTRAINT) {
+				graphs.get(constraint).invalidate(x, y);
+			}
+		}
+	}
+
+	/**
+	 * {@link IPathCalculatable} representing the requesters of one graph.
+	 */
+	private static final class ConstraintRequester implements IPathCalculatable {
+		private final boolean needsPlayersGround;
+		private final byte playerId;
+
+		ConstraintRequester(boolean needsPlayersGround, byte playerId) {
+			this.needsPlayersGround = needsPlayersGround;
+			this.playerId = playerId;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return playerId;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return null;
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return needsPlayersGround;
+		}
+	}
+}
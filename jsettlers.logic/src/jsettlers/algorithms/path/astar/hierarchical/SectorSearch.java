@@ -0,0 +1,147 @@
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.common.movable.EDirection;
+
+/**
+ * Dijkstra search that is restricted to the positions of a single sector of a {@link SectorGraph}.
+ * <p />
+ * The search state is only reset by increasing a stamp, so a search only costs the positions it visits.
+ */
+final class SectorSearch {
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+
+	private final IAStarPathMap map;
+	private final int sectorSize;
+
+	private final float[] costs;
+	private final int[] parents;
+	private final int[] openStamps;
+	private final int[] closedStamps;
+	private final IntMinHeap open;
+
+	private int stamp = 0;
+	private int minX, minY, maxX, maxY;
+
+	SectorSearch(IAStarPathMap map, int sectorSize) {
+		this.map = map;
+		this.sectorSize = sectorSize;
+
+		int positions = sectorSize * sectorSize;
+		this.costs = new float[positions];
+		this.parents = new int[positions];
+		this.openStamps = new int[positions];
+		this.closedStamps = new int[positions];
+		this.open = new IntMinHeap(positions);
+	}
+
+	/**
+	 * Searches the costs from the given start to all positions of the given bounds. If a target is given, the search stops as soon as the target
+	 * has been reached.
+	 * 
+	 * @return true if the target has been reached or no target has been given.
+	 */
+	boolean search(IPathCalculatable requester, int sx, int sy, int minX, int minY, int maxX, int maxY, int tx, int ty) {
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		stamp++;
+		open.clear();
+
+		int startIdx = getLocalIdx(sx, sy);
+		costs[startIdx] = 0;
+		parents[startIdx] = -1;
+		openStamps[startIdx] = stamp;
+		open.insert(startIdx, 0);
+
+		final boolean hasTarget = tx >= 0;
+
+		while (!open.isEmpty()) {
+			int currIdx = open.deleteMin();
+			if (closedStamps[currIdx] == stamp || open.getLastRank() > costs[currIdx]) {
+				continue; // outdated heap entry
+			}
+			closedStamps[currIdx] = stamp;
+
+			int x = getX(currIdx);
+			int y = getY(currIdx);
+			if (hasTarget && x == tx && y == ty) {
+				return true;
+			}
+
+			float currCosts = costs[currIdx];
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				int nx = x + xDeltaArray[i];
+				int ny = y + yDeltaArray[i];
+				if (nx < minX || nx > maxX || ny < minY || ny > maxY || map.isBlocked(requester, nx, ny)) {
+					continue;
+				}
+
+				int neighborIdx = getLocalIdx(nx, ny);
+				if (closedStamps[neighborIdx] == stamp) {
+					continue;
+				}
+
+				float newCosts = currCosts + map.getCost(x, y, nx, ny);
+				if (openStamps[neighborIdx] != stamp || newCosts < costs[neighborIdx]) {
+					openStamps[neighborIdx] = stamp;
+					costs[neighborIdx] = newCosts;
+					parents[neighborIdx] = currIdx;
+					open.insert(neighborIdx, newCosts);
+				}
+			}
+		}
+
+		return !hasTarget;
+	}
+
+	boolean isReached(int x, int y) {
+		return closedStamps[getLocalIdx(x, y)] == stamp;
+	}
+
+	float getCosts(int x, int y) {
+		return costs[getLocalIdx(x, y)];
+	}
+
+	/**
+	 * Appends the positions from the start of the last search to the given position to the given list. The start itself is not appended.
+	 */
+	void appendPathFromStart(PositionList positions, int x, int y) {
+		int length = 0;
+		for (int idx = getLocalIdx(x, y); parents[idx] >= 0; idx = parents[idx]) {
+			length++;
+		}
+
+		int end = positions.size() + length;
+		positions.setSize(end);
+		int i = end;
+		for (int idx = getLocalIdx(x, y); parents[idx] >= 0; idx = parents[idx]) {
+			positions.set(--i, getX(idx), getY(idx));
+		}
+	}
+
+	/**
+	 * Appends the positions from the given position to the start of the last search to the given list. The given position itself is not
+	 * appended.
+	 */
+	void appendPathToStart(PositionList positions, int x, int y) {
+		for (int idx = parents[getLocalIdx(x, y)]; idx >= 0; idx = parents[idx]) {
+			positions.add(getX(idx), getY(idx));
+		}
+	}
+
+	private int getLocalIdx(int x, int y) {
+		return (x - minX) + (y - minY) * sectorSize;
+	}
+
+	private int getX(int localIdx) {
+		return minX + localIdx % sectorSize;
+	}
+
+	private int getY(int localIdx) {
+		return minY + localIdx / sectorSize;
+	}
+}
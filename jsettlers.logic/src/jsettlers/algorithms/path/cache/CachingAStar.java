@@ -0,0 +1,45 @@
+package jsettlers.algorithms.path.cache;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * {@link AbstractAStar} looking up the paths in a {@link PathCache} before searching them with a {@link BucketQueueAStar}. Found paths are
+ * stored in the cache.
+ * <p />
+ * Multiple instances can share the same cache, but every instance must only be used by one thread at a time.
+ */
+public final class CachingAStar extends AbstractAStar {
+	private final BucketQueueAStar aStar;
+	private final PathCache cache;
+
+	public CachingAStar(BucketQueueAStar aStar, PathCache cache) {
+		this.aStar = aStar;
+		this.cache = cache;
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		Path path = cache.get(requester, sx, sy, tx, ty);
+		if (path != null) {
+			return path;
+		}
+
+		path = aStar.findPath(requester, sx, sy, tx, ty);
+		if (path != null) {
+			// the search also examined the direct neighbors of the closed positions
+			cache.put(requester, sx, sy, tx, ty, path, aStar.getClosedMinX() - 1, aStar.getClosedMinY() - 1, aStar.getClosedMaxX() + 1,
+					aStar.getClosedMaxY() + 1);
+		}
+		return path;
+	}
+}
@@ -0,0 +1,251 @@
+package jsettlers.algorithms.path.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+
+/**
+ * Cache for paths calculated by the {@link CachingAStar}.
+ * <p />
+ * The paths are stored with their start, target and the constraints of the requester (the player if the requester needs the ground of its
+ * player). The map is divided into square regions of {@link #REGION_SIZE} positions. For every cached path, the cache remembers the regions
+ * containing the positions examined by the search. If the blocking or the player of a position changes, all paths of the position's region are
+ * removed. Therefore a cached path always equals the path a new search would find.
+ * <p />
+ * All methods are synchronized, so the cache can be shared by the workspaces of multiple threads.
+ */
+public final class PathCache {
+	public static final int REGION_SIZE_SHIFT = 4;
+	public static final int REGION_SIZE = 1 << REGION_SIZE_SHIFT;
+	private static final int DEFAULT_MAX_ENTRIES = 2048;
+
+	private final int regionsWidth;
+	private final int regionsHeight;
+	private final int maxEntries;
+
+	private final LinkedHashMap<PathKey, CacheEntry> entries;
+	private final ArrayList<HashSet<CacheEntry>> regionEntries;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long invalidations = 0;
+
+	public PathCache(short width, short height) {
+		this(width, height, DEFAULT_MAX_ENTRIES);
+	}
+
+	@SuppressWarnings("unchecked")
+	public PathCache(short width, short height, int maxEntries) {
+		this.regionsWidth = (width + REGION_SIZE - 1) >> REGION_SIZE_SHIFT;
+		this.regionsHeight = (height + REGION_SIZE - 1) >> REGION_SIZE_SHIFT;
+		this.maxEntries = maxEntries;
+
+		this.entries = new LinkedHashMap<PathKey, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = -3283497001298316620L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<PathKey, CacheEntry> eldest) {
+				if (size() > PathCache.this.maxEntries) {
+					unregister(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+		this.regionEntries = new ArrayList<HashSet<CacheEntry>>(Collections.<HashSet<CacheEntry>> nCopies(regionsWidth * regionsHeight, null));
+	}
+
+	/**
+	 * 
+	 * @param requester
+	 * @param sx
+	 * @param sy
+	 * @param tx
+	 * @param ty
+	 * @return Returns a copy of the cached path or null if there is no path cached for the given parameters.
+	 */
+	public synchronized Path get(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		CacheEntry entry = entries.get(new PathKey(sx, sy, tx, ty, getConstraints(requester)));
+		if (entry == null) {
+			misses++;
+			return null;
+		} else {
+			hits++;
+			return entry.path.copy();
+		}
+	}
+
+	/**
+	 * Stores the given path. The given bounds must contain all positions examined by the search calculating the path.
+	 * 
+	 * @param requester
+	 * @param sx
+	 * @param sy
+	 * @param tx
+	 * @param ty
+	 * @param path
+	 *            The calculated path. The cache stores a copy of it.
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 */
+	public synchronized void put(IPathCalculatable requester, short sx, short sy, short tx, short ty, Path path, int minX, int minY, int maxX,
+			int maxY) {
+		PathKey key = new PathKey(sx, sy, tx, ty, getConstraints(requester));
+		CacheEntry entry = new CacheEntry(key, path.copy(), getRegion(minX, regionsWidth), getRegion(minY, regionsHeight),
+				getRegion(maxX, regionsWidth), getRegion(maxY, regionsHeight));
+
+		CacheEntry oldEntry = entries.put(key, entry);
+		if (oldEntry != null) {
+			unregister(oldEntry);
+		}
+
+		for (int ry = entry.minRegionY; ry <= entry.maxRegionY; ry++) {
+			for (int rx = entry.minRegionX; rx <= entry.maxRegionX; rx++) {
+				int regionIdx = rx + ry * regionsWidth;
+				HashSet<CacheEntry> region = regionEntries.get(regionIdx);
+				if (region == null) {
+					region = new HashSet<CacheEntry>();
+					regionEntries.set(regionIdx, region);
+				}
+				region.add(entry);
+			}
+		}
+	}
+
+	/**
+	 * Removes all paths that could change due to a change of the given position.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	public synchronized void invalidate(int x, int y) {
+		int regionIdx = getRegion(x, regionsWidth) + getRegion(y, regionsHeight) * regionsWidth;
+		HashSet<CacheEntry> region = regionEntries.get(regionIdx);
+		if (region == null || region.isEmpty()) {
+			return;
+		}
+
+		CacheEntry[] invalidEntries = region.toArray(new CacheEntry[region.size()]);
+		for (CacheEntry entry : invalidEntries) {
+			entries.remove(entry.key);
+			unregister(entry);
+			invalidations++;
+		}
+	}
+
+	/**
+	 * Removes all paths.
+	 */
+	public synchronized void clear() {
+		invalidations += entries.size();
+		entries.clear();
+		Collections.fill(regionEntries, null);
+	}
+
+	private void unregister(CacheEntry entry) {
+		for (int ry = entry.minRegionY; ry <= entry.maxRegionY; ry++) {
+			for (int rx = entry.minRegionX; rx <= entry.maxRegionX; rx++) {
+				HashSet<CacheEntry> region = regionEntries.get(rx + ry * regionsWidth);
+				if (region != null) {
+					region.remove(entry);
+				}
+			}
+		}
+	}
+
+	private static int getRegion(int coordinate, int numberOfRegions) {
+		return Math.max(0, Math.min(numberOfRegions - 1, coordinate >> REGION_SIZE_SHIFT));
+	}
+
+	private static int getConstraints(IPathCalculatable requester) {
+		return requester.needsPlayersGround() ? requester.getPlayerId() : -1;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * 
+	 * @return Returns the number of paths removed because the grid changed.
+	 */
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized void resetStatistics() {
+		hits = 0;
+		misses = 0;
+		invalidations = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		long requests = hits + misses;
+		return "PathCache [entries=" + entries.size() + ", hits=" + hits + ", misses=" + misses + ", hitRate="
+				+ (requests > 0 ? hits * 100 / requests : 0) + "%, invalidations=" + invalidations + "]";
+	}
+
+	private static final class PathKey {
+		private final short sx, sy, tx, ty;
+		private final int constraints;
+
+		PathKey(short sx, short sy, short tx, short ty, int constraints) {
+			this.sx = sx;
+			this.sy = sy;
+			this.tx = tx;
+			this.ty = ty;
+			this.constraints = constraints;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = constraints;
+			result = 31 * result + sx;
+			result = 31 * result + sy;
+			result = 31 * result + tx;
+			result = 31 * result + ty;
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof PathKey))
+				return false;
+			PathKey other = (PathKey) obj;
+			return sx == other.sx && sy == other.sy && tx == other.tx && ty == other.ty && constraints == other.constraints;
+		}
+	}
+
+	private static final class CacheEntry {
+		final PathKey key;
+		final Path path;
+		final int minRegionX, minRegionY, maxRegionX, maxRegionY;
+
+		CacheEntry(PathKey key, Path path, int minRegionX, int minRegionY, int maxRegionX, int maxRegionY) {
+			this.key = key;
+			this.path = path;
+			this.minRegionX = minRegionX;
+			this.minRegionY = minRegionY;
+			this.maxRegionX = maxRegionX;
+			this.maxRegionY = maxRegionY;
+		}
+	}
+}
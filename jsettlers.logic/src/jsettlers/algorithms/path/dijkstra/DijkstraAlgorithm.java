@@ -1,35 +1,65 @@
 package jsettlers.algorithms.path.dijkstra;
 
 import java.io.Serializable;
+import java.util.BitSet;
 
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.InvalidStartPositionException;
 import jsettlers.algorithms.path.Path;
-import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.algorithms.path.astar.queues.bucket.AbstractBucketQueue;
+import jsettlers.algorithms.path.astar.queues.bucket.ArrayMinBucketQueue;
 import jsettlers.common.map.shapes.MapCircle;
 import jsettlers.common.material.ESearchType;
+import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
 
 /**
- * this class implements a strict dijkstra algorithm
- * 
+ * This class implements a multi target dijkstra algorithm.
+ * <p />
+ * A single flood fill is started at the position of the requester. The first settled position that lies in the search area around the given
+ * center and fits the search type is the target. Therefore the target with the shortest walking distance is found and the path can directly be
+ * read from the parent links of the flood fill.
+ * <p />
+ * The flood fill is bounded by {@link #MAX_DETOUR_FACTOR} times the on grid distance from the requester to the farthest point of the search area.
+ * Positions that can't reach the search area within this bound are not expanded. If this bounded flood doesn't find a target but skipped
+ * positions, and the search area contains a fitting position that was not reached but lies in the blocked partition of the requester, the
+ * flood is repeated without the bound, so targets behind long obstacles are still found. Without such a position, a search without a target
+ * stays within the bound. NOTE: The pruning expects the costs of a step to be at least 1.
+ *
  * @author Andreas Eberle
- * 
+ *
  */
 public final class DijkstraAlgorithm {
-	private static final byte[] directionIncreaseX = { -1, 0, 1, 1, 0, -1 };
-	private static final byte[] directionIncreaseY = { 0, 1, 1, 0, -1, -1 };
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
 	private static final float MAX_RADIUS_MULTIPLIER = 1f / MapCircle.Y_SCALE;
+	private static final int MAX_DETOUR_FACTOR = 2;
 
 	private final IDijkstraPathMap map;
+	private final IAStarPathMap pathMap;
 	private final short height, width;
-	private final AbstractAStar aStar;
 
-	public DijkstraAlgorithm(IDijkstraPathMap map, AbstractAStar aStar, short width, short height) {
+	private final BitSet openBitSet;
+	private final BitSet closedBitSet;
+	private final float[] costs;
+	private final int[] depthParentHeap;
+	private final AbstractBucketQueue open;
+
+	private boolean searchExhausted;
+	private boolean searchPruned;
+
+	public DijkstraAlgorithm(IDijkstraPathMap map, IAStarPathMap pathMap, short width, short height) {
 		this.map = map;
-		this.aStar = aStar;
+		this.pathMap = pathMap;
 		this.width = width;
 		this.height = height;
+
+		this.openBitSet = new BitSet(width * height);
+		this.closedBitSet = new BitSet(width * height);
+		this.costs = new float[width * height];
+		this.depthParentHeap = new int[width * height * 2];
+		this.open = new ArrayMinBucketQueue(width * height);
 	}
 
 	public final Path find(final IPathCalculatable requester, final short cX, final short cY, final short minRadius, final short maxRadius,
@@ -38,22 +68,123 @@ public final class DijkstraAlgorithm {
 			throw new InvalidStartPositionException("dijkstra center position is not in bounds!", cX, cY);
 		}
 
-		for (short radius = minRadius; radius < maxRadius; radius++) {
-			short x = cX, y = (short) (cY - radius);
-			for (byte direction = 0; direction < 6; direction++) {
-				byte dx = directionIncreaseX[direction];
-				byte dy = directionIncreaseY[direction];
-				for (short length = 0; length < radius; length++) {
-					x += dx;
-					y += dy;
-					if (isInBounds(x, y)) {
-						map.setDijkstraSearched(x, y);
-						if (map.fitsSearchType(x, y, type, requester)) {
-							Path path = findPathTo(requester, x, y);
-							if (path != null)
-								return path;
-						}
+		return search(requester, cX, cY, minRadius, maxRadius, null, type, 0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Continues the given request. Every call only checks the targets with walking costs in the next {@link DijkstraContinuableRequest#getRadiusSteps()}
+	 * costs. When the bounded flood has been checked completely, the remaining targets are searched in one unbounded step and the request starts
+	 * again with the nearest targets.
+	 * <p />
+	 * NOTE: The flood is not kept between the calls, because the workspace is shared by all requests and the grid may change in between. Every
+	 * call floods again from the requester, so a call costs as much as a search up to the end of its costs band.
+	 *
+	 * @param request
+	 * @return The path to the found target or null if no target has been found in this step.
+	 */
+	public final Path find(DijkstraContinuableRequest request) {
+		if (!isInBounds(request.cX, request.cY)) {
+			throw new InvalidStartPositionException("dijkstra center position is not in bounds!", request.cX, request.cY);
+		}
+
+		MapCircle circle = new MapCircle(request.cX, request.cY, request.maxRadius * MAX_RADIUS_MULTIPLIER);
+
+		int minCosts = request.radius;
+		int maxCosts = minCosts + request.getRadiusSteps();
+
+		Path path = search(request.requester, request.cX, request.cY, request.minRadius, request.maxRadius, circle, request.searchType, minCosts,
+				maxCosts);
+
+		if (path == null) {
+			request.setRadius(searchExhausted ? 0 : maxCosts);
+		}
+		return path;
+	}
+
+	private final Path search(IPathCalculatable requester, short cX, short cY, short minRadius, short maxRadius, MapCircle circle,
+			ESearchType type, int minCosts, int maxCosts) {
+		ShortPoint2D pos = requester.getPos();
+		if (!isInBounds(pos.x, pos.y)) {
+			throw new InvalidStartPositionException("Start position is out of bounds!", pos.x, pos.y);
+		}
+
+		int costsBound = MAX_DETOUR_FACTOR * (ShortPoint2D.getOnGridDist(cX - pos.x, cY - pos.y) + maxRadius);
+		Path path = flood(requester, pos.x, pos.y, cX, cY, minRadius, maxRadius, circle, type, minCosts, maxCosts, costsBound);
+
+		if (path == null && searchExhausted && searchPruned
+				&& hasUnreachedTarget(requester, cX, cY, minRadius, maxRadius, circle, type, pathMap.getBlockedPartition(pos.x, pos.y))) {
+			// targets that need a bigger detour are searched with all costs at once, so a continuable request doesn't crawl over the whole map.
+			path = flood(requester, pos.x, pos.y, cX, cY, minRadius, maxRadius, circle, type, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		}
+		return path;
+	}
+
+	private final Path flood(IPathCalculatable requester, final int sx, final int sy, short cX, short cY, short minRadius, short maxRadius,
+			MapCircle circle, ESearchType type, int minCosts, int maxCosts, final int costsBound) {
+		final boolean blockedAtStart = pathMap.isBlocked(requester, sx, sy);
+		final short startPartition = pathMap.getBlockedPartition(sx, sy);
+		final int startFlatIdx = getFlatIdx(sx, sy);
+
+		closedBitSet.clear();
+		openBitSet.clear();
+		open.clear();
+		searchExhausted = true;
+		searchPruned = false;
+
+		depthParentHeap[getDepthIdx(startFlatIdx)] = 0;
+		depthParentHeap[getParentIdx(startFlatIdx)] = -1;
+		costs[startFlatIdx] = 0;
+		open.insert(startFlatIdx, 0);
+		openBitSet.set(startFlatIdx);
+
+		while (!open.isEmpty()) {
+			final int currFlatIdx = open.deleteMin();
+			final float currPositionCosts = costs[currFlatIdx];
+
+			if (currPositionCosts >= maxCosts) {
+				searchExhausted = false;
+				break;
+			}
+
+			final int x = getX(currFlatIdx);
+			final int y = getY(currFlatIdx);
+			closedBitSet.set(currFlatIdx);
+
+			if (currPositionCosts >= minCosts && currFlatIdx != startFlatIdx
+					&& isTarget(requester, x, y, cX, cY, minRadius, maxRadius, circle, type, blockedAtStart, startPartition)) {
+				return createPath(currFlatIdx);
+			}
+
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				final int neighborX = x + xDeltaArray[i];
+				final int neighborY = y + yDeltaArray[i];
+
+				if (!isInBounds(neighborX, neighborY) || (!blockedAtStart && pathMap.isBlocked(requester, neighborX, neighborY))) {
+					continue;
+				}
+
+				final int flatNeighborIdx = getFlatIdx(neighborX, neighborY);
+				if (closedBitSet.get(flatNeighborIdx)) {
+					continue;
+				}
+
+				final float newCosts = currPositionCosts + pathMap.getCost(x, y, neighborX, neighborY);
+				final int remainingCosts = Math.max(0, ShortPoint2D.getOnGridDist(cX - neighborX, cY - neighborY) - maxRadius + 1);
+				if (newCosts + remainingCosts > costsBound) {
+					searchPruned = true;
+					continue;
+				}
+
+				if (openBitSet.get(flatNeighborIdx)) {
+					final float oldCosts = costs[flatNeighborIdx];
+					if (oldCosts > newCosts) {
+						setParent(flatNeighborIdx, currFlatIdx, newCosts);
+						open.increasedPriority(flatNeighborIdx, oldCosts, newCosts);
 					}
+				} else {
+					setParent(flatNeighborIdx, currFlatIdx, newCosts);
+					openBitSet.set(flatNeighborIdx);
+					open.insert(flatNeighborIdx, newCosts);
 				}
 			}
 		}
@@ -61,12 +192,88 @@ public final class DijkstraAlgorithm {
 		return null;
 	}
 
-	private final Path findPathTo(IPathCalculatable requester, short tx, short ty) {
-		ShortPoint2D pos = requester.getPos();
-		return aStar.findPath(requester, pos.x, pos.y, tx, ty);
+	/**
+	 * Checks the search area for a fitting position that the last flood did not reach. Only positions that are not blocked and lie in the blocked
+	 * partition of the start position are checked, because the others can't be reached with any detour.
+	 */
+	private final boolean hasUnreachedTarget(IPathCalculatable requester, short cX, short cY, short minRadius, short maxRadius, MapCircle circle,
+			ESearchType type, short startPartition) {
+		for (int y = Math.max(cY - maxRadius, 0); y < Math.min(cY + maxRadius, height); y++) {
+			for (int x = Math.max(cX - maxRadius, 0); x < Math.min(cX + maxRadius, width); x++) {
+				if (!closedBitSet.get(getFlatIdx(x, y)) && isInSearchArea(x, y, cX, cY, minRadius, maxRadius, circle)
+						&& !pathMap.isBlocked(requester, x, y) && pathMap.getBlockedPartition(x, y) == startPartition
+						&& map.fitsSearchType(x, y, type, requester)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isInSearchArea(int x, int y, short cX, short cY, short minRadius, short maxRadius, MapCircle circle) {
+		int distToCenter = ShortPoint2D.getOnGridDist(x - cX, y - cY);
+		return distToCenter >= minRadius && distToCenter < maxRadius && (circle == null || circle.contains(x, y));
+	}
+
+	private final boolean isTarget(IPathCalculatable requester, int x, int y, short cX, short cY, short minRadius, short maxRadius,
+			MapCircle circle, ESearchType type, boolean blockedAtStart, short startPartition) {
+		if (!isInSearchArea(x, y, cX, cY, minRadius, maxRadius, circle)) {
+			return false;
+		}
+
+		map.setDijkstraSearched(x, y);
+		if (!map.fitsSearchType(x, y, type, requester)) {
+			return false;
+		}
+
+		// when starting on a blocked position, every position is walkable. Nevertheless, the target needs to be reachable.
+		return !blockedAtStart || (!pathMap.isBlocked(requester, x, y) && pathMap.getBlockedPartition(x, y) == startPartition);
+	}
+
+	private final void setParent(int flatIdx, int parentFlatIdx, float newCosts) {
+		costs[flatIdx] = newCosts;
+		depthParentHeap[getDepthIdx(flatIdx)] = depthParentHeap[getDepthIdx(parentFlatIdx)] + 1;
+		depthParentHeap[getParentIdx(flatIdx)] = parentFlatIdx;
+	}
+
+	private final Path createPath(int targetFlatIdx) {
+		int pathlength = depthParentHeap[getDepthIdx(targetFlatIdx)];
+		Path path = new Path(pathlength);
+
+		int idx = pathlength;
+		int parentFlatIdx = targetFlatIdx;
+
+		while (idx > 0) {
+			idx--;
+			path.insertAt(idx, (short) getX(parentFlatIdx), (short) getY(parentFlatIdx));
+			parentFlatIdx = depthParentHeap[getParentIdx(parentFlatIdx)];
+		}
+
+		path.initPath();
+		return path;
+	}
+
+	private static final int getDepthIdx(int flatIdx) {
+		return 2 * flatIdx;
+	}
+
+	private static final int getParentIdx(int flatIdx) {
+		return 2 * flatIdx + 1;
 	}
 
-	private final boolean isInBounds(short x, short y) {
+	private final int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	private final int getX(int flatIdx) {
+		return flatIdx % width;
+	}
+
+	private final int getY(int flatIdx) {
+		return flatIdx / width;
+	}
+
+	private final boolean isInBounds(int x, int y) {
 		return 0 <= x && x < width && 0 <= y && y < height;
 	}
 
@@ -80,6 +287,9 @@ public final class DijkstraAlgorithm {
 		final short cY;
 		ESearchType searchType;
 
+		/**
+		 * The walking costs the next step of the search starts with.
+		 */
 		short radius;
 
 		public DijkstraContinuableRequest(final IPathCalculatable requester, short cX, short cY, short minRadius, short maxRadius,
@@ -106,50 +316,12 @@ public final class DijkstraAlgorithm {
 			return pos != null && pos.x == cX && pos.y == cY;
 		}
 
-		void setRadius(short radius) {
-			this.radius = (short) (radius - this.minRadius + 1);
+		void setRadius(int radius) {
+			this.radius = (short) radius;
 		}
 
 		public void setSearchType(ESearchType searchType) {
 			this.searchType = searchType;
 		}
 	}
-
-	public final Path find(DijkstraContinuableRequest request) {
-		if (!isInBounds(request.cX, request.cY)) {
-			throw new InvalidStartPositionException("dijkstra center position is not in bounds!", request.cX, request.cY);
-		}
-
-		MapCircle circle = new MapCircle(request.cX, request.cY, request.maxRadius * MAX_RADIUS_MULTIPLIER);
-
-		short radiusSteps = request.getRadiusSteps();
-		short radius = 1;
-
-		for (short deltaRadius = 0; deltaRadius < radiusSteps; deltaRadius++) {
-			radius = (short) ((deltaRadius + request.radius) % request.maxRadius + request.minRadius);
-			short x = request.cX, y = (short) (request.cY - radius);
-
-			for (byte direction = 0; direction < 6; direction++) {
-				byte dx = directionIncreaseX[direction];
-				byte dy = directionIncreaseY[direction];
-				for (short length = 0; length < radius; length++) {
-					x += dx;
-					y += dy;
-					if (circle.contains(x, y) && isInBounds(x, y)) {
-						map.setDijkstraSearched(x, y);
-						if (map.fitsSearchType(x, y, request.searchType, request.requester)) {
-							Path path = findPathTo(request.requester, x, y);
-							if (path != null) {
-								request.setRadius(radius);
-								return path;
-							}
-						}
-					}
-				}
-			}
-		}
-
-		request.setRadius(radius);
-		return null;
-	}
 }
@@ -0,0 +1,49 @@
+package jsettlers.algorithms.path.service;
+
+import java.util.ArrayDeque;
+
+import jsettlers.algorithms.path.astar.AbstractAStar;
+
+/**
+ * Pool of {@link AbstractAStar} instances. Every instance allocates its own cost, parent and BitSet arrays, therefore an instance can only be
+ * used by one thread at a time. A thread acquires an instance, uses it for one or more searches and releases it afterwards.
+ * <p />
+ * Instances are only created when all existing ones are in use. Therefore the pool never holds more instances than threads searching at the same
+ * time.
+ */
+public final class AStarWorkspacePool {
+	private final IAStarFactory factory;
+	private final ArrayDeque<AbstractAStar> freeWorkspaces = new ArrayDeque<AbstractAStar>();
+
+	private int numberOfWorkspaces = 0;
+
+	public AStarWorkspacePool(IAStarFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * 
+	 * @return Returns a {@link AbstractAStar} that is exclusively used by the calling thread until it is given back with
+	 *         {@link #release(AbstractAStar)}.
+	 */
+	public synchronized AbstractAStar acquire() {
+		AbstractAStar aStar = freeWorkspaces.pollFirst();
+		if (aStar == null) {
+			aStar = factory.createAStar();
+			numberOfWorkspaces++;
+		}
+		return aStar;
+	}
+
+	public synchronized void release(AbstractAStar aStar) {
+		freeWorkspaces.addFirst(aStar);
+	}
+
+	/**
+	 * 
+	 * @return Returns the number of workspaces created by this pool.
+	 */
+	public synchronized int getNumberOfWorkspaces() {
+		return numberOfWorkspaces;
+	}
+}
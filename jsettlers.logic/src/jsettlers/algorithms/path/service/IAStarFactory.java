@@ -0,0 +1,15 @@
+package jsettlers.algorithms.path.service;
+
+import jsettlers.algorithms.path.astar.AbstractAStar;
+
+/**
+ * Factory creating the {@link AbstractAStar} workspaces of an {@link AStarWorkspacePool}.
+ */
+public interface IAStarFactory {
+
+	/**
+	 * 
+	 * @return Returns a new {@link AbstractAStar} instance with its own workspace.
+	 */
+	AbstractAStar createAStar();
+}
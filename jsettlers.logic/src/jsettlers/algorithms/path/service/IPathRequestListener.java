@@ -0,0 +1,19 @@
+package jsettlers.algorithms.path.service;
+
+import jsettlers.algorithms.path.Path;
+
+/**
+ * Listener informed when a {@link PathRequest} of the {@link PathfinderService} has been resolved.
+ */
+public interface IPathRequestListener {
+
+	/**
+	 * Called on the thread calling {@link PathfinderService#deliverResults()}. The requests are delivered in the order they have been submitted.
+	 * 
+	 * @param request
+	 *            The resolved request.
+	 * @param path
+	 *            The calculated path or null if no path has been found.
+	 */
+	void pathCalculated(PathRequest request, Path path);
+}
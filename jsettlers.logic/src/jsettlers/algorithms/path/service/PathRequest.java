@@ -0,0 +1,60 @@
+package jsettlers.algorithms.path.service;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * A path request queued in the {@link PathfinderService}. The path is calculated from the position the requester had when the request was
+ * submitted.
+ */
+public final class PathRequest {
+	final IPathCalculatable requester;
+	final ShortPoint2D start;
+	final ShortPoint2D target;
+	final IPathRequestListener listener;
+
+	Path path;
+	private boolean resolved = false;
+
+	PathRequest(IPathCalculatable requester, ShortPoint2D target, IPathRequestListener listener) {
+		this.requester = requester;
+		this.start = requester.getPos();
+		this.target = target;
+		this.listener = listener;
+	}
+
+	void setResolved() {
+		this.resolved = true;
+	}
+
+	/**
+	 * 
+	 * @return Returns true if the request has been resolved and delivered. Afterwards, {@link #getPath()} returns the result.
+	 */
+	public boolean isResolved() {
+		return resolved;
+	}
+
+	/**
+	 * 
+	 * @return Returns the calculated path or null if no path has been found or the request has not been resolved yet.
+	 */
+	public Path getPath() {
+		return resolved ? path : null;
+	}
+
+	/**
+	 * 
+	 * @param start
+	 * @param target
+	 * @return Returns true if this request calculates the path from the given start to the given target.
+	 */
+	public boolean isRequestFor(ShortPoint2D start, ShortPoint2D target) {
+		return this.start.equals(start) && this.target.equals(target);
+	}
+
+	public ShortPoint2D getTarget() {
+		return target;
+	}
+}
@@ -0,0 +1,176 @@
+package jsettlers.algorithms.path.service;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * This service calculates paths with pooled {@link AbstractAStar} workspaces.
+ * <p />
+ * Paths can either be calculated directly with {@link #findPath(IPathCalculatable, ShortPoint2D)} or be queued with
+ * {@link #requestPath(IPathCalculatable, ShortPoint2D, IPathRequestListener)}. Queued requests are calculated in parallel by
+ * {@link #resolveRequests()}. While this method runs, the grid MUST NOT be changed. Afterwards {@link #deliverResults()} hands out the results in
+ * the order the requests have been submitted. As every request only depends on the grid and its own start and target, the results do not depend
+ * on the thread scheduling.
+ */
+public final class PathfinderService {
+	private static final int MIN_PARALLEL_REQUESTS = 4;
+	private static final int REQUESTS_PER_TASK = 2;
+
+	private static ForkJoinPool pool;
+
+	private final AStarWorkspacePool workspaces;
+
+	private ArrayList<PathRequest> queuedRequests = new ArrayList<PathRequest>();
+	private ArrayList<PathRequest> resolvedRequests = new ArrayList<PathRequest>();
+
+	public PathfinderService(IAStarFactory factory) {
+		this.workspaces = new AStarWorkspacePool(factory);
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	/**
+	 * Calculates the path directly on the calling thread. This method can be called by multiple threads at the same time.
+	 * 
+	 * @param requester
+	 * @param target
+	 * @return The path or null if no path has been found.
+	 */
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		AbstractAStar aStar = workspaces.acquire();
+		try {
+			return aStar.findPath(requester, target);
+		} finally {
+			workspaces.release(aStar);
+		}
+	}
+
+	/**
+	 * Queues a path request. The request is calculated with the next call of {@link #resolveRequests()} and delivered with the following call of
+	 * {@link #deliverResults()}.
+	 * 
+	 * @param requester
+	 * @param target
+	 * @param listener
+	 *            The listener informed when the result is delivered. May be null, if the requester polls the returned request.
+	 * @return The queued request.
+	 */
+	public synchronized PathRequest requestPath(IPathCalculatable requester, ShortPoint2D target, IPathRequestListener listener) {
+		PathRequest request = new PathRequest(requester, target, listener);
+		queuedRequests.add(request);
+		return request;
+	}
+
+	/**
+	 * Calculates the paths of all requests queued before this call. The requests are calculated in parallel if there are enough of them.
+	 */
+	public void resolveRequests() {
+		ArrayList<PathRequest> requests;
+		synchronized (this) {
+			if (!resolvedRequests.isEmpty()) {
+				return; // the last results have not been delivered yet
+			}
+			requests = queuedRequests;
+			queuedRequests = resolvedRequests;
+			resolvedRequests = requests;
+		}
+
+		if (requests.size() < MIN_PARALLEL_REQUESTS) {
+			resolve(requests, 0, requests.size());
+		} else {
+			getPool().invoke(new ResolveTask(requests, 0, requests.size()));
+		}
+	}
+
+	private void resolve(ArrayList<PathRequest> requests, int from, int to) {
+		AbstractAStar aStar = workspaces.acquire();
+		try {
+			for (int i = from; i < to; i++) {
+				PathRequest request = requests.get(i);
+				try {
+					request.path = aStar.findPath(request.requester, request.start.x, request.start.y, request.target.x, request.target.y);
+				} catch (Throwable t) {
+					System.err.println("PathfinderService could not calculate path from " + request.start + " to " + request.target);
+					t.printStackTrace();
+				}
+			}
+		} finally {
+			workspaces.release(aStar);
+		}
+	}
+
+	/**
+	 * Delivers the results calculated by the last call of {@link #resolveRequests()} in the order the requests have been submitted.
+	 */
+	public void deliverResults() {
+		ArrayList<PathRequest> requests;
+		synchronized (this) {
+			requests = resolvedRequests;
+		}
+
+		for (PathRequest request : requests) {
+			request.setResolved();
+			if (request.listener != null) {
+				request.listener.pathCalculated(request, request.path);
+			}
+		}
+
+		synchronized (this) {
+			requests.clear();
+		}
+	}
+
+	/**
+	 * 
+	 * @return Returns the number of requests waiting for the next call of {@link #resolveRequests()}.
+	 */
+	public synchronized int getNumberOfQueuedRequests() {
+		return queuedRequests.size();
+	}
+
+	/**
+	 * 
+	 * @return Returns the number of {@link AbstractAStar} workspaces created by this service.
+	 */
+	public int getNumberOfWorkspaces() {
+		return workspaces.getNumberOfWorkspaces();
+	}
+
+	/**
+	 * {@link RecursiveAction} splitting the requests into tasks of {@link PathfinderService#REQUESTS_PER_TASK} requests.
+	 */
+	private final class ResolveTask extends RecursiveAction {
+		private static final long serialVersionUID = -7470545312957585440L;
+
+		private final ArrayList<PathRequest> requests;
+		private final int from;
+		private final int to;
+
+		ResolveTask(ArrayList<PathRequest> requests, int from, int to) {
+			this.requests = requests;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= REQUESTS_PER_TASK) {
+				resolve(requests, from, to);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ResolveTask(requests, from, middle), new ResolveTask(requests, middle, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package jsettlers.input.tasks;
+
+import jsettlers.network.client.task.packets.ITaskPacketFactory;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.client.task.packets.TaskPacketRegistry;
+
+/**
+ * Registers the gui tasks at the {@link TaskPacketRegistry}, so they are sent with a numeric id instead of their class name.
+ * <p />
+ * NOTE: The ids are saved in replays. They must never be changed or reused. New tasks need to get new ids.
+ */
+public final class GuiTaskTypes {
+	private static boolean registered = false;
+
+	private GuiTaskTypes() {
+	}
+
+	/**
+	 * Registers all gui tasks. Calling this method multiple times has no effect.
+	 */
+	public static synchronized void register() {
+		if (registered) {
+			return;
+		}
+		registered = true;
+
+		TaskPacketRegistry.register(1, SimpleGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new SimpleGuiTask();
+			}
+		});
+		TaskPacketRegistry.register(2, MovableGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new MovableGuiTask();
+			}
+		});
+		TaskPacketRegistry.register(3, MoveToGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new MoveToGuiTask();
+			}
+		});
+		TaskPacketRegistry.register(4, ConvertGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new ConvertGuiTask();
+			}
+		});
+		TaskPacketRegistry.register(5, ConstructBuildingTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new ConstructBuildingTask();
+			}
+		});
+		TaskPacketRegistry.register(6, DestroyBuildingGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new DestroyBuildingGuiTask();
+			}
+		});
+		TaskPacketRegistry.register(7, WorkAreaGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new WorkAreaGuiTask();
+			}
+		});
+		TaskPacketRegistry.register(8, SetBuildingPriorityGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new SetBuildingPriorityGuiTask();
+			}
+		});
+		TaskPacketRegistry.register(9, SetMaterialDistributionSettingsGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new SetMaterialDistributionSettingsGuiTask();
+			}
+		});
+		TaskPacketRegistry.register(10, SetMaterialPrioritiesGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new SetMaterialPrioritiesGuiTask();
+			}
+		});
+	}
+}
@@ -0,0 +1,153 @@
+package jsettlers.logic.map.newGrid;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.movable.Movable;
+import jsettlers.network.synchronic.random.RandomSingleton;
+
+/**
+ * Calculates a hash of the synchronous game state. Games running the same tasks with the same random seed must have the same hash at the same
+ * game time; different hashes show a desynchronization.
+ * <p />
+ * The hash covers the game time, the state of the {@link RandomSingleton}, all {@link Movable}s, all {@link Building}s and the landscape, height,
+ * owner and map objects of every position. State that is only used for displaying the game (fog of war, borders) is not part of the hash.
+ */
+public final class GameStateHash {
+	static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private long hash = FNV_OFFSET_BASIS;
+
+	private GameStateHash() {
+	}
+
+	/**
+	 * Calculates the hash of the current game state. This must be called on the thread executing the game (e.g. in a task or while the clock is
+	 * paused).
+	 *
+	 * @param grid
+	 * @return
+	 */
+	public static long calculate(MainGrid grid) {
+		GameStateHash hash = new GameStateHash();
+		hash.add(MatchConstants.clock.getTime());
+		hash.addRandomState();
+		hash.addMovables();
+		hash.addBuildings();
+		hash.addGrid(grid.getGraphicsGrid());
+		return hash.hash;
+	}
+
+	/**
+	 * @param hash
+	 * @return The hash as hexadecimal string with 16 digits.
+	 */
+	public static String toString(long hash) {
+		String hex = Long.toHexString(hash);
+		return "0000000000000000".substring(hex.length()) + hex;
+	}
+
+	private void addRandomState() {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream oos = new ObjectOutputStream(bytes);
+			oos.writeObject(RandomSingleton.get());
+			oos.close();
+
+			for (byte curr : bytes.toByteArray()) {
+				add(curr);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void addMovables() {
+		ArrayList<Movable> movables = new ArrayList<Movable>(Movable.getAllMovables());
+		Collections.sort(movables, new Comparator<Movable>() {
+			@Override
+			public int compare(Movable m1, Movable m2) {
+				return m1.getID() < m2.getID() ? -1 : (m1.getID() == m2.getID() ? 0 : 1);
+			}
+		});
+
+		add(movables.size());
+		for (Movable curr : movables) {
+			add(curr.getID());
+			add(curr.getMovableType().ordinal());
+			add(curr.getPlayerId());
+			add(curr.getPos());
+			add(Float.floatToIntBits(curr.getHealth()));
+			add(curr.getMaterial().ordinal());
+			add(curr.getAction().ordinal());
+			add(curr.getDirection().ordinal());
+		}
+	}
+
+	private void addBuildings() {
+		ArrayList<Building> buildings = new ArrayList<Building>(Building.getAllBuildings());
+		Collections.sort(buildings, new Comparator<Building>() {
+			@Override
+			public int compare(Building b1, Building b2) {
+				ShortPoint2D pos1 = b1.getPos();
+				ShortPoint2D pos2 = b2.getPos();
+				return pos1.y != pos2.y ? pos1.y - pos2.y : pos1.x - pos2.x;
+			}
+		});
+
+		add(buildings.size());
+		for (Building curr : buildings) {
+			add(curr.getBuildingType().ordinal());
+			add(curr.getPlayerId());
+			add(curr.getPos());
+			add(Float.floatToIntBits(curr.getStateProgress()));
+		}
+	}
+
+	private void addGrid(IGraphicsGrid grid) {
+		short width = grid.getWidth();
+		short height = grid.getHeight();
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				add(grid.getLandscapeTypeAt(x, y).ordinal());
+				add(grid.getHeightAt(x, y));
+				add(grid.getPlayerIdAt(x, y));
+
+				for (IMapObject object = grid.getMapObjectsAt(x, y); object != null; object = object.getNextObject()) {
+					add(object.getObjectType().ordinal());
+				}
+			}
+		}
+	}
+
+	private void add(ShortPoint2D pos) {
+		add(pos.x);
+		add(pos.y);
+	}
+
+	private void add(int value) {
+		hash = hash(hash, value);
+	}
+
+	/**
+	 * Adds the given value to the given FNV-1a hash.
+	 *
+	 * @param hash
+	 * @param value
+	 * @return The new hash.
+	 */
+	static long hash(long hash, int value) {
+		return (hash ^ value) * FNV_PRIME;
+	}
+}
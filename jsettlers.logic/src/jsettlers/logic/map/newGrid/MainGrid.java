@@ -6,6 +6,7 @@ import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinTask;
 
 import jsettlers.algorithms.borders.BordersThread;
 import jsettlers.algorithms.borders.IBordersThreadGrid;
@@ -21,9 +22,16 @@ import jsettlers.algorithms.path.area.IInAreaFinderMap;
 import jsettlers.algorithms.path.area.InAreaFinder;
 import jsettlers.algorithms.path.astar.AbstractAStar;
 import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.hierarchical.HierarchicalAStar;
+import jsettlers.algorithms.path.astar.hierarchical.SectorGraphs;
 import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.algorithms.path.cache.CachingAStar;
+import jsettlers.algorithms.path.cache.PathCache;
 import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
 import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
+import jsettlers.algorithms.path.service.IAStarFactory;
+import jsettlers.algorithms.path.service.PathRequest;
+import jsettlers.algorithms.path.service.PathfinderService;
 import jsettlers.algorithms.previewimage.PreviewImageCreator;
 import jsettlers.common.Color;
 import jsettlers.common.CommonConstants;
@@ -33,6 +41,7 @@ import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.landscape.EResourceType;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.IMapData;
 import jsettlers.common.map.object.BuildingObject;
@@ -68,6 +77,7 @@ import jsettlers.logic.buildings.workers.WorkerBuilding;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.newGrid.flags.FlagsGrid;
+import jsettlers.logic.map.newGrid.flags.IBlockingChangedListener;
 import jsettlers.logic.map.newGrid.landscape.LandscapeGrid;
 import jsettlers.logic.map.newGrid.movable.MovableGrid;
 import jsettlers.logic.map.newGrid.objects.AbstractHexMapObject;
@@ -77,6 +87,7 @@ import jsettlers.logic.map.newGrid.objects.ObjectsGrid;
 import jsettlers.logic.map.newGrid.partition.IPlayerChangedListener;
 import jsettlers.logic.map.newGrid.partition.PartitionsGrid;
 import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
+import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageable;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBearer;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBricklayer;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableDigger;
@@ -93,6 +104,8 @@ import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.objects.arrow.ArrowObject;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.stack.IRequestsStackGrid;
+import jsettlers.logic.timer.IParallelTimerable;
+import jsettlers.logic.timer.ParallelTickPhase;
 
 /**
  * This is the main grid offering an interface for interacting with the grid.
@@ -119,11 +132,27 @@ public final class MainGrid implements Serializable {
 	final BuildingsGrid buildingsGrid;
 
 	transient FogOfWar fogOfWar;
+	/**
+	 * The listener set to the graphics grid. It is kept here, because the graphics may register it before {@link #initForPlayer(byte, FogOfWar)}.
+	 */
+	private transient IGraphicsFogOfWarListener fogOfWarListener;
 	transient IGraphicsGrid graphicsGrid;
 	transient ConstructionMarksGrid constructionMarksGrid;
 	transient BordersThread bordersThread;
 	transient IGuiInputGrid guiInputGrid;
 	private transient IEnclosedBlockedAreaFinderGrid enclosedBlockedAreaFinderGrid;
+	/**
+	 * The positions the graphics needs to draw. Every index is written by one thread only, so none of them needs a lock:
+	 * <ul>
+	 * <li>{@link #drawablePositions}: objects and movables, written by the game thread.</li>
+	 * <li>{@link #borderPositions}: borders, written by the {@link BordersThread}.</li>
+	 * <li>{@link #constructionMarkPositions}: construction marks, written by the construction marks thread.</li>
+	 * </ul>
+	 * The graphics reads them without a lock, so it may see a change one frame late.
+	 */
+	private transient OccupancyIndex drawablePositions;
+	private transient OccupancyIndex borderPositions;
+	private transient OccupancyIndex constructionMarkPositions;
 
 	public MainGrid(String mapId, String mapName, short width, short height, byte numberOfPlayers) {
 		this.mapId = mapId;
@@ -147,12 +176,30 @@ public final class MainGrid implements Serializable {
 	}
 
 	private void initAdditional() {
+		this.drawablePositions = new OccupancyIndex(width, height);
+		this.borderPositions = new OccupancyIndex(width, height);
+		this.constructionMarkPositions = new OccupancyIndex(width, height);
+		for (short y = 0; y < height; y++) {
+			for (short x = 0; x < width; x++) {
+				drawableChangedAt(x, y);
+				borderPositions.setOccupied(x, y, flagsGrid.isBorderAt(x, y));
+				constructionMarkChangedAt(x, y);
+			}
+		}
+
 		this.graphicsGrid = new GraphicsGrid();
 		this.constructionMarksGrid = new ConstructionMarksGrid();
-		this.bordersThread = new BordersThread(new BordersThreadGrid());
+		this.bordersThread = new BordersThread(new BordersThreadGrid(), width, height);
 		this.guiInputGrid = new GUIInputGrid();
 
 		this.partitionsGrid.setPlayerChangedListener(new PlayerChangedListener());
+		this.flagsGrid.setTransientBlockingChangedListener(new IBlockingChangedListener() {
+			@Override
+			public void blockingChanged(int x, int y, boolean newBlockingValue) {
+				movablePathfinderGrid.pathCache.invalidate(x, y);
+				movablePathfinderGrid.sectorGraphs.blockingChanged(x, y);
+			}
+		});
 		this.enclosedBlockedAreaFinderGrid = new EnclosedBlockedAreaFinderGrid();
 	}
 
@@ -162,6 +209,7 @@ public final class MainGrid implements Serializable {
 		} else {
 			this.fogOfWar = new FogOfWar(width, height, playerId, false);
 		}
+		this.fogOfWar.setListener(fogOfWarListener);
 	}
 
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
@@ -285,6 +333,20 @@ public final class MainGrid implements Serializable {
 		return new MapFileHeader(MapType.SAVED_SINGLE, mapName, mapId, "TODO: description", width, height, (short) 1, (short) 1, new Date(), bgImage);
 	}
 
+	/**
+	 * Needs to be called by the game thread after the objects or the movable at the given position changed.
+	 */
+	private void drawableChangedAt(int x, int y) {
+		drawablePositions.setOccupied(x, y, objectsGrid.getObjectsAt(x, y) != null || movableGrid.getMovableAt(x, y) != null);
+	}
+
+	/**
+	 * Needs to be called by the construction marks thread after the construction mark at the given position changed.
+	 */
+	private void constructionMarkChangedAt(int x, int y) {
+		constructionMarkPositions.setOccupied(x, y, objectsGrid.getMapObjectAt(x, y, EMapObjectType.CONSTRUCTION_MARK) != null);
+	}
+
 	private void placeStack(ShortPoint2D pos, EMaterialType materialType, int count) {
 		for (int i = 0; i < count; i++) {
 			movablePathfinderGrid.dropMaterial(pos, materialType, true);
@@ -308,6 +370,14 @@ public final class MainGrid implements Serializable {
 		return movablePathfinderGrid.pathfinderGrid;
 	}
 
+	/**
+	 * 
+	 * @return Returns the {@link PathCache} used by the movables. It can be used to read the hit and miss counters.
+	 */
+	public PathCache getPathCache() {
+		return movablePathfinderGrid.pathCache;
+	}
+
 	public final boolean isInBounds(int x, int y) {
 		return x >= 0 && x < width && y >= 0 && y < height;
 	}
@@ -389,12 +459,16 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public final void markAsOpen(int x, int y) {
-			landscapeGrid.setDebugColor(x, y, Color.BLUE.getARGB());
+			if (!ForkJoinTask.inForkJoinPool()) { // searches running in parallel must not write the shared debug colors
+				landscapeGrid.setDebugColor(x, y, Color.BLUE.getARGB());
+			}
 		}
 
 		@Override
 		public final void markAsClosed(int x, int y) {
-			landscapeGrid.setDebugColor(x, y, Color.RED.getARGB());
+			if (!ForkJoinTask.inForkJoinPool()) {
+				landscapeGrid.setDebugColor(x, y, Color.RED.getARGB());
+			}
 		}
 
 		@Override
@@ -683,9 +757,19 @@ public final class MainGrid implements Serializable {
 			landscapeGrid.setBackgroundListener(backgroundListener);
 		}
 
+		@Override
+		public final void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+			MainGrid.this.fogOfWarListener = fogOfWarListener;
+			if (fogOfWar != null) {
+				fogOfWar.setListener(fogOfWarListener);
+			}
+		}
+
 		@Override
 		public int nextDrawableX(int x, int y, int maxX) {
-			return x + 1;
+			int nextX = drawablePositions.nextOccupiedX(x + 1, y, maxX);
+			nextX = borderPositions.nextOccupiedX(x + 1, y, nextX - 1);
+			return constructionMarkPositions.nextOccupiedX(x + 1, y, nextX - 1);
 		}
 
 		@Override
@@ -709,12 +793,25 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public final AbstractHexMapObject removeMapObjectType(int x, int y, EMapObjectType mapObjectType) {
-			return objectsGrid.removeMapObjectType(x, y, mapObjectType);
+			AbstractHexMapObject removed = objectsGrid.removeMapObjectType(x, y, mapObjectType);
+			objectChangedAt(x, y, mapObjectType);
+			return removed;
 		}
 
 		@Override
 		public final boolean removeMapObject(int x, int y, AbstractHexMapObject mapObject) {
-			return objectsGrid.removeMapObject(x, y, mapObject);
+			boolean removed = objectsGrid.removeMapObject(x, y, mapObject);
+			objectChangedAt(x, y, mapObject.getObjectType());
+			return removed;
+		}
+
+		/**
+		 * The construction marks are changed by the construction marks thread, which updates their own index.
+		 */
+		private void objectChangedAt(int x, int y, EMapObjectType mapObjectType) {
+			if (mapObjectType != EMapObjectType.CONSTRUCTION_MARK) {
+				drawableChangedAt(x, y);
+			}
 		}
 
 		@Override
@@ -730,6 +827,7 @@ public final class MainGrid implements Serializable {
 		@Override
 		public final void addMapObject(int x, int y, AbstractHexMapObject mapObject) {
 			objectsGrid.addMapObjectAt(x, y, mapObject);
+			objectChangedAt(x, y, mapObject.getObjectType());
 		}
 
 		@Override
@@ -817,6 +915,7 @@ public final class MainGrid implements Serializable {
 				} else {
 					mapObjectsManager.setConstructionMarking(x, y, (byte) -1);
 				}
+				constructionMarkChangedAt(x, y);
 			}
 		}
 
@@ -911,15 +1010,26 @@ public final class MainGrid implements Serializable {
 		}
 	}
 
-	final class MovablePathfinderGrid extends AbstractNewMovableGrid {
+	/**
+	 * The queued path requests of the movables are resolved in the prepare step of the {@link ParallelTickPhase} and delivered in its apply step.
+	 */
+	final class MovablePathfinderGrid extends AbstractNewMovableGrid implements IParallelTimerable {
 		private static final long serialVersionUID = 4006228724969442801L;
 
 		private transient PathfinderGrid pathfinderGrid;
 
-		private transient AbstractAStar aStar;
+		private transient PathCache pathCache;
+		private transient SectorGraphs sectorGraphs;
+		private transient PathfinderService pathfinderService;
 		transient DijkstraAlgorithm dijkstra; // not private, because it's used by BuildingsGrid
 		private transient InAreaFinder inAreaFinder;
 
+		/**
+		 * The tick phase is stored with the reschedule timer, that is loaded after the grid. Therefore this grid registers again with the first path
+		 * request after loading.
+		 */
+		private transient boolean addedToTickPhase = false;
+
 		public MovablePathfinderGrid() {
 			initPathfinders();
 		}
@@ -932,8 +1042,16 @@ public final class MainGrid implements Serializable {
 		private final void initPathfinders() {
 			pathfinderGrid = new PathfinderGrid();
 
-			aStar = new BucketQueueAStar(pathfinderGrid, width, height);
-			dijkstra = new DijkstraAlgorithm(pathfinderGrid, aStar, width, height);
+			pathCache = new PathCache(width, height);
+			sectorGraphs = new SectorGraphs(pathfinderGrid, width, height);
+			pathfinderService = new PathfinderService(new IAStarFactory() {
+				@Override
+				public AbstractAStar createAStar() {
+					AbstractAStar fallback = new CachingAStar(new BucketQueueAStar(pathfinderGrid, width, height), pathCache);
+					return new HierarchicalAStar(pathfinderGrid, sectorGraphs, fallback, width, height);
+				}
+			});
+			dijkstra = new DijkstraAlgorithm(pathfinderGrid, pathfinderGrid, width, height);
 			inAreaFinder = new InAreaFinder(pathfinderGrid, width, height);
 		}
 
@@ -1011,7 +1129,7 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public void removeJobless(IManageableBearer bearer) {
-			partitionsGrid.getPartitionAt(bearer).removeJobless(bearer);
+			getJoblessManager(bearer, bearer.getPos()).removeJobless(bearer);
 		}
 
 		@Override
@@ -1021,7 +1139,7 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public void removeJobless(IManageableWorker worker) {
-			partitionsGrid.getPartitionAt(worker).removeJobless(worker);
+			getJoblessManager(worker, worker.getPos()).removeJobless(worker);
 		}
 
 		@Override
@@ -1031,7 +1149,7 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public void removeJobless(IManageableDigger digger) {
-			partitionsGrid.getPartitionAt(digger).removeJobless(digger);
+			getJoblessManager(digger, digger.getPos()).removeJobless(digger);
 		}
 
 		@Override
@@ -1041,7 +1159,26 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public void removeJobless(IManageableBricklayer bricklayer) {
-			partitionsGrid.getPartitionAt(bricklayer).removeJobless(bricklayer);
+			getJoblessManager(bricklayer, bricklayer.getPos()).removeJobless(bricklayer);
+		}
+
+		@Override
+		public void joblessPositionChanged(IManageable jobless, ShortPoint2D oldPosition) {
+			getJoblessManager(jobless, oldPosition).joblessPositionChanged(jobless);
+		}
+
+		/**
+		 * Returns the manager holding the given jobless. The partition of a position can't be used for this, because the jobless stays at its
+		 * manager when it walks into another partition and it's moved to another manager when the partition of its position changes.
+		 * 
+		 * @param jobless
+		 * @param position
+		 *            The partition of this position is used if the jobless doesn't know its manager, as it is the case for older savegames.
+		 * @return Returns the manager the jobless has been added to.
+		 */
+		private PartitionManager getJoblessManager(IManageable jobless, ShortPoint2D position) {
+			PartitionManager manager = jobless.getJoblessManager();
+			return manager != null ? manager : partitionsGrid.getPartitionAt(position.x, position.y);
 		}
 
 		@Override
@@ -1126,6 +1263,7 @@ public final class MainGrid implements Serializable {
 			objectsGrid.removeMapObjectType(x, y, EMapObjectType.CORN_ADULT);
 			objectsGrid.removeMapObjectType(x, y, EMapObjectType.CORN_DEAD);
 			objectsGrid.removeMapObjectType(x, y, EMapObjectType.CORN_GROWING);
+			drawableChangedAt(x, y);
 		}
 
 		@Override
@@ -1144,11 +1282,13 @@ public final class MainGrid implements Serializable {
 		@Override
 		public void leavePosition(ShortPoint2D position, Movable movable) {
 			movableGrid.movableLeft(position, movable);
+			drawableChangedAt(position.x, position.y);
 		}
 
 		@Override
 		public void enterPosition(ShortPoint2D position, Movable movable, boolean informFullArea) {
 			movableGrid.movableEntered(position, movable);
+			drawableChangedAt(position.x, position.y);
 
 			if (movable.isAttackable()) {
 				movableGrid.informMovables(movable, position.x, position.y, informFullArea);
@@ -1158,7 +1298,32 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public Path calculatePathTo(IPathCalculatable pathRequester, ShortPoint2D targetPos) {
-			return aStar.findPath(pathRequester, targetPos);
+			return pathfinderService.findPath(pathRequester, targetPos);
+		}
+
+		@Override
+		public PathRequest requestPath(IPathCalculatable pathRequester, ShortPoint2D targetPos) {
+			if (!addedToTickPhase) {
+				ParallelTickPhase.add(this);
+				addedToTickPhase = true;
+			}
+			return pathfinderService.requestPath(pathRequester, targetPos, null);
+		}
+
+		@Override
+		public boolean prepareTimerEvent() {
+			pathfinderService.resolveRequests();
+			return true;
+		}
+
+		@Override
+		public void applyTimerEvent() {
+			pathfinderService.deliverResults();
+		}
+
+		@Override
+		public void kill() {
+			addedToTickPhase = false;
 		}
 
 		@Override
@@ -1290,6 +1455,7 @@ public final class MainGrid implements Serializable {
 		@Override
 		public final void setBorderAt(short x, short y, boolean isBorder) {
 			flagsGrid.setBorderAt(x, y, isBorder);
+			borderPositions.setOccupied(x, y, isBorder);
 		}
 
 		@Override
@@ -1677,8 +1843,10 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public void playerChangedAt(int x, int y, byte newPlayerId) {
-			final ShortPoint2D position = new ShortPoint2D(x, y);
-			bordersThread.checkPosition(position);
+			movablePathfinderGrid.pathCache.invalidate(x, y);
+			movablePathfinderGrid.sectorGraphs.playerChanged(x, y);
+
+			bordersThread.checkPosition(x, y);
 
 			Building building = objectsGrid.getBuildingOn(x, y);
 			if (building != null && building.getPlayerId() != newPlayerId) {
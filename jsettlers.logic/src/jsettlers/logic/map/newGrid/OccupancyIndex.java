@@ -0,0 +1,78 @@
+package jsettlers.logic.map.newGrid;
+
+/**
+ * Marks the occupied positions of a grid, so that the occupied positions of a row can be found without looking at every free position.
+ * <p>
+ * The positions of a row are stored as bits in words of their own, so a search skips 64 free positions at once and never leaves the row. Rows
+ * without any occupied position are skipped completely.
+ * <p>
+ * This class is not synchronized. Readers that don't synchronize with the writer may miss a change that just happened, but they never fail.
+ */
+public final class OccupancyIndex {
+	private static final int WORD_BITS = 64;
+	private static final int WORD_SHIFT = 6;
+
+	private final int width;
+	private final int wordsPerRow;
+	private final long[] words;
+	private final int[] occupiedPerRow;
+
+	public OccupancyIndex(int width, int height) {
+		this.width = width;
+		this.wordsPerRow = (width + WORD_BITS - 1) / WORD_BITS;
+		this.words = new long[wordsPerRow * height];
+		this.occupiedPerRow = new int[height];
+	}
+
+	public boolean isOccupied(int x, int y) {
+		return (words[y * wordsPerRow + (x >> WORD_SHIFT)] & (1L << x)) != 0;
+	}
+
+	public void setOccupied(int x, int y, boolean occupied) {
+		int wordIndex = y * wordsPerRow + (x >> WORD_SHIFT);
+		long bit = 1L << x;
+		boolean wasOccupied = (words[wordIndex] & bit) != 0;
+
+		if (occupied && !wasOccupied) {
+			words[wordIndex] |= bit;
+			occupiedPerRow[y]++;
+		} else if (!occupied && wasOccupied) {
+			words[wordIndex] &= ~bit;
+			occupiedPerRow[y]--;
+		}
+	}
+
+	/**
+	 * Finds the first occupied position of row y in the range x to maxX.
+	 *
+	 * @param x
+	 *            The first x coordinate to check.
+	 * @param y
+	 *            The row to search.
+	 * @param maxX
+	 *            The last x coordinate to check.
+	 * @return The x coordinate of the first occupied position or maxX + 1 if there is none.
+	 */
+	public int nextOccupiedX(int x, int y, int maxX) {
+		int lastX = Math.min(maxX, width - 1);
+		if (occupiedPerRow[y] == 0 || x > lastX) {
+			return maxX + 1;
+		}
+		x = Math.max(x, 0);
+
+		int rowStart = y * wordsPerRow;
+		int wordIndex = x >> WORD_SHIFT;
+		int lastWordIndex = lastX >> WORD_SHIFT;
+		long word = words[rowStart + wordIndex] & (-1L << x);
+		while (word == 0) {
+			wordIndex++;
+			if (wordIndex > lastWordIndex) {
+				return maxX + 1;
+			}
+			word = words[rowStart + wordIndex];
+		}
+
+		int found = (wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+		return found <= lastX ? found : maxX + 1;
+	}
+}
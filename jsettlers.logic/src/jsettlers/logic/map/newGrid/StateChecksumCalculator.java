@@ -0,0 +1,84 @@
+package jsettlers.logic.map.newGrid;
+
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.flags.FlagsGrid;
+import jsettlers.logic.map.newGrid.landscape.LandscapeGrid;
+import jsettlers.logic.map.newGrid.partition.PartitionsGrid;
+import jsettlers.logic.movable.Movable;
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.synchronic.timer.IStateChecksumCalculator;
+
+/**
+ * Calculates the state checksums used to detect desynchronizations in network games. In contrast to the {@link GameStateHash}, a checksum is
+ * cheap enough to be calculated every few locksteps:
+ * <ul>
+ * <li>The positions and states of all {@link Movable}s are combined with a sum, so they don't need to be sorted.</li>
+ * <li>Of the grids, only one of {@value #GRID_STRIPES} stripes of rows is hashed per checksum. The stripes are visited in turn, so the whole grid
+ * is verified every {@value #GRID_STRIPES} checksums.</li>
+ * </ul>
+ */
+public final class StateChecksumCalculator implements IStateChecksumCalculator {
+	private static final int GRID_STRIPES = 32;
+
+	private final LandscapeGrid landscapeGrid;
+	private final PartitionsGrid partitionsGrid;
+	private final FlagsGrid flagsGrid;
+	private final short width;
+	private final short height;
+
+	public StateChecksumCalculator(MainGrid grid) {
+		this.landscapeGrid = grid.landscapeGrid;
+		this.partitionsGrid = grid.partitionsGrid;
+		this.flagsGrid = grid.flagsGrid;
+		this.width = grid.width;
+		this.height = grid.height;
+	}
+
+	@Override
+	public long calculateStateChecksum(int lockstep) {
+		long hash = GameStateHash.FNV_OFFSET_BASIS;
+		hash = GameStateHash.hash(hash, MatchConstants.clock.getTime());
+		hash = hashMovables(hash);
+
+		int stripe = (lockstep / NetworkConstants.Client.STATE_CHECKSUM_INTERVAL_LOCKSTEPS) % GRID_STRIPES;
+		hash = GameStateHash.hash(hash, stripe);
+		return hashRows(hash, stripe * height / GRID_STRIPES, (stripe + 1) * height / GRID_STRIPES);
+	}
+
+	private long hashMovables(long hash) {
+		int count = 0;
+		long sum = 0;
+		for (Movable movable : Movable.getAllMovables()) {
+			long movableHash = GameStateHash.FNV_OFFSET_BASIS;
+			movableHash = GameStateHash.hash(movableHash, movable.getID());
+			movableHash = GameStateHash.hash(movableHash, movable.getMovableType().ordinal());
+			movableHash = GameStateHash.hash(movableHash, movable.getPlayerId());
+			movableHash = GameStateHash.hash(movableHash, movable.getPos().x);
+			movableHash = GameStateHash.hash(movableHash, movable.getPos().y);
+			movableHash = GameStateHash.hash(movableHash, Float.floatToIntBits(movable.getHealth()));
+			movableHash = GameStateHash.hash(movableHash, movable.getMaterial().ordinal());
+			movableHash = GameStateHash.hash(movableHash, movable.getAction().ordinal());
+			movableHash = GameStateHash.hash(movableHash, movable.getDirection().ordinal());
+
+			sum += movableHash;
+			count++;
+		}
+
+		hash = GameStateHash.hash(hash, count);
+		hash = GameStateHash.hash(hash, (int) sum);
+		return GameStateHash.hash(hash, (int) (sum >>> 32));
+	}
+
+	private long hashRows(long hash, int fromY, int toY) {
+		for (int y = fromY; y < toY; y++) {
+			for (int x = 0; x < width; x++) {
+				hash = GameStateHash.hash(hash, landscapeGrid.getLandscapeTypeAt(x, y).ordinal);
+				hash = GameStateHash.hash(hash, landscapeGrid.getHeightAt(x, y));
+				hash = GameStateHash.hash(hash, landscapeGrid.getResourceAmountAt(x, y));
+				hash = GameStateHash.hash(hash, partitionsGrid.getPlayerIdAt(x, y));
+				hash = GameStateHash.hash(hash, flagsGrid.isBlocked(x, y) ? 1 : 0);
+			}
+		}
+		return hash;
+	}
+}
@@ -26,6 +26,7 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 	private final BitSet bordersGrid;
 
 	private IBlockingChangedListener blockingChangedListener = null;
+	private transient IBlockingChangedListener transientBlockingChangedListener = null;
 	private IProtectedChangedListener protectedChangedListener = null;
 
 	private transient IContainingProvider blockedContainingProvider;
@@ -79,6 +80,9 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		if (blockingChangedListener != null) {
 			this.blockingChangedListener.blockingChanged(x, y, blocked);
 		}
+		if (transientBlockingChangedListener != null) {
+			this.transientBlockingChangedListener.blockingChanged(x, y, blocked);
+		}
 		if (protectedChangedListener != null) {
 			this.protectedChangedListener.protectedChanged(x, y, blocked);
 		}
@@ -118,6 +122,15 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		this.blockingChangedListener = listener;
 	}
 
+	/**
+	 * Sets a second {@link IBlockingChangedListener} that is not saved with this grid.
+	 * 
+	 * @param listener
+	 */
+	public void setTransientBlockingChangedListener(IBlockingChangedListener listener) {
+		this.transientBlockingChangedListener = listener;
+	}
+
 	@Override
 	public void setProtectedChangedListener(IProtectedChangedListener protectedChangedListener) {
 		this.protectedChangedListener = protectedChangedListener;
@@ -3,6 +3,7 @@ package jsettlers.logic.map.newGrid.objects;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.PriorityQueue;
 
 import jsettlers.common.landscape.ELandscapeType;
@@ -33,17 +34,21 @@ import jsettlers.logic.objects.stone.Stone;
 import jsettlers.logic.objects.tree.AdultTree;
 import jsettlers.logic.objects.tree.Tree;
 import jsettlers.logic.player.Player;
+import jsettlers.logic.timer.IParallelTimerable;
 import jsettlers.logic.timer.IScheduledTimerable;
-import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.ParallelTickPhase;
 import jsettlers.network.synchronic.random.RandomSingleton;
 
 /**
  * This class manages the MapObjects on the grid. It handles timed events like growth interrupts of a tree or deletion of arrows.
+ * <p />
+ * The manager is executed by the {@link ParallelTickPhase}. The outdated events are collected in parallel to the partition managers and executed
+ * in {@link #applyTimerEvent()}.
  * 
  * @author Andreas Eberle
  * 
  */
-public final class MapObjectsManager implements IScheduledTimerable, Serializable {
+public final class MapObjectsManager implements IScheduledTimerable, IParallelTimerable, Serializable {
 	private static final long serialVersionUID = 1833055351956872224L;
 
 	private final IMapObjectsManagerGrid grid;
@@ -51,37 +56,74 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 
 	private boolean killed = false;
 
+	private transient ArrayList<TimeEvent> outdatedEvents;
+
 	public MapObjectsManager(IMapObjectsManagerGrid grid) {
 		this.grid = grid;
-		RescheduleTimer.add(this, 100);
+		ParallelTickPhase.add(this);
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
 	}
 
+	/**
+	 * This method is only used by savegames that scheduled the manager directly in the {@link jsettlers.logic.timer.RescheduleTimer}.
+	 */
 	@Override
 	public int timerEvent() {
-		if (killed) {
+		if (!prepareTimerEvent()) {
 			return -1;
 		}
+		applyTimerEvent();
+
+		return 100;
+	}
+
+	@Override
+	public boolean prepareTimerEvent() {
+		if (killed) {
+			return false;
+		}
+
+		if (outdatedEvents == null) {
+			outdatedEvents = new ArrayList<TimeEvent>();
+		}
 
 		int gameTime = MatchConstants.clock.getTime();
 
-		TimeEvent curr = null;
-		curr = timingQueue.peek();
+		TimeEvent curr = timingQueue.peek();
 		while (curr != null && curr.isOutDated(gameTime)) {
-			timingQueue.poll();
-			if (curr.shouldRemoveObject()) {
-				removeMapObject(curr.mapObject.getX(), curr.mapObject.getY(), curr.mapObject);
-			} else {
-				curr.getMapObject().changeState();
-			}
+			outdatedEvents.add(timingQueue.poll());
+			curr = timingQueue.peek();
+		}
+
+		return true;
+	}
+
+	@Override
+	public void applyTimerEvent() {
+		for (TimeEvent curr : outdatedEvents) {
+			executeTimeEvent(curr);
+		}
+		outdatedEvents.clear();
 
+		// execute the events that became outdated by executing the prepared ones
+		int gameTime = MatchConstants.clock.getTime();
+		TimeEvent curr = timingQueue.peek();
+		while (curr != null && curr.isOutDated(gameTime)) {
+			timingQueue.poll();
+			executeTimeEvent(curr);
 			curr = timingQueue.peek();
 		}
+	}
 
-		return 100;
+	private void executeTimeEvent(TimeEvent event) {
+		if (event.shouldRemoveObject()) {
+			removeMapObject(event.mapObject.getX(), event.mapObject.getY(), event.mapObject);
+		} else {
+			event.getMapObject().changeState();
+		}
 	}
 
 	@Override
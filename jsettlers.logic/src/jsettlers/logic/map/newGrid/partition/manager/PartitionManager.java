@@ -1,6 +1,7 @@
 package jsettlers.logic.map.newGrid.partition.manager;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 
@@ -14,6 +15,7 @@ import jsettlers.logic.buildings.Building;
 import jsettlers.logic.buildings.workers.WorkerBuilding;
 import jsettlers.logic.map.newGrid.partition.manager.datastructures.PositionableList;
 import jsettlers.logic.map.newGrid.partition.manager.datastructures.SimpleSlotQueue;
+import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageable;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBearer;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBearer.IWorkerRequester;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBricklayer;
@@ -35,16 +37,20 @@ import jsettlers.logic.map.newGrid.partition.manager.objects.SoilderCreationRequ
 import jsettlers.logic.map.newGrid.partition.manager.objects.WorkerCreationRequest;
 import jsettlers.logic.map.newGrid.partition.manager.objects.WorkerRequest;
 import jsettlers.logic.map.newGrid.partition.manager.settings.PartitionManagerSettings;
+import jsettlers.logic.timer.IParallelTimerable;
 import jsettlers.logic.timer.IScheduledTimerable;
-import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.ParallelTickPhase;
 
 /**
  * This is a manager for a partition. It stores offers, requests and jobless to build up jobs and give them to the jobless.
+ * <p />
+ * The manager is executed by the {@link ParallelTickPhase}. The jobs are matched in {@link #prepareTimerEvent()} in parallel to the other
+ * managers and handed to the jobless in {@link #applyTimerEvent()}.
  * 
  * @author Andreas Eberle
  * 
  */
-public class PartitionManager implements IScheduledTimerable, Serializable, IWorkerRequester {
+public class PartitionManager implements IScheduledTimerable, IParallelTimerable, Serializable, IWorkerRequester {
 	private static final int SCHEDULING_PERIOD = 25;
 	private static final long serialVersionUID = 1L;
 	private static final int BRICKLAYER_DIGGER_MAX_CONCURRENT_REQUESTS = 1;
@@ -94,9 +100,11 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 
 	private boolean stopped = true;
 
+	private transient ArrayList<IJobAssignment> pendingJobs;
+
 	public void startManager() {
 		stopped = false;
-		RescheduleTimer.add(this, SCHEDULING_PERIOD);
+		ParallelTickPhase.add(this);
 	}
 
 	public void stopManager() {
@@ -137,6 +145,7 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 
 	public void addJobless(IManageableBearer bearer) {
 		this.joblessBearer.insert(bearer);
+		bearer.setJoblessManager(this);
 	}
 
 	public void removeJobless(IManageableBearer bearer) {
@@ -145,6 +154,7 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 
 	public void addJobless(IManageableDigger digger) {
 		joblessDiggers.insert(digger);
+		digger.setJoblessManager(this);
 	}
 
 	public void removeJobless(IManageableDigger digger) {
@@ -153,6 +163,7 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 
 	public void addJobless(IManageableBricklayer bricklayer) {
 		joblessBricklayers.insert(bricklayer);
+		bricklayer.setJoblessManager(this);
 	}
 
 	public void removeJobless(IManageableBricklayer bricklayer) {
@@ -161,12 +172,31 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 
 	public void addJobless(IManageableWorker worker) {
 		joblessWorkers.insert(worker);
+		worker.setJoblessManager(this);
 	}
 
 	public void removeJobless(IManageableWorker worker) {
 		joblessWorkers.remove(worker);
 	}
 
+	/**
+	 * Updates the position of the given jobless in the jobless lists of this manager. If the jobless is not registered here, nothing happens, so
+	 * this needs to be called on the {@link IManageable#getJoblessManager()} of the jobless.
+	 * 
+	 * @param jobless
+	 */
+	public void joblessPositionChanged(IManageable jobless) {
+		if (jobless instanceof IManageableBearer) {
+			joblessBearer.updatePosition((IManageableBearer) jobless);
+		} else if (jobless instanceof IManageableWorker) {
+			joblessWorkers.updatePosition((IManageableWorker) jobless);
+		} else if (jobless instanceof IManageableDigger) {
+			joblessDiggers.updatePosition((IManageableDigger) jobless);
+		} else if (jobless instanceof IManageableBricklayer) {
+			joblessBricklayers.updatePosition((IManageableBricklayer) jobless);
+		}
+	}
+
 	/**
 	 * @param x
 	 *            x coordinate of the position to be removed from this manager and added to the given manager
@@ -228,6 +258,10 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		newManager.joblessBricklayers.addAll(this.joblessBricklayers);
 		newManager.joblessDiggers.addAll(this.joblessDiggers);
 		newManager.joblessWorkers.addAll(this.joblessWorkers);
+		setJoblessManager(this.joblessBearer, newManager);
+		setJoblessManager(this.joblessBricklayers, newManager);
+		setJoblessManager(this.joblessDiggers, newManager);
+		setJoblessManager(this.joblessWorkers, newManager);
 		newManager.materialOffers.addAll(this.materialOffers);
 		this.materialsManager.mergeInto(newManager.materialsManager);
 		newManager.soilderCreationRequests.addAll(this.soilderCreationRequests);
@@ -239,13 +273,32 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		newManager.toolRequestingWorkerRequests.merge(this.toolRequestingWorkerRequests);
 	}
 
+	private static void setJoblessManager(PositionableList<? extends IManageable> jobless, PartitionManager manager) {
+		for (IManageable curr : jobless) {
+			curr.setJoblessManager(manager);
+		}
+	}
+
+	/**
+	 * This method is only used by savegames that scheduled the managers directly in the {@link jsettlers.logic.timer.RescheduleTimer}.
+	 */
 	@Override
 	public final int timerEvent() {
-		if (stopped) {
+		if (!prepareTimerEvent()) {
 			return -1; // unschedule
 		}
+		applyTimerEvent();
+
+		return SCHEDULING_PERIOD;
+	}
+
+	@Override
+	public final boolean prepareTimerEvent() {
+		if (stopped) {
+			return false;
+		}
 
-		materialsManager.distributeJobs();
+		materialsManager.prepareJobs();
 
 		handleWorkerCreationRequest();
 		handleSoldierCreationRequest();
@@ -255,17 +308,46 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 
 		handleWorkerRequest();
 
-		return SCHEDULING_PERIOD;
+		return true;
+	}
+
+	@Override
+	public final void applyTimerEvent() {
+		materialsManager.applyJobs();
+
+		if (pendingJobs != null) {
+			for (IJobAssignment job : pendingJobs) {
+				job.assign();
+			}
+			pendingJobs.clear();
+		}
+	}
+
+	/**
+	 * Schedules the given job to be handed to its jobless in {@link #applyTimerEvent()}.
+	 * 
+	 * @param job
+	 */
+	private void addPendingJob(IJobAssignment job) {
+		if (pendingJobs == null) {
+			pendingJobs = new ArrayList<IJobAssignment>();
+		}
+		pendingJobs.add(job);
 	}
 
 	private void handleWorkerRequest() {
-		WorkerRequest workerRequest = workerRequests.poll();
+		final WorkerRequest workerRequest = workerRequests.poll();
 		if (workerRequest != null) {
 			movableTypeAcceptor.movableType = workerRequest.movableType;
-			IManageableWorker worker = joblessWorkers.removeObjectNextTo(workerRequest.getPos(), movableTypeAcceptor);
+			final IManageableWorker worker = joblessWorkers.removeObjectNextTo(workerRequest.getPos(), movableTypeAcceptor);
 
 			if (worker != null) {
-				worker.setWorkerJob(workerRequest.building);
+				addPendingJob(new IJobAssignment() {
+					@Override
+					public void assign() {
+						worker.setWorkerJob(workerRequest.building);
+					}
+				});
 			} else {
 				if (!workerRequest.creationRequested) {
 					workerRequest.creationRequested = true;
@@ -285,7 +367,7 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 	private void checkWorkerCreationRequests() {
 		EMovableType[] movableTypes = workerCreationRequests.getSlotTypes();
 		for (int slotIdx = 0; slotIdx < movableTypes.length; slotIdx++) {
-			WorkerCreationRequest workerRequest = workerCreationRequests.popFront(slotIdx);
+			final WorkerCreationRequest workerRequest = workerCreationRequests.popFront(slotIdx);
 
 			if (workerRequest != null) {
 				EMaterialType tool = workerRequest.movableType.getTool();
@@ -293,12 +375,12 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 				if (tool != EMaterialType.NO_MATERIAL) {
 
 					if (toolRequestingWorkerRequests.getSlotSize(tool) <= 3) {
-						MaterialOffer offer = this.materialOffers.removeOfferCloseTo(tool, workerRequest.position);
+						final MaterialOffer offer = this.materialOffers.removeOfferCloseTo(tool, workerRequest.position);
 
 						if (offer != null) {
 							IManageableBearer manageableBearer = joblessBearer.removeObjectNextTo(workerRequest.position);
 							if (manageableBearer != null) {
-								manageableBearer.becomeWorker(this, workerRequest.movableType, offer.getPos());
+								becomeWorkerLater(manageableBearer, workerRequest.movableType, offer.getPos());
 							} else {
 								workerCreationRequests.pushLast(slotIdx, workerRequest);
 								materialOffers.addOffer(offer.getPos(), tool);
@@ -316,7 +398,7 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 				} else {
 					IManageableBearer manageableBearer = joblessBearer.removeObjectNextTo(workerRequest.position);
 					if (manageableBearer != null) {
-						manageableBearer.becomeWorker(this, workerRequest.movableType);
+						becomeWorkerLater(manageableBearer, workerRequest.movableType, null);
 					} else {
 						workerCreationRequests.pushLast(slotIdx, workerRequest);
 					}
@@ -337,7 +419,7 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 
 					IManageableBearer manageableBearer = joblessBearer.removeObjectNextTo(request.position);
 					if (manageableBearer != null) {
-						manageableBearer.becomeWorker(this, request.movableType, offer.getPos());
+						becomeWorkerLater(manageableBearer, request.movableType, offer.getPos());
 					} else { // no bearer found, so add the request back to the queue.
 						toolRequestingWorkerRequests.pushLast(slot, request);
 						this.materialOffers.addOffer(offer.getPos(), toolType);
@@ -349,17 +431,43 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		}
 	}
 
+	/**
+	 * Schedules the given bearer to become a worker of the given type in {@link #applyTimerEvent()}.
+	 * 
+	 * @param bearer
+	 * @param movableType
+	 * @param toolOffer
+	 *            The position of the tool the bearer needs to pick up or null if no tool is needed.
+	 */
+	private void becomeWorkerLater(final IManageableBearer bearer, final EMovableType movableType, final ShortPoint2D toolOffer) {
+		addPendingJob(new IJobAssignment() {
+			@Override
+			public void assign() {
+				if (toolOffer != null) {
+					bearer.becomeWorker(PartitionManager.this, movableType, toolOffer);
+				} else {
+					bearer.becomeWorker(PartitionManager.this, movableType);
+				}
+			}
+		});
+	}
+
 	@Override
 	public void workerCreationRequestFailed(EMovableType type, ShortPoint2D position) {
 		workerCreationRequests.pushLast(type, new WorkerCreationRequest(type, position));
 	}
 
 	private void handleSoldierCreationRequest() {
-		SoilderCreationRequest soilderRequest = soilderCreationRequests.poll();
+		final SoilderCreationRequest soilderRequest = soilderCreationRequests.poll();
 		if (soilderRequest != null) {
-			IManageableBearer manageableBearer = joblessBearer.removeObjectNextTo(soilderRequest.getPos());
+			final IManageableBearer manageableBearer = joblessBearer.removeObjectNextTo(soilderRequest.getPos());
 			if (manageableBearer != null) {
-				manageableBearer.becomeSoldier(soilderRequest.getBarrack());
+				addPendingJob(new IJobAssignment() {
+					@Override
+					public void assign() {
+						manageableBearer.becomeSoldier(soilderRequest.getBarrack());
+					}
+				});
 			} else {
 				soilderCreationRequests.addLast(soilderRequest);
 			}
@@ -367,20 +475,29 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 	}
 
 	private void handleDiggerRequest() {
-		DiggerRequest request = diggerRequests.peek();
+		final DiggerRequest request = diggerRequests.peek();
 		if (request == null) {
 			return;
 		}
 
 		if (request.requester.isDiggerRequestActive()) {
-			IManageableDigger digger = joblessDiggers.removeObjectNextTo(request.getPos());
+			final IManageableDigger digger = joblessDiggers.removeObjectNextTo(request.getPos());
 			if (digger != null) {
-				if (digger.setDiggerJob(request.requester)) {
-					request.amount--;
-					if (request.creationRequested > 0) {
-						request.creationRequested--;
+				addPendingJob(new IJobAssignment() {
+					@Override
+					public void assign() {
+						if (digger.setDiggerJob(request.requester)) {
+							request.amount--;
+							if (request.creationRequested > 0) {
+								request.creationRequested--;
+							}
+						}
+						if (request.amount <= 0) {
+							diggerRequests.remove(request);
+						}
 					}
-				}
+				});
+				return;
 			} else {
 				if (request.amount > request.creationRequested) {
 					if (createNewToolUserIfLimitNotExceeded(EMovableType.DIGGER, request.getPos())) {
@@ -398,13 +515,18 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 	}
 
 	private void handleBricklayerRequest() {
-		BricklayerRequest bricklayerRequest = bricklayerRequests.poll();
+		final BricklayerRequest bricklayerRequest = bricklayerRequests.poll();
 		if (bricklayerRequest != null && !bricklayerRequest.building.isConstructionFinished()) {
-			IManageableBricklayer bricklayer = joblessBricklayers.removeObjectNextTo(bricklayerRequest.getPos());
+			final IManageableBricklayer bricklayer = joblessBricklayers.removeObjectNextTo(bricklayerRequest.getPos());
 			if (bricklayer != null) {
-				if (!bricklayer.setBricklayerJob(bricklayerRequest.building, bricklayerRequest.bricklayerTargetPos, bricklayerRequest.direction)) {
-					bricklayerRequests.add(bricklayerRequest);
-				}
+				addPendingJob(new IJobAssignment() {
+					@Override
+					public void assign() {
+						if (!bricklayer.setBricklayerJob(bricklayerRequest.building, bricklayerRequest.bricklayerTargetPos, bricklayerRequest.direction)) {
+							bricklayerRequests.add(bricklayerRequest);
+						}
+					}
+				});
 			} else {
 				createNewToolUserIfLimitNotExceeded(EMovableType.BRICKLAYER, bricklayerRequest.getPos());
 				bricklayerRequests.offerLast(bricklayerRequest);
@@ -474,4 +596,12 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 	public PartitionManagerSettings getSettings() {
 		return settings;
 	}
+
+	/**
+	 * A job that has been matched in {@link PartitionManager#prepareTimerEvent()} and is handed to its jobless in
+	 * {@link PartitionManager#applyTimerEvent()}.
+	 */
+	private static interface IJobAssignment {
+		void assign();
+	}
 }
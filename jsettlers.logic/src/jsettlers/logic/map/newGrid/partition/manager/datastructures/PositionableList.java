@@ -1,8 +1,14 @@
 package jsettlers.logic.map.newGrid.partition.manager.datastructures;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.position.ILocatable;
@@ -12,27 +18,106 @@ import jsettlers.common.utils.MathUtils;
 /**
  * This is a data structure for storing and retrieving objects at given positions.<br>
  * It is also possible to find the nearest object arround a given position.
- * 
+ * <p />
+ * Bigger lists store the objects in buckets of {@link #BUCKET_SIZE}x{@link #BUCKET_SIZE} positions. The nearest object is found by checking the
+ * buckets in rings around the given position, objects can be removed in O(1). If several objects have the same distance, the one inserted first
+ * is returned.
+ * <p />
+ * NOTE: If the position of an object changes while it is in the list, {@link #updatePosition(ILocatable)} needs to be called.
+ *
  * @author Andreas Eberle
- * 
+ *
  * @param <T>
  */
 public class PositionableList<T extends ILocatable> implements Iterable<T>, Serializable {
 	private static final long serialVersionUID = 414099060331344505L;
+	/**
+	 * Only the objects are serialized, in the same format as the former list.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField("data", ArrayList.class) };
+
+	private static final int BUCKET_SHIFT = 4;
+	private static final int BUCKET_SIZE = 1 << BUCKET_SHIFT;
+	/**
+	 * Lists up to this size are searched linearly and don't need the buckets.
+	 */
+	private static final int LINEAR_SEARCH_SIZE = 128;
 
-	private ArrayList<T> data;
+	private transient IdentityHashMap<T, Entry<T>> entries;
+	private transient Entry<T> first;
+	private transient Entry<T> last;
+	private transient long nextInsertionIdx;
+
+	private transient Entry<T>[] buckets;
+	private transient int bucketsMinX, bucketsMinY, bucketsWidth, bucketsHeight;
 
 	public PositionableList() {
-		data = new ArrayList<T>();
+		init();
+	}
+
+	private void init() {
+		entries = new IdentityHashMap<T, Entry<T>>();
+		first = null;
+		last = null;
+		nextInsertionIdx = 0;
+		buckets = null;
 	}
 
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		ArrayList<T> data = new ArrayList<T>(entries.size());
+		for (T curr : this) {
+			data.add(curr);
+		}
+		ObjectOutputStream.PutField fields = oos.putFields();
+		fields.put("data", data);
+		oos.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = ois.readFields();
+		ArrayList<T> data = (ArrayList<T>) fields.get("data", null);
+
+		init();
+		if (data != null) {
+			for (T curr : data) {
+				insert(curr);
+			}
+		}
+	}
+
+	/**
+	 * Inserts the given object. If the object is already in the list, nothing happens.
+	 *
+	 * @param object
+	 */
 	public void insert(T object) {
-		data.add(object);
+		if (entries.containsKey(object)) {
+			return;
+		}
+
+		ShortPoint2D pos = object.getPos();
+		Entry<T> entry = new Entry<T>(object, nextInsertionIdx++, pos.x, pos.y);
+		entries.put(object, entry);
+
+		entry.prev = last;
+		if (last != null) {
+			last.next = entry;
+		} else {
+			first = entry;
+		}
+		last = entry;
+
+		if (buckets != null) {
+			addToBucket(entry);
+		} else if (entries.size() > LINEAR_SEARCH_SIZE) {
+			buildBuckets();
+		}
 	}
 
 	/**
 	 * Finds the object that's closest to the given position and removes it.
-	 * 
+	 *
 	 * @param position
 	 *            position to be used to find the nearest accepted neighbor around it.
 	 * @return object that's nearest to position
@@ -43,40 +128,58 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 
 	@Override
 	public Iterator<T> iterator() {
-		return data.iterator();
+		return new EntryIterator();
 	}
 
 	public T removeObjectAt(ShortPoint2D position) {
-		Iterator<T> iter = data.iterator();
-		while (iter.hasNext()) {
-			T curr = iter.next();
-			if (curr.getPos().equals(position)) {
-				iter.remove();
-				return curr;
-			}
+		Entry<T> entry = getEntryAt(position);
+		if (entry != null) {
+			removeEntry(entry);
+			return entry.object;
 		}
 		return null;
 	}
 
 	/**
 	 * Returns the first object found at the given position or null.
-	 * 
+	 *
 	 * @param position
 	 *            The position to look for.
 	 * @return Returns the found object at the given position or null if no object has been found.
 	 */
 	public T getObjectAt(ShortPoint2D position) {
-		for (T curr : data) {
-			if (curr.getPos().equals(position)) {
-				return curr;
+		Entry<T> entry = getEntryAt(position);
+		return entry != null ? entry.object : null;
+	}
+
+	private Entry<T> getEntryAt(ShortPoint2D position) {
+		Entry<T> result = null;
+		for (Entry<T> curr = getCandidatesAt(position); curr != null; curr = getNextCandidate(curr)) {
+			if (curr.object.getPos().equals(position) && (result == null || curr.insertionIdx < result.insertionIdx)) {
+				result = curr;
 			}
 		}
-		return null;
+		return result;
+	}
+
+	/**
+	 * @return Returns the first entry of the bucket of the given position or the first entry of the list, if there are no buckets.
+	 */
+	private Entry<T> getCandidatesAt(ShortPoint2D position) {
+		if (buckets == null) {
+			return first;
+		}
+		int bucketIdx = getBucketIdx(position.x >> BUCKET_SHIFT, position.y >> BUCKET_SHIFT);
+		return bucketIdx >= 0 ? buckets[bucketIdx] : null;
+	}
+
+	private Entry<T> getNextCandidate(Entry<T> entry) {
+		return buckets == null ? entry.next : entry.bucketNext;
 	}
 
 	/**
 	 * Finds the object that's closest to the given position and removes it.
-	 * 
+	 *
 	 * @param position
 	 *            position to be used to find the nearest accepted neighbor around it.
 	 * @param acceptor
@@ -85,63 +188,339 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 	 * @return accepted object that's nearest to position
 	 */
 	public T removeObjectNextTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
-		T currBest = getObjectCloseTo(position, acceptor);
+		Entry<T> currBest = getEntryCloseTo(position, acceptor);
+
+		if (currBest != null) {
+			removeEntry(currBest);
+			return currBest.object;
+		}
+		return null;
+	}
 
-		if (currBest != null)
-			data.remove(currBest);
+	private Entry<T> getEntryCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+		if (buckets == null) {
+			return getEntryCloseToLinear(position, acceptor);
+		}
 
-		return currBest;
+		final int centerBucketX = position.x >> BUCKET_SHIFT;
+		final int centerBucketY = position.y >> BUCKET_SHIFT;
+		final int bucketsMaxX = bucketsMinX + bucketsWidth - 1;
+		final int bucketsMaxY = bucketsMinY + bucketsHeight - 1;
+		final int maxRing = Math.max(Math.max(centerBucketX - bucketsMinX, bucketsMaxX - centerBucketX),
+				Math.max(centerBucketY - bucketsMinY, bucketsMaxY - centerBucketY));
+
+		BestEntry<T> best = new BestEntry<T>();
+
+		for (int ring = 0; ring <= maxRing; ring++) {
+			int minRingDistance = Math.max(0, (ring - 1) * BUCKET_SIZE);
+			if (minRingDistance * minRingDistance > best.distance) {
+				break; // no object in this or any further ring can be closer
+			}
+
+			int minX = centerBucketX - ring;
+			int maxX = centerBucketX + ring;
+			int minY = centerBucketY - ring;
+			int maxY = centerBucketY + ring;
+
+			for (int bucketX = Math.max(minX, bucketsMinX); bucketX <= Math.min(maxX, bucketsMaxX); bucketX++) {
+				checkBucket(bucketX, minY, position, acceptor, best);
+				if (ring > 0) {
+					checkBucket(bucketX, maxY, position, acceptor, best);
+				}
+			}
+			for (int bucketY = Math.max(minY + 1, bucketsMinY); bucketY <= Math.min(maxY - 1, bucketsMaxY); bucketY++) {
+				checkBucket(minX, bucketY, position, acceptor, best);
+				checkBucket(maxX, bucketY, position, acceptor, best);
+			}
+		}
+
+		return best.entry;
 	}
 
-	private T getObjectCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) { // TODO: @Andreas Eberle: check if the acceptor is needed any more
-		int bestDistance = Integer.MAX_VALUE;
-		T currBest = null;
+	private void checkBucket(int bucketX, int bucketY, ShortPoint2D position, ITypeAcceptor<T> acceptor, BestEntry<T> best) {
+		int bucketIdx = getBucketIdx(bucketX, bucketY);
+		if (bucketIdx < 0) {
+			return;
+		}
 
-		for (T currEntry : data) {
-			if (acceptor != null && !acceptor.accepts(currEntry))
+		for (Entry<T> curr = buckets[bucketIdx]; curr != null; curr = curr.bucketNext) {
+			if (acceptor != null && !acceptor.accepts(curr.object))
 				continue;
 
-			ShortPoint2D currPosition = currEntry.getPos();
-			int currDist = MathUtils.squareHypot(position, currPosition);
+			int currDist = MathUtils.squareHypot(position, curr.object.getPos());
+			if (currDist < best.distance || (currDist == best.distance && curr.insertionIdx < best.entry.insertionIdx)) {
+				best.distance = currDist;
+				best.entry = curr;
+			}
+		}
+	}
+
+	private Entry<T> getEntryCloseToLinear(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+		int bestDistance = Integer.MAX_VALUE;
+		Entry<T> currBest = null;
+
+		for (Entry<T> curr = first; curr != null; curr = curr.next) {
+			if (acceptor != null && !acceptor.accepts(curr.object))
+				continue;
 
+			int currDist = MathUtils.squareHypot(position, curr.object.getPos());
 			if (bestDistance > currDist) {
 				bestDistance = currDist;
-				currBest = currEntry;
+				currBest = curr;
 			}
 		}
 		return currBest;
 	}
 
 	public T getObjectCloseTo(ShortPoint2D position) {
-		return getObjectCloseTo(position, null);
+		Entry<T> entry = getEntryCloseTo(position, null);
+		return entry != null ? entry.object : null;
 	}
 
 	@Override
 	public String toString() {
-		return data.toString();
+		StringBuilder builder = new StringBuilder("[");
+		for (Entry<T> curr = first; curr != null; curr = curr.next) {
+			if (curr != first) {
+				builder.append(", ");
+			}
+			builder.append(curr.object);
+		}
+		return builder.append(']').toString();
 	}
 
 	public void addAll(PositionableList<T> otherList) {
-		this.data.addAll(otherList.data);
+		for (Entry<T> curr = otherList.first; curr != null; curr = curr.next) {
+			insert(curr.object);
+		}
 	}
 
 	public void remove(T object) {
-		this.data.remove(object);
+		Entry<T> entry = entries.get(object);
+		if (entry != null) {
+			removeEntry(entry);
+		}
+	}
+
+	/**
+	 * Moves the given object to the bucket of its current position. This needs to be called when the position of an object in this list has
+	 * changed. If the object is not in this list, nothing happens.
+	 *
+	 * @param object
+	 */
+	public void updatePosition(T object) {
+		Entry<T> entry = entries.get(object);
+		if (entry == null) {
+			return;
+		}
+
+		ShortPoint2D pos = object.getPos();
+		boolean bucketChanged = (pos.x >> BUCKET_SHIFT) != (entry.x >> BUCKET_SHIFT) || (pos.y >> BUCKET_SHIFT) != (entry.y >> BUCKET_SHIFT);
+		if (buckets != null && bucketChanged) {
+			removeFromBucket(entry);
+			entry.x = pos.x;
+			entry.y = pos.y;
+			addToBucket(entry);
+		} else {
+			entry.x = pos.x;
+			entry.y = pos.y;
+		}
 	}
 
 	public boolean isEmpty() {
-		return data.isEmpty();
+		return entries.isEmpty();
+	}
+
+	public int size() {
+		return entries.size();
 	}
 
 	public void moveObjectsAtPositionTo(ShortPoint2D position, PositionableList<T> newList) {
-		Iterator<T> iter = data.iterator();
-		while (iter.hasNext()) {
-			T curr = iter.next();
-			if (curr.getPos().equals(position)) {
-				iter.remove();
-				newList.data.add(curr);
+		ArrayList<Entry<T>> moved = new ArrayList<Entry<T>>();
+		for (Entry<T> curr = getCandidatesAt(position); curr != null; curr = getNextCandidate(curr)) {
+			if (curr.object.getPos().equals(position)) {
+				moved.add(curr);
+			}
+		}
+
+		while (!moved.isEmpty()) { // move the objects in the order they have been inserted
+			int firstIdx = 0;
+			for (int i = 1; i < moved.size(); i++) {
+				if (moved.get(i).insertionIdx < moved.get(firstIdx).insertionIdx) {
+					firstIdx = i;
+				}
+			}
+			Entry<T> entry = moved.remove(firstIdx);
+			removeEntry(entry);
+			newList.insert(entry.object);
+		}
+	}
+
+	private void removeEntry(Entry<T> entry) {
+		entries.remove(entry.object);
+
+		if (entry.prev != null) {
+			entry.prev.next = entry.next;
+		} else {
+			first = entry.next;
+		}
+		if (entry.next != null) {
+			entry.next.prev = entry.prev;
+		} else {
+			last = entry.prev;
+		}
+
+		if (buckets != null) {
+			if (entries.size() < LINEAR_SEARCH_SIZE / 2) {
+				buckets = null;
+			} else {
+				removeFromBucket(entry);
 			}
 		}
 	}
 
+	private void buildBuckets() {
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		for (Entry<T> curr = first; curr != null; curr = curr.next) {
+			minX = Math.min(minX, curr.x >> BUCKET_SHIFT);
+			minY = Math.min(minY, curr.y >> BUCKET_SHIFT);
+			maxX = Math.max(maxX, curr.x >> BUCKET_SHIFT);
+			maxY = Math.max(maxY, curr.y >> BUCKET_SHIFT);
+		}
+
+		bucketsMinX = minX;
+		bucketsMinY = minY;
+		bucketsWidth = maxX - minX + 1;
+		bucketsHeight = maxY - minY + 1;
+		buckets = newBuckets(bucketsWidth * bucketsHeight);
+
+		for (Entry<T> curr = first; curr != null; curr = curr.next) {
+			addToBucket(curr);
+		}
+	}
+
+	private void ensureBucketExists(int bucketX, int bucketY) {
+		if (getBucketIdx(bucketX, bucketY) >= 0) {
+			return;
+		}
+
+		int minX = Math.min(bucketsMinX, bucketX);
+		int minY = Math.min(bucketsMinY, bucketY);
+		int width = Math.max(bucketsMinX + bucketsWidth, bucketX + 1) - minX;
+		int height = Math.max(bucketsMinY + bucketsHeight, bucketY + 1) - minY;
+
+		Entry<T>[] newBuckets = newBuckets(width * height);
+		for (int y = 0; y < bucketsHeight; y++) {
+			System.arraycopy(buckets, y * bucketsWidth, newBuckets, (y + bucketsMinY - minY) * width + bucketsMinX - minX, bucketsWidth);
+		}
+
+		buckets = newBuckets;
+		bucketsMinX = minX;
+		bucketsMinY = minY;
+		bucketsWidth = width;
+		bucketsHeight = height;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Entry<T>[] newBuckets(int size) {
+		return (Entry<T>[]) new Entry<?>[size];
+	}
+
+	private void addToBucket(Entry<T> entry) {
+		int bucketX = entry.x >> BUCKET_SHIFT;
+		int bucketY = entry.y >> BUCKET_SHIFT;
+		ensureBucketExists(bucketX, bucketY);
+
+		int bucketIdx = getBucketIdx(bucketX, bucketY);
+		Entry<T> head = buckets[bucketIdx];
+		entry.bucketPrev = null;
+		entry.bucketNext = head;
+		if (head != null) {
+			head.bucketPrev = entry;
+		}
+		buckets[bucketIdx] = entry;
+	}
+
+	private void removeFromBucket(Entry<T> entry) {
+		if (entry.bucketPrev != null) {
+			entry.bucketPrev.bucketNext = entry.bucketNext;
+		} else {
+			buckets[getBucketIdx(entry.x >> BUCKET_SHIFT, entry.y >> BUCKET_SHIFT)] = entry.bucketNext;
+		}
+		if (entry.bucketNext != null) {
+			entry.bucketNext.bucketPrev = entry.bucketPrev;
+		}
+		entry.bucketPrev = null;
+		entry.bucketNext = null;
+	}
+
+	/**
+	 * @return Returns the index of the given bucket in the buckets array or -1 if the bucket is out of the range of the array.
+	 */
+	private int getBucketIdx(int bucketX, int bucketY) {
+		int x = bucketX - bucketsMinX;
+		int y = bucketY - bucketsMinY;
+		if (x < 0 || x >= bucketsWidth || y < 0 || y >= bucketsHeight) {
+			return -1;
+		}
+		return y * bucketsWidth + x;
+	}
+
+	/**
+	 * An object of the list with its position in the insertion order and in its bucket.
+	 *
+	 * @param <T>
+	 */
+	private static final class Entry<T> {
+		final T object;
+		final long insertionIdx;
+		short x;
+		short y;
+
+		Entry<T> prev;
+		Entry<T> next;
+		Entry<T> bucketPrev;
+		Entry<T> bucketNext;
+
+		Entry(T object, long insertionIdx, short x, short y) {
+			this.object = object;
+			this.insertionIdx = insertionIdx;
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	private static final class BestEntry<T> {
+		Entry<T> entry = null;
+		int distance = Integer.MAX_VALUE;
+	}
+
+	private final class EntryIterator implements Iterator<T> {
+		private Entry<T> nextEntry = first;
+		private Entry<T> lastReturned = null;
+
+		@Override
+		public boolean hasNext() {
+			return nextEntry != null;
+		}
+
+		@Override
+		public T next() {
+			if (nextEntry == null) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = nextEntry;
+			nextEntry = nextEntry.next;
+			return lastReturned.object;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			removeEntry(lastReturned);
+			lastReturned = null;
+		}
+	}
 }
@@ -1,7 +1,21 @@
 package jsettlers.logic.map.newGrid.partition.manager.manageables;
 
 import jsettlers.common.position.ILocatable;
+import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
 
 public interface IManageable extends ILocatable {
 
+	/**
+	 * Sets the manager whose jobless lists hold this manageable. This is called by the manager when the manageable is added to it, also when the
+	 * manageable is moved to another manager after a partition change.
+	 * 
+	 * @param manager
+	 */
+	void setJoblessManager(PartitionManager manager);
+
+	/**
+	 * @return Returns the manager this manageable has been added to as jobless the last time or null if it has never been added.
+	 */
+	PartitionManager getJoblessManager();
+
 }
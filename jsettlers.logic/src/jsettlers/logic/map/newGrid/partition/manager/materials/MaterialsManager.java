@@ -1,6 +1,7 @@
 package jsettlers.logic.map.newGrid.partition.manager.materials;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.material.EMaterialType;
@@ -29,6 +30,8 @@ public final class MaterialsManager implements Serializable {
 
 	private final IPartitionSettings settings;
 
+	private transient ArrayList<PendingDelivery> pendingDeliveries;
+
 	/**
 	 * Creates a new {@link MaterialsManager} that uses the given {@link IJoblessSupplier} and {@link OffersList} for it's operations.
 	 * 
@@ -66,11 +69,36 @@ public final class MaterialsManager implements Serializable {
 	}
 
 	public void distributeJobs() {
+		prepareJobs();
+		applyJobs();
+	}
+
+	/**
+	 * Matches offers, requests and jobless bearers. The bearers are not informed about their new jobs until {@link #applyJobs()} is called.
+	 * Therefore this method only changes the state of this manager, its {@link OffersList} and its {@link IJoblessSupplier}.
+	 */
+	public void prepareJobs() {
 		for (int i = 0; i < EMaterialType.NUMBER_OF_DROPPABLE_MATERIALS && !joblessSupplier.isEmpty(); i++) {
 			distributeJobForMaterial(settings.getMaterialTypeForPrio(i));
 		}
 	}
 
+	/**
+	 * Hands the jobs matched by the last call to {@link #prepareJobs()} to the bearers.
+	 */
+	public void applyJobs() {
+		if (pendingDeliveries == null) {
+			return;
+		}
+
+		for (PendingDelivery delivery : pendingDeliveries) {
+			if (!delivery.jobless.deliver(delivery.materialType, delivery.offerPosition, delivery.request)) {
+				offersList.addOffer(delivery.offerPosition, delivery.materialType);
+			}
+		}
+		pendingDeliveries.clear();
+	}
+
 	private void distributeJobForMaterial(EMaterialType materialType) {
 		if (offersList.isEmpty(materialType) || joblessSupplier.isEmpty()) // no offers? or no jobless? just return
 			return;
@@ -89,9 +117,10 @@ public final class MaterialsManager implements Serializable {
 
 		assert jobless != null : "The jobless can't be null here!";
 
-		if (!jobless.deliver(materialType, offer.getPos(), request)) {
-			offersList.addOffer(offer.getPos(), materialType);
+		if (pendingDeliveries == null) {
+			pendingDeliveries = new ArrayList<PendingDelivery>();
 		}
+		pendingDeliveries.add(new PendingDelivery(jobless, materialType, offer.getPos(), request));
 	}
 
 	public void movePositionTo(ShortPoint2D position, MaterialsManager newManager) {
@@ -105,4 +134,21 @@ public final class MaterialsManager implements Serializable {
 			requestQueues[i].mergeInto(newManager.requestQueues[i]);
 		}
 	}
+
+	/**
+	 * A transport job that has been matched but not yet been handed to the bearer.
+	 */
+	private static final class PendingDelivery {
+		final IManagerBearer jobless;
+		final EMaterialType materialType;
+		final ShortPoint2D offerPosition;
+		final MaterialRequestObject request;
+
+		PendingDelivery(IManagerBearer jobless, EMaterialType materialType, ShortPoint2D offerPosition, MaterialRequestObject request) {
+			this.jobless = jobless;
+			this.materialType = materialType;
+			this.offerPosition = offerPosition;
+			this.request = request;
+		}
+	}
 }
@@ -0,0 +1,220 @@
+package jsettlers.logic.map.save;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Describes the binary savegame format.
+ * <p>
+ * Format (all numbers big endian):
+ * <p>
+ * 32 bit magic number {@link #MAGIC}, 16 bit version, 8 bit flags ({@link #FLAG_COMPRESSED}).
+ * <p>
+ * The rest of the file is deflated if the compressed flag is set.
+ * <p>
+ * A Java serialization stream of the game state. Every short, int, long and float array with at least {@link #MIN_EXTRACTED_ARRAY_LENGTH}
+ * elements is replaced by a {@link RawArray}. Its data is the 8 bit element type, the 32 bit length and the raw elements in byte arrays of up
+ * to {@link #BUFFER_SIZE} bytes.
+ * <p>
+ * Savegames written before this format directly start with the Java serialization stream.
+ */
+public final class SavegameFormat {
+	static final int MAGIC = 0x4A53534D; // "JSSM"
+	static final short VERSION = 1;
+
+	static final byte FLAG_COMPRESSED = 0x01;
+
+	/**
+	 * Smaller arrays are cheaper to be written by the normal serialization.
+	 */
+	static final int MIN_EXTRACTED_ARRAY_LENGTH = 1024;
+
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final byte TYPE_SHORT = 2;
+	private static final byte TYPE_INT = 3;
+	private static final byte TYPE_LONG = 4;
+	private static final byte TYPE_FLOAT = 5;
+
+	private SavegameFormat() {
+	}
+
+	/**
+	 * Byte arrays are not extracted: The serialization writes them raw anyway, and the elements of the extracted arrays are written as byte
+	 * arrays.
+	 */
+	static boolean isExtractedArray(Object object) {
+		if (object instanceof short[]) {
+			return ((short[]) object).length >= MIN_EXTRACTED_ARRAY_LENGTH;
+		} else if (object instanceof int[]) {
+			return ((int[]) object).length >= MIN_EXTRACTED_ARRAY_LENGTH;
+		} else if (object instanceof long[]) {
+			return ((long[]) object).length >= MIN_EXTRACTED_ARRAY_LENGTH;
+		} else if (object instanceof float[]) {
+			return ((float[]) object).length >= MIN_EXTRACTED_ARRAY_LENGTH;
+		} else {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the given primitive array with its type and length. The elements are written as byte arrays of up to {@link #BUFFER_SIZE} bytes, so
+	 * that they are not split into the small blocks of the serialization stream.
+	 *
+	 * @param out
+	 * @param array
+	 * @throws IOException
+	 */
+	static void writeArray(ObjectOutputStream out, Object array) throws IOException {
+		if (array instanceof short[]) {
+			short[] data = (short[]) array;
+			writeArrayHeader(out, TYPE_SHORT, data.length);
+			int elementsPerBuffer = BUFFER_SIZE / 2;
+			for (int offset = 0; offset < data.length; offset += elementsPerBuffer) {
+				int length = Math.min(elementsPerBuffer, data.length - offset);
+				ByteBuffer buffer = ByteBuffer.allocate(length * 2);
+				buffer.asShortBuffer().put(data, offset, length);
+				out.writeUnshared(buffer.array());
+			}
+		} else if (array instanceof int[]) {
+			int[] data = (int[]) array;
+			writeArrayHeader(out, TYPE_INT, data.length);
+			int elementsPerBuffer = BUFFER_SIZE / 4;
+			for (int offset = 0; offset < data.length; offset += elementsPerBuffer) {
+				int length = Math.min(elementsPerBuffer, data.length - offset);
+				ByteBuffer buffer = ByteBuffer.allocate(length * 4);
+				buffer.asIntBuffer().put(data, offset, length);
+				out.writeUnshared(buffer.array());
+			}
+		} else if (array instanceof long[]) {
+			long[] data = (long[]) array;
+			writeArrayHeader(out, TYPE_LONG, data.length);
+			int elementsPerBuffer = BUFFER_SIZE / 8;
+			for (int offset = 0; offset < data.length; offset += elementsPerBuffer) {
+				int length = Math.min(elementsPerBuffer, data.length - offset);
+				ByteBuffer buffer = ByteBuffer.allocate(length * 8);
+				buffer.asLongBuffer().put(data, offset, length);
+				out.writeUnshared(buffer.array());
+			}
+		} else if (array instanceof float[]) {
+			float[] data = (float[]) array;
+			writeArrayHeader(out, TYPE_FLOAT, data.length);
+			int elementsPerBuffer = BUFFER_SIZE / 4;
+			for (int offset = 0; offset < data.length; offset += elementsPerBuffer) {
+				int length = Math.min(elementsPerBuffer, data.length - offset);
+				ByteBuffer buffer = ByteBuffer.allocate(length * 4);
+				buffer.asFloatBuffer().put(data, offset, length);
+				out.writeUnshared(buffer.array());
+			}
+		} else {
+			throw new IllegalArgumentException("Unsupported array type: " + array.getClass());
+		}
+	}
+
+	private static void writeArrayHeader(ObjectOutputStream out, byte type, int length) throws IOException {
+		out.writeByte(type);
+		out.writeInt(length);
+	}
+
+	/**
+	 * Reads a primitive array written by {@link #writeArray(ObjectOutputStream, Object)}.
+	 *
+	 * @param in
+	 * @return The read array.
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	static Object readArray(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		byte type = in.readByte();
+		int length = in.readInt();
+
+		switch (type) {
+		case TYPE_SHORT: {
+			short[] data = new short[length];
+			for (int offset = 0; offset < length;) {
+				ShortBuffer buffer = ByteBuffer.wrap(readBytes(in, Math.min(BUFFER_SIZE, (length - offset) * 2))).asShortBuffer();
+				int elements = buffer.remaining();
+				buffer.get(data, offset, elements);
+				offset += elements;
+			}
+			return data;
+		}
+		case TYPE_INT: {
+			int[] data = new int[length];
+			for (int offset = 0; offset < length;) {
+				IntBuffer buffer = ByteBuffer.wrap(readBytes(in, Math.min(BUFFER_SIZE, (length - offset) * 4))).asIntBuffer();
+				int elements = buffer.remaining();
+				buffer.get(data, offset, elements);
+				offset += elements;
+			}
+			return data;
+		}
+		case TYPE_LONG: {
+			long[] data = new long[length];
+			for (int offset = 0; offset < length;) {
+				LongBuffer buffer = ByteBuffer.wrap(readBytes(in, Math.min(BUFFER_SIZE, (length - offset) * 8))).asLongBuffer();
+				int elements = buffer.remaining();
+				buffer.get(data, offset, elements);
+				offset += elements;
+			}
+			return data;
+		}
+		case TYPE_FLOAT: {
+			float[] data = new float[length];
+			for (int offset = 0; offset < length;) {
+				FloatBuffer buffer = ByteBuffer.wrap(readBytes(in, Math.min(BUFFER_SIZE, (length - offset) * 4))).asFloatBuffer();
+				int elements = buffer.remaining();
+				buffer.get(data, offset, elements);
+				offset += elements;
+			}
+			return data;
+		}
+		default:
+			throw new IOException("Unknown array type in savegame: " + type);
+		}
+	}
+
+	/**
+	 * Reads the next byte array of a raw array and checks that it has the expected length.
+	 */
+	private static byte[] readBytes(ObjectInputStream in, int expectedLength) throws IOException, ClassNotFoundException {
+		Object bytes = in.readUnshared();
+		if (!(bytes instanceof byte[]) || ((byte[]) bytes).length != expectedLength) {
+			throw new IOException("Corrupt array in savegame.");
+		}
+		return (byte[]) bytes;
+	}
+
+	/**
+	 * Written to the serialization stream instead of a large primitive array. Its data is the raw array, on reading it is resolved to the array
+	 * again.
+	 */
+	static final class RawArray implements Serializable {
+		private static final long serialVersionUID = -2786401726137403917L;
+
+		private transient Object array;
+
+		RawArray(Object array) {
+			this.array = array;
+		}
+
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			writeArray(out, array);
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			array = readArray(in);
+		}
+
+		private Object readResolve() {
+			return array;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package jsettlers.logic.map.save;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An {@link ObjectInputStream} reading the {@link SavegameFormat}. The raw arrays are read in the order they appear in the stream, so nothing is
+ * buffered completely.
+ */
+public final class SavegameObjectInputStream extends ObjectInputStream {
+	private SavegameObjectInputStream(InputStream in) throws IOException {
+		super(in);
+	}
+
+	/**
+	 * Opens an {@link ObjectInputStream} to read the game state of a savegame from the given stream. Savegames written before the
+	 * {@link SavegameFormat} was introduced are read with a normal {@link ObjectInputStream}.
+	 *
+	 * @param in
+	 *            The stream positioned after the map file header.
+	 * @return The stream to read the objects from.
+	 * @throws IOException
+	 */
+	public static ObjectInputStream open(InputStream in) throws IOException {
+		if (!in.markSupported()) {
+			in = new BufferedInputStream(in);
+		}
+
+		in.mark(4);
+		DataInputStream header = new DataInputStream(in);
+		if (header.readInt() != SavegameFormat.MAGIC) {
+			in.reset();
+			return new ObjectInputStream(in); // savegame of the old format
+		}
+
+		short version = header.readShort();
+		if (version > SavegameFormat.VERSION) {
+			throw new IOException("Savegame version " + version + " is not supported.");
+		}
+
+		byte flags = header.readByte();
+		InputStream payload = in;
+		if ((flags & SavegameFormat.FLAG_COMPRESSED) != 0) {
+			payload = new InflaterInputStream(in, new Inflater(), SavegameFormat.BUFFER_SIZE);
+		}
+		return new SavegameObjectInputStream(payload);
+	}
+}
@@ -0,0 +1,77 @@
+package jsettlers.logic.map.save;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * An {@link ObjectOutputStream} writing the {@link SavegameFormat}. Large primitive arrays, like the ones of the grids, are not serialized
+ * element by element but written as raw data.
+ * <p>
+ * The data is written directly to the target stream. {@link #close()} has to be called to complete the savegame.
+ * <p>
+ * {@link MapList} does not use this stream yet, because the SavegameBenchmark of the tests does not show it to be faster than plain Java
+ * serialization on every map. The entities are still serialized object by object inside it.
+ */
+public final class SavegameObjectOutputStream extends ObjectOutputStream {
+	private final Deflater deflater;
+
+	/**
+	 * Creates a new stream and writes the header of the {@link SavegameFormat} to the target stream.
+	 *
+	 * @param out
+	 *            The stream to write to. It is closed when this stream is closed.
+	 * @param compressed
+	 *            If true, the savegame will be deflated.
+	 * @throws IOException
+	 */
+	public SavegameObjectOutputStream(OutputStream out, boolean compressed) throws IOException {
+		this(out, compressed ? new Deflater(Deflater.BEST_SPEED) : null);
+	}
+
+	private SavegameObjectOutputStream(OutputStream out, Deflater deflater) throws IOException {
+		super(openPayload(out, deflater));
+		this.deflater = deflater;
+		enableReplaceObject(true);
+	}
+
+	private static OutputStream openPayload(OutputStream out, Deflater deflater) throws IOException {
+		DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(SavegameFormat.MAGIC);
+		header.writeShort(SavegameFormat.VERSION);
+		header.writeByte(deflater != null ? SavegameFormat.FLAG_COMPRESSED : 0);
+		header.flush();
+
+		if (deflater != null) {
+			// the deflater is slow for the small writes of the serialization
+			return new BufferedOutputStream(new DeflaterOutputStream(out, deflater, SavegameFormat.BUFFER_SIZE), SavegameFormat.BUFFER_SIZE);
+		} else {
+			return out;
+		}
+	}
+
+	@Override
+	protected Object replaceObject(Object object) throws IOException {
+		// a shared array is only replaced once, the serialization writes a reference to the first replacement for the others.
+		if (SavegameFormat.isExtractedArray(object)) {
+			return new SavegameFormat.RawArray(object);
+		} else {
+			return object;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+	}
+}
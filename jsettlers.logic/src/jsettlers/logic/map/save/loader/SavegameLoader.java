@@ -10,6 +10,7 @@ import jsettlers.logic.map.newGrid.GameSerializer;
 import jsettlers.logic.map.newGrid.MainGrid;
 import jsettlers.logic.map.save.IListedMap;
 import jsettlers.logic.map.save.MapFileHeader;
+import jsettlers.logic.map.save.SavegameObjectInputStream;
 import jsettlers.logic.timer.RescheduleTimer;
 
 /**
@@ -26,7 +27,7 @@ public class SavegameLoader extends MapLoader {
 	@Override
 	public MainGridWithUiSettings loadMainGrid(boolean[] availablePlayers) throws MapLoadException {
 		try {
-			ObjectInputStream ois = new ObjectInputStream(super.getMapDataStream());
+			ObjectInputStream ois = SavegameObjectInputStream.open(super.getMapDataStream());
 
 			PlayerState[] playerStates = (PlayerState[]) ois.readObject();
 			GameSerializer gameSerializer = new GameSerializer();
@@ -9,6 +9,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import jsettlers.algorithms.fogofwar.IViewDistancable;
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.service.PathRequest;
 import jsettlers.common.mapobject.EMapObjectType;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.material.ESearchType;
@@ -33,6 +34,7 @@ import jsettlers.logic.movable.strategies.soldiers.SoldierStrategy;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.timer.IScheduledTimerable;
 import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TimerHandle;
 import jsettlers.network.synchronic.random.RandomSingleton;
 
 /**
@@ -46,6 +48,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 	private static final long serialVersionUID = 2472076796407425256L;
 	private static final HashMap<Integer, Movable> movablesByID = new HashMap<Integer, Movable>();
 	private static final ConcurrentLinkedQueue<Movable> allMovables = new ConcurrentLinkedQueue<Movable>();
+	private static final short PATH_REQUEST_POLL_PERIOD = 25;
 	private static int nextID = Integer.MIN_VALUE;
 
 	private final AbstractNewMovableGrid grid;
@@ -80,6 +83,8 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 
 	private transient boolean selected = false;
 	private transient boolean soundPlayed = false;
+	private transient TimerHandle timerHandle;
+	private transient PathRequest moveToPathRequest;
 
 	public Movable(AbstractNewMovableGrid grid, EMovableType movableType, ShortPoint2D position, Player player) {
 		this.grid = grid;
@@ -90,7 +95,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 
 		this.direction = EDirection.values[RandomSingleton.getInt(0, 5)];
 
-		RescheduleTimer.add(this, Constants.MOVABLE_INTERRUPT_PERIOD);
+		this.timerHandle = RescheduleTimer.schedule(this, Constants.MOVABLE_INTERRUPT_PERIOD);
 
 		this.id = nextID++;
 		movablesByID.put(this.id, this);
@@ -184,9 +189,13 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 				setState(ENewMovableState.DOING_NOTHING); // this line is needed for assertions
 
 			case DOING_NOTHING:
+				if (!isMoveToPathResolved()) {
+					return PATH_REQUEST_POLL_PERIOD; // wait for the path finding between the ticks
+				}
+
 				ShortPoint2D oldTargetPos = path != null ? path.getTargetPos() : null;
 				ShortPoint2D oldPos = position;
-				boolean foundPath = goToPos(moveToRequest); // progress is reset in here
+				boolean foundPath = followMoveToPath(); // progress is reset in here
 				moveToRequest = null;
 
 				if (foundPath) {
@@ -233,6 +242,32 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 		return animationDuration;
 	}
 
+	/**
+	 * Checks if the path to the current {@link #moveToRequest} has been calculated. If there is no request for the current position and target, a
+	 * new one is queued.
+	 * 
+	 * @return true if the path has been calculated.
+	 */
+	private boolean isMoveToPathResolved() {
+		if (moveToPathRequest == null || !moveToPathRequest.isRequestFor(position, moveToRequest)) {
+			moveToPathRequest = grid.requestPath(this, moveToRequest);
+			return false;
+		}
+		return moveToPathRequest.isResolved();
+	}
+
+	private boolean followMoveToPath() {
+		Path path = moveToPathRequest.getPath();
+		moveToPathRequest = null;
+
+		if (path == null) {
+			return false;
+		} else {
+			followPath(path);
+			return true;
+		}
+	}
+
 	private void pathingAction() {
 		if (path.isFinished() || !strategy.checkPathStepPreconditions(path.getTargetPos(), path.getStep())) {
 			// if path is finished, or canceled by strategy return from here
@@ -271,8 +306,10 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 		animationDuration = Constants.MOVABLE_STEP_DURATION;
 		grid.leavePosition(this.position, this);
 		grid.enterPosition(position, this, false);
+		ShortPoint2D oldPosition = this.position;
 		this.position = position;
 		isRightstep = !isRightstep;
+		strategy.positionChanged(oldPosition);
 	}
 
 	private int doingNothingAction() {
@@ -532,7 +569,9 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 			grid.enterPosition(position, this, true);
 		}
 
+		ShortPoint2D oldPosition = this.position;
 		this.position = position;
+		strategy.positionChanged(oldPosition);
 	}
 
 	final void setVisible(boolean visible) {
@@ -637,6 +676,10 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 
 		grid.leavePosition(this.position, this);
 		this.health = -200;
+		if (timerHandle != null) { // the handle is not restored when a savegame is loaded
+			RescheduleTimer.cancel(timerHandle);
+			timerHandle = null;
+		}
 		this.strategy.strategyKilledEvent(path != null ? path.getTargetPos() : null);
 
 		movablesByID.remove(this.getID());
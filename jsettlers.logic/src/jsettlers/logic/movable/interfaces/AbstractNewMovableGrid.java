@@ -2,6 +2,7 @@ package jsettlers.logic.movable.interfaces;
 
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.service.PathRequest;
 import jsettlers.common.mapobject.EMapObjectType;
 import jsettlers.common.material.ESearchType;
 import jsettlers.common.position.ShortPoint2D;
@@ -47,6 +48,17 @@ public abstract class AbstractNewMovableGrid extends AbstractStrategyGrid {
 
 	public abstract Path calculatePathTo(IPathCalculatable pathCalculatable, ShortPoint2D targetPos);
 
+	/**
+	 * Queues a path request. The path is calculated in parallel to other requests between two ticks of the game.
+	 * 
+	 * @param pathCalculatable
+	 *            The requester of the path. The path starts at its current position.
+	 * @param targetPos
+	 *            The target of the path.
+	 * @return The {@link PathRequest} that can be polled for the result.
+	 */
+	public abstract PathRequest requestPath(IPathCalculatable pathCalculatable, ShortPoint2D targetPos);
+
 	public abstract Path searchDijkstra(IPathCalculatable pathCalculateable, short centerX, short centerY, short radius, ESearchType searchType);
 
 	public abstract Path searchInArea(IPathCalculatable pathCalculateable, short centerX, short centerY, short radius, ESearchType searchType);
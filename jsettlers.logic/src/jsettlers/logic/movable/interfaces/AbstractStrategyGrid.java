@@ -9,6 +9,7 @@ import jsettlers.common.material.EMaterialType;
 import jsettlers.common.material.ESearchType;
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageable;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBearer;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBricklayer;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableDigger;
@@ -41,6 +42,17 @@ public abstract class AbstractStrategyGrid implements Serializable {
 
 	public abstract void removeJobless(IManageableBricklayer bricklayer);
 
+	/**
+	 * Informs the manager the given jobless has been added to, that the jobless changed its position. This doesn't need to be the manager of the
+	 * partition at the old or the new position.
+	 * 
+	 * @param jobless
+	 *            The jobless that has been moved.
+	 * @param oldPosition
+	 *            The position of the jobless before it has been moved.
+	 */
+	public abstract void joblessPositionChanged(IManageable jobless, ShortPoint2D oldPosition);
+
 	/**
 	 * Take a material from the stack at given position of given {@link EMaterialType}.
 	 * 
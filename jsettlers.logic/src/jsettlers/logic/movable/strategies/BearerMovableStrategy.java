@@ -5,6 +5,7 @@ import jsettlers.common.movable.EAction;
 import jsettlers.common.movable.EMovableType;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBearer;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.interfaces.IBarrack;
 import jsettlers.logic.map.newGrid.partition.manager.materials.interfaces.IMaterialRequest;
@@ -30,6 +31,7 @@ public final class BearerMovableStrategy extends MovableStrategy implements IMan
 
 	private IBarrack barrack;
 	private IWorkerRequester workerRequester;
+	private PartitionManager joblessManager;
 
 	public BearerMovableStrategy(Movable movable) {
 		super(movable);
@@ -190,6 +192,13 @@ public final class BearerMovableStrategy extends MovableStrategy implements IMan
 		return request == null || request.isActive();
 	}
 
+	@Override
+	protected void positionChanged(ShortPoint2D oldPosition) {
+		if (state == EBearerState.JOBLESS) {
+			super.getStrategyGrid().joblessPositionChanged(this, oldPosition);
+		}
+	}
+
 	@Override
 	public boolean deliver(EMaterialType materialType, ShortPoint2D offer, IMaterialRequest request) {
 		if (state == EBearerState.JOBLESS) {
@@ -244,6 +253,16 @@ public final class BearerMovableStrategy extends MovableStrategy implements IMan
 		return state == EBearerState.DEAD_OBJECT;
 	}
 
+	@Override
+	public void setJoblessManager(PartitionManager joblessManager) {
+		this.joblessManager = joblessManager;
+	}
+
+	@Override
+	public PartitionManager getJoblessManager() {
+		return joblessManager;
+	}
+
 	/**
 	 * This enum defines the internal states of a bearer.
 	 * 
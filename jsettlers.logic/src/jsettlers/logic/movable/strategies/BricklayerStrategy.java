@@ -3,6 +3,7 @@ package jsettlers.logic.movable.strategies;
 import jsettlers.common.movable.EAction;
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBricklayer;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.interfaces.IConstructableBuilding;
 import jsettlers.logic.movable.Movable;
@@ -16,6 +17,7 @@ public class BricklayerStrategy extends MovableStrategy implements IManageableBr
 	private IConstructableBuilding constructionSite;
 	private ShortPoint2D bricklayerTargetPos;
 	private EDirection lookDirection;
+	private PartitionManager joblessManager;
 
 	public BricklayerStrategy(Movable movable) {
 		super(movable);
@@ -96,6 +98,23 @@ public class BricklayerStrategy extends MovableStrategy implements IManageableBr
 		state = EBricklayerState.DEAD_OBJECT;
 	}
 
+	@Override
+	protected void positionChanged(ShortPoint2D oldPosition) {
+		if (state == EBricklayerState.JOBLESS) {
+			super.getStrategyGrid().joblessPositionChanged(this, oldPosition);
+		}
+	}
+
+	@Override
+	public void setJoblessManager(PartitionManager joblessManager) {
+		this.joblessManager = joblessManager;
+	}
+
+	@Override
+	public PartitionManager getJoblessManager() {
+		return joblessManager;
+	}
+
 	private static enum EBricklayerState {
 		JOBLESS,
 		INIT_JOB,
@@ -16,6 +16,7 @@ import jsettlers.common.position.ShortPoint2D;
 import jsettlers.graphics.messages.SimpleMessage;
 import jsettlers.logic.buildings.workers.MillBuilding;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableWorker;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.interfaces.IWorkerRequestBuilding;
 import jsettlers.logic.movable.Movable;
@@ -39,6 +40,7 @@ public final class BuildingWorkerStrategy extends MovableStrategy implements IMa
 
 	private EMaterialType poppedMaterial;
 	private int searchFailedCtr = 0;
+	private PartitionManager joblessManager;
 
 	public BuildingWorkerStrategy(Movable movable, EMovableType movableType) {
 		super(movable);
@@ -461,4 +463,21 @@ public final class BuildingWorkerStrategy extends MovableStrategy implements IMa
 			super.getStrategyGrid().removeJobless(this);
 		}
 	}
+
+	@Override
+	public void setJoblessManager(PartitionManager joblessManager) {
+		this.joblessManager = joblessManager;
+	}
+
+	@Override
+	public PartitionManager getJoblessManager() {
+		return joblessManager;
+	}
+
+	@Override
+	protected void positionChanged(ShortPoint2D oldPosition) {
+		if (isJobless()) {
+			super.getStrategyGrid().joblessPositionChanged(this, oldPosition);
+		}
+	}
 }
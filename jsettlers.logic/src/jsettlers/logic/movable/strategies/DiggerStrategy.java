@@ -4,6 +4,7 @@ import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.movable.EAction;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableDigger;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.interfaces.IDiggerRequester;
 import jsettlers.logic.movable.Movable;
@@ -15,6 +16,7 @@ public final class DiggerStrategy extends MovableStrategy implements IManageable
 
 	private IDiggerRequester requester;
 	private EDiggerState state = EDiggerState.JOBLESS;
+	private PartitionManager joblessManager;
 
 	public DiggerStrategy(Movable movable) {
 		super(movable);
@@ -143,6 +145,23 @@ public final class DiggerStrategy extends MovableStrategy implements IManageable
 		state = EDiggerState.DEAD_OBJECT;
 	}
 
+	@Override
+	public void setJoblessManager(PartitionManager joblessManager) {
+		this.joblessManager = joblessManager;
+	}
+
+	@Override
+	public PartitionManager getJoblessManager() {
+		return joblessManager;
+	}
+
+	@Override
+	protected void positionChanged(ShortPoint2D oldPosition) {
+		if (state == EDiggerState.JOBLESS) {
+			super.getStrategyGrid().joblessPositionChanged(this, oldPosition);
+		}
+	}
+
 	private static enum EDiggerState {
 		JOBLESS,
 		INIT_JOB,
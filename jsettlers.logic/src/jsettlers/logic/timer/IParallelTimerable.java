@@ -0,0 +1,31 @@
+package jsettlers.logic.timer;
+
+import java.io.Serializable;
+
+/**
+ * Interface for timerables executed by the {@link ParallelTickPhase}. Every tick consists of two steps: First the
+ * {@link #prepareTimerEvent()} methods of all timerables are called in parallel. Afterwards {@link #applyTimerEvent()} is called for every
+ * timerable one after the other in a fixed order.
+ */
+public interface IParallelTimerable extends Serializable {
+
+	/**
+	 * Calculates the work of this tick. This method is called in parallel to the other timerables of the phase and therefore MUST NOT change any
+	 * state that is not exclusively owned by this object. Reading other objects is allowed, as nothing else is executed during this step.
+	 * 
+	 * @return true if this timerable should stay in the phase,<br>
+	 *         false if it should be removed (then {@link #applyTimerEvent()} is not called anymore).
+	 */
+	boolean prepareTimerEvent();
+
+	/**
+	 * Applies the results of the last {@link #prepareTimerEvent()} call. This method is called on the timer thread in a fixed order and may change
+	 * any state.
+	 */
+	void applyTimerEvent();
+
+	/**
+	 * this method is called if the timerable crashes during execution of prepareTimerEvent() or applyTimerEvent() to prevent further damage.
+	 */
+	void kill();
+}
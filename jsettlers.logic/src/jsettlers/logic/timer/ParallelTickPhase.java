@@ -0,0 +1,197 @@
+package jsettlers.logic.timer;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This {@link IScheduledTimerable} executes a set of {@link IParallelTimerable}s every {@link #TIME_SLICE} ms.
+ * <p />
+ * The {@link IParallelTimerable#prepareTimerEvent()} methods are executed in parallel on a {@link ForkJoinPool}. Afterwards, the results are
+ * applied with {@link IParallelTimerable#applyTimerEvent()} in the order the timerables have been added. As the prepare step only changes state
+ * owned by the single timerables, the result does not depend on the thread scheduling and the game stays deterministic.
+ */
+public final class ParallelTickPhase implements IScheduledTimerable {
+	private static final long serialVersionUID = -3504858950232402245L;
+
+	private static final int TIME_SLICE = 25; // ms
+	private static final int MIN_PARALLEL_TIMERABLES = 8;
+	private static final int TIMERABLES_PER_TASK = 4;
+
+	private static final byte STATE_KEEP = 0;
+	private static final byte STATE_REMOVE = 1;
+	private static final byte STATE_CRASHED = 2;
+
+	private static ParallelTickPhase uniIns;
+	private static ForkJoinPool pool;
+
+	private final ArrayList<IParallelTimerable> timerables = new ArrayList<IParallelTimerable>();
+	private final ArrayList<IParallelTimerable> newTimerables = new ArrayList<IParallelTimerable>();
+
+	private transient byte[] states = new byte[0];
+	private transient Throwable[] exceptions = new Throwable[0];
+	private transient boolean ticking;
+
+	ParallelTickPhase() {
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		states = new byte[0];
+		exceptions = new Throwable[0];
+		uniIns = this;
+	}
+
+	private static synchronized ParallelTickPhase get() {
+		if (uniIns == null) {
+			uniIns = new ParallelTickPhase();
+			RescheduleTimer.add(uniIns, TIME_SLICE);
+		}
+		return uniIns;
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	/**
+	 * Adds the given {@link IParallelTimerable} to the phase. It will be executed the first time in the next tick of the phase and then every tick
+	 * until {@link IParallelTimerable#prepareTimerEvent()} returns false. Adding a timerable that is already executed by the phase has no effect.
+	 *
+	 * @param timerable
+	 */
+	public static void add(IParallelTimerable timerable) {
+		get().addTimerable(timerable);
+	}
+
+	void addTimerable(IParallelTimerable timerable) {
+		if (!isExecuted(timerable)) {
+			newTimerables.add(timerable);
+		}
+	}
+
+	private boolean isExecuted(IParallelTimerable timerable) {
+		if (newTimerables.contains(timerable)) {
+			return true;
+		}
+		int index = timerables.indexOf(timerable);
+		// while ticking, the timerables that finished or crashed in this tick are still in the list, but will be removed.
+		return index >= 0 && (!ticking || states[index] == STATE_KEEP);
+	}
+
+	/**
+	 * Removes the current phase. The next call to {@link #add(IParallelTimerable)} creates a new one.
+	 */
+	public static void stop() {
+		uniIns = null;
+	}
+
+	@Override
+	public int timerEvent() {
+		timerables.addAll(newTimerables);
+		newTimerables.clear();
+
+		final int size = timerables.size();
+		if (states.length < size) {
+			states = new byte[size * 2];
+			exceptions = new Throwable[size * 2];
+		}
+		ticking = true;
+
+		if (size < MIN_PARALLEL_TIMERABLES) {
+			prepare(0, size);
+		} else {
+			getPool().invoke(new PrepareTask(0, size));
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (states[i] == STATE_KEEP) {
+				IParallelTimerable timerable = timerables.get(i);
+				try {
+					timerable.applyTimerEvent();
+				} catch (Throwable t) {
+					states[i] = STATE_CRASHED;
+					exceptions[i] = t;
+				}
+			}
+
+			if (states[i] == STATE_CRASHED) {
+				killTimerable(timerables.get(i), exceptions[i]);
+				exceptions[i] = null;
+			}
+		}
+
+		removeFinishedTimerables(size);
+		ticking = false;
+		return TIME_SLICE;
+	}
+
+	private void prepare(int from, int to) {
+		for (int i = from; i < to; i++) {
+			try {
+				states[i] = timerables.get(i).prepareTimerEvent() ? STATE_KEEP : STATE_REMOVE;
+			} catch (Throwable t) {
+				states[i] = STATE_CRASHED;
+				exceptions[i] = t;
+			}
+		}
+	}
+
+	private void removeFinishedTimerables(int size) {
+		int writeIdx = 0;
+		for (int i = 0; i < size; i++) {
+			if (states[i] == STATE_KEEP) {
+				timerables.set(writeIdx++, timerables.get(i));
+			}
+		}
+		for (int i = size - 1; i >= writeIdx; i--) {
+			timerables.remove(i);
+		}
+	}
+
+	private static void killTimerable(IParallelTimerable timerable, Throwable t) {
+		System.err.println("ParallelTickPhase catched: ");
+		t.printStackTrace();
+		try {
+			timerable.kill();
+		} catch (Throwable t2) {
+			System.err.println("ParallelTickPhase had trouble killing bad timerable!");
+			t2.printStackTrace();
+		}
+	}
+
+	@Override
+	public void kill() {
+		throw new UnsupportedOperationException("CAN'T KILL THE PARALLEL TICK PHASE!");
+	}
+
+	/**
+	 * {@link RecursiveAction} splitting the prepare step into tasks of {@link ParallelTickPhase#TIMERABLES_PER_TASK} timerables.
+	 */
+	private final class PrepareTask extends RecursiveAction {
+		private static final long serialVersionUID = 2934728547723400563L;
+
+		private final int from;
+		private final int to;
+
+		PrepareTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= TIMERABLES_PER_TASK) {
+				prepare(from, to);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new PrepareTask(from, middle), new PrepareTask(middle, to));
+			}
+		}
+	}
+}
@@ -1,16 +1,33 @@
 package jsettlers.logic.timer;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.OptionalDataException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 
 import jsettlers.common.map.MapLoadException;
+import jsettlers.common.utils.collections.list.DoubleLinkedList;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 
+/**
+ * This timer schedules {@link IScheduledTimerable}s in a hierarchical timing wheel. Every slot of the wheel spans {@link #TIME_SLICE}
+ * milliseconds.
+ * <p />
+ * The first level has {@link #LEVEL0_SLOTS} slots and therefore covers all the usual delays directly. Longer delays are stored in coarser levels
+ * and cascaded down when their time comes closer. Every scheduled timerable is represented by a {@link TimerHandle}, which is the list node
+ * itself. Therefore scheduling, cancelling and rescheduling are O(1).
+ * <p />
+ * The serialized form is still the one of the old ring buffer timer ({@link #FUTURE_TIME} ms in {@link #TIME_SLICE} ms slots). Timerables
+ * scheduled further in the future are appended as optional data.
+ */
 public final class RescheduleTimer implements INetworkTimerable, Serializable {
 	private static final long serialVersionUID = -1962430988827211391L;
 
@@ -18,19 +35,57 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 	private static final short TIME_SLICE = 25; // ms
 	private static final short TIME_SLOTS = FUTURE_TIME / TIME_SLICE;
 
+	private static final int LEVEL0_BITS = 9;
+	private static final int LEVEL0_SLOTS = 1 << LEVEL0_BITS;
+	private static final int LEVEL0_MASK = LEVEL0_SLOTS - 1;
+	private static final int LEVELN_BITS = 6;
+	private static final int LEVELN_SLOTS = 1 << LEVELN_BITS;
+	private static final int LEVELN_MASK = LEVELN_SLOTS - 1;
+	private static final int LEVELS = 4; // covers 2^27 slots, more than Integer.MAX_VALUE / TIME_SLICE
+
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("timerables", ArrayList[].class),
+			new ObjectStreamField("currTimeSlot", int.class)
+	};
+
+	private static final Comparator<TimerHandle> EXPIRATION_COMPARATOR = new Comparator<TimerHandle>() {
+		@Override
+		public int compare(TimerHandle h1, TimerHandle h2) {
+			return Long.compare(h1.expirationSlot, h2.expirationSlot);
+		}
+	};
+
 	private static RescheduleTimer uniIns;
+	private static TimerProfile profile;
 
-	@SuppressWarnings("unchecked")
-	private final ArrayList<IScheduledTimerable> timerables[] = new ArrayList[TIME_SLOTS];
-	private int currTimeSlot = 0;
+	private transient DoubleLinkedList<TimerHandle>[][] wheel;
+	/**
+	 * Absolute index of the slot that will be executed by the next call to {@link #timerEvent()}.
+	 */
+	private transient long currSlot;
+	private transient int scheduledCount;
+
+	private transient int lastSlotTimerables;
+	private transient long lastSlotDuration;
+	private transient int maxSlotTimerables;
+	private transient long maxSlotDuration;
 
 	protected RescheduleTimer() {
-		for (int i = 0; i < TIME_SLOTS; i++) {
-			timerables[i] = new ArrayList<IScheduledTimerable>();
+		initWheel();
+	}
+
+	private void initWheel() {
+		@SuppressWarnings("unchecked")
+		DoubleLinkedList<TimerHandle>[][] wheel = (DoubleLinkedList<TimerHandle>[][]) new DoubleLinkedList<?>[LEVELS][];
+		wheel[0] = DoubleLinkedList.getArray(LEVEL0_SLOTS);
+		for (int level = 1; level < LEVELS; level++) {
+			wheel[level] = DoubleLinkedList.getArray(LEVELN_SLOTS);
 		}
+		this.wheel = wheel;
 	}
 
 	public static void stop() {
+		ParallelTickPhase.stop();
 		if (uniIns != null) {
 			MatchConstants.clock.remove(uniIns);
 			uniIns = null;
@@ -39,15 +94,48 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 
 	/**
 	 * Schedules the given {@link IScheduledTimerable} in max delay milliseconds.
-	 * 
+	 *
 	 * @param t
 	 * @param delay
 	 */
 	public static void add(IScheduledTimerable t, int delay) {
-		get().add_(t, delay);
+		get().scheduleHandle(new TimerHandle(t), delay);
 	}
 
-	private void add_(IScheduledTimerable t, int delay) {
+	/**
+	 * Schedules the given {@link IScheduledTimerable} in max delay milliseconds and returns the handle of the scheduling. The handle stays valid
+	 * as long as the {@link IScheduledTimerable} keeps rescheduling itself and can be used to cancel or move the scheduling.
+	 *
+	 * @param t
+	 * @param delay
+	 * @return The {@link TimerHandle} of the given timerable.
+	 */
+	public static TimerHandle schedule(IScheduledTimerable t, int delay) {
+		TimerHandle handle = new TimerHandle(t);
+		get().scheduleHandle(handle, delay);
+		return handle;
+	}
+
+	/**
+	 * Removes the scheduling of the given handle. If the timerable is currently executed, the delay returned by it is ignored.
+	 *
+	 * @param handle
+	 */
+	public static void cancel(TimerHandle handle) {
+		get().cancelHandle(handle);
+	}
+
+	/**
+	 * Moves the scheduling of the given handle to max delay milliseconds from now. A delay <= 0 cancels the scheduling.
+	 *
+	 * @param handle
+	 * @param delay
+	 */
+	public static void reschedule(TimerHandle handle, int delay) {
+		get().rescheduleHandle(handle, delay);
+	}
+
+	void scheduleHandle(TimerHandle handle, int delay) {
 		if (delay <= 0) {
 			return; // don't schedule if requested delay is negative or zero
 		}
@@ -55,9 +143,70 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 		int delaySlots = delay / TIME_SLICE;
 		delaySlots = delaySlots > 0 ? delaySlots : 1; // ensure at least one slot delay
 
-		assert delaySlots < TIME_SLOTS : "SCHEDULED TO FAR IN THE FUTURE! " + delay + "ms";
+		handle.cancelled = false;
+		handle.expirationSlot = currSlot + delaySlots;
+		insert(handle);
+		scheduledCount++;
+	}
 
-		timerables[(currTimeSlot + delaySlots) % TIME_SLOTS].add(t);
+	void cancelHandle(TimerHandle handle) {
+		if (handle.list != null) {
+			handle.list.remove(handle);
+			handle.list = null;
+			scheduledCount--;
+		}
+		handle.cancelled = true;
+	}
+
+	void rescheduleHandle(TimerHandle handle, int delay) {
+		cancelHandle(handle);
+		scheduleHandle(handle, delay);
+	}
+
+	private void insert(TimerHandle handle) {
+		long expirationSlot = handle.expirationSlot;
+		long delta = expirationSlot - currSlot;
+
+		DoubleLinkedList<TimerHandle> list;
+		if (delta < LEVEL0_SLOTS) {
+			list = wheel[0][(int) (expirationSlot & LEVEL0_MASK)];
+		} else {
+			int level = 1;
+			int shift = LEVEL0_BITS;
+			while (level < LEVELS - 1 && delta >= 1L << (shift + LEVELN_BITS)) {
+				level++;
+				shift += LEVELN_BITS;
+			}
+			assert delta < 1L << (shift + LEVELN_BITS) : "SCHEDULED TO FAR IN THE FUTURE! " + delta + " slots";
+			list = wheel[level][(int) ((expirationSlot >>> shift) & LEVELN_MASK)];
+		}
+
+		list.pushEnd(handle);
+		handle.list = list;
+	}
+
+	/**
+	 * Moves the timerables of the coarser levels, whose time has come, down to the finer levels. Must be called before the current slot is
+	 * executed.
+	 */
+	private void cascade() {
+		if ((currSlot & LEVEL0_MASK) != 0) {
+			return;
+		}
+
+		int shift = LEVEL0_BITS;
+		for (int level = 1; level < LEVELS; level++) {
+			int index = (int) ((currSlot >>> shift) & LEVELN_MASK);
+			DoubleLinkedList<TimerHandle> list = wheel[level][index];
+			while (!list.isEmpty()) {
+				insert(list.popFront());
+			}
+
+			if (index != 0) {
+				break;
+			}
+			shift += LEVELN_BITS;
+		}
 	}
 
 	private static synchronized RescheduleTimer get() {
@@ -69,12 +218,32 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 
 	@Override
 	public void timerEvent() {
-		ArrayList<IScheduledTimerable> queue = timerables[currTimeSlot];
+		cascade();
+
+		long startTime = System.nanoTime();
+		DoubleLinkedList<TimerHandle> queue = wheel[0][(int) (currSlot & LEVEL0_MASK)];
+		int executed = 0;
 
-		for (IScheduledTimerable curr : queue) {
+		while (!queue.isEmpty()) {
+			TimerHandle handle = queue.popFront();
+			handle.list = null;
+			scheduledCount--;
+			executed++;
+
+			IScheduledTimerable curr = handle.timerable;
 			try {
-				int delay = curr.timerEvent();
-				add_(curr, delay);
+				int delay;
+				TimerProfile profile = RescheduleTimer.profile;
+				if (profile == null) {
+					delay = curr.timerEvent();
+				} else {
+					long timerableStart = System.nanoTime();
+					delay = curr.timerEvent();
+					profile.record(curr.getClass(), System.nanoTime() - timerableStart);
+				}
+				if (!handle.cancelled && handle.list == null) { // the timerable may have cancelled or rescheduled itself
+					scheduleHandle(handle, delay);
+				}
 			} catch (Throwable t) {
 				System.err.println("RescheduleTimer catched: ");
 				t.printStackTrace();
@@ -87,8 +256,163 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 			}
 		}
 
-		queue.clear();
-		currTimeSlot = (currTimeSlot + 1) % TIME_SLOTS;
+		currSlot++;
+		updateStatistics(executed, System.nanoTime() - startTime);
+	}
+
+	private void updateStatistics(int executed, long duration) {
+		lastSlotTimerables = executed;
+		lastSlotDuration = duration;
+		maxSlotTimerables = Math.max(maxSlotTimerables, executed);
+		maxSlotDuration = Math.max(maxSlotDuration, duration);
+	}
+
+	/**
+	 *
+	 * @return Returns the number of timerables currently waiting in this timer.
+	 */
+	int size() {
+		return scheduledCount;
+	}
+
+	/**
+	 *
+	 * @return Returns the number of timerables currently scheduled.
+	 */
+	public static int getScheduledCount() {
+		return uniIns != null ? uniIns.scheduledCount : 0;
+	}
+
+	/**
+	 *
+	 * @return Returns the number of timerables executed in the last slot.
+	 */
+	public static int getLastSlotTimerables() {
+		return uniIns != null ? uniIns.lastSlotTimerables : 0;
+	}
+
+	/**
+	 *
+	 * @return Returns the time in nanoseconds needed to execute the timerables of the last slot.
+	 */
+	public static long getLastSlotDuration() {
+		return uniIns != null ? uniIns.lastSlotDuration : 0;
+	}
+
+	/**
+	 *
+	 * @return Returns the maximum number of timerables executed in a single slot since the last {@link #resetStatistics()}.
+	 */
+	public static int getMaxSlotTimerables() {
+		return uniIns != null ? uniIns.maxSlotTimerables : 0;
+	}
+
+	/**
+	 *
+	 * @return Returns the maximum time in nanoseconds needed to execute a single slot since the last {@link #resetStatistics()}.
+	 */
+	public static long getMaxSlotDuration() {
+		return uniIns != null ? uniIns.maxSlotDuration : 0;
+	}
+
+	/**
+	 * Sets the profile that records the time spent in the executed timerables. Profiling is only meant for the timer thread.
+	 *
+	 * @param profile
+	 *            The profile to fill or null to stop profiling.
+	 */
+	public static void setProfile(TimerProfile profile) {
+		RescheduleTimer.profile = profile;
+	}
+
+	public static void resetStatistics() {
+		if (uniIns != null) {
+			uniIns.maxSlotTimerables = 0;
+			uniIns.maxSlotDuration = 0;
+		}
+	}
+
+	/**
+	 * Collects all scheduled handles ordered by their expiration. Handles with the same expiration keep the order they will be executed in.
+	 *
+	 * @return
+	 */
+	private ArrayList<TimerHandle> getHandlesInExecutionOrder() {
+		ArrayList<TimerHandle> handles = new ArrayList<TimerHandle>(scheduledCount);
+		for (DoubleLinkedList<TimerHandle>[] level : wheel) {
+			for (DoubleLinkedList<TimerHandle> list : level) {
+				for (TimerHandle handle : list) {
+					handles.add(handle);
+				}
+			}
+		}
+		Collections.sort(handles, EXPIRATION_COMPARATOR); // stable sort => lower levels first for equal expiration
+		return handles;
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		@SuppressWarnings("unchecked")
+		ArrayList<IScheduledTimerable>[] timerables = new ArrayList[TIME_SLOTS];
+		for (int i = 0; i < TIME_SLOTS; i++) {
+			timerables[i] = new ArrayList<IScheduledTimerable>();
+		}
+		int currTimeSlot = (int) (currSlot % TIME_SLOTS);
+		ArrayList<TimerHandle> farHandles = new ArrayList<TimerHandle>();
+
+		for (TimerHandle handle : getHandlesInExecutionOrder()) {
+			long delta = handle.expirationSlot - currSlot;
+			if (delta < TIME_SLOTS) {
+				timerables[(int) ((currTimeSlot + delta) % TIME_SLOTS)].add(handle.timerable);
+			} else {
+				farHandles.add(handle);
+			}
+		}
+
+		ObjectOutputStream.PutField fields = oos.putFields();
+		fields.put("timerables", timerables);
+		fields.put("currTimeSlot", currTimeSlot);
+		oos.writeFields();
+
+		oos.writeInt(farHandles.size());
+		for (TimerHandle handle : farHandles) {
+			oos.writeObject(handle.timerable);
+			oos.writeLong(handle.expirationSlot - currSlot);
+		}
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = ois.readFields();
+		@SuppressWarnings("unchecked")
+		ArrayList<IScheduledTimerable>[] timerables = (ArrayList<IScheduledTimerable>[]) fields.get("timerables", null);
+		int currTimeSlot = fields.get("currTimeSlot", 0);
+
+		initWheel();
+		currSlot = currTimeSlot;
+
+		for (int delta = 0; delta < TIME_SLOTS; delta++) {
+			for (IScheduledTimerable timerable : timerables[(currTimeSlot + delta) % TIME_SLOTS]) {
+				scheduleInSlots(new TimerHandle(timerable), delta);
+			}
+		}
+
+		int farHandles;
+		try {
+			farHandles = ois.readInt();
+		} catch (OptionalDataException e) { // savegames of the old ring buffer timer contain no further data
+			farHandles = 0;
+		} catch (EOFException e) {
+			farHandles = 0;
+		}
+		for (int i = 0; i < farHandles; i++) {
+			IScheduledTimerable timerable = (IScheduledTimerable) ois.readObject();
+			scheduleInSlots(new TimerHandle(timerable), ois.readLong());
+		}
+	}
+
+	private void scheduleInSlots(TimerHandle handle, long delaySlots) {
+		handle.expirationSlot = currSlot + delaySlots;
+		insert(handle);
+		scheduledCount++;
 	}
 
 	public static void loadFrom(ObjectInputStream ois) throws MapLoadException {
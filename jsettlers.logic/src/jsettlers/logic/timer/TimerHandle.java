@@ -0,0 +1,40 @@
+package jsettlers.logic.timer;
+
+import jsettlers.common.utils.collections.list.DoubleLinkedList;
+import jsettlers.common.utils.collections.list.DoubleLinkedListItem;
+
+/**
+ * A handle of an {@link IScheduledTimerable} scheduled in the {@link RescheduleTimer}. The handle is the list node itself, therefore it can be
+ * cancelled and rescheduled in O(1).
+ * <p />
+ * NOTE: Handles are not part of the savegame. After loading a game, the timerables are scheduled with new handles.
+ */
+public final class TimerHandle extends DoubleLinkedListItem<TimerHandle> {
+	private static final long serialVersionUID = -2786416567011390585L;
+
+	final IScheduledTimerable timerable;
+
+	transient long expirationSlot;
+	transient DoubleLinkedList<TimerHandle> list;
+	transient boolean cancelled;
+
+	TimerHandle(IScheduledTimerable timerable) {
+		this.timerable = timerable;
+	}
+
+	/**
+	 *
+	 * @return Returns the {@link IScheduledTimerable} of this handle.
+	 */
+	public IScheduledTimerable getTimerable() {
+		return timerable;
+	}
+
+	/**
+	 *
+	 * @return Returns true if the timerable of this handle is currently waiting in the timer.
+	 */
+	public boolean isScheduled() {
+		return list != null;
+	}
+}
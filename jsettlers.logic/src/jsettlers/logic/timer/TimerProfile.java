@@ -0,0 +1,64 @@
+package jsettlers.logic.timer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Collects the number of calls and the time spent in the {@link IScheduledTimerable}s executed by the {@link RescheduleTimer}, grouped by their
+ * class. A profile is only filled while it is set with {@link RescheduleTimer#setProfile(TimerProfile)}.
+ */
+public final class TimerProfile {
+	private final HashMap<Class<?>, Entry> entries = new HashMap<Class<?>, Entry>();
+
+	void record(Class<?> timerableClass, long nanos) {
+		Entry entry = entries.get(timerableClass);
+		if (entry == null) {
+			entry = new Entry(timerableClass);
+			entries.put(timerableClass, entry);
+		}
+		entry.calls++;
+		entry.nanos += nanos;
+	}
+
+	/**
+	 * @return The entries of this profile, the most expensive first.
+	 */
+	public List<Entry> getEntries() {
+		List<Entry> result = new ArrayList<Entry>(entries.values());
+		Collections.sort(result, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry e1, Entry e2) {
+				return Long.compare(e2.nanos, e1.nanos);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * The calls and time of the timerables of one class.
+	 */
+	public static final class Entry {
+		private final Class<?> timerableClass;
+		private long calls;
+		private long nanos;
+
+		Entry(Class<?> timerableClass) {
+			this.timerableClass = timerableClass;
+		}
+
+		public Class<?> getTimerableClass() {
+			return timerableClass;
+		}
+
+		public long getCalls() {
+			return calls;
+		}
+
+		public long getNanos() {
+			return nanos;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package jsettlers.main;
 
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -26,9 +27,11 @@ import jsettlers.graphics.startscreen.interfaces.IStartingGameListener;
 import jsettlers.input.GuiInterface;
 import jsettlers.input.IGameStoppable;
 import jsettlers.input.PlayerState;
+import jsettlers.input.tasks.GuiTaskTypes;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.newGrid.StateChecksumCalculator;
 import jsettlers.logic.map.save.IGameCreator;
 import jsettlers.logic.map.save.IGameCreator.MainGridWithUiSettings;
 import jsettlers.logic.map.save.MapList;
@@ -48,6 +51,11 @@ import jsettlers.network.synchronic.random.RandomSingleton;
  */
 public class JSettlersGame {
 	private static final SimpleDateFormat logDateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
+	private static final int IMAGE_PRELOAD_PROGRESS_INTERVAL = 100;
+
+	static {
+		GuiTaskTypes.register();
+	}
 
 	private final Object stopMutex = new Object();
 
@@ -107,7 +115,7 @@ public class JSettlersGame {
 
 	public static JSettlersGame loadFromReplayFile(File loadableReplayFile, INetworkConnector networkConnector,
 			ReplayStartInformation replayStartInformation) throws IOException {
-		DataInputStream replayFileInputStream = new DataInputStream(new FileInputStream(loadableReplayFile));
+		DataInputStream replayFileInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(loadableReplayFile)));
 		replayStartInformation.deserialize(replayFileInputStream);
 
 		MapLoader mapCreator = MapList.getDefaultList().getMapById(replayStartInformation.getMapId());
@@ -164,6 +172,7 @@ public class JSettlersGame {
 				PlayerState playerState = gridWithUiState.getPlayerState(playerId);
 
 				RescheduleTimer.schedule(gameClock); // schedule timer
+				gameClock.setStateChecksumCalculator(new StateChecksumCalculator(mainGrid));
 
 				updateProgressListener(EProgressState.LOADING_IMAGES, 0.7f);
 				statistics = new GameStatistics(gameClock);
@@ -171,7 +180,7 @@ public class JSettlersGame {
 				mainGrid.initForPlayer(playerId, playerState.getFogOfWar());
 				mainGrid.startThreads();
 
-				imagePreloader.join(); // Wait for ImageProvider to finish loading the images
+				waitForImagePreloader(imagePreloader);
 
 				waitForStartingGameListener();
 
@@ -255,6 +264,16 @@ public class JSettlersGame {
 			}
 		}
 
+		/**
+		 * Waits for the ImageProvider to finish loading the images and shows the progress of loading them.
+		 */
+		private void waitForImagePreloader(Thread imagePreloader) throws InterruptedException {
+			while (imagePreloader.isAlive()) {
+				imagePreloader.join(IMAGE_PRELOAD_PROGRESS_INTERVAL);
+				updateProgressListener(EProgressState.LOADING_IMAGES, 0.7f + 0.25f * ImageProvider.getInstance().getPreloadProgress());
+			}
+		}
+
 		private void updateProgressListener(EProgressState progressState,
 				float progress) {
 			this.progressState = progressState;
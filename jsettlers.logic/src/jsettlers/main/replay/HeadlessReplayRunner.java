@@ -0,0 +1,345 @@
+package jsettlers.main.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import jsettlers.common.map.MapLoadException;
+import jsettlers.graphics.map.UIState;
+import jsettlers.input.GuiTaskExecutor;
+import jsettlers.input.ITaskExecutorGuiInterface;
+import jsettlers.input.PlayerState;
+import jsettlers.input.tasks.GuiTaskTypes;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.GameStateHash;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.newGrid.StateChecksumCalculator;
+import jsettlers.logic.map.save.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.map.save.MapList;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TimerProfile;
+import jsettlers.main.ReplayStartInformation;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.ITaskExecutor;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Runs a replay without graphics, sound and user interface as fast as possible.
+ * <p />
+ * In contrast to {@link ReplayTool}, no {@link jsettlers.main.JSettlersGame} is started: Only the map and the timers are set up and the
+ * {@link NetworkTimer} is driven directly by the calling thread. The runner measures the simulation speed, the time spent in the single kinds of
+ * timerables and the allocations of the simulation thread. At every checkpoint a {@link GameStateHash} is calculated, so two runs of the same
+ * replay can be compared to detect desynchronizations.
+ */
+public class HeadlessReplayRunner {
+	static {
+		GuiTaskTypes.register();
+	}
+
+	private final File replayFile;
+
+	public HeadlessReplayRunner(File replayFile) {
+		this.replayFile = replayFile;
+	}
+
+	/**
+	 * Runs the replay to the given game time. The console output of the game is suppressed while the game runs, unless verbose is set.
+	 *
+	 * @param targetGameTime
+	 *            Game time in milliseconds to run the replay to.
+	 * @param checkpointInterval
+	 *            Game time in milliseconds between two state hashes.
+	 * @param verbose
+	 *            If true, the console output of the game is shown.
+	 * @return The measurements and state hashes of the run.
+	 * @throws IOException
+	 * @throws MapLoadException
+	 */
+	public Result run(int targetGameTime, int checkpointInterval, boolean verbose) throws IOException, MapLoadException {
+		DataInputStream replayStream = new DataInputStream(new BufferedInputStream(new FileInputStream(replayFile)));
+		ReplayStartInformation replayInfo = new ReplayStartInformation();
+		replayInfo.deserialize(replayStream);
+
+		MapLoader map = MapList.getDefaultList().getMapById(replayInfo.getMapId());
+		if (map == null) {
+			replayStream.close();
+			throw new MapLoadException("Map of the replay not found: " + replayInfo.getMapName() + " (" + replayInfo.getMapId() + ")");
+		}
+
+		PrintStream originalOut = System.out;
+		if (!verbose) {
+			System.setOut(new PrintStream(new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+				}
+			}));
+		}
+
+		NetworkTimer clock = new NetworkTimer(true);
+		MainGrid grid = null;
+		try {
+			byte playerId = (byte) replayInfo.getPlayerId();
+
+			MatchConstants.clock = clock;
+			RandomSingleton.load(replayInfo.getRandomSeed());
+			Movable.resetState();
+
+			MainGridWithUiSettings gridWithUiState = map.loadMainGrid(replayInfo.getAvailablePlayers());
+			grid = gridWithUiState.getMainGrid();
+			PlayerState playerState = gridWithUiState.getPlayerState(playerId);
+
+			RescheduleTimer.schedule(clock);
+			clock.setStateChecksumCalculator(new StateChecksumCalculator(grid));
+			grid.startThreads(); // no fog of war is set, so only the threads needed by the logic are started
+
+			TaskTimer taskTimer = new TaskTimer(new GuiTaskExecutor(grid.getGuiInputGrid(), new HeadlessGuiInterface(playerState), playerId));
+			clock.setTaskExecutor(taskTimer);
+			clock.loadReplayLogFromStream(replayStream);
+
+			return simulate(clock, grid, taskTimer, targetGameTime, checkpointInterval);
+		} finally {
+			clock.stopExecution();
+			if (grid != null) {
+				grid.stopThreads();
+			}
+			RescheduleTimer.setProfile(null);
+			RescheduleTimer.stop();
+			Movable.resetState();
+			Building.dropAllBuildings();
+			replayStream.close();
+
+			System.setOut(originalOut);
+		}
+	}
+
+	private Result simulate(NetworkTimer clock, MainGrid grid, TaskTimer taskTimer, int targetGameTime, int checkpointInterval) {
+		TimerProfile profile = new TimerProfile();
+		RescheduleTimer.setProfile(profile);
+
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		long startAllocatedBytes = getAllocatedBytes(threadBean);
+		long startGcCount = getGcCount();
+		int startGameTime = clock.getTime();
+
+		List<Checkpoint> checkpoints = new ArrayList<Checkpoint>();
+		long simulationNanos = 0;
+
+		for (int checkpointTime = startGameTime + checkpointInterval; checkpointTime <= targetGameTime; checkpointTime += checkpointInterval) {
+			long start = System.nanoTime();
+			clock.fastForwardTo(checkpointTime);
+			simulationNanos += System.nanoTime() - start;
+
+			checkpoints.add(new Checkpoint(clock.getTime(), GameStateHash.calculate(grid)));
+		}
+
+		int ticks = (clock.getTime() - startGameTime) / NetworkTimer.TIME_SLICE;
+		long allocatedBytes = getAllocatedBytes(threadBean) - startAllocatedBytes;
+		return new Result(checkpoints, ticks, simulationNanos, allocatedBytes, getGcCount() - startGcCount, taskTimer.nanos, profile,
+				clock.getAverageStateChecksumNanos(), clock.getMaxStateChecksumNanos());
+	}
+
+	private static long getAllocatedBytes(ThreadMXBean threadBean) {
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		} else {
+			return -1;
+		}
+	}
+
+	private static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gcBean.getCollectionCount());
+		}
+		return count;
+	}
+
+	/**
+	 * The measurements and state hashes of a run.
+	 */
+	public static class Result {
+		private final List<Checkpoint> checkpoints;
+		private final int ticks;
+		private final long simulationNanos;
+		private final long allocatedBytes;
+		private final long garbageCollections;
+		private final long taskNanos;
+		private final TimerProfile profile;
+		private final long averageStateChecksumNanos;
+		private final long maxStateChecksumNanos;
+
+		Result(List<Checkpoint> checkpoints, int ticks, long simulationNanos, long allocatedBytes, long garbageCollections, long taskNanos,
+				TimerProfile profile, long averageStateChecksumNanos, long maxStateChecksumNanos) {
+			this.checkpoints = checkpoints;
+			this.ticks = ticks;
+			this.simulationNanos = simulationNanos;
+			this.allocatedBytes = allocatedBytes;
+			this.garbageCollections = garbageCollections;
+			this.taskNanos = taskNanos;
+			this.profile = profile;
+			this.averageStateChecksumNanos = averageStateChecksumNanos;
+			this.maxStateChecksumNanos = maxStateChecksumNanos;
+		}
+
+		public List<Checkpoint> getCheckpoints() {
+			return checkpoints;
+		}
+
+		/**
+		 * @return The number of {@link NetworkTimer#TIME_SLICE} steps simulated.
+		 */
+		public int getTicks() {
+			return ticks;
+		}
+
+		public double getTicksPerSecond() {
+			return simulationNanos == 0 ? 0 : ticks * 1e9 / simulationNanos;
+		}
+
+		public long getSimulationNanos() {
+			return simulationNanos;
+		}
+
+		/**
+		 * @return The bytes allocated by the simulation thread or a negative value if the JVM can't measure them.
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		public double getAllocatedBytesPerTick() {
+			return ticks == 0 ? 0 : (double) allocatedBytes / ticks;
+		}
+
+		public long getGarbageCollections() {
+			return garbageCollections;
+		}
+
+		/**
+		 * @return The time spent executing the tasks of the replay.
+		 */
+		public long getTaskNanos() {
+			return taskNanos;
+		}
+
+		public TimerProfile getProfile() {
+			return profile;
+		}
+
+		/**
+		 * @return The average time needed to calculate the state checksum of a lockstep.
+		 */
+		public long getAverageStateChecksumNanos() {
+			return averageStateChecksumNanos;
+		}
+
+		public long getMaxStateChecksumNanos() {
+			return maxStateChecksumNanos;
+		}
+
+		public void print(PrintStream out) {
+			out.println(String.format("ticks: %d (%d ms game time) in %.2f s => %.1f ticks/s", ticks, ticks * NetworkTimer.TIME_SLICE,
+					simulationNanos / 1e9, getTicksPerSecond()));
+			if (allocatedBytes >= 0) {
+				out.println(String.format("allocated: %.1f MB => %.1f KB/tick, %d garbage collections", allocatedBytes / 1e6,
+						getAllocatedBytesPerTick() / 1e3, garbageCollections));
+			}
+			out.println(String.format("state checksum: %.3f ms average, %.3f ms max", averageStateChecksumNanos / 1e6, maxStateChecksumNanos / 1e6));
+			out.println(String.format("  %-40s %10s %10s %6s", "subsystem", "calls", "ms", "%"));
+			printProfileLine(out, "tasks", -1, taskNanos);
+			for (TimerProfile.Entry entry : profile.getEntries()) {
+				printProfileLine(out, entry.getTimerableClass().getSimpleName(), entry.getCalls(), entry.getNanos());
+			}
+			for (Checkpoint checkpoint : checkpoints) {
+				out.println("checkpoint " + checkpoint);
+			}
+		}
+
+		private void printProfileLine(PrintStream out, String name, long calls, long nanos) {
+			out.println(String.format("  %-40s %10s %10.1f %6.1f", name, calls < 0 ? "" : Long.toString(calls), nanos / 1e6,
+					simulationNanos == 0 ? 0 : nanos * 100.0 / simulationNanos));
+		}
+	}
+
+	/**
+	 * The state hash at a game time.
+	 */
+	public static class Checkpoint {
+		private final int gameTime;
+		private final long hash;
+
+		public Checkpoint(int gameTime, long hash) {
+			this.gameTime = gameTime;
+			this.hash = hash;
+		}
+
+		public int getGameTime() {
+			return gameTime;
+		}
+
+		public long getHash() {
+			return hash;
+		}
+
+		@Override
+		public String toString() {
+			return gameTime + " " + GameStateHash.toString(hash);
+		}
+	}
+
+	/**
+	 * {@link ITaskExecutor} measuring the time needed to execute the tasks.
+	 */
+	private static class TaskTimer implements ITaskExecutor {
+		private final ITaskExecutor executor;
+		private long nanos;
+
+		TaskTimer(ITaskExecutor executor) {
+			this.executor = executor;
+		}
+
+		@Override
+		public void executeTask(TaskPacket task) {
+			long start = System.nanoTime();
+			executor.executeTask(task);
+			nanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * {@link ITaskExecutorGuiInterface} without a user interface.
+	 */
+	private static class HeadlessGuiInterface implements ITaskExecutorGuiInterface {
+		private final UIState uiState;
+
+		HeadlessGuiInterface(PlayerState playerState) {
+			this.uiState = playerState != null ? playerState.getUiState() : null;
+		}
+
+		@Override
+		public void refreshSelection() {
+		}
+
+		@Override
+		public UIState getUIState() {
+			return uiState;
+		}
+	}
+}
@@ -4,6 +4,7 @@ import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.mapobject.EMapObjectType;
@@ -109,6 +110,10 @@ public class BgMap implements IGraphicsGrid {
 			IGraphicsBackgroundListener backgroundListener) {
 	}
 
+	@Override
+	public void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+	}
+
 	@Override
 	public int nextDrawableX(int x, int y, int maxX) {
 		return x + 1;
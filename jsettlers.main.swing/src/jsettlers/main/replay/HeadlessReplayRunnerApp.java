@@ -0,0 +1,173 @@
+package jsettlers.main.replay;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.utils.MainUtils;
+import jsettlers.graphics.swing.resources.SwingResourceLoader;
+import jsettlers.main.replay.HeadlessReplayRunner.Checkpoint;
+import jsettlers.main.replay.HeadlessReplayRunner.Result;
+import jsettlers.main.swing.SwingManagedJSettlers;
+
+/**
+ * Runs one replay or all replays of a directory with the {@link HeadlessReplayRunner} and compares the results with the expected results stored
+ * next to each replay in a file with the ending {@value #EXPECTED_FILE_ENDING}.
+ * <p />
+ * A replay fails if a state hash differs from the expected one (desynchronization) or if it runs slower than the expected ticks per second by more
+ * than the tolerance (performance regression). If no expected file exists or --update is given, the expected file is written from the current
+ * run. The exit code is 1 if a replay failed.
+ * <p />
+ * Arguments: --replayFile=&lt;FILE&gt; or --replayDir=&lt;DIR&gt;, --targetTime=&lt;minutes&gt;, optional --checkpoint=&lt;seconds&gt;,
+ * --tolerance=&lt;percent&gt;, --update and --verbose.
+ */
+public class HeadlessReplayRunnerApp {
+	private static final String EXPECTED_FILE_ENDING = ".expected";
+	private static final String REPLAY_FILE_ENDING = ".log";
+
+	private static final int DEFAULT_CHECKPOINT_SECONDS = 60;
+	private static final int DEFAULT_TOLERANCE_PERCENT = 20;
+
+	public static void main(String[] args) throws FileNotFoundException, IOException {
+		HashMap<String, String> argsMap = MainUtils.createArgumentsMap(args);
+		SwingResourceLoader.setupResourcesManagerByConfigFile(SwingManagedJSettlers.getConfigFile(argsMap, "config.prp"));
+
+		if (!argsMap.containsKey("targetTime"))
+			throw new IllegalArgumentException("Target time needs to be specified with --targetTime=<MINUTES>");
+		int targetGameTime = Integer.valueOf(argsMap.get("targetTime")) * 60 * 1000;
+		int checkpointInterval = getInt(argsMap, "checkpoint", DEFAULT_CHECKPOINT_SECONDS) * 1000;
+		int tolerancePercent = getInt(argsMap, "tolerance", DEFAULT_TOLERANCE_PERCENT);
+		boolean update = argsMap.containsKey("update");
+		boolean verbose = argsMap.containsKey("verbose");
+
+		List<File> replayFiles = getReplayFiles(argsMap);
+
+		int failed = 0;
+		for (File replayFile : replayFiles) {
+			System.out.println("==== " + replayFile);
+			try {
+				Result result = new HeadlessReplayRunner(replayFile).run(targetGameTime, checkpointInterval, verbose);
+				result.print(System.out);
+
+				if (!check(replayFile, result, tolerancePercent, update)) {
+					failed++;
+				}
+			} catch (MapLoadException e) {
+				System.err.println("FAILED: replay could not be loaded");
+				e.printStackTrace();
+				failed++;
+			}
+		}
+
+		System.out.println("==== " + (replayFiles.size() - failed) + " of " + replayFiles.size() + " replays passed.");
+		System.exit(failed == 0 ? 0 : 1);
+	}
+
+	private static List<File> getReplayFiles(HashMap<String, String> argsMap) throws FileNotFoundException {
+		String replayFileString = argsMap.get("replayFile");
+		String replayDirString = argsMap.get("replayDir");
+
+		if (replayFileString != null) {
+			File replayFile = new File(replayFileString);
+			if (!replayFile.exists())
+				throw new FileNotFoundException("Found replayFile parameter, but file can not be found: " + replayFile);
+			return Arrays.asList(replayFile);
+
+		} else if (replayDirString != null) {
+			File[] replayFiles = new File(replayDirString).listFiles(new FilenameFilter() {
+				@Override
+				public boolean accept(File dir, String name) {
+					return name.endsWith(REPLAY_FILE_ENDING);
+				}
+			});
+			if (replayFiles == null)
+				throw new FileNotFoundException("Found replayDir parameter, but directory can not be found: " + replayDirString);
+			Arrays.sort(replayFiles);
+			return Arrays.asList(replayFiles);
+
+		} else {
+			throw new IllegalArgumentException("Replay file or directory needs to be specified with --replayFile=<FILE> or --replayDir=<DIR>");
+		}
+	}
+
+	private static boolean check(File replayFile, Result result, int tolerancePercent, boolean update) throws IOException {
+		File expectedFile = new File(replayFile.getPath() + EXPECTED_FILE_ENDING);
+		if (update || !expectedFile.exists()) {
+			writeExpected(expectedFile, result);
+			System.out.println("Wrote expected results to " + expectedFile);
+			return true;
+		}
+
+		double expectedTicksPerSecond;
+		List<Checkpoint> expectedCheckpoints = new ArrayList<Checkpoint>();
+		BufferedReader reader = new BufferedReader(new FileReader(expectedFile));
+		try {
+			expectedTicksPerSecond = Double.parseDouble(reader.readLine());
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split(" ");
+				expectedCheckpoints.add(new Checkpoint(Integer.parseInt(parts[0]), new BigInteger(parts[1], 16).longValue()));
+			}
+		} finally {
+			reader.close();
+		}
+
+		boolean passed = true;
+
+		List<Checkpoint> checkpoints = result.getCheckpoints();
+		if (checkpoints.size() != expectedCheckpoints.size()) {
+			System.out.println("FAILED: " + checkpoints.size() + " checkpoints, expected " + expectedCheckpoints.size() + " (use --update after changing "
+					+ "the target time or the checkpoint interval)");
+			passed = false;
+		}
+		for (int i = 0; i < Math.min(checkpoints.size(), expectedCheckpoints.size()); i++) {
+			Checkpoint expected = expectedCheckpoints.get(i);
+			Checkpoint actual = checkpoints.get(i);
+			if (expected.getGameTime() != actual.getGameTime() || expected.getHash() != actual.getHash()) {
+				System.out.println("FAILED: desynchronization at checkpoint " + actual + ", expected " + expected);
+				passed = false;
+				break;
+			}
+		}
+
+		double minTicksPerSecond = expectedTicksPerSecond * (100 - tolerancePercent) / 100;
+		if (result.getTicksPerSecond() < minTicksPerSecond) {
+			System.out.println(String.format("FAILED: performance regression: %.1f ticks/s, expected at least %.1f ticks/s",
+					result.getTicksPerSecond(), minTicksPerSecond));
+			passed = false;
+		}
+
+		if (passed) {
+			System.out.println("PASSED");
+		}
+		return passed;
+	}
+
+	private static void writeExpected(File expectedFile, Result result) throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(expectedFile));
+		try {
+			writer.println(result.getTicksPerSecond());
+			for (Checkpoint checkpoint : result.getCheckpoints()) {
+				writer.println(checkpoint);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static int getInt(HashMap<String, String> argsMap, String key, int defaultValue) {
+		String value = argsMap.get(key);
+		return value != null ? Integer.valueOf(value) : defaultValue;
+	}
+}
@@ -5,6 +5,7 @@ import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.mapobject.IMapObject;
@@ -95,6 +96,10 @@ public class MapGraphics implements IGraphicsGrid {
 		data.setListener(backgroundListener);
 	}
 
+	@Override
+	public void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+	}
+
 	public void setShowResources(boolean b) {
 		showResources = b;
 	}
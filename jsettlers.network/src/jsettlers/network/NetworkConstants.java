@@ -19,6 +19,7 @@ public final class NetworkConstants {
 	public static final boolean USE_DELAYED_SOCKETS = false;
 	public static final int RTT_LOGGING_THRESHOLD = 800;
 	public static final int JITTER_LOGGING_THRESHOLD = 200;
+	public static final int STALL_LOGGING_THRESHOLD = 500;
 
 	/**
 	 * This class contains constants used by the Server part of network library.
@@ -31,13 +32,18 @@ public final class NetworkConstants {
 		}
 
 		// public static final int SERVER_PORT = 10213; // VERSION 1
-		public static final int SERVER_PORT = 10214; // VERSION 2
+		// public static final int SERVER_PORT = 10214; // VERSION 2
+		// public static final int SERVER_PORT = 10215; // VERSION 3: task types encoded by the TaskPacketRegistry
+		// public static final int SERVER_PORT = 10216; // VERSION 4: state checksums in the time sync packets
+		public static final int SERVER_PORT = 10217; // VERSION 5: tick costs and stall times in the time sync packets
 
 		public static final int BROADCAST_PORT = 10233;
 		public static final String BROADCAST_MESSAGE = "JSETTLERS-LAN-SERVER-BROADCAST-V1";
 		public static final int BROADCAST_BUFFER_LENGTH = BROADCAST_MESSAGE.length();
 
 		public static final long OPEN_MATCHES_SEND_INTERVAL_MS = 5 * 1000;
+
+		public static final int NIO_SELECTOR_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
 	}
 
 	public final static class Client {
@@ -60,6 +66,30 @@ public final class NetworkConstants {
 		 * The number of steps the server can run ahead of the clients.
 		 */
 		public static int LOCKSTEP_DEFAULT_LEAD_STEPS = 3;
+
+		/**
+		 * The maximum number of time slices a client executes at once to catch up after slow ticks or stalls.
+		 */
+		public static int MAX_CATCH_UP_SLICES = 20;
+
+		/**
+		 * The number of locksteps between two state checksums. The checksums are sent to the server with the time sync packets to detect
+		 * desynchronizations of the clients.
+		 */
+		public static int STATE_CHECKSUM_INTERVAL_LOCKSTEPS = 10;
+
+		/**
+		 * The maximum number of lockstep packets waiting to be written to the replay log.
+		 */
+		public static int REPLAY_QUEUE_CAPACITY = 1024;
+		/**
+		 * The maximum number of milliseconds between writing a lockstep packet to the replay log and flushing it to the disk.
+		 */
+		public static int REPLAY_FLUSH_INTERVAL_MS = 1000;
+		/**
+		 * If true, the replay log is compressed.
+		 */
+		public static boolean REPLAY_COMPRESSION = false;
 	}
 
 	/**
@@ -130,7 +160,8 @@ public final class NetworkConstants {
 		CHAT_MESSAGE,
 		TIME_SYNC,
 
-		CHANGE_START_FINISHED;
+		CHANGE_START_FINISHED,
+		MATCHES_DELTA;
 
 		private static final ENetworkKey[] values = ENetworkKey.values();
 		private final byte ordinal;
@@ -144,8 +175,12 @@ public final class NetworkConstants {
 		}
 
 		public static ENetworkKey readFrom(DataInputStream dis) throws IOException {
+			return fromByte(dis.readByte());
+		}
+
+		public static ENetworkKey fromByte(byte ordinal) throws IOException {
 			try {
-				return values[dis.readByte()];
+				return values[ordinal];
 			} catch (Exception ex) {
 				throw new IOException(ex);
 			}
@@ -0,0 +1,64 @@
+package jsettlers.network.client;
+
+import java.io.DataInputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.client.receiver.IPacketReceiver;
+import jsettlers.network.common.packets.ArrayOfMatchInfosPacket;
+import jsettlers.network.common.packets.MatchInfoPacket;
+import jsettlers.network.common.packets.MatchesDeltaPacket;
+import jsettlers.network.infrastructure.channel.IChannelListener;
+
+/**
+ * Receives the full list of matches and the {@link MatchesDeltaPacket}s sent by the server and keeps the list of matches up to date. The receiver
+ * is informed with the complete list after every change.
+ */
+public class MatchesListListener implements IChannelListener {
+	private final IPacketReceiver<ArrayOfMatchInfosPacket> receiver;
+	private final LinkedHashMap<String, MatchInfoPacket> matches = new LinkedHashMap<String, MatchInfoPacket>();
+
+	public MatchesListListener(IPacketReceiver<ArrayOfMatchInfosPacket> receiver) {
+		this.receiver = receiver;
+	}
+
+	@Override
+	public ENetworkKey[] getKeys() {
+		return new ENetworkKey[] { ENetworkKey.ARRAY_OF_MATCHES, ENetworkKey.MATCHES_DELTA };
+	}
+
+	@Override
+	public void receive(ENetworkKey key, int length, DataInputStream stream) throws Exception {
+		ArrayOfMatchInfosPacket matchesList;
+
+		synchronized (matches) {
+			if (key == ENetworkKey.ARRAY_OF_MATCHES) {
+				ArrayOfMatchInfosPacket packet = new ArrayOfMatchInfosPacket();
+				packet.deserialize(stream);
+
+				matches.clear();
+				for (MatchInfoPacket curr : packet.getMatches()) {
+					matches.put(curr.getId(), curr);
+				}
+			} else {
+				MatchesDeltaPacket packet = new MatchesDeltaPacket();
+				packet.deserialize(stream);
+
+				for (String removedId : packet.getRemovedMatchIds()) {
+					matches.remove(removedId);
+				}
+				for (MatchInfoPacket curr : packet.getUpdatedMatches()) {
+					matches.put(curr.getId(), curr);
+				}
+			}
+
+			Collection<MatchInfoPacket> values = matches.values();
+			matchesList = new ArrayOfMatchInfosPacket(values.toArray(new MatchInfoPacket[values.size()]));
+		}
+
+		if (receiver != null) {
+			receiver.receivePacket(matchesList);
+		}
+	}
+}
@@ -95,8 +95,7 @@ public class NetworkClient implements ITaskScheduler, INetworkConnector, INetwor
 		playerInfo = new PlayerInfoPacket(id, name, false);
 
 		channel.registerListener(new IdentifiedUserListener(this));
-		channel.registerListener(generateDefaultListener(NetworkConstants.ENetworkKey.ARRAY_OF_MATCHES, ArrayOfMatchInfosPacket.class,
-				matchesReceiver));
+		channel.registerListener(new MatchesListListener(matchesReceiver));
 		channel.sendPacketAsync(NetworkConstants.ENetworkKey.IDENTIFY_USER, playerInfo);
 	}
 
@@ -5,6 +5,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 
 import jsettlers.network.synchronic.timer.INetworkTimerable;
+import jsettlers.network.synchronic.timer.IStateChecksumCalculator;
 import jsettlers.network.synchronic.timer.ITaskExecutor;
 
 /**
@@ -21,6 +22,13 @@ public interface IGameClock extends IPausingSupplier {
 
 	void setTaskExecutor(ITaskExecutor taskExecutor);
 
+	/**
+	 * Sets the calculator used to calculate the state checksums sent to the server for desynchronization detection.
+	 * 
+	 * @param stateChecksumCalculator
+	 */
+	void setStateChecksumCalculator(IStateChecksumCalculator stateChecksumCalculator);
+
 	void multiplyGameSpeed(float factor);
 
 	void setGameSpeed(float speedFactor);
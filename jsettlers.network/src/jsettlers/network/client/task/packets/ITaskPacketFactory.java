@@ -0,0 +1,12 @@
+package jsettlers.network.client.task.packets;
+
+/**
+ * Creates empty instances of a {@link TaskPacket} type registered at the {@link TaskPacketRegistry}.
+ */
+public interface ITaskPacketFactory {
+	/**
+	 *
+	 * @return A new task that can be deserialized.
+	 */
+	TaskPacket create();
+}
@@ -10,6 +10,7 @@ import jsettlers.network.infrastructure.channel.IDeserializingable;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 
 /**
+ * Base class of the tasks synchronized over the network. The type of a task is encoded with the {@link TaskPacketRegistry}.
  * 
  * @author Andreas Eberle
  * 
@@ -21,12 +22,11 @@ public abstract class TaskPacket extends Packet {
 		public TaskPacket deserialize(ENetworkKey key, DataInputStream dis) throws IOException {
 			try {
 				dis.readInt(); // read the length in bytes from the stream. We don't need it here, only the server needs it.
-				String className = dis.readUTF();
-				@SuppressWarnings("unchecked")
-				Class<? extends TaskPacket> taskClass = (Class<? extends TaskPacket>) Class.forName(className);
-				TaskPacket packet = taskClass.newInstance();
+				TaskPacket packet = TaskPacketRegistry.readType(dis);
 				packet.deserializeTask(dis);
 				return packet;
+			} catch (IOException e) {
+				throw e;
 			} catch (Exception e) {
 				throw new IOException(e);
 			}
@@ -38,7 +38,7 @@ public abstract class TaskPacket extends Packet {
 		ByteArrayOutputStream bufferOutStream = new ByteArrayOutputStream();
 		DataOutputStream bufferDataOutStream = new DataOutputStream(bufferOutStream);
 
-		bufferDataOutStream.writeUTF(this.getClass().getName());
+		TaskPacketRegistry.writeType(bufferDataOutStream, this);
 		serializeTask(bufferDataOutStream);
 		bufferDataOutStream.flush();
 
@@ -0,0 +1,127 @@
+package jsettlers.network.client.task.packets;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * Registry of the known {@link TaskPacket} types. Registered types are identified by a small numeric id on the wire instead of their class
+ * name.
+ * <p />
+ * Wire format of the type information:
+ * <ul>
+ * <li>version 1: byte {@link #FORMAT_VERSION}, short type id. Tasks that are not registered use the id {@link #UNREGISTERED_TYPE_ID}
+ * followed by their class name as UTF string.</li>
+ * <li>legacy (old replays): class name as UTF string. As class names are shorter than 256 characters, the first byte is always 0.</li>
+ * </ul>
+ */
+public final class TaskPacketRegistry {
+	public static final byte FORMAT_VERSION = 1;
+	public static final short UNREGISTERED_TYPE_ID = 0;
+
+	private static final byte LEGACY_FORMAT = 0;
+
+	private static final HashMap<Class<? extends TaskPacket>, Short> typeIds = new HashMap<Class<? extends TaskPacket>, Short>();
+	private static final HashMap<Short, ITaskPacketFactory> factories = new HashMap<Short, ITaskPacketFactory>();
+
+	private TaskPacketRegistry() {
+	}
+
+	/**
+	 * Registers the given task type. Registering the same type with the same id again is ignored.
+	 *
+	 * @param typeId
+	 *            The id of the type. It must never be changed, because it's saved in replays.
+	 * @param taskClass
+	 *            The class of the task. Only tasks of exactly this class are encoded with the id.
+	 * @param factory
+	 *            The factory creating empty instances of the task.
+	 */
+	public static synchronized void register(int typeId, Class<? extends TaskPacket> taskClass, ITaskPacketFactory factory) {
+		if (typeId <= UNREGISTERED_TYPE_ID || typeId > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid task type id: " + typeId);
+		}
+		Short id = (short) typeId;
+
+		Short registeredId = typeIds.get(taskClass);
+		ITaskPacketFactory registeredFactory = factories.get(id);
+		if (registeredId != null && registeredId.equals(id)) {
+			return;
+		} else if (registeredId != null || registeredFactory != null) {
+			throw new IllegalStateException("Task type id " + typeId + " or class " + taskClass.getName() + " has already been registered.");
+		}
+
+		factories.put(id, factory);
+		typeIds.put(taskClass, id);
+	}
+
+	static synchronized Short getTypeId(Class<? extends TaskPacket> taskClass) {
+		return typeIds.get(taskClass);
+	}
+
+	static synchronized ITaskPacketFactory getFactory(short typeId) {
+		return factories.get(typeId);
+	}
+
+	/**
+	 * Writes the type information of the given task in the current format.
+	 */
+	static void writeType(DataOutputStream dos, TaskPacket task) throws IOException {
+		dos.writeByte(FORMAT_VERSION);
+
+		Short typeId = getTypeId(task.getClass());
+		if (typeId != null) {
+			dos.writeShort(typeId);
+		} else {
+			dos.writeShort(UNREGISTERED_TYPE_ID);
+			dos.writeUTF(task.getClass().getName());
+		}
+	}
+
+	/**
+	 * Reads the type information of a task and creates an empty instance of it. Both, the current and the legacy format are supported.
+	 */
+	static TaskPacket readType(DataInputStream dis) throws IOException {
+		byte version = dis.readByte();
+
+		switch (version) {
+		case LEGACY_FORMAT:
+			return createByClassName(readLegacyClassName(dis));
+
+		case FORMAT_VERSION:
+			short typeId = dis.readShort();
+			if (typeId == UNREGISTERED_TYPE_ID) {
+				return createByClassName(dis.readUTF());
+			}
+			ITaskPacketFactory factory = getFactory(typeId);
+			if (factory == null) {
+				throw new IOException("Unknown task type id: " + typeId);
+			}
+			return factory.create();
+
+		default:
+			throw new IOException("Unknown task format version: " + version);
+		}
+	}
+
+	/**
+	 * Reads the rest of an UTF string whose first byte (the high byte of its length) has already been read.
+	 */
+	private static String readLegacyClassName(DataInputStream dis) throws IOException {
+		int length = dis.readUnsignedByte();
+		byte[] utf = new byte[2 + length];
+		utf[1] = (byte) length;
+		dis.readFully(utf, 2, length);
+		return new DataInputStream(new ByteArrayInputStream(utf)).readUTF();
+	}
+
+	private static TaskPacket createByClassName(String className) throws IOException {
+		try {
+			return (TaskPacket) Class.forName(className).getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+}
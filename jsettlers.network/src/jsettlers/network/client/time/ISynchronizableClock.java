@@ -1,5 +1,7 @@
 package jsettlers.network.client.time;
 
+import jsettlers.network.synchronic.timer.StateChecksum;
+
 /**
  * 
  * @author Andreas Eberle
@@ -21,4 +23,22 @@ public interface ISynchronizableClock {
 	 */
 	void pauseClockFor(int timeDelta);
 
+	/**
+	 * 
+	 * @return Returns the latest state checksum that has not been polled yet or null if there is none.
+	 */
+	StateChecksum pollStateChecksum();
+
+	/**
+	 * 
+	 * @return Returns the average time needed to execute a time slice of the game in microseconds.
+	 */
+	int getAverageTickMicros();
+
+	/**
+	 * 
+	 * @return Returns the total time in milliseconds the clock stalled, because it had to wait for the next lockstep.
+	 */
+	int getStallTimeMs();
+
 }
@@ -5,6 +5,7 @@ import java.util.TimerTask;
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.AsyncChannel;
+import jsettlers.network.synchronic.timer.StateChecksum;
 
 /**
  * 
@@ -26,7 +27,12 @@ public class TimeSyncSenderTimerTask extends TimerTask {
 		int localTime = clock.getTime();
 		int expectedTimeAtServer = localTime + channel.getRoundTripTime().getRtt() / 2;
 
-		channel.sendPacketAsync(NetworkConstants.ENetworkKey.TIME_SYNC, new TimeSyncPacket(expectedTimeAtServer));
+		StateChecksum stateChecksum = clock.pollStateChecksum();
+		int checksumLockstep = stateChecksum != null ? stateChecksum.getLockstep() : TimeSyncPacket.NO_CHECKSUM;
+		long checksum = stateChecksum != null ? stateChecksum.getChecksum() : 0;
+
+		channel.sendPacketAsync(NetworkConstants.ENetworkKey.TIME_SYNC, new TimeSyncPacket(expectedTimeAtServer, clock.getAverageTickMicros(),
+				clock.getStallTimeMs(), checksumLockstep, checksum));
 	}
 
 }
@@ -0,0 +1,110 @@
+package jsettlers.network.common.packets;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import jsettlers.network.infrastructure.channel.packet.Packet;
+
+/**
+ * This packet contains the changes of the list of joinable matches since the last {@link ArrayOfMatchInfosPacket} or {@link MatchesDeltaPacket}
+ * sent to the client.
+ */
+public class MatchesDeltaPacket extends Packet {
+
+	private int version;
+	private MatchInfoPacket[] updatedMatches;
+	private String[] removedMatchIds;
+
+	public MatchesDeltaPacket() {
+	}
+
+	/**
+	 *
+	 * @param version
+	 *            The version of the list of matches after applying this delta.
+	 * @param updatedMatches
+	 *            The matches that have been added or changed.
+	 * @param removedMatchIds
+	 *            The ids of the matches that aren't joinable anymore.
+	 */
+	public MatchesDeltaPacket(int version, MatchInfoPacket[] updatedMatches, String[] removedMatchIds) {
+		this.version = version;
+		this.updatedMatches = updatedMatches;
+		this.removedMatchIds = removedMatchIds;
+	}
+
+	@Override
+	public void serialize(DataOutputStream dos) throws IOException {
+		dos.writeInt(version);
+
+		dos.writeInt(updatedMatches.length);
+		for (int i = 0; i < updatedMatches.length; i++) {
+			updatedMatches[i].serialize(dos);
+		}
+
+		dos.writeInt(removedMatchIds.length);
+		for (int i = 0; i < removedMatchIds.length; i++) {
+			dos.writeUTF(removedMatchIds[i]);
+		}
+	}
+
+	@Override
+	public void deserialize(DataInputStream dis) throws IOException {
+		version = dis.readInt();
+
+		int length = dis.readInt();
+		updatedMatches = new MatchInfoPacket[length];
+		for (int i = 0; i < length; i++) {
+			updatedMatches[i] = new MatchInfoPacket();
+			updatedMatches[i].deserialize(dis);
+		}
+
+		length = dis.readInt();
+		removedMatchIds = new String[length];
+		for (int i = 0; i < length; i++) {
+			removedMatchIds[i] = dis.readUTF();
+		}
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public MatchInfoPacket[] getUpdatedMatches() {
+		return updatedMatches;
+	}
+
+	public String[] getRemovedMatchIds() {
+		return removedMatchIds;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + version;
+		result = prime * result + Arrays.hashCode(updatedMatches);
+		result = prime * result + Arrays.hashCode(removedMatchIds);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		MatchesDeltaPacket other = (MatchesDeltaPacket) obj;
+		if (version != other.version)
+			return false;
+		if (!Arrays.equals(updatedMatches, other.updatedMatches))
+			return false;
+		if (!Arrays.equals(removedMatchIds, other.removedMatchIds))
+			return false;
+		return true;
+	}
+}
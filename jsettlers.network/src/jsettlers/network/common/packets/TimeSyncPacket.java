@@ -6,9 +6,18 @@ import java.io.IOException;
 
 import jsettlers.network.infrastructure.channel.packet.Packet;
 
+/**
+ * Packet with the game time of a client. It is also used as acknowledgement of the locksteps and carries the simulation cost and stall time of the
+ * client as well as the state checksum of a lockstep.
+ */
 public class TimeSyncPacket extends Packet {
+	public static final int NO_CHECKSUM = -1;
 
 	private int time;
+	private int averageTickMicros;
+	private int stallTimeMs;
+	private int checksumLockstep = NO_CHECKSUM;
+	private long checksum;
 
 	public TimeSyncPacket() {
 	}
@@ -17,14 +26,32 @@ public class TimeSyncPacket extends Packet {
 		this.time = time;
 	}
 
+	public TimeSyncPacket(int time, int averageTickMicros, int stallTimeMs, int checksumLockstep, long checksum) {
+		this.time = time;
+		this.averageTickMicros = averageTickMicros;
+		this.stallTimeMs = stallTimeMs;
+		this.checksumLockstep = checksumLockstep;
+		this.checksum = checksum;
+	}
+
 	@Override
 	public void serialize(DataOutputStream dos) throws IOException {
 		dos.writeInt(time);
+		dos.writeInt(averageTickMicros);
+		dos.writeInt(stallTimeMs);
+		dos.writeInt(checksumLockstep);
+		if (hasChecksum()) {
+			dos.writeLong(checksum);
+		}
 	}
 
 	@Override
 	public void deserialize(DataInputStream dis) throws IOException {
 		time = dis.readInt();
+		averageTickMicros = dis.readInt();
+		stallTimeMs = dis.readInt();
+		checksumLockstep = dis.readInt();
+		checksum = hasChecksum() ? dis.readLong() : 0;
 	}
 
 	/*
@@ -37,6 +64,10 @@ public class TimeSyncPacket extends Packet {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + time;
+		result = prime * result + averageTickMicros;
+		result = prime * result + stallTimeMs;
+		result = prime * result + checksumLockstep;
+		result = prime * result + (int) (checksum ^ (checksum >>> 32));
 		return result;
 	}
 
@@ -56,10 +87,47 @@ public class TimeSyncPacket extends Packet {
 		TimeSyncPacket other = (TimeSyncPacket) obj;
 		if (time != other.time)
 			return false;
+		if (averageTickMicros != other.averageTickMicros)
+			return false;
+		if (stallTimeMs != other.stallTimeMs)
+			return false;
+		if (checksumLockstep != other.checksumLockstep)
+			return false;
+		if (checksum != other.checksum)
+			return false;
 		return true;
 	}
 
 	public int getTime() {
 		return time;
 	}
+
+	/**
+	 * @return The average time the client needs to execute a time slice in microseconds.
+	 */
+	public int getAverageTickMicros() {
+		return averageTickMicros;
+	}
+
+	/**
+	 * @return The total time in milliseconds the client stalled waiting for locksteps.
+	 */
+	public int getStallTimeMs() {
+		return stallTimeMs;
+	}
+
+	public boolean hasChecksum() {
+		return checksumLockstep != NO_CHECKSUM;
+	}
+
+	/**
+	 * @return The lockstep the checksum has been calculated for or {@link #NO_CHECKSUM}.
+	 */
+	public int getChecksumLockstep() {
+		return checksumLockstep;
+	}
+
+	public long getChecksum() {
+		return checksum;
+	}
 }
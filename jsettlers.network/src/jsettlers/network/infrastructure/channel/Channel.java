@@ -1,16 +1,18 @@
 package jsettlers.network.infrastructure.channel;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.buffer.PacketBuffer;
+import jsettlers.network.infrastructure.channel.buffer.PacketBufferPool;
+import jsettlers.network.infrastructure.channel.buffer.PacketInputBuffer;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
 import jsettlers.network.infrastructure.channel.ping.IRoundTripTimeSupplier;
@@ -34,13 +36,17 @@ import jsettlers.network.infrastructure.log.SwitchableLogger;
 public class Channel implements Runnable, IRoundTripTimeSupplier {
 	private final Thread thread;
 
-	private final SwitchableLogger logger;
+	protected final SwitchableLogger logger;
 	private final ISocket socket;
 	private final DataOutputStream outStream;
 	private final DataInputStream inStream;
 
-	private final ByteArrayOutputStream byteBufferOutStream = new ByteArrayOutputStream();
-	private final DataOutputStream bufferDataOutStream = new DataOutputStream(byteBufferOutStream);
+	private final PacketInputBuffer inputBuffer = new PacketInputBuffer();
+
+	private final AtomicLong sentBytes = new AtomicLong();
+	private final AtomicLong sentPackets = new AtomicLong();
+	private final AtomicLong receivedBytes = new AtomicLong();
+	private final AtomicLong receivedPackets = new AtomicLong();
 
 	private final HashMap<ENetworkKey, IChannelListener> listenerRegistry = new HashMap<ENetworkKey, IChannelListener>();
 
@@ -78,6 +84,24 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		thread = new Thread(this, "ChannelForSocket_" + socket);
 	}
 
+	/**
+	 * Creates a channel that's not based on the streams of an {@link ISocket}. Subclasses using this constructor need to implement the sending, the
+	 * receiving and the closing and hand incoming messages to {@link #dispatchPacket(ENetworkKey, int, DataInputStream)}.
+	 * 
+	 * @param logger
+	 *            The logger of the channel.
+	 */
+	protected Channel(Logger logger) {
+		this.logger = new SwitchableLogger(logger);
+		this.socket = null;
+		this.outStream = null;
+		this.inStream = null;
+		this.thread = null;
+
+		pingPacketListener = new PingPacketListener(this.logger, this);
+		registerListener(pingPacketListener);
+	}
+
 	/**
 	 * Starts the message receiving of this {@link Channel}.
 	 * <p />
@@ -93,29 +117,42 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		thread.start();
 	}
 
-	public synchronized void sendPacket(ENetworkKey key, Packet packet) {
-		if (socket.isClosed())
+	public void sendPacket(ENetworkKey key, Packet packet) {
+		if (isClosed())
 			return;
 
+		PacketBuffer frame;
 		try {
-			sendPacketData(key, packet);
+			frame = PacketBufferPool.DEFAULT.serialize(key, packet);
 		} catch (IOException e) {
+			return;
 		}
-	}
-
-	private void sendPacketData(ENetworkKey key, Packet packet) throws IOException {
-		bufferDataOutStream.flush();
-		byteBufferOutStream.reset();
 
-		packet.serialize(bufferDataOutStream); // write packet to buffer to calculate length
-		bufferDataOutStream.flush();
-		final int length = byteBufferOutStream.size();
+		try {
+			sendPacket(frame);
+		} finally {
+			frame.release();
+		}
+	}
 
-		key.writeTo(outStream); // write key, length and the data
-		outStream.writeInt(length);
-		byteBufferOutStream.writeTo(outStream);
+	/**
+	 * Sends an already serialized packet. This allows to serialize a packet once and send it to many channels.
+	 * <p />
+	 * NOTE: The reference of the caller is not taken over. If the buffer is needed after this call returns, the channel retains it.
+	 * 
+	 * @param frame
+	 *            The frame of the packet.
+	 */
+	public synchronized void sendPacket(PacketBuffer frame) {
+		if (socket.isClosed())
+			return;
 
-		outStream.flush();
+		try {
+			frame.writeTo(outStream);
+			outStream.flush();
+			countSentPacket(frame.getLength());
+		} catch (IOException e) {
+		}
 	}
 
 	/**
@@ -142,27 +179,8 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 				ENetworkKey key = ENetworkKey.readFrom(inStream);
 				int length = inStream.readInt();
 
-				DataInputStream bufferIn = readBytesToBuffer(inStream, length);
-
-				IChannelListener listener = listenerRegistry.get(key);
-
-				if (listener != null) {
-					try {
-						listener.receive(key, length, bufferIn);
-						if (bufferIn.available() > 0) {
-							logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
-						}
-					} catch (Exception e) { // ignore exceptions thrown in receive
-						e.printStackTrace();
-					}
-				} else {
-					logger.warn("NO LISTENER FOUND for key: " + key + "   (" + socket + ")");
-
-					if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
-						sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
-								new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
-					}
-				}
+				DataInputStream bufferIn = inputBuffer.readFrom(inStream, length);
+				dispatchPacket(key, length, bufferIn);
 
 			} catch (Exception e) {
 				try {
@@ -174,26 +192,65 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 
 		close(); // release the resources
 
-		if (channelClosedListener != null) {
-			channelClosedListener.channelClosed();
-		}
+		notifyChannelClosed();
 		logger.info("Channel listener shut down: " + socket);
 	}
 
-	private DataInputStream readBytesToBuffer(DataInputStream inStream, int length) throws IOException {
-		byte[] data = new byte[length];
+	/**
+	 * Hands the given received message to the registered listener.
+	 * 
+	 * @param key
+	 *            The key of the message.
+	 * @param length
+	 *            Number of bytes of the message.
+	 * @param bufferIn
+	 *            The stream supplying the data of the message.
+	 * @throws IOException
+	 */
+	protected final void dispatchPacket(ENetworkKey key, int length, DataInputStream bufferIn) throws IOException {
+		receivedPackets.incrementAndGet();
+		receivedBytes.addAndGet(PacketBuffer.HEADER_LENGTH + length);
+
+		IChannelListener listener = listenerRegistry.get(key);
 
-		int alreadyRead = 0;
-		while (length - alreadyRead > 0) {
-			int numberOfBytesRead = inStream.read(data, alreadyRead, length - alreadyRead);
-			if (numberOfBytesRead < 0) {
-				throw new IOException("Stream ended to early!");
+		if (listener != null) {
+			try {
+				listener.receive(key, length, bufferIn);
+				if (bufferIn.available() > 0) {
+					logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
+				}
+			} catch (Exception e) { // ignore exceptions thrown in receive
+				e.printStackTrace();
 			}
+		} else {
+			logger.warn("NO LISTENER FOUND for key: " + key + "   (" + this + ")");
 
-			alreadyRead += numberOfBytesRead;
+			if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
+				sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
+						new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
+			}
 		}
+	}
 
-		return new DataInputStream(new ByteArrayInputStream(data));
+	/**
+	 * Informs the {@link IChannelClosedListener} that this channel has been shut down.
+	 */
+	protected final void notifyChannelClosed() {
+		IChannelClosedListener listener = channelClosedListener;
+		if (listener != null) {
+			listener.channelClosed();
+		}
+	}
+
+	/**
+	 * Counts a packet written to the network.
+	 * 
+	 * @param frameLength
+	 *            Number of bytes of the packet including its header.
+	 */
+	protected final void countSentPacket(int frameLength) {
+		sentPackets.incrementAndGet();
+		sentBytes.addAndGet(frameLength);
 	}
 
 	/**
@@ -261,7 +318,34 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		return started;
 	}
 
+	/**
+	 * @return Number of bytes sent by this channel, including the packet headers.
+	 */
+	public long getSentBytes() {
+		return sentBytes.get();
+	}
+
+	public long getSentPackets() {
+		return sentPackets.get();
+	}
+
+	/**
+	 * @return Number of bytes received by this channel, including the packet headers.
+	 */
+	public long getReceivedBytes() {
+		return receivedBytes.get();
+	}
+
+	public long getReceivedPackets() {
+		return receivedPackets.get();
+	}
+
 	public void setLogger(Logger newLogger) {
 		this.logger.setLogger(newLogger);
 	}
+
+	@Override
+	public String toString() {
+		return String.valueOf(socket);
+	}
 }
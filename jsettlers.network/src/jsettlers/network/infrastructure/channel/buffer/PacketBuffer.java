@@ -0,0 +1,130 @@
+package jsettlers.network.infrastructure.channel.buffer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.packet.Packet;
+
+/**
+ * A reference counted buffer containing a framed packet (key, length and data) ready to be written to a channel. The buffer is acquired from a
+ * {@link PacketBufferPool} with a reference count of one. Everybody keeping the buffer beyond the call it was handed to needs to {@link #retain()}
+ * it. When the last reference has been {@link #release()}d, the buffer returns to its pool.
+ */
+public final class PacketBuffer {
+	public static final int HEADER_LENGTH = 5; // key and length
+
+	private final PacketBufferPool pool;
+	private final AtomicInteger references = new AtomicInteger();
+	private final DataOutputStream dataOut;
+
+	private byte[] data;
+	private int length;
+
+	PacketBuffer(PacketBufferPool pool, int initialCapacity) {
+		this.pool = pool;
+		this.data = new byte[initialCapacity];
+		this.dataOut = new DataOutputStream(new AppendingOutputStream());
+	}
+
+	/**
+	 * Clears this buffer and writes the frame of the given packet to it.
+	 */
+	void writeFrame(ENetworkKey key, Packet packet) throws IOException {
+		length = 0;
+		key.writeTo(dataOut);
+		dataOut.writeInt(0); // placeholder for the length
+		packet.serialize(dataOut);
+		dataOut.flush();
+
+		int packetLength = length - HEADER_LENGTH;
+		data[1] = (byte) (packetLength >>> 24);
+		data[2] = (byte) (packetLength >>> 16);
+		data[3] = (byte) (packetLength >>> 8);
+		data[4] = (byte) packetLength;
+	}
+
+	void setReferences(int references) {
+		this.references.set(references);
+	}
+
+	/**
+	 * Adds a reference to this buffer.
+	 *
+	 * @return this buffer
+	 */
+	public PacketBuffer retain() {
+		if (references.getAndIncrement() <= 0) {
+			throw new IllegalStateException("PacketBuffer has already been released.");
+		}
+		return this;
+	}
+
+	/**
+	 * Removes a reference from this buffer. After the last reference has been removed, the buffer returns to its pool and must not be used
+	 * anymore.
+	 */
+	public void release() {
+		int remaining = references.decrementAndGet();
+		if (remaining == 0) {
+			pool.release(this);
+		} else if (remaining < 0) {
+			throw new IllegalStateException("PacketBuffer has been released too often.");
+		}
+	}
+
+	/**
+	 * Writes the frame to the given stream without copying it.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(data, 0, length);
+	}
+
+	/**
+	 * @return The backing array. Only the first {@link #getLength()} bytes are valid.
+	 */
+	public byte[] getData() {
+		return data;
+	}
+
+	/**
+	 * @return Number of bytes of the frame, including the header.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	int getCapacity() {
+		return data.length;
+	}
+
+	/**
+	 * {@link OutputStream} appending to the array of the {@link PacketBuffer}.
+	 */
+	private final class AppendingOutputStream extends OutputStream {
+		@Override
+		public void write(int b) {
+			ensureCapacity(length + 1);
+			data[length++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			ensureCapacity(length + len);
+			System.arraycopy(b, off, data, length, len);
+			length += len;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity > data.length) {
+				data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+			}
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package jsettlers.network.infrastructure.channel.buffer;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.packet.Packet;
+
+/**
+ * A pool of {@link PacketBuffer}s used to serialize packets without creating new arrays for every packet.
+ */
+public final class PacketBufferPool {
+	public static final PacketBufferPool DEFAULT = new PacketBufferPool(512, 64 * 1024, 256);
+
+	private final int initialCapacity;
+	private final int maxPooledCapacity;
+	private final int maxPooledBuffers;
+
+	private final ConcurrentLinkedQueue<PacketBuffer> pool = new ConcurrentLinkedQueue<PacketBuffer>();
+	private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+	/**
+	 * Creates a new pool.
+	 *
+	 * @param initialCapacity
+	 *            Capacity of newly created buffers. The buffers grow if needed.
+	 * @param maxPooledCapacity
+	 *            Buffers that have grown bigger than this are not kept by the pool.
+	 * @param maxPooledBuffers
+	 *            Maximum number of unused buffers kept by the pool.
+	 */
+	public PacketBufferPool(int initialCapacity, int maxPooledCapacity, int maxPooledBuffers) {
+		this.initialCapacity = initialCapacity;
+		this.maxPooledCapacity = maxPooledCapacity;
+		this.maxPooledBuffers = maxPooledBuffers;
+	}
+
+	/**
+	 * Serializes the given packet into a buffer of this pool.
+	 *
+	 * @param key
+	 *            The key of the packet.
+	 * @param packet
+	 *            The packet to be serialized.
+	 * @return A {@link PacketBuffer} containing the frame of the packet. It has a reference count of one and needs to be released by the caller.
+	 * @throws IOException
+	 *             If the serialization of the packet failed.
+	 */
+	public PacketBuffer serialize(ENetworkKey key, Packet packet) throws IOException {
+		PacketBuffer buffer = pool.poll();
+		if (buffer == null) {
+			buffer = new PacketBuffer(this, initialCapacity);
+		} else {
+			pooledBuffers.decrementAndGet();
+		}
+		buffer.setReferences(1);
+
+		boolean serialized = false;
+		try {
+			buffer.writeFrame(key, packet);
+			serialized = true;
+			return buffer;
+		} finally {
+			if (!serialized) {
+				buffer.release();
+			}
+		}
+	}
+
+	void release(PacketBuffer buffer) {
+		if (buffer.getCapacity() > maxPooledCapacity) {
+			return; // don't keep huge buffers
+		}
+
+		if (pooledBuffers.incrementAndGet() <= maxPooledBuffers) {
+			pool.offer(buffer);
+		} else {
+			pooledBuffers.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return Number of unused buffers currently kept by the pool.
+	 */
+	public int getPooledBuffers() {
+		return pooledBuffers.get();
+	}
+}
@@ -0,0 +1,96 @@
+package jsettlers.network.infrastructure.channel.buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable buffer for received packets. The returned {@link DataInputStream} is only valid until the next packet is read into this buffer,
+ * therefore a packet needs to be deserialized before the next one is received.
+ * <p />
+ * NOTE: This class is not thread safe. Every receiving thread needs its own instance.
+ */
+public final class PacketInputBuffer {
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int MAX_KEPT_CAPACITY = 1024 * 1024;
+
+	private final ResettableByteArrayInputStream arrayIn = new ResettableByteArrayInputStream();
+	private final DataInputStream dataIn = new DataInputStream(arrayIn);
+
+	private byte[] data = new byte[INITIAL_CAPACITY];
+
+	/**
+	 * Reads the given number of bytes from the stream into this buffer.
+	 *
+	 * @param in
+	 *            The stream to read from.
+	 * @param length
+	 *            The number of bytes to read.
+	 * @return A stream supplying the read bytes.
+	 * @throws IOException
+	 *             If an I/O error occurs or the stream ended too early.
+	 */
+	public DataInputStream readFrom(InputStream in, int length) throws IOException {
+		byte[] array = getArray(length);
+
+		int alreadyRead = 0;
+		while (length - alreadyRead > 0) {
+			int numberOfBytesRead = in.read(array, alreadyRead, length - alreadyRead);
+			if (numberOfBytesRead < 0) {
+				throw new IOException("Stream ended to early!");
+			}
+
+			alreadyRead += numberOfBytesRead;
+		}
+
+		return reset(array, length);
+	}
+
+	/**
+	 * Copies the given number of bytes from the buffer into this buffer.
+	 *
+	 * @param buffer
+	 *            The buffer to read from. It must contain at least length remaining bytes.
+	 * @param length
+	 *            The number of bytes to read.
+	 * @return A stream supplying the read bytes.
+	 */
+	public DataInputStream readFrom(ByteBuffer buffer, int length) {
+		byte[] array = getArray(length);
+		buffer.get(array, 0, length);
+		return reset(array, length);
+	}
+
+	private byte[] getArray(int length) {
+		if (length > MAX_KEPT_CAPACITY) {
+			return new byte[length]; // don't keep huge arrays
+		}
+		if (length > data.length) {
+			data = new byte[Math.max(length, data.length * 2)];
+		}
+		return data;
+	}
+
+	private DataInputStream reset(byte[] array, int length) {
+		arrayIn.reset(array, length);
+		return dataIn;
+	}
+
+	/**
+	 * {@link ByteArrayInputStream} that can be reused for new data.
+	 */
+	private static final class ResettableByteArrayInputStream extends ByteArrayInputStream {
+		ResettableByteArrayInputStream() {
+			super(new byte[0]);
+		}
+
+		void reset(byte[] data, int length) {
+			this.buf = data;
+			this.pos = 0;
+			this.mark = 0;
+			this.count = length;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct {@link ByteBuffer}s of a fixed size. Direct buffers are expensive to allocate, therefore they are reused.
+ */
+public final class ByteBufferPool {
+	private final int bufferSize;
+	private final int maxPooledBuffers;
+
+	private final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<ByteBuffer>();
+	private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+	/**
+	 * Creates a new pool.
+	 *
+	 * @param bufferSize
+	 *            Capacity of the buffers in bytes.
+	 * @param maxPooledBuffers
+	 *            Maximum number of unused buffers kept by the pool.
+	 */
+	public ByteBufferPool(int bufferSize, int maxPooledBuffers) {
+		this.bufferSize = bufferSize;
+		this.maxPooledBuffers = maxPooledBuffers;
+	}
+
+	/**
+	 * @return A cleared buffer of {@link #getBufferSize()} bytes.
+	 */
+	public ByteBuffer acquire() {
+		ByteBuffer buffer = pool.poll();
+		if (buffer == null) {
+			return ByteBuffer.allocateDirect(bufferSize);
+		} else {
+			pooledBuffers.decrementAndGet();
+			buffer.clear();
+			return buffer;
+		}
+	}
+
+	/**
+	 * Returns the given buffer to the pool. The buffer must not be used after this call.
+	 *
+	 * @param buffer
+	 *            A buffer acquired from this pool.
+	 */
+	public void release(ByteBuffer buffer) {
+		if (buffer.capacity() != bufferSize || !buffer.isDirect()) {
+			return; // not a buffer of this pool
+		}
+
+		if (pooledBuffers.incrementAndGet() <= maxPooledBuffers) {
+			pool.offer(buffer);
+		} else {
+			pooledBuffers.decrementAndGet();
+		}
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * @return Number of unused buffers currently kept by the pool.
+	 */
+	public int getPooledBuffers() {
+		return pooledBuffers.get();
+	}
+}
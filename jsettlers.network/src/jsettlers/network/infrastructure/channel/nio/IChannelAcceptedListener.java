@@ -0,0 +1,18 @@
+package jsettlers.network.infrastructure.channel.nio;
+
+import jsettlers.network.infrastructure.channel.Channel;
+
+/**
+ * Listener informed by the {@link NioServer} about newly accepted connections.
+ */
+public interface IChannelAcceptedListener {
+
+	/**
+	 * Called for every accepted connection. The listener needs to register its {@link jsettlers.network.infrastructure.channel.IChannelListener}s
+	 * and start the channel.
+	 * 
+	 * @param channel
+	 *            The channel of the new connection.
+	 */
+	void channelAccepted(Channel channel);
+}
@@ -0,0 +1,333 @@
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.buffer.PacketBuffer;
+import jsettlers.network.infrastructure.channel.buffer.PacketInputBuffer;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * A {@link Channel} using a non blocking {@link SocketChannel}. Instead of an own thread per channel, the reading and writing is done by a
+ * {@link NioSelectorThread} serving many channels. The wire format is the same as the one of the {@link Channel}: key, length and data of the
+ * packet.
+ * <p />
+ * Packets are framed into pooled direct buffers and written without blocking the sender. If the partner doesn't read fast enough and more than
+ * {@link #MAX_QUEUED_BYTES} are waiting to be written, the channel is closed.
+ */
+public class NioChannel extends Channel {
+	public static final int MAX_QUEUED_BYTES = 4 * 1024 * 1024;
+	public static final int MAX_PACKET_LENGTH = 16 * 1024 * 1024;
+	private static final int HEADER_LENGTH = PacketBuffer.HEADER_LENGTH;
+
+	private final SocketChannel socketChannel;
+	private final NioSelectorThread selectorThread;
+	private final ByteBufferPool bufferPool;
+	private final String name;
+
+	private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<ByteBuffer>();
+	private int queuedBytes = 0;
+	private SelectionKey selectionKey;
+
+	private ByteBuffer readBuffer; // only accessed by the selector thread
+	private final PacketInputBuffer inputBuffer = new PacketInputBuffer(); // only accessed by the selector thread
+
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+	private volatile boolean started = false;
+
+	/**
+	 * Creates a new channel for the given connected socket channel.
+	 *
+	 * @param logger
+	 *            The logger of the channel.
+	 * @param socketChannel
+	 *            A connected {@link SocketChannel}. It will be switched to non blocking mode.
+	 * @param selectorThread
+	 *            The thread serving this channel.
+	 * @param bufferPool
+	 *            The pool to get the buffers for reading and writing from.
+	 * @throws IOException
+	 */
+	public NioChannel(Logger logger, SocketChannel socketChannel, NioSelectorThread selectorThread, ByteBufferPool bufferPool) throws IOException {
+		super(logger);
+		this.socketChannel = socketChannel;
+		this.selectorThread = selectorThread;
+		this.bufferPool = bufferPool;
+		this.name = "NioChannel(" + socketChannel.socket() + ")";
+
+		socketChannel.configureBlocking(false);
+		socketChannel.socket().setTcpNoDelay(true);
+	}
+
+	/**
+	 * Connects to the given address and creates a {@link NioChannel} for the connection.
+	 *
+	 * @param host
+	 * @param port
+	 * @param selectorThread
+	 *            The thread serving the channel.
+	 * @param bufferPool
+	 *            The pool to get the buffers for reading and writing from.
+	 * @return The created channel. The channel needs to be started.
+	 * @throws IOException
+	 */
+	public static NioChannel connect(String host, int port, NioSelectorThread selectorThread, ByteBufferPool bufferPool) throws IOException {
+		SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress(host, port));
+		return new NioChannel(new ConsoleLogger(host + ":" + port), socketChannel, selectorThread, bufferPool);
+	}
+
+	/**
+	 * Starts the message receiving of this {@link NioChannel} by registering it at its {@link NioSelectorThread}.
+	 * <p />
+	 * NOTE: This method may only be called once!
+	 */
+	@Override
+	public void start() {
+		if (started) {
+			throw new IllegalStateException("NioChannel has already been started.");
+		}
+		started = true;
+
+		selectorThread.execute(new Runnable() {
+			@Override
+			public void run() {
+				register();
+			}
+		});
+	}
+
+	private void register() {
+		if (isClosed()) {
+			notifyChannelClosed();
+			return;
+		}
+
+		readBuffer = bufferPool.acquire();
+		synchronized (writeQueue) {
+			try {
+				selectionKey = socketChannel.register(selectorThread.getSelector(), getInterestOps(), this);
+			} catch (ClosedChannelException e) {
+				close();
+			}
+		}
+	}
+
+	private int getInterestOps() {
+		return writeQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+	}
+
+	@Override
+	public synchronized void sendPacket(PacketBuffer frame) {
+		if (isClosed()) {
+			return;
+		}
+
+		try {
+			enqueue(frame.getData(), frame.getLength());
+		} catch (IOException e) {
+			close();
+		} catch (CancelledKeyException e) { // the channel has been closed concurrently
+			close();
+		}
+	}
+
+	/**
+	 * Copies the given frame into pooled buffers and appends them to the write queue.
+	 */
+	private void enqueue(byte[] data, int length) throws IOException {
+		ArrayList<ByteBuffer> frame = new ArrayList<ByteBuffer>(1 + length / bufferPool.getBufferSize());
+		ByteBuffer buffer = bufferPool.acquire();
+
+		int offset = 0;
+		while (offset < length) {
+			if (!buffer.hasRemaining()) {
+				buffer.flip();
+				frame.add(buffer);
+				buffer = bufferPool.acquire();
+			}
+			int chunk = Math.min(buffer.remaining(), length - offset);
+			buffer.put(data, offset, chunk);
+			offset += chunk;
+		}
+		buffer.flip();
+		frame.add(buffer);
+
+		boolean overflow;
+		synchronized (writeQueue) {
+			overflow = queuedBytes + length > MAX_QUEUED_BYTES;
+			if (!overflow) {
+				writeQueue.addAll(frame);
+				queuedBytes += length;
+				writeQueued();
+			}
+		}
+
+		if (overflow) {
+			for (ByteBuffer curr : frame) {
+				bufferPool.release(curr);
+			}
+			logger.warn("Closing " + name + " because the partner doesn't read fast enough. Queued bytes: " + queuedBytes);
+			close();
+		} else {
+			countSentPacket(length);
+		}
+	}
+
+	/**
+	 * Writes as much of the write queue as possible without blocking and updates the interest of the selector.
+	 * <p />
+	 * NOTE: The lock on the write queue must be held.
+	 */
+	private void writeQueued() throws IOException {
+		while (!writeQueue.isEmpty()) {
+			ByteBuffer buffer = writeQueue.peek();
+			queuedBytes -= socketChannel.write(buffer);
+			if (buffer.hasRemaining()) {
+				break; // the socket's buffer is full
+			}
+			writeQueue.poll();
+			bufferPool.release(buffer);
+		}
+
+		if (selectionKey != null && selectionKey.isValid()) {
+			int interestOps = getInterestOps();
+			if (selectionKey.interestOps() != interestOps) {
+				selectionKey.interestOps(interestOps);
+				selectorThread.wakeup();
+			}
+		}
+	}
+
+	/**
+	 * Called by the selector thread when the socket can be written.
+	 */
+	void handleWrite() throws IOException {
+		synchronized (writeQueue) {
+			writeQueued();
+		}
+	}
+
+	/**
+	 * Called by the selector thread when data can be read from the socket.
+	 */
+	void handleRead() throws IOException {
+		if (socketChannel.read(readBuffer) < 0) {
+			close();
+			return;
+		}
+
+		readBuffer.flip();
+		int requiredCapacity = dispatchCompletePackets();
+		readBuffer.compact();
+
+		int poolBufferSize = bufferPool.getBufferSize();
+		if (requiredCapacity > readBuffer.capacity()) { // a packet that doesn't fit into a pooled buffer
+			ByteBuffer largeBuffer = ByteBuffer.allocate(requiredCapacity);
+			readBuffer.flip();
+			largeBuffer.put(readBuffer);
+			bufferPool.release(readBuffer);
+			readBuffer = largeBuffer;
+		} else if (readBuffer.capacity() > poolBufferSize && requiredCapacity <= poolBufferSize && readBuffer.position() <= poolBufferSize) {
+			ByteBuffer pooledBuffer = bufferPool.acquire();
+			readBuffer.flip();
+			pooledBuffer.put(readBuffer);
+			readBuffer = pooledBuffer;
+		}
+	}
+
+	/**
+	 * Dispatches all complete packets in the read buffer.
+	 *
+	 * @return The number of bytes needed for the next packet.
+	 */
+	private int dispatchCompletePackets() throws IOException {
+		while (readBuffer.remaining() >= HEADER_LENGTH && !isClosed()) {
+			int start = readBuffer.position();
+			int length = readBuffer.getInt(start + 1);
+			if (length < 0 || length > MAX_PACKET_LENGTH) {
+				throw new IOException("Invalid packet length: " + length);
+			}
+
+			int packetLength = HEADER_LENGTH + length;
+			if (readBuffer.remaining() < packetLength) {
+				return packetLength;
+			}
+
+			ENetworkKey key = ENetworkKey.fromByte(readBuffer.get());
+			readBuffer.getInt();
+			DataInputStream bufferIn = inputBuffer.readFrom(readBuffer, length);
+			dispatchPacket(key, length, bufferIn);
+		}
+		return HEADER_LENGTH;
+	}
+
+	@Override
+	public void close() {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			socketChannel.close();
+		} catch (IOException e) {
+		}
+
+		synchronized (writeQueue) {
+			for (ByteBuffer buffer : writeQueue) {
+				bufferPool.release(buffer);
+			}
+			writeQueue.clear();
+			queuedBytes = 0;
+		}
+
+		if (started) {
+			selectorThread.execute(new Runnable() {
+				@Override
+				public void run() {
+					if (readBuffer != null) {
+						bufferPool.release(readBuffer);
+						readBuffer = null;
+					}
+					notifyChannelClosed();
+					logger.info("Channel shut down: " + name);
+				}
+			});
+		}
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed.get();
+	}
+
+	@Override
+	public boolean isStarted() {
+		return started;
+	}
+
+	/**
+	 * @return Number of bytes waiting to be written to the socket.
+	 */
+	public int getQueuedBytes() {
+		synchronized (writeQueue) {
+			return queuedBytes;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
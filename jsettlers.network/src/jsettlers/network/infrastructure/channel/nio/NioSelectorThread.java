@@ -0,0 +1,122 @@
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread serving the reading and writing of many {@link NioChannel}s with a single {@link Selector}.
+ */
+public final class NioSelectorThread extends Thread {
+	private final Selector selector;
+	private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+	private volatile boolean canceled = false;
+
+	public NioSelectorThread(String name) throws IOException {
+		super(name);
+		this.selector = Selector.open();
+		super.setDaemon(true);
+	}
+
+	@Override
+	public void run() {
+		while (!canceled) {
+			try {
+				selector.select();
+				runTasks();
+
+				Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+				while (iterator.hasNext()) {
+					SelectionKey key = iterator.next();
+					iterator.remove();
+					handleKey(key);
+				}
+			} catch (Throwable t) {
+				System.err.println("NioSelectorThread catched: ");
+				t.printStackTrace();
+			}
+		}
+
+		for (SelectionKey key : selector.keys()) {
+			((NioChannel) key.attachment()).close();
+		}
+		runTasks();
+		try {
+			selector.close();
+		} catch (IOException e) {
+		}
+	}
+
+	private void handleKey(SelectionKey key) {
+		NioChannel channel = (NioChannel) key.attachment();
+		try {
+			if (key.isValid() && key.isReadable()) {
+				channel.handleRead();
+			}
+			if (key.isValid() && key.isWritable()) {
+				channel.handleWrite();
+			}
+		} catch (IOException e) {
+			channel.close();
+		} catch (CancelledKeyException e) { // the channel has been closed concurrently
+			channel.close();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			channel.close();
+		}
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			} catch (Throwable t) {
+				System.err.println("NioSelectorThread task failed: ");
+				t.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Executes the given task in this thread. Registrations to the selector need to be done by this thread.
+	 *
+	 * @param task
+	 */
+	void execute(Runnable task) {
+		tasks.offer(task);
+		selector.wakeup();
+	}
+
+	Selector getSelector() {
+		return selector;
+	}
+
+	/**
+	 * Wakes up the selector, so that changed interest operations are applied.
+	 */
+	void wakeup() {
+		if (Thread.currentThread() != this) {
+			selector.wakeup();
+		}
+	}
+
+	/**
+	 * @return Number of channels served by this thread.
+	 */
+	public int getNumberOfChannels() {
+		return selector.keys().size();
+	}
+
+	/**
+	 * Stops this thread and closes all its channels.
+	 */
+	public void shutdown() {
+		canceled = true;
+		selector.wakeup();
+	}
+}
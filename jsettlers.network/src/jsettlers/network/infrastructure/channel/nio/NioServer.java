@@ -0,0 +1,128 @@
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * A server accepting connections on a {@link ServerSocketChannel} and creating a {@link NioChannel} for every connection. The channels are
+ * distributed over a small pool of {@link NioSelectorThread}s, so the number of threads doesn't grow with the number of clients.
+ * <p />
+ * The accepting is done by the thread calling {@link #run()}.
+ */
+public class NioServer implements Runnable {
+	private static final int BUFFER_SIZE = 16 * 1024;
+	private static final int MAX_POOLED_BUFFERS = 1024;
+
+	private final Logger logger;
+	private final ServerSocketChannel serverChannel;
+	private final NioSelectorThread[] selectorThreads;
+	private final ByteBufferPool bufferPool;
+	private final IChannelAcceptedListener acceptedListener;
+
+	private int nextSelectorThread = 0;
+	private long acceptedChannels = 0;
+	private volatile boolean canceled = false;
+
+	/**
+	 * Creates a new server listening on the given port.
+	 *
+	 * @param logger
+	 *            The logger used for the server and its channels.
+	 * @param port
+	 *            The port to listen on or 0 to use any free port.
+	 * @param numberOfSelectorThreads
+	 *            The number of threads serving the channels.
+	 * @param acceptedListener
+	 *            The listener informed about new channels.
+	 * @throws IOException
+	 */
+	public NioServer(Logger logger, int port, int numberOfSelectorThreads, IChannelAcceptedListener acceptedListener) throws IOException {
+		this.logger = logger;
+		this.acceptedListener = acceptedListener;
+		this.bufferPool = new ByteBufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.socket().setReuseAddress(true);
+		this.serverChannel.socket().bind(new InetSocketAddress(port));
+
+		this.selectorThreads = new NioSelectorThread[numberOfSelectorThreads];
+		for (int i = 0; i < numberOfSelectorThreads; i++) {
+			selectorThreads[i] = new NioSelectorThread("NioSelectorThread_" + i);
+		}
+	}
+
+	/**
+	 * Starts the selector threads. Accepting is started by {@link #run()}.
+	 */
+	public void startSelectorThreads() {
+		for (NioSelectorThread selectorThread : selectorThreads) {
+			selectorThread.start();
+		}
+	}
+
+	@Override
+	public void run() {
+		while (!canceled) {
+			try {
+				SocketChannel socketChannel = serverChannel.accept();
+
+				NioChannel channel = new NioChannel(logger, socketChannel, getNextSelectorThread(), bufferPool);
+				acceptedListener.channelAccepted(channel);
+
+				logger.log("accepted new client (" + ++acceptedChannels + "): " + channel);
+			} catch (ClosedChannelException e) {
+				break; // the server has been shut down
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private NioSelectorThread getNextSelectorThread() {
+		NioSelectorThread selectorThread = selectorThreads[nextSelectorThread];
+		nextSelectorThread = (nextSelectorThread + 1) % selectorThreads.length;
+		return selectorThread;
+	}
+
+	/**
+	 * Stops accepting new connections and closes all channels.
+	 */
+	public void shutdown() {
+		canceled = true;
+		try {
+			serverChannel.close();
+		} catch (IOException e) {
+		}
+
+		for (NioSelectorThread selectorThread : selectorThreads) {
+			selectorThread.shutdown();
+		}
+	}
+
+	/**
+	 * @return The port the server is listening on.
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * @return Number of currently open channels.
+	 */
+	public int getNumberOfChannels() {
+		int channels = 0;
+		for (NioSelectorThread selectorThread : selectorThreads) {
+			channels += selectorThread.getNumberOfChannels();
+		}
+		return channels;
+	}
+
+	public ByteBufferPool getBufferPool() {
+		return bufferPool;
+	}
+}
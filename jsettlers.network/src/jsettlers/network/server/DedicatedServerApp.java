@@ -15,7 +15,7 @@ import jsettlers.network.server.match.Match;
 public class DedicatedServerApp {
 
 	public static void main(String args[]) throws IOException {
-		GameServerThread gameServer = new GameServerThread(false);
+		GameServerThread gameServer = new GameServerThread(false, true);
 		gameServer.start();
 
 		Scanner s = new Scanner(System.in);
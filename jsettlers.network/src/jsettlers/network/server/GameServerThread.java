@@ -7,6 +7,8 @@ import java.net.SocketException;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.nio.IChannelAcceptedListener;
+import jsettlers.network.infrastructure.channel.nio.NioServer;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
@@ -25,6 +27,7 @@ public class GameServerThread extends Thread {
 	private static final Logger LOGGER = LoggerManager.ROOT_LOGGER;
 
 	private final ServerSocket serverSocket;
+	private final NioServer nioServer;
 	private final ServerManager manager;
 	private final LanServerBroadcastThread lanBroadcastThread;
 
@@ -32,9 +35,35 @@ public class GameServerThread extends Thread {
 	private boolean canceled = false;
 
 	public GameServerThread(boolean lan) throws IOException {
+		this(lan, false);
+	}
+
+	/**
+	 * Creates a new server.
+	 * 
+	 * @param lan
+	 *            If true, the server's address is broadcasted in the LAN.
+	 * @param nonBlocking
+	 *            If true, the clients are served by a small pool of {@link NioServer} threads instead of a thread per client.
+	 * @throws IOException
+	 */
+	public GameServerThread(boolean lan, boolean nonBlocking) throws IOException {
 		super("GameServer");
-		this.serverSocket = new ServerSocket(NetworkConstants.Server.SERVER_PORT);
 		this.manager = new ServerManager(new InMemoryDB());
+		if (nonBlocking) {
+			this.serverSocket = null;
+			this.nioServer = new NioServer(LOGGER, NetworkConstants.Server.SERVER_PORT, NetworkConstants.Server.NIO_SELECTOR_THREADS,
+					new IChannelAcceptedListener() {
+						@Override
+						public void channelAccepted(Channel channel) {
+							manager.identifyNewChannel(channel);
+							channel.start();
+						}
+					});
+		} else {
+			this.serverSocket = new ServerSocket(NetworkConstants.Server.SERVER_PORT);
+			this.nioServer = null;
+		}
 
 		this.setDaemon(true);
 
@@ -50,6 +79,11 @@ public class GameServerThread extends Thread {
 	public void run() {
 		LOGGER.log("Server up and running!\n");
 		System.out.println("Server up and running!");
+		if (nioServer != null) {
+			nioServer.run();
+			return;
+		}
+
 		while (!canceled) {
 			try {
 				Socket clientSocket = serverSocket.accept();
@@ -100,15 +134,22 @@ public class GameServerThread extends Thread {
 
 	@Override
 	public synchronized void start() {
+		if (nioServer != null) {
+			nioServer.startSelectorThreads();
+		}
 		super.start();
 		manager.start();
 	}
 
 	public synchronized void shutdown() {
 		canceled = true;
-		try {
-			serverSocket.close();
-		} catch (IOException e) {
+		if (nioServer != null) {
+			nioServer.shutdown();
+		} else {
+			try {
+				serverSocket.close();
+			} catch (IOException e) {
+			}
 		}
 
 		if (lanBroadcastThread != null)
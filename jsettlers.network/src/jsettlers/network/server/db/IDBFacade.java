@@ -39,6 +39,13 @@ public interface IDBFacade {
 
 	List<Match> getJoinableMatches();
 
+	/**
+	 * 
+	 * @return Returns a number that changes every time a {@link Match} is stored or the information of a stored {@link Match} changes. This allows
+	 *         to detect changes of the joinable matches without looking at them.
+	 */
+	long getMatchesVersion();
+
 	List<Match> getJoinableRunningMatches(Player player);
 
 	Match getMatchById(String id);
@@ -1,26 +1,68 @@
 package jsettlers.network.server.db.inMemory;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import jsettlers.network.common.packets.PlayerInfoPacket;
 import jsettlers.network.server.db.IDBFacade;
 import jsettlers.network.server.match.EPlayerState;
+import jsettlers.network.server.match.IMatchListener;
+import jsettlers.network.server.match.IPlayerStateListener;
 import jsettlers.network.server.match.Match;
 import jsettlers.network.server.match.Player;
 
 /**
  * This class implements an in memory database.
- * 
+ * <p />
+ * The players and matches are stored in concurrent maps. Additionally, the database listens to the stored players and matches and keeps indexes
+ * of the players by state, the joinable matches, the running match of every player and the running matches every player left. This way, no query
+ * has to look at all players or matches. Updates of an index entry are guarded by striped locks, so the indexes always end with the latest state.
+ * <p />
+ * The returned lists are snapshots. The iteration over the indexes is weakly consistent: Entries changed while building a list may or may not be
+ * contained, but no entry is contained twice.
+ *
  * @author Andreas Eberle
- * 
+ *
  */
-public class InMemoryDB implements IDBFacade {
+public class InMemoryDB implements IDBFacade, IPlayerStateListener, IMatchListener {
+	private static final int LOCK_STRIPES = 32;
 
-	private HashMap<String, Player> players = new HashMap<String, Player>();
-	private HashMap<String, Match> matches = new HashMap<String, Match>();
+	private final ConcurrentHashMap<String, Player> players = new ConcurrentHashMap<String, Player>();
+	private final ConcurrentHashMap<String, Match> matches = new ConcurrentHashMap<String, Match>();
+
+	private final ConcurrentHashMap<Player, EPlayerState> indexedPlayerStates = new ConcurrentHashMap<Player, EPlayerState>();
+	private final EnumMap<EPlayerState, Set<Player>> playersByState = new EnumMap<EPlayerState, Set<Player>>(EPlayerState.class);
+	private final Set<Match> joinableMatches = newConcurrentSet();
+	private final ConcurrentHashMap<String, Match> runningMatchByPlayerId = new ConcurrentHashMap<String, Match>();
+	private final ConcurrentHashMap<String, Set<Match>> leftMatchesByPlayerId = new ConcurrentHashMap<String, Set<Match>>();
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+	private final AtomicLong matchesVersion = new AtomicLong();
+
+	public InMemoryDB() {
+		for (EPlayerState state : EPlayerState.values()) {
+			playersByState.put(state, InMemoryDB.<Player> newConcurrentSet());
+		}
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	private static <T> Set<T> newConcurrentSet() {
+		return Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>());
+	}
+
+	private Object getLock(String id) {
+		return locks[(id.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+	}
 
 	@Override
 	public boolean isAcceptedPlayer(String id) {
@@ -29,38 +71,76 @@ public class InMemoryDB implements IDBFacade {
 
 	@Override
 	public void storePlayer(Player player) {
-		synchronized (players) {
-			players.put(player.getId(), player);
+		synchronized (getLock(player.getId())) {
+			Player oldPlayer = players.put(player.getId(), player);
+			if (oldPlayer != null && oldPlayer != player) {
+				unindexPlayer(oldPlayer);
+			}
+			player.setStateListener(this);
+			reindexPlayer(player);
 		}
 	}
 
 	@Override
 	public void removePlayer(Player player) {
-		synchronized (players) {
-			players.remove(player.getId());
+		synchronized (getLock(player.getId())) {
+			if (players.remove(player.getId(), player)) {
+				unindexPlayer(player);
+			}
 		}
 	}
 
 	@Override
-	public Match getRunningMatchOf(Player player) {
-		synchronized (matches) {
-			for (Match curr : matches.values()) {
-				if (curr.isRunning() && curr.hasPlayer(player)) {
-					return curr;
-				}
+	public void playerStateChanged(Player player) {
+		synchronized (getLock(player.getId())) {
+			if (players.get(player.getId()) == player) {
+				reindexPlayer(player);
 			}
 		}
+	}
 
-		return null;
+	/**
+	 * Moves the player to the index of its current state. Must be called while holding the lock of the player's id. Because the current state is
+	 * read while holding the lock, the index is correct after the last notification, even if notifications of the same player race.
+	 */
+	private void reindexPlayer(Player player) {
+		EPlayerState currentState = player.getState();
+		EPlayerState indexedState = indexedPlayerStates.put(player, currentState);
+
+		if (indexedState != currentState) {
+			if (indexedState != null) {
+				playersByState.get(indexedState).remove(player);
+			}
+			playersByState.get(currentState).add(player);
+		}
+	}
+
+	private void unindexPlayer(Player player) {
+		player.setStateListener(null);
+		EPlayerState indexedState = indexedPlayerStates.remove(player);
+		if (indexedState != null) {
+			playersByState.get(indexedState).remove(player);
+		}
+	}
+
+	@Override
+	public Match getRunningMatchOf(Player player) {
+		return runningMatchByPlayerId.get(player.getId());
 	}
 
 	@Override
 	public List<Match> getJoinableMatches() {
+		return new LinkedList<Match>(joinableMatches);
+	}
+
+	@Override
+	public List<Match> getJoinableRunningMatches(Player player) {
 		List<Match> result = new LinkedList<Match>();
 
-		synchronized (matches) {
-			for (Match curr : matches.values()) {
-				if (curr.canJoin()) {
+		Set<Match> leftMatches = leftMatchesByPlayerId.get(player.getId());
+		if (leftMatches != null) {
+			for (Match curr : leftMatches) {
+				if (curr.isRunning()) {
 					result.add(curr);
 				}
 			}
@@ -70,23 +150,55 @@ public class InMemoryDB implements IDBFacade {
 	}
 
 	@Override
-	public List<Match> getJoinableRunningMatches(Player player) {
-		List<Match> result = new LinkedList<Match>();
+	public void storeMatch(Match match) {
+		matches.put(match.getId(), match);
+		match.setListener(this);
 
-		synchronized (matches) {
-			for (Match curr : matches.values()) {
-				if (curr.isRunning() && curr.hasLeftPlayer(player.getId())) {
-					result.add(curr);
-				}
+		if (match.isRunning()) {
+			for (PlayerInfoPacket playerInfo : match.getPlayerInfos()) {
+				runningMatchByPlayerId.put(playerInfo.getId(), match);
 			}
 		}
+		matchInfoChanged(match);
+	}
 
-		return result;
+	@Override
+	public void matchInfoChanged(Match match) {
+		synchronized (getLock(match.getId())) {
+			if (match.canJoin()) {
+				joinableMatches.add(match);
+			} else {
+				joinableMatches.remove(match);
+			}
+		}
+		matchesVersion.incrementAndGet();
 	}
 
 	@Override
-	public void storeMatch(Match match) {
-		matches.put(match.getId(), match);
+	public void playerInRunningMatch(Match match, Player player) {
+		runningMatchByPlayerId.put(player.getId(), match);
+	}
+
+	@Override
+	public void playerLeft(Match match, Player player, boolean matchRunning) {
+		runningMatchByPlayerId.remove(player.getId(), match);
+
+		if (matchRunning) {
+			Set<Match> leftMatches = leftMatchesByPlayerId.get(player.getId());
+			if (leftMatches == null) {
+				Set<Match> newLeftMatches = newConcurrentSet();
+				leftMatches = leftMatchesByPlayerId.putIfAbsent(player.getId(), newLeftMatches);
+				if (leftMatches == null) {
+					leftMatches = newLeftMatches;
+				}
+			}
+			leftMatches.add(match);
+		}
+	}
+
+	@Override
+	public long getMatchesVersion() {
+		return matchesVersion.get();
 	}
 
 	public int getNumberOfPlayers() {
@@ -108,25 +220,23 @@ public class InMemoryDB implements IDBFacade {
 
 	@Override
 	public List<Player> getPlayers(EPlayerState... allowedStates) {
-		synchronized (players) {
-			List<Player> result = new LinkedList<Player>();
-			for (Player curr : players.values()) {
-				if (EPlayerState.isOneOf(curr.getState(), allowedStates)) {
+		EnumSet<EPlayerState> states = EnumSet.noneOf(EPlayerState.class);
+		Collections.addAll(states, allowedStates);
+
+		// a set, because a player changing its state during the iteration can be found in two indexes
+		Set<Player> result = new LinkedHashSet<Player>();
+		for (EPlayerState state : states) {
+			for (Player curr : playersByState.get(state)) {
+				if (curr.getState() == state) {
 					result.add(curr);
 				}
 			}
-			return result;
 		}
+		return new LinkedList<Player>(result);
 	}
 
 	@Override
 	public List<Match> getMatches() {
-		List<Match> matchesList = new ArrayList<Match>();
-		synchronized (matches) {
-			for (Entry<String, Match> matchEntry : matches.entrySet()) {
-				matchesList.add(matchEntry.getValue());
-			}
-		}
-		return matchesList;
+		return new ArrayList<Match>(matches.values());
 	}
 }
@@ -0,0 +1,34 @@
+package jsettlers.network.server.match;
+
+/**
+ * This interface defines a listener that gets informed about changes of a {@link Match}. The methods are called while the match is locked, so they
+ * must not block.
+ */
+public interface IMatchListener {
+
+	/**
+	 * Called every time the information of the match shown in the lobby changed, e.g. when a player joined or left or when the match started.
+	 *
+	 * @param match
+	 */
+	void matchInfoChanged(Match match);
+
+	/**
+	 * Called for every player of the match when it starts and for every player joining the running match.
+	 *
+	 * @param match
+	 * @param player
+	 */
+	void playerInRunningMatch(Match match, Player player);
+
+	/**
+	 * Called when a player left the match.
+	 *
+	 * @param match
+	 * @param player
+	 * @param matchRunning
+	 *            true if the player left the running match and can join it again.
+	 */
+	void playerLeft(Match match, Player player, boolean matchRunning);
+
+}
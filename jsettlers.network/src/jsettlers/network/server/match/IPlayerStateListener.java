@@ -0,0 +1,15 @@
+package jsettlers.network.server.match;
+
+/**
+ * This interface defines a listener that gets informed when the {@link EPlayerState} of a {@link Player} changed.
+ */
+public interface IPlayerStateListener {
+
+	/**
+	 * Called after the state of the given player changed. The new state can be read with {@link Player#getState()}.
+	 *
+	 * @param player
+	 */
+	void playerStateChanged(Player player);
+
+}
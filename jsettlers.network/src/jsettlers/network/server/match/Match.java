@@ -1,8 +1,12 @@
 package jsettlers.network.server.match;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Timer;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
@@ -13,10 +17,13 @@ import jsettlers.network.common.packets.MatchInfoUpdatePacket;
 import jsettlers.network.common.packets.MatchStartPacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
+import jsettlers.network.infrastructure.channel.buffer.PacketBuffer;
+import jsettlers.network.infrastructure.channel.buffer.PacketBufferPool;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
+import jsettlers.network.server.match.lockstep.StateChecksumVerifier;
 import jsettlers.network.server.match.lockstep.TaskCollectingListener;
 import jsettlers.network.server.match.lockstep.TaskSendingTimerTask;
 
@@ -30,15 +37,19 @@ public class Match {
 	private final Logger logger;
 	private final String id;
 	private final LinkedList<Player> players;
-	private final LinkedList<Player> leftPlayers;
+	private final HashMap<String, Player> playersById;
+	private final HashSet<String> leftPlayerIds;
 	private final int maxPlayers;
 	private final MapInfoPacket map;
 	private final String name;
 	private final long randomSeed;
 
-	private EMatchState state = EMatchState.OPENED;
+	private volatile EMatchState state = EMatchState.OPENED;
+	private final AtomicInteger infoVersion = new AtomicInteger();
 	private TaskCollectingListener taskCollectingListener;
 	private TaskSendingTimerTask taskSendingTimerTask;
+	private StateChecksumVerifier stateChecksumVerifier;
+	private volatile IMatchListener listener;
 
 	public Match(String name, int maxPlayers, MapInfoPacket map, long randomSeed) {
 		this.maxPlayers = maxPlayers;
@@ -47,7 +58,8 @@ public class Match {
 		this.randomSeed = randomSeed;
 		this.id = UUID.randomUUID().toString();
 		this.players = new LinkedList<Player>();
-		this.leftPlayers = new LinkedList<Player>();
+		this.playersById = new HashMap<String, Player>();
+		this.leftPlayerIds = new HashSet<String>();
 		this.logger = LoggerManager.getMatchLogger(id, name);
 	}
 
@@ -101,33 +113,48 @@ public class Match {
 	}
 
 	public boolean hasLeftPlayer(String playerId) {
-		synchronized (leftPlayers) {
-			for (Player curr : leftPlayers) {
-				if (curr.getId().equals(playerId)) {
-					return true;
-				}
-			}
-
-			return false;
+		synchronized (leftPlayerIds) {
+			return leftPlayerIds.contains(playerId);
 		}
 	}
 
 	public Player getPlayer(String playerId) {
 		synchronized (players) {
-			for (Player curr : players) {
-				if (curr.getId().equals(playerId)) {
-					return curr;
-				}
-			}
-
-			return null;
+			return playersById.get(playerId);
 		}
 	}
 
+	/**
+	 * Sets the listener that is informed about changes of this match.
+	 * 
+	 * @param listener
+	 *            The listener or null to remove the current one.
+	 */
+	public void setListener(IMatchListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @return A number that changes every time the information of this match sent to the lobby changes.
+	 */
+	public int getInfoVersion() {
+		return infoVersion.get();
+	}
+
 	public void sendMatchInfoUpdate(ENetworkMessage updateReason, PlayerInfoPacket updatedPlayer) {
+		infoVersionChanged();
 		broadcastMessage(NetworkConstants.ENetworkKey.MATCH_INFO_UPDATE, generateMatchInfoUpdate(updateReason, updatedPlayer));
 	}
 
+	private void infoVersionChanged() {
+		infoVersion.incrementAndGet();
+
+		IMatchListener listener = this.listener;
+		if (listener != null) {
+			listener.matchInfoChanged(this);
+		}
+	}
+
 	private MatchInfoUpdatePacket generateMatchInfoUpdate(ENetworkMessage updateReason, PlayerInfoPacket updatedPlayer) {
 		return new MatchInfoUpdatePacket(updateReason, updatedPlayer, new MatchInfoPacket(this));
 	}
@@ -143,20 +170,34 @@ public class Match {
 	 *            used as value for this.
 	 * @param key
 	 * @param packet
+	 *            The packet is serialized only once for all players.
 	 */
 	public void sendMessage(Player sendingPlayer, ENetworkKey key, Packet packet) {
-		synchronized (players) {
-			for (Player curr : players) {
-				if (sendingPlayer == null || !curr.getId().equals(sendingPlayer.getId())) {
-					curr.sendPacket(key, packet);
+		PacketBuffer frame;
+		try {
+			frame = PacketBufferPool.DEFAULT.serialize(key, packet);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		try {
+			synchronized (players) {
+				for (Player curr : players) {
+					if (sendingPlayer == null || !curr.getId().equals(sendingPlayer.getId())) {
+						curr.sendPacket(frame);
+					}
 				}
 			}
+		} finally {
+			frame.release();
 		}
 	}
 
 	public void join(Player player) {
 		synchronized (players) {
 			players.add(player);
+			playersById.put(player.getId(), player);
 
 			sendMatchInfoUpdate(NetworkConstants.ENetworkMessage.PLAYER_JOINED, player.getPlayerInfo());
 
@@ -169,16 +210,23 @@ public class Match {
 	public void playerLeft(Player player) {
 		synchronized (players) {
 			players.remove(player);
+			playersById.remove(player.getId());
 
 			sendMatchInfoUpdate(NetworkConstants.ENetworkMessage.PLAYER_LEFT, player.getPlayerInfo());
 			player.sendPacket(NetworkConstants.ENetworkKey.MATCH_INFO_UPDATE,
 					generateMatchInfoUpdate(NetworkConstants.ENetworkMessage.PLAYER_LEFT, player.getPlayerInfo()));
 
-			if (isRunning()) {
-				synchronized (leftPlayers) {
-					leftPlayers.add(player);
+			boolean running = isRunning();
+			if (running) {
+				synchronized (leftPlayerIds) {
+					leftPlayerIds.add(player.getId());
 				}
 			}
+
+			IMatchListener listener = this.listener;
+			if (listener != null) {
+				listener.playerLeft(this, player, running);
+			}
 		}
 	}
 
@@ -196,9 +244,11 @@ public class Match {
 		}
 
 		state = EMatchState.RUNNING;
+		infoVersionChanged();
 
 		this.taskCollectingListener = new TaskCollectingListener();
 		this.taskSendingTimerTask = new TaskSendingTimerTask(logger, taskCollectingListener, this);
+		this.stateChecksumVerifier = new StateChecksumVerifier(logger);
 		timer.schedule(taskSendingTimerTask, NetworkConstants.Client.LOCKSTEP_PERIOD, NetworkConstants.Client.LOCKSTEP_PERIOD / 2 - 2);
 
 		synchronized (players) {
@@ -215,12 +265,36 @@ public class Match {
 
 	private void sendMatchStartPacketToPlayer(Player player) {
 		player.matchStarted(taskCollectingListener);
+
+		IMatchListener listener = this.listener;
+		if (listener != null) {
+			listener.playerInRunningMatch(this, player);
+		}
 		player.sendPacket(NetworkConstants.ENetworkKey.MATCH_STARTED, new MatchStartPacket(new MatchInfoPacket(this), 0L));
 	}
 
 	public void distributeTimeSync(Player player, TimeSyncPacket packet) {
 		sendMessage(player, NetworkConstants.ENetworkKey.TIME_SYNC, packet);
 		taskSendingTimerTask.receivedLockstepAcknowledge(packet.getTime() / NetworkConstants.Client.LOCKSTEP_PERIOD);
+		taskSendingTimerTask.receivedClientStatistics(player.getId(), packet.getAverageTickMicros(), packet.getStallTimeMs());
+
+		if (packet.hasChecksum()) {
+			stateChecksumVerifier.receivedChecksum(player.getId(), packet.getChecksumLockstep(), packet.getChecksum());
+		}
+	}
+
+	/**
+	 * @return The {@link TaskSendingTimerTask} sending the locksteps of this match or null if the match has not been started.
+	 */
+	public TaskSendingTimerTask getTaskSendingTimerTask() {
+		return taskSendingTimerTask;
+	}
+
+	/**
+	 * @return The {@link StateChecksumVerifier} comparing the state checksums of the players or null if the match has not been started.
+	 */
+	public StateChecksumVerifier getStateChecksumVerifier() {
+		return stateChecksumVerifier;
 	}
 
 	public Logger getMatchLogger() {
@@ -1,15 +1,27 @@
 package jsettlers.network.server.match;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.TimerTask;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.common.packets.ArrayOfMatchInfosPacket;
 import jsettlers.network.common.packets.MatchInfoPacket;
+import jsettlers.network.common.packets.MatchesDeltaPacket;
+import jsettlers.network.infrastructure.channel.buffer.PacketBuffer;
+import jsettlers.network.infrastructure.channel.buffer.PacketBufferPool;
+import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.server.db.IDBFacade;
 
 /**
- * This {@link TimerTask} implementation gets the logged in players and sends them the open matches on every call to {@link #run()}.
+ * This {@link TimerTask} implementation keeps the logged in players informed about the open matches on every call to {@link #run()}.
+ * <p />
+ * A player gets the full list of matches when logging in or returning to the lobby. Afterwards, the player only receives a
+ * {@link MatchesDeltaPacket} when matches have been added, changed or removed. Changes are detected with the {@link IDBFacade#getMatchesVersion()},
+ * so nothing is done as long as no match changes. All packets are serialized once and sent to all players.
  * 
  * @author Andreas Eberle
  * 
@@ -17,39 +29,158 @@ import jsettlers.network.server.db.IDBFacade;
 public class MatchesListSendingTimerTask extends TimerTask {
 	private final IDBFacade db;
 
+	private LinkedHashMap<String, MatchSnapshot> snapshots = new LinkedHashMap<String, MatchSnapshot>();
+	private HashMap<String, Integer> sentVersions = new HashMap<String, Integer>();
+	private long dbVersion = -1;
+	private int listVersion = 0;
+
+	private PacketBuffer fullFrame; // list of all matches of listVersion; created when needed
+	private PacketBuffer deltaFrame; // changes from listVersion - 1 to listVersion
+
+	private int sentFullLists = 0;
+	private int sentDeltas = 0;
+
 	public MatchesListSendingTimerTask(IDBFacade db) {
 		this.db = db;
 	}
 
 	@Override
-	public void run() {
+	public synchronized void run() {
+		updateSnapshots();
+
 		List<Player> loggedInPlayers = db.getPlayers(EPlayerState.LOGGED_IN);
-		ArrayOfMatchInfosPacket packet = getArrayOfMatchInfosPacket();
+		HashMap<String, Integer> newSentVersions = new HashMap<String, Integer>();
 
 		for (Player currPlayer : loggedInPlayers) {
-			sendMatchesPacketToPlayer(currPlayer, packet);
+			Integer sentVersion = sentVersions.get(currPlayer.getId());
+
+			if (sentVersion == null || sentVersion < listVersion - 1 || (sentVersion == listVersion - 1 && deltaFrame == null)) {
+				sendFullList(currPlayer);
+			} else if (sentVersion == listVersion - 1) {
+				currPlayer.sendPacket(deltaFrame);
+				sentDeltas++;
+			}
+			newSentVersions.put(currPlayer.getId(), listVersion);
 		}
+
+		// players not in the lobby are forgotten and will get a full list when they return
+		sentVersions = newSentVersions;
 	}
 
-	private void sendMatchesPacketToPlayer(Player player, ArrayOfMatchInfosPacket arrayOfMatchesPacket) {
-		player.sendPacket(NetworkConstants.ENetworkKey.ARRAY_OF_MATCHES, arrayOfMatchesPacket);
+	/**
+	 * Sends the full list of matches to the given player.
+	 * 
+	 * @param player
+	 */
+	public synchronized void sendMatchesTo(Player player) {
+		updateSnapshots();
+		sendFullList(player);
+		sentVersions.put(player.getId(), listVersion);
 	}
 
-	private ArrayOfMatchInfosPacket getArrayOfMatchInfosPacket() {
-		List<Match> matches = db.getJoinableMatches();
+	private void sendFullList(Player player) {
+		if (fullFrame == null) {
+			MatchInfoPacket[] matchInfoPackets = new MatchInfoPacket[snapshots.size()];
+			int i = 0;
+			for (MatchSnapshot curr : snapshots.values()) {
+				matchInfoPackets[i++] = curr.matchInfo;
+			}
+			fullFrame = serialize(NetworkConstants.ENetworkKey.ARRAY_OF_MATCHES, new ArrayOfMatchInfosPacket(matchInfoPackets));
+		}
 
-		MatchInfoPacket[] matchInfoPackets = new MatchInfoPacket[matches.size()];
-		int i = 0;
-		for (Match curr : matches) {
-			matchInfoPackets[i] = new MatchInfoPacket(curr);
-			i++;
+		if (fullFrame != null) {
+			player.sendPacket(fullFrame);
+			sentFullLists++;
 		}
+	}
 
-		return new ArrayOfMatchInfosPacket(matchInfoPackets);
+	/**
+	 * Compares the joinable matches with the last known state and creates the delta if they changed.
+	 */
+	private void updateSnapshots() {
+		long currentDbVersion = db.getMatchesVersion(); // read the version first, so a concurrent change causes another update
+		if (currentDbVersion == dbVersion) {
+			return;
+		}
+		dbVersion = currentDbVersion;
+
+		LinkedHashMap<String, MatchSnapshot> newSnapshots = new LinkedHashMap<String, MatchSnapshot>();
+		List<MatchInfoPacket> updatedMatches = new ArrayList<MatchInfoPacket>();
+
+		for (Match curr : db.getJoinableMatches()) {
+			MatchSnapshot snapshot = snapshots.get(curr.getId());
+			int infoVersion = curr.getInfoVersion();
+
+			if (snapshot == null || snapshot.infoVersion != infoVersion) {
+				snapshot = new MatchSnapshot(infoVersion, new MatchInfoPacket(curr));
+				updatedMatches.add(snapshot.matchInfo);
+			}
+			newSnapshots.put(curr.getId(), snapshot);
+		}
+
+		List<String> removedMatchIds = new ArrayList<String>();
+		for (String matchId : snapshots.keySet()) {
+			if (!newSnapshots.containsKey(matchId)) {
+				removedMatchIds.add(matchId);
+			}
+		}
+
+		snapshots = newSnapshots;
+		if (updatedMatches.isEmpty() && removedMatchIds.isEmpty()) {
+			return;
+		}
+
+		listVersion++;
+		releaseFrames();
+		deltaFrame = serialize(NetworkConstants.ENetworkKey.MATCHES_DELTA, new MatchesDeltaPacket(listVersion,
+				updatedMatches.toArray(new MatchInfoPacket[updatedMatches.size()]), removedMatchIds.toArray(new String[removedMatchIds.size()])));
+	}
+
+	private void releaseFrames() {
+		if (fullFrame != null) {
+			fullFrame.release();
+			fullFrame = null;
+		}
+		if (deltaFrame != null) {
+			deltaFrame.release();
+			deltaFrame = null;
+		}
+	}
+
+	private static PacketBuffer serialize(NetworkConstants.ENetworkKey key, Packet packet) {
+		try {
+			return PacketBufferPool.DEFAULT.serialize(key, packet);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
 	}
 
-	public void sendMatchesTo(Player player) {
-		ArrayOfMatchInfosPacket arrayOfMatchesPacket = getArrayOfMatchInfosPacket();
-		sendMatchesPacketToPlayer(player, arrayOfMatchesPacket);
+	/**
+	 * @return Number of times the list of matches changed.
+	 */
+	public synchronized int getListVersion() {
+		return listVersion;
+	}
+
+	public synchronized int getSentFullLists() {
+		return sentFullLists;
+	}
+
+	public synchronized int getSentDeltas() {
+		return sentDeltas;
+	}
+
+	/**
+	 * The information of a match sent to the players.
+	 */
+	private static class MatchSnapshot {
+		final int infoVersion;
+		final MatchInfoPacket matchInfo;
+
+		MatchSnapshot(int infoVersion, MatchInfoPacket matchInfo) {
+			this.infoVersion = infoVersion;
+			this.matchInfo = matchInfo;
+		}
 	}
 }
@@ -9,6 +9,7 @@ import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.buffer.PacketBuffer;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.infrastructure.log.LoggerManager;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
@@ -23,8 +24,9 @@ public class Player {
 	private final PlayerInfoPacket playerInfo;
 	private final Channel channel;
 
-	private EPlayerState state = EPlayerState.LOGGED_IN;
+	private volatile EPlayerState state = EPlayerState.LOGGED_IN;
 	private Match match;
+	private volatile IPlayerStateListener stateListener;
 
 	public Player(PlayerInfoPacket playerInfo, Channel channel) {
 		this.playerInfo = playerInfo;
@@ -44,7 +46,7 @@ public class Player {
 			match.playerLeft(this);
 			match = null;
 
-			state = EPlayerState.LOGGED_IN;
+			setState(EPlayerState.LOGGED_IN);
 			channel.removeListener(ENetworkKey.SYNCHRONOUS_TASK);
 			channel.setLogger(LoggerManager.ROOT_LOGGER);
 		}
@@ -54,8 +56,8 @@ public class Player {
 		EPlayerState.assertState(state, EPlayerState.LOGGED_IN);
 
 		this.match = match;
+		setState(EPlayerState.IN_MATCH);
 		match.join(this);
-		state = EPlayerState.IN_MATCH;
 		channel.setLogger(match.getMatchLogger());
 	}
 
@@ -67,6 +69,15 @@ public class Player {
 		channel.sendPacket(key, packet);
 	}
 
+	/**
+	 * Sends an already serialized packet to this player.
+	 * 
+	 * @param frame
+	 */
+	public void sendPacket(PacketBuffer frame) {
+		channel.sendPacket(frame);
+	}
+
 	public synchronized boolean isInMatch() {
 		return state == EPlayerState.IN_MATCH || state == EPlayerState.IN_RUNNING_MATCH;
 	}
@@ -77,7 +88,7 @@ public class Player {
 	}
 
 	void matchStarted(TaskCollectingListener taskListener) {
-		state = EPlayerState.IN_RUNNING_MATCH;
+		setState(EPlayerState.IN_RUNNING_MATCH);
 		channel.registerListener(taskListener);
 	}
 
@@ -103,6 +114,25 @@ public class Player {
 		return state;
 	}
 
+	private void setState(EPlayerState state) {
+		this.state = state;
+
+		IPlayerStateListener listener = stateListener;
+		if (listener != null) {
+			listener.playerStateChanged(this);
+		}
+	}
+
+	/**
+	 * Sets the listener that is informed about changes of the {@link EPlayerState} of this player.
+	 * 
+	 * @param stateListener
+	 *            The listener or null to remove the current one.
+	 */
+	public void setStateListener(IPlayerStateListener stateListener) {
+		this.stateListener = stateListener;
+	}
+
 	public void setStartFinished(boolean value) {
 		playerInfo.setStartFinished(value);
 		match.sendMatchInfoUpdate(ENetworkMessage.START_FINISHED, this.getPlayerInfo());
@@ -0,0 +1,102 @@
+package jsettlers.network.server.match.lockstep;
+
+import java.util.TreeMap;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * Compares the state checksums the clients of a match calculated for the same lockstep. If two clients report different checksums, their game
+ * states diverged and the first divergent lockstep is logged.
+ */
+public class StateChecksumVerifier {
+	/**
+	 * Number of checksums kept to compare them with the checksums of slower clients.
+	 */
+	private static final int KEPT_CHECKSUMS = 64;
+	public static final int NO_DESYNC = -1;
+
+	private final Logger logger;
+	private final TreeMap<Integer, ReportedChecksum> checksums = new TreeMap<Integer, ReportedChecksum>();
+
+	private int firstDesyncLockstep = NO_DESYNC;
+	private int verifiedChecksums;
+
+	public StateChecksumVerifier(Logger logger) {
+		this.logger = logger;
+	}
+
+	/**
+	 * Compares the given checksum with the checksums other players reported for the same lockstep.
+	 *
+	 * @param playerId
+	 *            The id of the player reporting the checksum.
+	 * @param lockstep
+	 *            The lockstep the checksum has been calculated for.
+	 * @param checksum
+	 *            The checksum.
+	 * @return false if the checksum differs from a checksum reported by another player for the same lockstep.<br>
+	 *         true otherwise.
+	 */
+	public synchronized boolean receivedChecksum(String playerId, int lockstep, long checksum) {
+		ReportedChecksum reported = checksums.get(lockstep);
+		if (reported == null) {
+			if (isOutdated(lockstep)) {
+				return true; // the checksums of this lockstep have already been dropped
+			}
+
+			checksums.put(lockstep, new ReportedChecksum(playerId, checksum));
+			dropOutdatedChecksums();
+			return true;
+		}
+
+		verifiedChecksums++;
+		if (reported.checksum == checksum) {
+			return true;
+		}
+
+		if (firstDesyncLockstep == NO_DESYNC || lockstep < firstDesyncLockstep) {
+			firstDesyncLockstep = lockstep;
+			logger.warn(String.format("DESYNC detected at lockstep %d (game time %d ms): player %s reported %016x, player %s reported %016x",
+					lockstep, lockstep * NetworkConstants.Client.LOCKSTEP_PERIOD, reported.playerId, reported.checksum, playerId, checksum));
+		}
+		return false;
+	}
+
+	private boolean isOutdated(int lockstep) {
+		return checksums.size() >= KEPT_CHECKSUMS && lockstep < checksums.firstKey();
+	}
+
+	private void dropOutdatedChecksums() {
+		while (checksums.size() > KEPT_CHECKSUMS) {
+			checksums.pollFirstEntry();
+		}
+	}
+
+	/**
+	 * @return The first lockstep the clients calculated different checksums for or {@link #NO_DESYNC} if no desynchronization has been detected.
+	 */
+	public synchronized int getFirstDesyncLockstep() {
+		return firstDesyncLockstep;
+	}
+
+	/**
+	 * @return The number of checksums that have been compared with the checksum of another player.
+	 */
+	public synchronized int getVerifiedChecksums() {
+		return verifiedChecksums;
+	}
+
+	/**
+	 * The first checksum reported for a lockstep.
+	 */
+	private static class ReportedChecksum {
+		final String playerId;
+		final long checksum;
+
+		ReportedChecksum(String playerId, long checksum) {
+			this.playerId = playerId;
+			this.checksum = checksum;
+		}
+	}
+}
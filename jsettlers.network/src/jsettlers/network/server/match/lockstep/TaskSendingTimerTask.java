@@ -1,5 +1,6 @@
 package jsettlers.network.server.match.lockstep;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.TimerTask;
 
@@ -11,6 +12,7 @@ import jsettlers.network.infrastructure.utils.MaximumSlotBuffer;
 import jsettlers.network.server.match.Match;
 import jsettlers.network.server.packets.ServersideSyncTasksPacket;
 import jsettlers.network.server.packets.ServersideTaskPacket;
+import jsettlers.network.synchronic.timer.NetworkTimer;
 
 /**
  * 
@@ -18,6 +20,8 @@ import jsettlers.network.server.packets.ServersideTaskPacket;
  * 
  */
 public class TaskSendingTimerTask extends TimerTask {
+	private static final int TICKS_PER_LOCKSTEP = NetworkConstants.Client.LOCKSTEP_PERIOD / NetworkTimer.TIME_SLICE;
+
 	private final Logger logger;
 	private final TaskCollectingListener taskCollectingListener;
 	private final Match match;
@@ -28,6 +32,14 @@ public class TaskSendingTimerTask extends TimerTask {
 	private int minimumLeadTimeMs = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS * NetworkConstants.Client.LOCKSTEP_PERIOD;
 	private int leadSteps = minimumLeadTimeMs / NetworkConstants.Client.LOCKSTEP_PERIOD;
 
+	private int rtt;
+	private int jitter;
+	private final HashMap<String, ClientStatistics> clientStatistics = new HashMap<String, ClientStatistics>();
+	private int maxAverageTickMicros;
+
+	private long stallStartNanos;
+	private long stallNanos;
+
 	public TaskSendingTimerTask(Logger logger, TaskCollectingListener taskCollectingListener, Match match) {
 		this.logger = logger;
 		this.taskCollectingListener = taskCollectingListener;
@@ -37,9 +49,17 @@ public class TaskSendingTimerTask extends TimerTask {
 	@Override
 	public void run() {
 		if (lockstepCounter > currentLockstepMax) {
+			if (stallStartNanos == 0) {
+				stallStartNanos = System.nanoTime();
+			}
 			return;
 		}
 
+		if (stallStartNanos != 0) {
+			stallNanos += System.nanoTime() - stallStartNanos;
+			stallStartNanos = 0;
+		}
+
 		List<ServersideTaskPacket> tasksList = taskCollectingListener.getAndResetTasks();
 		ServersideSyncTasksPacket syncTasksPacket = new ServersideSyncTasksPacket(lockstepCounter++, tasksList);
 		match.broadcastMessage(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, syncTasksPacket);
@@ -50,12 +70,54 @@ public class TaskSendingTimerTask extends TimerTask {
 		// logger.info("lead steps: " + leadSteps);
 	}
 
-	final void pingUpdated(int rtt, int jitter) {
+	/**
+	 * Updates the simulation cost and stall time reported by a client and adapts the lead steps to the simulation cost of the slowest client.
+	 * 
+	 * @param playerId
+	 *            The id of the player reporting the statistics.
+	 * @param averageTickMicros
+	 *            The average time the client needs to execute a time slice.
+	 * @param stallTimeMs
+	 *            The total time the client stalled waiting for locksteps.
+	 */
+	public synchronized void receivedClientStatistics(String playerId, int averageTickMicros, int stallTimeMs) {
+		ClientStatistics statistics = clientStatistics.get(playerId);
+		if (statistics == null) {
+			statistics = new ClientStatistics();
+			clientStatistics.put(playerId, statistics);
+		}
+
+		if (stallTimeMs - statistics.loggedStallTimeMs > NetworkConstants.STALL_LOGGING_THRESHOLD) {
+			logger.info(String.format("player %s stalled for %d ms (total %d ms)   tick cost: %d us", playerId,
+					stallTimeMs - statistics.loggedStallTimeMs, stallTimeMs, averageTickMicros));
+			statistics.loggedStallTimeMs = stallTimeMs;
+		}
+		statistics.averageTickMicros = averageTickMicros;
+		statistics.stallTimeMs = stallTimeMs;
+
+		int maxAverageTickMicros = 0;
+		for (ClientStatistics curr : clientStatistics.values()) {
+			maxAverageTickMicros = Math.max(maxAverageTickMicros, curr.averageTickMicros);
+		}
+		this.maxAverageTickMicros = maxAverageTickMicros;
+
+		updateLeadSteps();
+	}
+
+	final synchronized void pingUpdated(int rtt, int jitter) {
 		if (rtt < 0 || rtt > 10000 || jitter > 5000) {
 			return; // this is an exceptional high rtt, we can not adapt to this
 		}
 
-		int newLeadTime = (int) (rtt / 2 * 1.1f + jitter * 2f + NetworkConstants.Client.LOCKSTEP_PERIOD * 1.5f);
+		this.rtt = rtt;
+		this.jitter = jitter;
+		updateLeadSteps();
+	}
+
+	private void updateLeadSteps() {
+		// the slowest client needs lockstepSimulationTime to execute a lockstep; keep twice of that as reserve for spikes
+		int lockstepSimulationTime = maxAverageTickMicros * TICKS_PER_LOCKSTEP / 1000;
+		int newLeadTime = (int) (rtt / 2 * 1.1f + jitter * 2f + NetworkConstants.Client.LOCKSTEP_PERIOD * 1.5f + lockstepSimulationTime * 2);
 		if (newLeadTime > minimumLeadTimeMs) {
 			minimumLeadTimeMs = newLeadTime;
 		} else {
@@ -65,11 +127,41 @@ public class TaskSendingTimerTask extends TimerTask {
 		leadSteps = (int) Math.ceil(((float) minimumLeadTimeMs) / NetworkConstants.Client.LOCKSTEP_PERIOD);
 
 		if (rtt > NetworkConstants.RTT_LOGGING_THRESHOLD || jitter > NetworkConstants.JITTER_LOGGING_THRESHOLD) {
-			logger.info(String.format("rtt/2: %5d   jitter: %d   min lead time: %4d   lead steps: %2d",
-					rtt / 2, jitter, minimumLeadTimeMs, leadSteps));
+			logger.info(String.format("rtt/2: %5d   jitter: %d   lockstep simulation time: %d   min lead time: %4d   lead steps: %2d",
+					rtt / 2, jitter, lockstepSimulationTime, minimumLeadTimeMs, leadSteps));
 		}
 	}
 
+	public synchronized int getLeadSteps() {
+		return leadSteps;
+	}
+
+	/**
+	 * @param playerId
+	 * @return The total time in milliseconds the given player stalled waiting for locksteps or -1 if the player didn't report it yet.
+	 */
+	public synchronized int getStallTimeMs(String playerId) {
+		ClientStatistics statistics = clientStatistics.get(playerId);
+		return statistics == null ? -1 : statistics.stallTimeMs;
+	}
+
+	/**
+	 * @param playerId
+	 * @return The average time in microseconds the given player needs to execute a time slice or -1 if the player didn't report it yet.
+	 */
+	public synchronized int getAverageTickMicros(String playerId) {
+		ClientStatistics statistics = clientStatistics.get(playerId);
+		return statistics == null ? -1 : statistics.averageTickMicros;
+	}
+
+	/**
+	 * @return The total time in milliseconds the sending of locksteps was stopped, because no client acknowledged the previous locksteps.
+	 */
+	public int getServerStallTimeMs() {
+		long stallStart = stallStartNanos;
+		return (int) ((stallNanos + (stallStart == 0 ? 0 : System.nanoTime() - stallStart)) / 1000000);
+	}
+
 	private MaximumSlotBuffer rttMaximum = new MaximumSlotBuffer(0);
 	private MaximumSlotBuffer jitterMaximum = new MaximumSlotBuffer(0);
 
@@ -89,4 +181,13 @@ public class TaskSendingTimerTask extends TimerTask {
 			}
 		};
 	}
+
+	/**
+	 * The statistics reported by a client.
+	 */
+	private static class ClientStatistics {
+		int averageTickMicros;
+		int stallTimeMs;
+		int loggedStallTimeMs;
+	}
 }
@@ -0,0 +1,18 @@
+package jsettlers.network.synchronic.timer;
+
+/**
+ * Calculates a checksum of the synchronous game state. All clients executing the same tasks must calculate the same checksum for the same
+ * lockstep.
+ */
+public interface IStateChecksumCalculator {
+
+	/**
+	 * Calculates the checksum of the current game state. This is called by the game thread after the given lockstep has been executed.
+	 * 
+	 * @param lockstep
+	 *            The lockstep the checksum is calculated for.
+	 * @return The checksum.
+	 */
+	long calculateStateChecksum(int lockstep);
+
+}
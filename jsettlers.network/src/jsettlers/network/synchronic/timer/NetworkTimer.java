@@ -11,6 +11,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.client.INetworkClientClock;
@@ -26,6 +27,11 @@ import jsettlers.network.client.task.packets.TaskPacket;
  */
 public final class NetworkTimer extends TimerTask implements INetworkClientClock {
 	public static final short TIME_SLICE = 50;
+	private static final long TIME_SLICE_NANOS = TIME_SLICE * 1000000L;
+	/**
+	 * Number of ticks the average tick cost is averaged over.
+	 */
+	private static final int TICK_COST_AVERAGING = 16;
 	private Comparator<SyncTasksPacket> tasksByTimeComperator = new Comparator<SyncTasksPacket>() {
 		@Override
 		public int compare(SyncTasksPacket o1, SyncTasksPacket o2) {
@@ -49,11 +55,23 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	private int pauseTime;
 	private float speedFactor = 1.0f;
 	private float progress = 0.0f;
+	private long lastRunNanos;
+
+	private volatile long averageTickNanos;
+	private volatile long stallNanos;
+	private volatile long stallStartNanos;
+	private volatile int catchUpSlices;
 
 	private boolean scheduled = false;
 
 	private ITaskExecutor taskExecutor;
-	private DataOutputStream replayLogStream;
+	private volatile ReplayLogWriter replayLogWriter;
+
+	private volatile IStateChecksumCalculator stateChecksumCalculator;
+	private final AtomicReference<StateChecksum> pendingStateChecksum = new AtomicReference<StateChecksum>();
+	private volatile int stateChecksums;
+	private volatile long stateChecksumNanos;
+	private volatile long maxStateChecksumNanos;
 
 	public NetworkTimer() {
 		super();
@@ -86,13 +104,28 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 	@Override
 	public void run() {
+		long now = System.nanoTime();
+		long elapsedNanos = lastRunNanos == 0 ? TIME_SLICE_NANOS : now - lastRunNanos;
+		lastRunNanos = now;
+
 		if (!isPausing) {
 			if (pauseTime <= 0) { // this is used for synchronizing the network clients
-				progress += speedFactor;
+				// slices missed because of a slow tick or a stall are caught up in the next runs
+				progress = Math.min(progress + speedFactor * elapsedNanos / TIME_SLICE_NANOS, NetworkConstants.Client.MAX_CATCH_UP_SLICES);
 
+				int executedSlices = 0;
 				while (progress >= 1) {
-					executeRun();
+					if (!executeRun(false)) {
+						startStall(now);
+						return;
+					}
 					progress--;
+					executedSlices++;
+				}
+
+				endStall(now);
+				if (executedSlices > 1) {
+					catchUpSlices += executedSlices - 1;
 				}
 			} else {
 				pauseTime -= TIME_SLICE;
@@ -100,19 +133,45 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		}
 	}
 
-	private synchronized void executeRun() {
+	private void startStall(long now) {
+		if (stallStartNanos == 0) {
+			stallStartNanos = now;
+		}
+	}
+
+	private void endStall(long now) {
+		if (stallStartNanos != 0) {
+			stallNanos += now - stallStartNanos;
+			stallStartNanos = 0;
+		}
+	}
+
+	/**
+	 * Executes one time slice.
+	 * 
+	 * @param waitForLockstep
+	 *            If true and the next lockstep has not been allowed by the server yet, this method blocks until it is allowed. If false, the method
+	 *            returns without executing the time slice.
+	 * @return true if the time slice has been executed.
+	 */
+	private synchronized boolean executeRun(boolean waitForLockstep) {
 		try {
-			time += TIME_SLICE;
-			final int lockstep = time / NetworkConstants.Client.LOCKSTEP_PERIOD;
+			final int lockstep = (time + TIME_SLICE) / NetworkConstants.Client.LOCKSTEP_PERIOD;
 
 			// check if the lockstep is allowed
 			synchronized (lockstepLock) {
+				if (lockstep > maxAllowedLockstep && !waitForLockstep) {
+					return false;
+				}
 				while (lockstep > maxAllowedLockstep) {
 					System.out.println("WAITING for lockstep!");
 					lockstepLock.wait();
 				}
 			}
 
+			long start = System.nanoTime();
+			time += TIME_SLICE;
+
 			SyncTasksPacket tasksPacket;
 			synchronized (tasks) {
 				tasksPacket = tasks.peekFirst();
@@ -141,10 +200,35 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 			for (ScheduledTimerable curr : timerables) {
 				curr.checkExecution(TIME_SLICE);
 			}
+
+			if (time % NetworkConstants.Client.LOCKSTEP_PERIOD == 0 && lockstep % NetworkConstants.Client.STATE_CHECKSUM_INTERVAL_LOCKSTEPS == 0) {
+				calculateStateChecksum(lockstep);
+			}
+
+			long tickNanos = System.nanoTime() - start;
+			averageTickNanos += (tickNanos - averageTickNanos) / TICK_COST_AVERAGING;
 		} catch (Throwable t) {
 			System.err.println("WARNING: Networking Timer catched Throwable!!!");
 			t.printStackTrace();
 		}
+		return true;
+	}
+
+	private void calculateStateChecksum(int lockstep) {
+		IStateChecksumCalculator calculator = stateChecksumCalculator;
+		if (calculator == null) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		long checksum = calculator.calculateStateChecksum(lockstep);
+		long nanos = System.nanoTime() - start;
+
+		pendingStateChecksum.set(new StateChecksum(lockstep, checksum));
+
+		stateChecksums++;
+		stateChecksumNanos += nanos;
+		maxStateChecksumNanos = Math.max(maxStateChecksumNanos, nanos);
 	}
 
 	private void executeTasksPacket(SyncTasksPacket tasksPacket) {
@@ -217,7 +301,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 		final int runs = 60 * 1000 / TIME_SLICE;
 		for (int i = 0; i < runs; i++) {
-			executeRun();
+			executeRun(true);
 		}
 
 		this.setPausing(false);
@@ -230,7 +314,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		System.out.println("Playing game forward to game time: " + targetGameTime);
 
 		while (time < targetGameTime) {
-			executeRun();
+			executeRun(true);
 		}
 	}
 
@@ -239,11 +323,20 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	@Override
 	public void setPausing(boolean b) {
 		this.isPausing = b;
+		flushReplayLogIfPausing();
 	}
 
 	@Override
 	public void invertPausing() {
 		this.isPausing = !this.isPausing;
+		flushReplayLogIfPausing();
+	}
+
+	private void flushReplayLogIfPausing() {
+		ReplayLogWriter writer = replayLogWriter;
+		if (isPausing && writer != null) {
+			writer.flush();
+		}
 	}
 
 	@Override
@@ -272,6 +365,50 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		this.taskExecutor = taskExecutor;
 	}
 
+	@Override
+	public void setStateChecksumCalculator(IStateChecksumCalculator stateChecksumCalculator) {
+		this.stateChecksumCalculator = stateChecksumCalculator;
+	}
+
+	@Override
+	public StateChecksum pollStateChecksum() {
+		return pendingStateChecksum.getAndSet(null);
+	}
+
+	@Override
+	public int getAverageTickMicros() {
+		return (int) (averageTickNanos / 1000);
+	}
+
+	@Override
+	public int getStallTimeMs() {
+		long stallStart = stallStartNanos;
+		long currentStall = stallStart == 0 ? 0 : System.nanoTime() - stallStart;
+		return (int) ((stallNanos + currentStall) / 1000000);
+	}
+
+	/**
+	 * @return The number of additional time slices executed to catch up after slow ticks or stalls.
+	 */
+	public int getCatchUpSlices() {
+		return catchUpSlices;
+	}
+
+	/**
+	 * @return The average time needed to calculate a state checksum in nanoseconds.
+	 */
+	public long getAverageStateChecksumNanos() {
+		int count = stateChecksums;
+		return count == 0 ? 0 : stateChecksumNanos / count;
+	}
+
+	/**
+	 * @return The maximum time needed to calculate a state checksum in nanoseconds.
+	 */
+	public long getMaxStateChecksumNanos() {
+		return maxStateChecksumNanos;
+	}
+
 	@Override
 	public void scheduleSyncTasksPacket(SyncTasksPacket tasksPacket) {
 		assert maxAllowedLockstep == Integer.MAX_VALUE || maxAllowedLockstep + 1 == tasksPacket.getLockstepNumber() : "received unlock for wrong step! current max allowed: "
@@ -292,13 +429,9 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	}
 
 	private void saveReplayIfNeeded(SyncTasksPacket tasksPacket) {
-		if (replayLogStream != null) {
-			try {
-				tasksPacket.serialize(replayLogStream);
-				replayLogStream.flush();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		ReplayLogWriter writer = replayLogWriter;
+		if (writer != null) {
+			writer.write(tasksPacket);
 		}
 	}
 
@@ -314,17 +447,29 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 	@Override
 	public void setReplayLogStream(DataOutputStream replayFileStream) {
-		if (this.replayLogStream != null) {
+		if (this.replayLogWriter != null) {
 			throw new IllegalStateException("Replay log stream cannot be set twice!");
 		}
 
 		if (replayFileStream != null) {
-			replayLogStream = replayFileStream;
+			try {
+				replayLogWriter = new ReplayLogWriter(replayFileStream, NetworkConstants.Client.REPLAY_QUEUE_CAPACITY,
+						NetworkConstants.Client.REPLAY_FLUSH_INTERVAL_MS, NetworkConstants.Client.REPLAY_COMPRESSION);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		} else {
 			closeReplayLogStreamIfNeeded();
 		}
 	}
 
+	/**
+	 * @return The {@link ReplayLogWriter} writing the replay log or null if no replay log is written.
+	 */
+	public ReplayLogWriter getReplayLogWriter() {
+		return replayLogWriter;
+	}
+
 	@Override
 	public synchronized void saveRemainingTasks(DataOutputStream dos) throws IOException {
 		for (SyncTasksPacket task : tasks) {
@@ -334,20 +479,25 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	}
 
 	private void closeReplayLogStreamIfNeeded() {
-		if (replayLogStream != null) {
-			try {
-				replayLogStream.flush();
-				replayLogStream.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			} finally {
-				replayLogStream = null;
-			}
+		ReplayLogWriter writer = replayLogWriter;
+		if (writer != null) {
+			replayLogWriter = null;
+			writer.close();
+			System.out.println("Closed replay log: " + writer);
 		}
 	}
 
 	@Override
-	public void loadReplayLogFromStream(DataInputStream dataInputStream) {
+	public void loadReplayLogFromStream(DataInputStream replayStream) {
+		DataInputStream dataInputStream;
+		try {
+			dataInputStream = ReplayLogWriter.openForReading(replayStream);
+		} catch (IOException e) {
+			System.out.println("Error loading replay file.");
+			e.printStackTrace();
+			return;
+		}
+
 		try {
 			while (true) {
 				SyncTasksPacket currPacket = new SyncTasksPacket();
@@ -0,0 +1,289 @@
+package jsettlers.network.synchronic.timer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+
+/**
+ * Writes the {@link SyncTasksPacket}s of a replay log on a background thread, so that slow disks don't delay the lockstep processing.
+ * <p />
+ * The packets are put into a bounded, lock free queue. The writer thread serializes all queued packets into one batch and writes it with a
+ * single call. The stream is flushed every flush interval, when {@link #flush()} is called (e.g. on pausing) and when the writer is closed. If the
+ * queue is full, {@link #write(SyncTasksPacket)} waits for the writer thread, so no packet is lost.
+ * <p />
+ * Optionally, the packets are compressed. Compressed logs start with {@link #COMPRESSED_LOG_MAGIC}, which can't be the start of a packet, so
+ * {@link #openForReading(DataInputStream)} can read both formats.
+ */
+public class ReplayLogWriter implements Runnable {
+	/**
+	 * Marks a compressed replay log. Negative, because the lockstep numbers written at the start of every {@link SyncTasksPacket} are positive.
+	 */
+	public static final int COMPRESSED_LOG_MAGIC = 0xC0DE2E9A;
+
+	private static final int MAX_BATCH_SIZE = 64 * 1024;
+	private static final long FULL_QUEUE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final ConcurrentLinkedQueue<SyncTasksPacket> queue = new ConcurrentLinkedQueue<SyncTasksPacket>();
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final int queueCapacity;
+	private final long flushIntervalNanos;
+
+	private final OutputStream outputStream;
+	private final ByteArrayOutputStream batchBuffer = new ByteArrayOutputStream(MAX_BATCH_SIZE);
+	private final DataOutputStream batchStream = new DataOutputStream(batchBuffer);
+	private final Thread thread;
+
+	private volatile boolean flushRequested = false;
+	private volatile boolean closed = false;
+
+	private volatile int maxQueueDepth = 0;
+	private volatile long writtenPackets = 0;
+	private volatile long writtenBytes = 0;
+	private volatile long writes = 0;
+	private volatile long totalWriteNanos = 0;
+	private volatile long maxWriteNanos = 0;
+
+	/**
+	 * Creates a new {@link ReplayLogWriter} and starts its thread.
+	 *
+	 * @param outputStream
+	 *            The stream the packets are written to. The stream is closed when the writer is closed.
+	 * @param queueCapacity
+	 *            The maximum number of packets waiting to be written.
+	 * @param flushIntervalMs
+	 *            The maximum number of milliseconds written packets stay in buffers before the stream is flushed.
+	 * @param compress
+	 *            If true, the packets are compressed.
+	 * @throws IOException
+	 */
+	public ReplayLogWriter(OutputStream outputStream, int queueCapacity, int flushIntervalMs, boolean compress) throws IOException {
+		this.queueCapacity = queueCapacity;
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+		if (compress) {
+			DataOutputStream dos = new DataOutputStream(outputStream);
+			dos.writeInt(COMPRESSED_LOG_MAGIC);
+			dos.flush();
+			this.outputStream = new DeflaterOutputStream(outputStream, new Deflater(Deflater.BEST_SPEED), MAX_BATCH_SIZE, true);
+		} else {
+			this.outputStream = outputStream;
+		}
+
+		this.thread = new Thread(this, "ReplayLogWriter");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Returns a stream to read the packets of a replay log written by a {@link ReplayLogWriter}, independent of the log being compressed or not.
+	 *
+	 * @param stream
+	 *            The stream positioned at the first packet. To read uncompressed logs, the stream must support {@link InputStream#mark(int)}.
+	 * @return
+	 * @throws IOException
+	 */
+	public static DataInputStream openForReading(DataInputStream stream) throws IOException {
+		if (!stream.markSupported()) {
+			return stream;
+		}
+
+		stream.mark(4);
+		int magic;
+		try {
+			magic = stream.readInt();
+		} catch (IOException e) { // empty log
+			stream.reset();
+			return stream;
+		}
+
+		if (magic == COMPRESSED_LOG_MAGIC) {
+			return new DataInputStream(new InflaterInputStream(stream));
+		} else {
+			stream.reset();
+			return stream;
+		}
+	}
+
+	/**
+	 * Queues the given packet for writing. This method only blocks if the queue is full.
+	 *
+	 * @param packet
+	 */
+	public void write(SyncTasksPacket packet) {
+		if (closed) {
+			System.err.println("Replay log writer already closed: packet of lockstep " + packet.getLockstepNumber() + " not written.");
+			return;
+		}
+
+		while (queueDepth.get() >= queueCapacity) {
+			LockSupport.unpark(thread);
+			LockSupport.parkNanos(FULL_QUEUE_WAIT_NANOS);
+		}
+
+		queue.offer(packet);
+		int depth = queueDepth.incrementAndGet();
+		if (depth > maxQueueDepth) {
+			maxQueueDepth = depth;
+		}
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Requests the writer thread to write all queued packets and flush the stream. Returns immediately.
+	 */
+	public void flush() {
+		flushRequested = true;
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Writes all queued packets, flushes and closes the stream. Waits for the writer thread to finish.
+	 */
+	public void close() {
+		closed = true;
+		LockSupport.unpark(thread);
+
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public void run() {
+		long nextFlush = System.nanoTime() + flushIntervalNanos;
+		boolean unflushedData = false;
+
+		try {
+			while (true) {
+				boolean closing = closed; // read before draining, so no packet queued before closing is lost
+				drainQueue();
+
+				if (batchBuffer.size() > 0) {
+					writeBatch();
+					unflushedData = true;
+				}
+
+				long now = System.nanoTime();
+				if (closing || flushRequested || now - nextFlush >= 0) {
+					flushRequested = false;
+					nextFlush = now + flushIntervalNanos;
+					if (unflushedData) {
+						long start = System.nanoTime();
+						outputStream.flush();
+						recordWrite(System.nanoTime() - start);
+						unflushedData = false;
+					}
+				}
+
+				if (closing) {
+					break;
+				}
+
+				if (queue.isEmpty() && !flushRequested && !closed) {
+					LockSupport.parkNanos(this, unflushedData ? nextFlush - System.nanoTime() : flushIntervalNanos);
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Error writing replay log:");
+			e.printStackTrace();
+			discardQueue();
+		} finally {
+			try {
+				outputStream.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void drainQueue() throws IOException {
+		SyncTasksPacket packet;
+		while (batchBuffer.size() < MAX_BATCH_SIZE && (packet = queue.poll()) != null) {
+			queueDepth.decrementAndGet();
+			packet.serialize(batchStream);
+			writtenPackets++;
+		}
+	}
+
+	private void writeBatch() throws IOException {
+		long start = System.nanoTime();
+		batchStream.flush();
+		batchBuffer.writeTo(outputStream);
+		writtenBytes += batchBuffer.size();
+		batchBuffer.reset();
+		recordWrite(System.nanoTime() - start);
+	}
+
+	private void recordWrite(long nanos) {
+		writes++;
+		totalWriteNanos += nanos;
+		if (nanos > maxWriteNanos) {
+			maxWriteNanos = nanos;
+		}
+	}
+
+	private void discardQueue() {
+		closed = true;
+		while (queue.poll() != null) {
+			queueDepth.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return The number of packets waiting to be written.
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	public long getWrittenPackets() {
+		return writtenPackets;
+	}
+
+	/**
+	 * @return The number of bytes written before the compression.
+	 */
+	public long getWrittenBytes() {
+		return writtenBytes;
+	}
+
+	/**
+	 * @return The average duration of a write or flush call on the stream in nanoseconds.
+	 */
+	public long getAverageWriteLatencyNanos() {
+		long writes = this.writes;
+		return writes == 0 ? 0 : totalWriteNanos / writes;
+	}
+
+	/**
+	 * @return The longest duration of a write or flush call on the stream in nanoseconds.
+	 */
+	public long getMaxWriteLatencyNanos() {
+		return maxWriteNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "ReplayLogWriter [queueDepth=" + getQueueDepth() + ", maxQueueDepth=" + maxQueueDepth + ", writtenPackets=" + writtenPackets
+				+ ", writtenBytes=" + writtenBytes + ", averageWriteLatencyUs=" + getAverageWriteLatencyNanos() / 1000 + ", maxWriteLatencyUs="
+				+ maxWriteNanos / 1000 + "]";
+	}
+}
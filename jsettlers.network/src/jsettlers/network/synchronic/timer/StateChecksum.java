@@ -0,0 +1,27 @@
+package jsettlers.network.synchronic.timer;
+
+/**
+ * The checksum of the game state at a lockstep.
+ */
+public final class StateChecksum {
+	private final int lockstep;
+	private final long checksum;
+
+	public StateChecksum(int lockstep, long checksum) {
+		this.lockstep = lockstep;
+		this.checksum = checksum;
+	}
+
+	public int getLockstep() {
+		return lockstep;
+	}
+
+	public long getChecksum() {
+		return checksum;
+	}
+
+	@Override
+	public String toString() {
+		return "StateChecksum [lockstep=" + lockstep + ", checksum=" + Long.toHexString(checksum) + "]";
+	}
+}
@@ -9,7 +9,9 @@ import jsettlers.network.client.INetworkClientClock;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
+import jsettlers.network.synchronic.timer.IStateChecksumCalculator;
 import jsettlers.network.synchronic.timer.ITaskExecutor;
+import jsettlers.network.synchronic.timer.StateChecksum;
 
 /**
  * This class is a mock of the {@link INetworkClientClock} interface.
@@ -23,6 +25,9 @@ public class NetworkClientClockMock implements INetworkClientClock {
 	private LinkedList<TaskPacket> bufferedTasks = new LinkedList<TaskPacket>();
 	private int time;
 	private int maxAllowedLockstep;
+	private StateChecksum stateChecksum;
+	private int averageTickMicros;
+	private int stallTimeMs;
 
 	public NetworkClientClockMock() {
 		this(0);
@@ -59,6 +64,37 @@ public class NetworkClientClockMock implements INetworkClientClock {
 		throw new UnsupportedOperationException("not mocked");
 	}
 
+	@Override
+	public void setStateChecksumCalculator(IStateChecksumCalculator stateChecksumCalculator) {
+		throw new UnsupportedOperationException("not mocked");
+	}
+
+	public void setStateChecksum(StateChecksum stateChecksum) {
+		this.stateChecksum = stateChecksum;
+	}
+
+	@Override
+	public StateChecksum pollStateChecksum() {
+		StateChecksum temp = stateChecksum;
+		stateChecksum = null;
+		return temp;
+	}
+
+	public void setClientStatistics(int averageTickMicros, int stallTimeMs) {
+		this.averageTickMicros = averageTickMicros;
+		this.stallTimeMs = stallTimeMs;
+	}
+
+	@Override
+	public int getAverageTickMicros() {
+		return averageTickMicros;
+	}
+
+	@Override
+	public int getStallTimeMs() {
+		return stallTimeMs;
+	}
+
 	@Override
 	public void multiplyGameSpeed(float factor) {
 		throw new UnsupportedOperationException("not mocked");
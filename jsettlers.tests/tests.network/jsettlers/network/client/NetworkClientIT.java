@@ -28,7 +28,10 @@ import jsettlers.network.infrastructure.channel.reject.RejectPacket;
 import jsettlers.network.server.ServerManager;
 import jsettlers.network.server.db.inMemory.InMemoryDB;
 import jsettlers.network.server.match.EPlayerState;
+import jsettlers.network.server.match.lockstep.StateChecksumVerifier;
+import jsettlers.network.server.match.lockstep.TaskSendingTimerTask;
 import jsettlers.network.server.match.Player;
+import jsettlers.network.synchronic.timer.StateChecksum;
 
 import org.junit.After;
 import org.junit.Before;
@@ -339,6 +342,39 @@ public class NetworkClientIT {
 		assertEquals(0, clock1.popAdjustmentEvents().size());
 	}
 
+	@Test
+	public void testStateChecksumVerification() throws IllegalStateException, InterruptedException {
+		testOpenStartAndJoinNewMatch();
+		StateChecksumVerifier verifier = db.getMatchById(client1.getMatchInfo().getId()).getStateChecksumVerifier();
+
+		clock1.setStateChecksum(new StateChecksum(10, 4711L));
+		clock2.setStateChecksum(new StateChecksum(10, 4711L));
+		Thread.sleep(2 * NetworkConstants.Client.TIME_SYNC_SEND_INTERVALL);
+		assertEquals(1, verifier.getVerifiedChecksums());
+		assertEquals(StateChecksumVerifier.NO_DESYNC, verifier.getFirstDesyncLockstep());
+
+		clock1.setStateChecksum(new StateChecksum(20, 4711L));
+		clock2.setStateChecksum(new StateChecksum(20, 4712L));
+		Thread.sleep(2 * NetworkConstants.Client.TIME_SYNC_SEND_INTERVALL);
+		assertEquals(2, verifier.getVerifiedChecksums());
+		assertEquals(20, verifier.getFirstDesyncLockstep());
+	}
+
+	@Test
+	public void testClientStatisticsAreReported() throws IllegalStateException, InterruptedException {
+		testOpenStartAndJoinNewMatch();
+		TaskSendingTimerTask taskSendingTask = db.getMatchById(client1.getMatchInfo().getId()).getTaskSendingTimerTask();
+
+		clock1.setClientStatistics(1500, 0);
+		clock2.setClientStatistics(30000, 700);
+		Thread.sleep(2 * NetworkConstants.Client.TIME_SYNC_SEND_INTERVALL);
+
+		assertEquals(1500, taskSendingTask.getAverageTickMicros("id1"));
+		assertEquals(0, taskSendingTask.getStallTimeMs("id1"));
+		assertEquals(30000, taskSendingTask.getAverageTickMicros("id2"));
+		assertEquals(700, taskSendingTask.getStallTimeMs("id2"));
+	}
+
 	@Test
 	public void testSyncTasksDistribution() throws IllegalStateException, InterruptedException {
 		logIn(client1, "player1", "player1");
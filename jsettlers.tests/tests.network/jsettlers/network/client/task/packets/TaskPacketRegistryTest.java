@@ -0,0 +1,105 @@
+package jsettlers.network.client.task.packets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import jsettlers.network.client.task.TestTaskPacket;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the encoding of the task types by the {@link TaskPacketRegistry}.
+ */
+public class TaskPacketRegistryTest {
+	private static final int REGISTERED_TYPE_ID = 30000;
+
+	@BeforeClass
+	public static void registerTestTask() {
+		TaskPacketRegistry.register(REGISTERED_TYPE_ID, RegisteredTestTaskPacket.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new RegisteredTestTaskPacket();
+			}
+		});
+	}
+
+	@Test
+	public void testRegisteredTask() throws IOException {
+		TaskPacket task = new RegisteredTestTaskPacket("registered", 42, (byte) -3);
+		byte[] data = serialize(task);
+
+		assertEquals(task, deserialize(data));
+		assertEquals(4 + 1 + 2 + "registered".length() + 2 + 4 + 1, data.length);
+	}
+
+	@Test
+	public void testUnregisteredTask() throws IOException {
+		TaskPacket task = new TestTaskPacket("unregistered", 4711, (byte) 5);
+		byte[] data = serialize(task);
+
+		assertEquals(task, deserialize(data));
+		assertTrue(data.length > serialize(new RegisteredTestTaskPacket("unregistered", 4711, (byte) 5)).length);
+	}
+
+	@Test
+	public void testLegacyFormat() throws IOException {
+		for (TaskPacket task : new TaskPacket[] { new TestTaskPacket("legacy", 23, (byte) 2), new RegisteredTestTaskPacket("legacy", -1, (byte) 1) }) {
+			ByteArrayOutputStream taskBuffer = new ByteArrayOutputStream();
+			DataOutputStream taskOut = new DataOutputStream(taskBuffer);
+			taskOut.writeUTF(task.getClass().getName()); // format of old replays
+			task.serializeTask(taskOut);
+			taskOut.flush();
+
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(buffer);
+			out.writeInt(taskBuffer.size());
+			taskBuffer.writeTo(out);
+			out.flush();
+
+			assertEquals(task, deserialize(buffer.toByteArray()));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownTypeId() throws IOException {
+		deserialize(new byte[] { 0, 0, 0, 3, TaskPacketRegistry.FORMAT_VERSION, 0x7f, 0x7f });
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testConflictingRegistration() {
+		TaskPacketRegistry.register(REGISTERED_TYPE_ID, TestTaskPacket.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new TestTaskPacket();
+			}
+		});
+	}
+
+	private static byte[] serialize(TaskPacket task) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		task.serialize(out);
+		out.flush();
+		return buffer.toByteArray();
+	}
+
+	private static TaskPacket deserialize(byte[] data) throws IOException {
+		return TaskPacket.DEFAULT_DESERIALIZER.deserialize(null, new DataInputStream(new ByteArrayInputStream(data)));
+	}
+
+	public static class RegisteredTestTaskPacket extends TestTaskPacket {
+		public RegisteredTestTaskPacket() {
+		}
+
+		public RegisteredTestTaskPacket(String testString, int testInt, byte testByte) {
+			super(testString, testInt, testByte);
+		}
+	}
+}
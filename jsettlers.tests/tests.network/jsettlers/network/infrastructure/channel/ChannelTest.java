@@ -16,6 +16,8 @@ import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.GenericDeserializer;
 import jsettlers.network.infrastructure.channel.IChannelClosedListener;
 import jsettlers.network.infrastructure.channel.IDeserializingable;
+import jsettlers.network.infrastructure.channel.buffer.PacketBuffer;
+import jsettlers.network.infrastructure.channel.buffer.PacketBufferPool;
 import jsettlers.network.infrastructure.channel.listeners.BufferingPacketListener;
 import jsettlers.network.infrastructure.channel.packet.EmptyPacket;
 import jsettlers.network.infrastructure.channel.reject.RejectPacket;
@@ -281,4 +283,25 @@ public class ChannelTest {
 		List<RejectPacket> rejects = c1RejectListener.popBufferedPackets();
 		assertEquals(0, rejects.size());
 	}
+
+	@Test
+	public void testSerializedOnceForMultipleChannels() throws Exception {
+		TestPacketListener listener1 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		TestPacketListener listener2 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		c1.registerListener(listener1);
+		c2.registerListener(listener2);
+
+		TestPacket testPacket = new TestPacket("serialized once", 4711);
+		PacketBuffer frame = PacketBufferPool.DEFAULT.serialize(ENetworkKey.TEST_PACKET, testPacket);
+		c1.sendPacket(frame);
+		c2.sendPacket(frame);
+		frame.release();
+
+		Thread.sleep(30);
+
+		assertEquals(1, listener1.packets.size());
+		assertEquals(testPacket, listener1.packets.get(0));
+		assertEquals(1, listener2.packets.size());
+		assertEquals(testPacket, listener2.packets.get(0));
+	}
 }
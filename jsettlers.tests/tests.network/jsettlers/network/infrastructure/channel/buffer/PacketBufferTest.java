@@ -0,0 +1,96 @@
+package jsettlers.network.infrastructure.channel.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.TestPacket;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link PacketBuffer}, the {@link PacketBufferPool} and the {@link PacketInputBuffer}.
+ */
+public class PacketBufferTest {
+
+	@Test
+	public void testFrameFormat() throws IOException {
+		TestPacket packet = new TestPacket("frame", 23);
+		PacketBuffer frame = new PacketBufferPool(4, 1024, 4).serialize(ENetworkKey.TEST_PACKET, packet); // forces the buffer to grow
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		DataOutputStream expectedOut = new DataOutputStream(expected);
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		DataOutputStream dataOut = new DataOutputStream(data);
+		packet.serialize(dataOut);
+		dataOut.flush();
+		ENetworkKey.TEST_PACKET.writeTo(expectedOut);
+		expectedOut.writeInt(data.size());
+		data.writeTo(expectedOut);
+		expectedOut.flush();
+
+		assertEquals(expected.size(), frame.getLength());
+		assertEquals(Arrays.toString(expected.toByteArray()), Arrays.toString(Arrays.copyOf(frame.getData(), frame.getLength())));
+	}
+
+	@Test
+	public void testReferenceCounting() throws IOException {
+		PacketBufferPool pool = new PacketBufferPool(64, 1024, 4);
+
+		PacketBuffer frame = pool.serialize(ENetworkKey.TEST_PACKET, new TestPacket(1));
+		frame.retain();
+		frame.release();
+		assertEquals(0, pool.getPooledBuffers());
+		frame.release();
+		assertEquals(1, pool.getPooledBuffers());
+
+		PacketBuffer reused = pool.serialize(ENetworkKey.TEST_PACKET, new TestPacket(2));
+		assertSame(frame, reused);
+		assertEquals(0, pool.getPooledBuffers());
+		reused.release();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReleasedTooOften() throws IOException {
+		PacketBuffer frame = new PacketBufferPool(64, 1024, 4).serialize(ENetworkKey.TEST_PACKET, new TestPacket(1));
+		frame.release();
+		frame.release();
+	}
+
+	@Test
+	public void testHugeBuffersAreNotPooled() throws IOException {
+		PacketBufferPool pool = new PacketBufferPool(64, 128, 4);
+		char[] chars = new char[1000];
+		Arrays.fill(chars, 'x');
+
+		pool.serialize(ENetworkKey.TEST_PACKET, new TestPacket(new String(chars), 3)).release();
+		assertEquals(0, pool.getPooledBuffers());
+	}
+
+	@Test
+	public void testInputBufferReuse() throws IOException {
+		PacketInputBuffer inputBuffer = new PacketInputBuffer();
+
+		for (int i = 0; i < 10; i++) {
+			TestPacket packet = new TestPacket("input" + i, i);
+			PacketBuffer frame = PacketBufferPool.DEFAULT.serialize(ENetworkKey.TEST_PACKET, packet);
+			DataInputStream frameIn = new DataInputStream(new ByteArrayInputStream(frame.getData(), 0, frame.getLength()));
+			assertEquals(ENetworkKey.TEST_PACKET, ENetworkKey.readFrom(frameIn));
+			int length = frameIn.readInt();
+
+			DataInputStream packetIn = inputBuffer.readFrom(frameIn, length);
+			TestPacket received = new TestPacket();
+			received.deserialize(packetIn);
+			assertEquals(packet, received);
+			assertEquals(0, packetIn.available());
+			frame.release();
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package jsettlers.network.infrastructure.channel.nio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.IChannelClosedListener;
+import jsettlers.network.infrastructure.channel.TestPacket;
+import jsettlers.network.infrastructure.channel.TestPacketListener;
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for the {@link NioServer} and the {@link NioChannel}. The clients use the blocking {@link Channel} as well as the {@link NioChannel}.
+ */
+public class NioChannelTest {
+	private static final long TIMEOUT = 2000;
+
+	private final LinkedBlockingQueue<Channel> acceptedChannels = new LinkedBlockingQueue<Channel>();
+	private NioServer server;
+	private NioSelectorThread clientSelectorThread;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new NioServer(new ConsoleLogger("server"), 0, 2, new IChannelAcceptedListener() {
+			@Override
+			public void channelAccepted(Channel channel) {
+				channel.registerListener(new TestPacketListener(ENetworkKey.TEST_PACKET));
+				channel.start();
+				acceptedChannels.offer(channel);
+			}
+		});
+		server.startSelectorThreads();
+		Thread acceptThread = new Thread(server, "NioServerAcceptThread");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+
+		clientSelectorThread = new NioSelectorThread("ClientSelectorThread");
+		clientSelectorThread.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.shutdown();
+		clientSelectorThread.shutdown();
+	}
+
+	@Test
+	public void testBlockingClient() throws Exception {
+		Channel client = new Channel(ISocketFactory.DEFAULT_FACTORY.generateSocket("localhost", server.getPort()));
+		testConnection(client);
+	}
+
+	@Test
+	public void testNioClient() throws Exception {
+		Channel client = NioChannel.connect("localhost", server.getPort(), clientSelectorThread, server.getBufferPool());
+		testConnection(client);
+	}
+
+	private void testConnection(Channel client) throws Exception {
+		TestPacketListener clientListener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		client.registerListener(clientListener);
+		client.start();
+
+		Channel serverSide = acceptedChannels.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+		TestPacketListener serverListener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		serverSide.registerListener(serverListener);
+
+		final int numberOfPackets = 500;
+		for (int i = 0; i < numberOfPackets; i++) {
+			client.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+			serverSide.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(-i));
+		}
+		waitForPackets(serverListener, numberOfPackets);
+		waitForPackets(clientListener, numberOfPackets);
+
+		for (int i = 0; i < numberOfPackets; i++) {
+			assertEquals(i, serverListener.packets.get(i).getTestInt());
+			assertEquals(-i, clientListener.packets.get(i).getTestInt());
+		}
+
+		client.close();
+	}
+
+	@Test
+	public void testLargePackets() throws Exception {
+		Channel client = NioChannel.connect("localhost", server.getPort(), clientSelectorThread, server.getBufferPool());
+		client.start();
+		Channel serverSide = acceptedChannels.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+		TestPacketListener serverListener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		serverSide.registerListener(serverListener);
+
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 50000; i++) { // bigger than the pooled buffers
+			builder.append((char) ('a' + i % 26));
+		}
+		TestPacket largePacket = new TestPacket(builder.toString(), 17);
+
+		for (int i = 0; i < 5; i++) {
+			client.sendPacket(ENetworkKey.TEST_PACKET, largePacket);
+			client.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+		}
+		waitForPackets(serverListener, 10);
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(largePacket, serverListener.packets.get(2 * i));
+			assertEquals(i, serverListener.packets.get(2 * i + 1).getTestInt());
+		}
+		client.close();
+	}
+
+	@Test
+	public void testCloseIsDetected() throws Exception {
+		Channel client = new Channel(ISocketFactory.DEFAULT_FACTORY.generateSocket("localhost", server.getPort()));
+		client.start();
+
+		Channel serverSide = acceptedChannels.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+		final LinkedBlockingQueue<Boolean> closed = new LinkedBlockingQueue<Boolean>();
+		serverSide.setChannelClosedListener(new IChannelClosedListener() {
+			@Override
+			public void channelClosed() {
+				closed.offer(true);
+			}
+		});
+
+		client.close();
+		assertEquals(Boolean.TRUE, closed.poll(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertTrue(serverSide.isClosed());
+	}
+
+	@Test
+	public void testCounters() throws Exception {
+		Channel client = new Channel(ISocketFactory.DEFAULT_FACTORY.generateSocket("localhost", server.getPort()));
+		client.start();
+		Channel serverSide = acceptedChannels.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+		TestPacketListener serverListener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		serverSide.registerListener(serverListener);
+		TestPacketListener clientListener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		client.registerListener(clientListener);
+
+		final int numberOfPackets = 20;
+		for (int i = 0; i < numberOfPackets; i++) {
+			client.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+		}
+		serverSide.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(-1));
+		waitForPackets(serverListener, numberOfPackets);
+		waitForPackets(clientListener, 1);
+
+		assertEquals(numberOfPackets, client.getSentPackets());
+		assertEquals(numberOfPackets, serverSide.getReceivedPackets());
+		assertEquals(client.getSentBytes(), serverSide.getReceivedBytes());
+		assertEquals(1, serverSide.getSentPackets());
+		assertEquals(1, client.getReceivedPackets());
+		assertEquals(serverSide.getSentBytes(), client.getReceivedBytes());
+		client.close();
+	}
+
+	@Test
+	public void testPing() throws Exception {
+		Channel client = NioChannel.connect("localhost", server.getPort(), clientSelectorThread, server.getBufferPool());
+		client.start();
+		long start = System.currentTimeMillis();
+		Thread.sleep(2);
+		client.initPinging();
+
+		while (client.getRoundTripTime().getLastUpdated() <= start && System.currentTimeMillis() - start < TIMEOUT) {
+			Thread.sleep(5);
+		}
+		assertTrue(client.getRoundTripTime().getLastUpdated() > start);
+		client.close();
+	}
+
+	private static void waitForPackets(TestPacketListener listener, int expected) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while (listener.packets.size() < expected && System.currentTimeMillis() - start < TIMEOUT) {
+			Thread.sleep(5);
+		}
+		assertEquals(expected, listener.packets.size());
+	}
+}
@@ -0,0 +1,289 @@
+package jsettlers.network.server.db.inMemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Timer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jsettlers.network.common.packets.MapInfoPacket;
+import jsettlers.network.common.packets.PlayerInfoPacket;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.socket.ISocket;
+import jsettlers.network.server.match.EPlayerState;
+import jsettlers.network.server.match.Match;
+import jsettlers.network.server.match.Player;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the indexes of the {@link InMemoryDB} by comparing them with the results of looking at all players and matches.
+ */
+public class InMemoryDBTest {
+	private static final int THREADS = 8;
+	private static final int PLAYERS_PER_THREAD = 500;
+	private static final int MATCHES_PER_THREAD = 20;
+	private static final int ROUNDS = 20;
+
+	private final InMemoryDB db = new InMemoryDB();
+	private final Timer timer = new Timer("InMemoryDBTestTimer", true);
+
+	@After
+	public void tearDown() {
+		timer.cancel();
+	}
+
+	@Test
+	public void testIndexesFollowPlayerAndMatch() throws Exception {
+		Player player = createPlayer("player");
+		db.storePlayer(player);
+		Match match = createMatch("match", 2);
+		db.storeMatch(match);
+		long matchesVersion = db.getMatchesVersion();
+
+		assertEquals(1, db.getPlayers(EPlayerState.LOGGED_IN).size());
+		assertEquals(1, db.getJoinableMatches().size());
+
+		player.joinMatch(match);
+		assertTrue(db.getMatchesVersion() > matchesVersion);
+		assertEquals(0, db.getPlayers(EPlayerState.LOGGED_IN).size());
+		assertEquals(1, db.getPlayers(EPlayerState.IN_MATCH).size());
+		assertNull(db.getRunningMatchOf(player));
+
+		player.setReady(true);
+		player.startMatch(timer);
+		assertEquals(1, db.getPlayers(EPlayerState.IN_RUNNING_MATCH).size());
+		assertEquals(0, db.getJoinableMatches().size());
+		assertSame(match, db.getRunningMatchOf(player));
+
+		player.leaveMatch();
+		assertEquals(1, db.getPlayers(EPlayerState.LOGGED_IN).size());
+		assertNull(db.getRunningMatchOf(player));
+		assertEquals(1, db.getJoinableRunningMatches(player).size());
+
+		player.joinMatch(match);
+		assertEquals(EPlayerState.IN_RUNNING_MATCH, player.getState());
+		assertEquals(1, db.getPlayers(EPlayerState.IN_RUNNING_MATCH).size());
+		assertSame(match, db.getRunningMatchOf(player));
+
+		db.removePlayer(player);
+		assertEquals(0, db.getPlayers(EPlayerState.values()).size());
+		player.leaveMatch(); // a removed player isn't indexed anymore
+		assertEquals(0, db.getPlayers(EPlayerState.values()).size());
+	}
+
+	@Test
+	public void testConcurrentStress() throws Throwable {
+		final List<List<Player>> playersOfThreads = new ArrayList<List<Player>>();
+		final List<List<Match>> matchesOfThreads = new ArrayList<List<Match>>();
+		for (int t = 0; t < THREADS; t++) {
+			List<Player> players = new ArrayList<Player>();
+			for (int i = 0; i < PLAYERS_PER_THREAD; i++) {
+				Player player = createPlayer("player" + t + "-" + i);
+				db.storePlayer(player);
+				players.add(player);
+			}
+			playersOfThreads.add(players);
+
+			List<Match> matches = new ArrayList<Match>();
+			for (int i = 0; i < MATCHES_PER_THREAD; i++) {
+				Match match = createMatch("match" + t + "-" + i, 10);
+				db.storeMatch(match);
+				matches.add(match);
+			}
+			matchesOfThreads.add(matches);
+		}
+
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final AtomicBoolean running = new AtomicBoolean(true);
+
+		Thread reader = new Thread("reader") {
+			@Override
+			public void run() {
+				try {
+					while (running.get()) {
+						List<Player> players = db.getPlayers(EPlayerState.LOGGED_IN, EPlayerState.IN_MATCH, EPlayerState.IN_RUNNING_MATCH);
+						assertEquals(players.size(), new HashSet<Player>(players).size());
+						List<Match> matches = db.getJoinableMatches();
+						assertEquals(matches.size(), new HashSet<Match>(matches).size());
+					}
+				} catch (Throwable t) {
+					error.compareAndSet(null, t);
+				}
+			}
+		};
+		reader.start();
+
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int t = 0; t < THREADS; t++) {
+			final List<Player> players = playersOfThreads.get(t);
+			final List<Match> matches = matchesOfThreads.get(t);
+			final Random random = new Random(t);
+
+			Thread worker = new Thread("worker" + t) {
+				@Override
+				public void run() {
+					try {
+						for (int round = 0; round < ROUNDS; round++) {
+							for (Player player : players) {
+								if (player.isInMatch()) {
+									if (random.nextInt(3) == 0) {
+										player.leaveMatch();
+									}
+								} else {
+									Match match = matches.get(random.nextInt(matches.size()));
+									if (match.canJoin() || match.isRunning()) {
+										player.joinMatch(match);
+									}
+								}
+							}
+
+							if (round == ROUNDS / 2) { // start half of the matches
+								for (int i = 0; i < matches.size(); i += 2) {
+									startMatch(matches.get(i));
+								}
+							}
+						}
+					} catch (Throwable t) {
+						error.compareAndSet(null, t);
+					}
+				}
+			};
+			worker.start();
+			workers.add(worker);
+		}
+
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		running.set(false);
+		reader.join();
+
+		if (error.get() != null) {
+			throw error.get();
+		}
+
+		assertIndexesCorrect();
+
+		for (List<Player> players : playersOfThreads) {
+			for (int i = 0; i < players.size(); i += 2) {
+				db.removePlayer(players.get(i));
+			}
+		}
+		assertEquals(THREADS * PLAYERS_PER_THREAD / 2, db.getNumberOfPlayers());
+		assertIndexesCorrect();
+	}
+
+	private void startMatch(Match match) throws Exception {
+		PlayerInfoPacket[] playerInfos = match.getPlayerInfos();
+		if (playerInfos.length == 0) {
+			return;
+		}
+		for (PlayerInfoPacket playerInfo : playerInfos) {
+			db.getPlayer(playerInfo.getId()).setReady(true);
+		}
+		db.getPlayer(playerInfos[0].getId()).startMatch(timer);
+	}
+
+	private void assertIndexesCorrect() {
+		List<Player> allPlayers = db.getPlayers(EPlayerState.values());
+		assertEquals(db.getNumberOfPlayers(), allPlayers.size());
+
+		for (EPlayerState state : EPlayerState.values()) {
+			Set<Player> expected = new HashSet<Player>();
+			for (Player player : allPlayers) {
+				if (player.getState() == state) {
+					expected.add(player);
+				}
+			}
+			assertEquals(expected, new HashSet<Player>(db.getPlayers(state)));
+		}
+
+		List<Match> matches = db.getMatches();
+		Set<Match> expectedJoinable = new HashSet<Match>();
+		for (Match match : matches) {
+			if (match.canJoin()) {
+				expectedJoinable.add(match);
+			}
+		}
+		assertEquals(expectedJoinable, new HashSet<Match>(db.getJoinableMatches()));
+
+		int playersInRunningMatches = 0;
+		for (Player player : allPlayers) {
+			Match expectedRunning = null;
+			Set<Match> expectedLeft = new HashSet<Match>();
+			for (Match match : matches) {
+				if (match.isRunning() && match.hasPlayer(player)) {
+					expectedRunning = match;
+				}
+				if (match.isRunning() && match.hasLeftPlayer(player.getId())) {
+					expectedLeft.add(match);
+				}
+			}
+			assertSame(expectedRunning, db.getRunningMatchOf(player));
+			assertEquals(expectedLeft, new HashSet<Match>(db.getJoinableRunningMatches(player)));
+
+			if (expectedRunning != null) {
+				playersInRunningMatches++;
+			}
+		}
+		assertTrue(playersInRunningMatches > 0);
+	}
+
+	private static Match createMatch(String name, int maxPlayers) {
+		return new Match(name, maxPlayers, new MapInfoPacket(name, name, "author", "author", maxPlayers), 0);
+	}
+
+	private static Player createPlayer(String id) throws IOException {
+		return new Player(new PlayerInfoPacket(id, id, false), new Channel(new DiscardingSocket()));
+	}
+
+	/**
+	 * {@link ISocket} discarding all written data. Nothing can be read from it.
+	 */
+	private static class DiscardingSocket implements ISocket {
+		@Override
+		public OutputStream getOutputStream() {
+			return new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+				}
+			};
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new InputStream() {
+				@Override
+				public int read() {
+					return -1;
+				}
+			};
+		}
+
+		@Override
+		public boolean isClosed() {
+			return false;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package jsettlers.network.server.match;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.network.TestUtils;
+import jsettlers.network.client.MatchesListListener;
+import jsettlers.network.client.receiver.IPacketReceiver;
+import jsettlers.network.common.packets.ArrayOfMatchInfosPacket;
+import jsettlers.network.common.packets.MapInfoPacket;
+import jsettlers.network.common.packets.PlayerInfoPacket;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.server.db.inMemory.InMemoryDB;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the {@link MatchesListSendingTimerTask} only sends the changes of the list of matches and that the {@link MatchesListListener}
+ * reassembles the list.
+ */
+public class MatchesListSendingTimerTaskTest {
+	private static final long TIMEOUT = 2000;
+
+	private final List<Channel> channels = new LinkedList<Channel>();
+
+	private InMemoryDB db;
+	private MatchesListSendingTimerTask task;
+	private QueueingPacketReceiver lobbyReceiver;
+	private Player lobbyPlayer;
+
+	@Before
+	public void setUp() throws IOException {
+		db = new InMemoryDB();
+		task = new MatchesListSendingTimerTask(db);
+
+		lobbyReceiver = new QueueingPacketReceiver();
+		lobbyPlayer = createPlayer("lobby", lobbyReceiver);
+		db.storePlayer(lobbyPlayer);
+	}
+
+	@After
+	public void tearDown() {
+		for (Channel channel : channels) {
+			channel.close();
+		}
+	}
+
+	private Player createPlayer(String id, IPacketReceiver<ArrayOfMatchInfosPacket> receiver) throws IOException {
+		Channel[] loopback = TestUtils.setUpLoopbackChannels();
+		channels.add(loopback[0]);
+		channels.add(loopback[1]);
+		loopback[1].registerListener(new MatchesListListener(receiver));
+		return new Player(new PlayerInfoPacket(id, id, false), loopback[0]);
+	}
+
+	@Test
+	public void testOnlyChangesAreSent() throws Exception {
+		task.sendMatchesTo(lobbyPlayer);
+		task.run();
+		task.run();
+		assertEquals(0, receiveMatches(1).getMatches().length);
+		assertEquals(1, task.getSentFullLists());
+
+		Player host = createPlayer("host", null);
+		db.storePlayer(host);
+		Match match = new Match("match", 4, new MapInfoPacket("map", "map", "author", "author", 4), 0);
+		db.storeMatch(match);
+		host.joinMatch(match);
+
+		task.run();
+		task.run();
+		ArrayOfMatchInfosPacket matches = receiveMatches(1);
+		assertEquals(1, matches.getMatches().length);
+		assertEquals(1, matches.getMatches()[0].getPlayers().length);
+		assertEquals(false, matches.getMatches()[0].getPlayers()[0].isReady());
+		assertEquals(1, task.getSentDeltas());
+
+		host.setReady(true);
+		task.run();
+		assertEquals(true, receiveMatches(1).getMatches()[0].getPlayers()[0].isReady());
+		assertEquals(2, task.getSentDeltas());
+
+		host.leaveMatch(); // the host returns to the lobby and gets the full list
+		task.run();
+		assertEquals(0, receiveMatches(1).getMatches()[0].getPlayers().length);
+		assertEquals(3, task.getSentDeltas());
+		assertEquals(2, task.getSentFullLists());
+		assertEquals(3, task.getListVersion());
+	}
+
+	@Test
+	public void testMatchesNotJoinableAnymoreAreRemoved() throws Exception {
+		task.sendMatchesTo(lobbyPlayer);
+
+		Player host = createPlayer("host", null);
+		db.storePlayer(host);
+		Match match = new Match("match", 1, new MapInfoPacket("map", "map", "author", "author", 1), 0);
+		db.storeMatch(match);
+		task.run();
+		assertEquals(1, receiveMatches(2).getMatches().length);
+
+		host.joinMatch(match); // the match is full now
+		task.run();
+		assertEquals(0, receiveMatches(1).getMatches().length);
+	}
+
+	/**
+	 * Waits until the lobby player received the given number of packets.
+	 * 
+	 * @return The last received packet.
+	 */
+	private ArrayOfMatchInfosPacket receiveMatches(int expectedPackets) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		ArrayOfMatchInfosPacket packet = null;
+		for (int i = 0; i < expectedPackets; i++) {
+			packet = lobbyReceiver.packets.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+			assertNotNull("timed out waiting for packet " + (i + 1) + " of " + expectedPackets, packet);
+		}
+		assertTrue("more packets than expected", lobbyReceiver.packets.isEmpty());
+		return packet;
+	}
+
+	/**
+	 * Collects the received packets in a queue, so that the test thread can wait for them.
+	 */
+	private static class QueueingPacketReceiver implements IPacketReceiver<ArrayOfMatchInfosPacket> {
+		final LinkedBlockingQueue<ArrayOfMatchInfosPacket> packets = new LinkedBlockingQueue<ArrayOfMatchInfosPacket>();
+
+		@Override
+		public void receivePacket(ArrayOfMatchInfosPacket packet) {
+			packets.add(packet);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package jsettlers.network.server.match.lockstep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link StateChecksumVerifier}.
+ */
+public class StateChecksumVerifierTest {
+	private final StateChecksumVerifier verifier = new StateChecksumVerifier(new ConsoleLogger("test"));
+
+	@Test
+	public void testEqualChecksums() {
+		for (int lockstep = 0; lockstep < 100; lockstep += 10) {
+			assertTrue(verifier.receivedChecksum("player1", lockstep, lockstep * 31L));
+			assertTrue(verifier.receivedChecksum("player2", lockstep, lockstep * 31L));
+			assertTrue(verifier.receivedChecksum("player3", lockstep, lockstep * 31L));
+		}
+
+		assertEquals(20, verifier.getVerifiedChecksums());
+		assertEquals(StateChecksumVerifier.NO_DESYNC, verifier.getFirstDesyncLockstep());
+	}
+
+	@Test
+	public void testFirstDesyncIsDetected() {
+		assertTrue(verifier.receivedChecksum("player1", 10, 1L));
+		assertTrue(verifier.receivedChecksum("player2", 10, 1L));
+
+		assertTrue(verifier.receivedChecksum("player1", 20, 2L));
+		assertFalse(verifier.receivedChecksum("player2", 20, 3L));
+		assertEquals(20, verifier.getFirstDesyncLockstep());
+
+		assertTrue(verifier.receivedChecksum("player1", 30, 4L));
+		assertFalse(verifier.receivedChecksum("player2", 30, 5L));
+		assertEquals(20, verifier.getFirstDesyncLockstep());
+	}
+
+	@Test
+	public void testEarlierDesyncOfSlowerPlayerIsDetected() {
+		assertTrue(verifier.receivedChecksum("player1", 10, 1L));
+		assertTrue(verifier.receivedChecksum("player1", 20, 2L));
+		assertTrue(verifier.receivedChecksum("player2", 10, 1L));
+		assertFalse(verifier.receivedChecksum("player2", 20, 3L));
+		assertEquals(20, verifier.getFirstDesyncLockstep());
+
+		assertFalse(verifier.receivedChecksum("player3", 10, 7L));
+		assertEquals(10, verifier.getFirstDesyncLockstep());
+	}
+
+	@Test
+	public void testOutdatedChecksumsAreDropped() {
+		for (int lockstep = 0; lockstep < 10000; lockstep += 10) {
+			assertTrue(verifier.receivedChecksum("player1", lockstep, lockstep));
+		}
+
+		assertTrue(verifier.receivedChecksum("player2", 0, 4711L)); // dropped => not verifiable
+		assertFalse(verifier.receivedChecksum("player2", 9990, 4711L));
+		assertEquals(9990, verifier.getFirstDesyncLockstep());
+	}
+}
@@ -0,0 +1,50 @@
+package jsettlers.network.server.match.lockstep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+
+import org.junit.Test;
+
+/**
+ * Tests the adaption of the lead steps of the {@link TaskSendingTimerTask}.
+ */
+public class TaskSendingTimerTaskTest {
+	private final TaskSendingTimerTask task = new TaskSendingTimerTask(new ConsoleLogger("test"), new TaskCollectingListener(), null);
+
+	@Test
+	public void testLeadStepsAdaptToSimulationCost() {
+		for (int i = 0; i < 20; i++) {
+			task.pingUpdated(20, 5);
+		}
+		int leadStepsForRtt = task.getLeadSteps();
+
+		task.receivedClientStatistics("player1", 1000, 0);
+		task.receivedClientStatistics("player2", 40000, 0); // 40 ms per time slice => 80 ms per lockstep
+		assertTrue(task.getLeadSteps() > leadStepsForRtt);
+		int leadStepsForSlowClient = task.getLeadSteps();
+
+		task.receivedClientStatistics("player2", 1000, 0); // the slow client recovered
+		for (int i = 0; i < 20; i++) {
+			task.pingUpdated(20, 5);
+		}
+		assertTrue(task.getLeadSteps() < leadStepsForSlowClient);
+		assertEquals(leadStepsForRtt, task.getLeadSteps());
+	}
+
+	@Test
+	public void testStallTimePerPlayer() {
+		assertEquals(-1, task.getStallTimeMs("player1"));
+
+		task.receivedClientStatistics("player1", 1000, 0);
+		task.receivedClientStatistics("player2", 2000, 0);
+		task.receivedClientStatistics("player1", 1000, 200);
+		task.receivedClientStatistics("player2", 2000, NetworkConstants.STALL_LOGGING_THRESHOLD + 100);
+
+		assertEquals(200, task.getStallTimeMs("player1"));
+		assertEquals(NetworkConstants.STALL_LOGGING_THRESHOLD + 100, task.getStallTimeMs("player2"));
+		assertEquals(2000, task.getAverageTickMicros("player2"));
+	}
+}
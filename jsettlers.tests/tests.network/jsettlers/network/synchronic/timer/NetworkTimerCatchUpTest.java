@@ -0,0 +1,73 @@
+package jsettlers.network.synchronic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the catch up of the {@link NetworkTimer} after stalls and slow ticks.
+ */
+public class NetworkTimerCatchUpTest {
+	private NetworkTimer timer;
+
+	@After
+	public void tearDown() {
+		timer.stopExecution();
+	}
+
+	@Test
+	public void testStallIsMeasuredAndCaughtUp() throws InterruptedException {
+		timer = new NetworkTimer();
+		timer.startExecution();
+
+		Thread.sleep(300); // no lockstep has been allowed
+		assertEquals(0, timer.getTime());
+		assertTrue("stall time: " + timer.getStallTimeMs(), timer.getStallTimeMs() >= 200);
+
+		for (int lockstep = 0; lockstep < 100; lockstep++) {
+			timer.scheduleSyncTasksPacket(new SyncTasksPacket(lockstep, new LinkedList<TaskPacket>()));
+		}
+		Thread.sleep(100);
+
+		assertTrue("time: " + timer.getTime(), timer.getTime() >= 300); // the stalled slices have been caught up
+		assertTrue(timer.getCatchUpSlices() > 0);
+
+		int stallTime = timer.getStallTimeMs();
+		Thread.sleep(100);
+		assertEquals(stallTime, timer.getStallTimeMs());
+	}
+
+	@Test
+	public void testSlowTickIsCaughtUp() throws InterruptedException {
+		timer = new NetworkTimer(true);
+		timer.schedule(new INetworkTimerable() {
+			private boolean slept;
+
+			@Override
+			public void timerEvent() {
+				if (!slept) {
+					slept = true;
+					try {
+						Thread.sleep(300);
+					} catch (InterruptedException e) {
+					}
+				}
+			}
+		}, NetworkTimer.TIME_SLICE);
+		timer.startExecution();
+
+		Thread.sleep(1000);
+
+		assertTrue("time: " + timer.getTime(), timer.getTime() >= 800);
+		assertTrue(timer.getCatchUpSlices() >= 4);
+		assertTrue(timer.getAverageTickMicros() > 0);
+		assertEquals(0, timer.getStallTimeMs());
+	}
+}
@@ -0,0 +1,44 @@
+package jsettlers.network.synchronic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jsettlers.network.NetworkConstants;
+
+import org.junit.Test;
+
+/**
+ * Tests the calculation of the state checksums by the {@link NetworkTimer}.
+ */
+public class NetworkTimerStateChecksumTest {
+
+	@Test
+	public void testChecksumsAreCalculatedEveryInterval() {
+		final List<Integer> locksteps = new ArrayList<Integer>();
+		NetworkTimer timer = new NetworkTimer(true);
+		timer.setStateChecksumCalculator(new IStateChecksumCalculator() {
+			@Override
+			public long calculateStateChecksum(int lockstep) {
+				locksteps.add(lockstep);
+				return lockstep * 3L;
+			}
+		});
+
+		int interval = NetworkConstants.Client.STATE_CHECKSUM_INTERVAL_LOCKSTEPS;
+		timer.fastForwardTo(5 * interval * NetworkConstants.Client.LOCKSTEP_PERIOD);
+		timer.stopExecution();
+
+		assertEquals(5, locksteps.size());
+		for (int i = 0; i < locksteps.size(); i++) {
+			assertEquals((i + 1) * interval, (int) locksteps.get(i));
+		}
+
+		StateChecksum checksum = timer.pollStateChecksum();
+		assertEquals(5 * interval, checksum.getLockstep());
+		assertEquals(5 * interval * 3L, checksum.getChecksum());
+		assertNull(timer.pollStateChecksum());
+	}
+}
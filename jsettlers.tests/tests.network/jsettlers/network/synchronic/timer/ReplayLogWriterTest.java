@@ -0,0 +1,187 @@
+package jsettlers.network.synchronic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import jsettlers.network.client.task.TestTaskPacket;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link ReplayLogWriter} and the replay logs written by the {@link NetworkTimer}.
+ */
+public class ReplayLogWriterTest {
+	private static final int HEADER = 4711;
+
+	@Test
+	public void testUncompressedLogCanBeRead() throws IOException {
+		assertPacketsWrittenAndRead(false, 1024, 500);
+	}
+
+	@Test
+	public void testCompressedLogCanBeRead() throws IOException {
+		assertPacketsWrittenAndRead(true, 1024, 500);
+	}
+
+	@Test
+	public void testFullQueueLosesNoPackets() throws IOException {
+		assertPacketsWrittenAndRead(true, 2, 300);
+	}
+
+	@Test
+	public void testSlowStreamDoesNotBlockWriting() throws IOException {
+		SlowOutputStream out = new SlowOutputStream(20);
+		ReplayLogWriter writer = new ReplayLogWriter(out, 1024, 1000, false);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 100; i++) {
+			writer.write(createPacket(i));
+		}
+		long writeMillis = (System.nanoTime() - start) / 1000000;
+
+		assertTrue("writing took " + writeMillis + " ms", writeMillis < 100);
+		assertTrue(writer.getMaxQueueDepth() > 1);
+
+		writer.close();
+		assertEquals(0, writer.getQueueDepth());
+		assertEquals(100, writer.getWrittenPackets());
+		assertTrue(writer.getMaxWriteLatencyNanos() >= 20 * 1000000);
+		assertTrue(out.writes < 100); // packets are written in batches
+		assertTrue(out.closed);
+	}
+
+	@Test
+	public void testFlushIntervalAndFlushRequest() throws Exception {
+		SlowOutputStream out = new SlowOutputStream(0);
+		ReplayLogWriter writer = new ReplayLogWriter(out, 1024, 50, false);
+
+		writer.write(createPacket(1));
+		Thread.sleep(200);
+		assertEquals(1, out.flushes);
+
+		writer.flush(); // nothing new written
+		Thread.sleep(50);
+		assertEquals(1, out.flushes);
+
+		writer.write(createPacket(2));
+		writer.flush();
+		Thread.sleep(100);
+		assertEquals(2, out.flushes);
+
+		writer.close();
+	}
+
+	@Test
+	public void testNetworkTimerReplayLog() throws Exception {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(buffer);
+		dos.writeInt(HEADER);
+
+		NetworkTimer timer = new NetworkTimer(true);
+		timer.setReplayLogStream(dos);
+		for (int i = 1; i <= 10; i++) {
+			timer.scheduleSyncTasksPacket(createPacket(i));
+		}
+		timer.stopExecution();
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+		assertEquals(HEADER, in.readInt());
+
+		NetworkTimer replayTimer = new NetworkTimer(true);
+		TaskExecutorMock taskExecutor = new TaskExecutorMock();
+		replayTimer.setTaskExecutor(taskExecutor);
+		replayTimer.loadReplayLogFromStream(in);
+		replayTimer.fastForwardTo(20 * 100);
+		replayTimer.stopExecution();
+
+		List<TaskPacket> executedTasks = taskExecutor.popBufferedPackets();
+		assertEquals(10, executedTasks.size());
+		for (int i = 1; i <= 10; i++) {
+			assertEquals(createPacket(i).getTasks().get(0), executedTasks.get(i - 1));
+		}
+	}
+
+	private void assertPacketsWrittenAndRead(boolean compress, int queueCapacity, int numberOfPackets) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(buffer);
+		dos.writeInt(HEADER);
+
+		ReplayLogWriter writer = new ReplayLogWriter(dos, queueCapacity, 1000, compress);
+		List<SyncTasksPacket> packets = new ArrayList<SyncTasksPacket>();
+		for (int i = 0; i < numberOfPackets; i++) {
+			SyncTasksPacket packet = createPacket(i);
+			packets.add(packet);
+			writer.write(packet);
+		}
+		writer.close();
+		assertTrue(writer.getMaxQueueDepth() <= queueCapacity);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+		assertEquals(HEADER, in.readInt());
+		in = ReplayLogWriter.openForReading(in);
+
+		for (SyncTasksPacket expected : packets) {
+			SyncTasksPacket read = new SyncTasksPacket();
+			read.deserialize(in);
+			assertEquals(expected, read);
+		}
+		assertEquals(-1, in.read());
+	}
+
+	private static SyncTasksPacket createPacket(int lockstep) {
+		List<TaskPacket> tasks = new LinkedList<TaskPacket>();
+		tasks.add(new TestTaskPacket("task" + lockstep, lockstep, (byte) 2));
+		return new SyncTasksPacket(lockstep, tasks);
+	}
+
+	/**
+	 * Stream discarding the data and sleeping on every write.
+	 */
+	private static class SlowOutputStream extends OutputStream {
+		private final long sleepMillis;
+		volatile int writes;
+		volatile int flushes;
+		volatile boolean closed;
+
+		SlowOutputStream(long sleepMillis) {
+			this.sleepMillis = sleepMillis;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			writes++;
+			try {
+				Thread.sleep(sleepMillis);
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void flush() {
+			flushes++;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package jsettlers.algorithms.borders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import jsettlers.common.movable.EDirection;
+
+import org.junit.Test;
+
+/**
+ * Test for the batched calculation of the {@link BordersThread}. The results are compared with a complete recomputation of the borders.
+ */
+public class BordersThreadTest {
+	private static final short WIDTH = 80;
+	private static final short HEIGHT = 70;
+
+	private final Random random = new Random(2345);
+	private final TestBordersGrid grid = new TestBordersGrid();
+	private final BordersThread bordersThread = new BordersThread(grid, WIDTH, HEIGHT);
+
+	@Test
+	public void testCoalescing() {
+		assertFalse(bordersThread.calculateBatch());
+
+		bordersThread.checkPosition(10, 10);
+		bordersThread.checkPosition(10, 10);
+		bordersThread.checkPosition(11, 10);
+		assertEquals(2, bordersThread.getQueueDepth());
+
+		assertTrue(bordersThread.calculateBatch());
+		assertEquals(0, bordersThread.getQueueDepth());
+		assertEquals(2, bordersThread.getLastBatchSize());
+		assertEquals(1, bordersThread.getProcessedBatches());
+		assertFalse(bordersThread.calculateBatch());
+	}
+
+	@Test
+	public void testCompleteCalculation() {
+		fillRandom();
+		checkAll();
+		bordersThread.calculateBatch();
+		assertBordersCorrect();
+	}
+
+	@Test
+	public void testIncrementalChanges() {
+		fillRandom();
+		checkAll();
+		bordersThread.calculateBatch();
+
+		for (int step = 0; step < 30; step++) {
+			for (int i = 0; i < 50; i++) { // occupy some areas as happens when a tower is captured
+				int x = random.nextInt(WIDTH);
+				int y = random.nextInt(HEIGHT);
+				byte player = (byte) (random.nextInt(4) - 1);
+				for (int dy = -2; dy <= 2; dy++) {
+					for (int dx = -2; dx <= 2; dx++) {
+						if (isInBounds(x + dx, y + dy)) {
+							grid.players[x + dx][y + dy] = player;
+							bordersThread.checkPosition(x + dx, y + dy);
+						}
+					}
+				}
+			}
+			bordersThread.calculateBatch();
+			assertBordersCorrect();
+		}
+	}
+
+	@Test
+	public void testBorderOfMapIsNoBorder() {
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				grid.players[x][y] = 1;
+				grid.blockedPartitions[x][y] = 1;
+			}
+		}
+		checkAll();
+		bordersThread.calculateBatch();
+		assertFalse(grid.borders[0][0]);
+		assertFalse(grid.borders[WIDTH - 1][HEIGHT - 1]);
+		assertBordersCorrect();
+	}
+
+	private void fillRandom() {
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				grid.players[x][y] = (byte) (random.nextInt(4) - 1);
+				grid.blockedPartitions[x][y] = (short) (random.nextInt(10) == 0 ? 0 : 1);
+				grid.borders[x][y] = random.nextBoolean();
+			}
+		}
+	}
+
+	private void checkAll() {
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				bordersThread.checkPosition(x, y);
+			}
+		}
+	}
+
+	private void assertBordersCorrect() {
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				assertEquals("(" + x + "|" + y + ")", isBorder(x, y), grid.borders[x][y]);
+			}
+		}
+	}
+
+	private boolean isBorder(int x, int y) {
+		byte player = grid.players[x][y];
+		if (player < 0 || grid.blockedPartitions[x][y] <= 0) {
+			return false;
+		}
+
+		for (EDirection dir : EDirection.values) {
+			int nx = dir.getNextTileX(x);
+			int ny = dir.getNextTileY(y);
+			if (isInBounds(nx, ny) && grid.blockedPartitions[nx][ny] > 0 && grid.players[nx][ny] != player) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isInBounds(int x, int y) {
+		return x >= 0 && x < WIDTH && y >= 0 && y < HEIGHT;
+	}
+
+	private static class TestBordersGrid implements IBordersThreadGrid {
+		final byte[][] players = new byte[WIDTH][HEIGHT];
+		final short[][] blockedPartitions = new short[WIDTH][HEIGHT];
+		final boolean[][] borders = new boolean[WIDTH][HEIGHT];
+
+		@Override
+		public byte getPlayerIdAt(short x, short y) {
+			return players[x][y];
+		}
+
+		@Override
+		public void setBorderAt(short x, short y, boolean isBorder) {
+			borders[x][y] = isBorder;
+		}
+
+		@Override
+		public boolean isInBounds(short x, short y) {
+			return BordersThreadTest.isInBounds(x, y);
+		}
+
+		@Override
+		public short getBlockedPartition(short x, short y) {
+			return blockedPartitions[x][y];
+		}
+	}
+}
@@ -0,0 +1,347 @@
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.TestUtils;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
+import jsettlers.common.map.shapes.MapCircle;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for the incremental update of the {@link FogOfWar}. The results are compared with a complete recomputation of the visible positions.
+ */
+public class FogOfWarTest {
+	private static final short WIDTH = 150;
+	private static final short HEIGHT = 120;
+	private static final byte PLAYER = 0;
+
+	private final Random random = new Random(4321);
+	private final TestFogOfWarGrid grid = new TestFogOfWarGrid();
+	private FogOfWar fogOfWar;
+
+	@Before
+	public void setUp() {
+		fogOfWar = new FogOfWar(WIDTH, HEIGHT, PLAYER, false);
+		fogOfWar.start(grid);
+		fogOfWar.cancel(); // the updates are triggered by the test
+	}
+
+	@Test
+	public void testAddMoveRemove() {
+		TestViewer viewer = new TestViewer(50, 50, 10, PLAYER);
+		grid.movables.add(viewer);
+		fogOfWar.update();
+		assertVisible(viewer);
+
+		viewer.setPos(80, 60);
+		fogOfWar.update();
+		assertVisible(viewer);
+		assertFalse(fogOfWar.isVisible(50, 50));
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(50, 50)); // not dimmed yet
+
+		grid.movables.remove(viewer);
+		fogOfWar.update();
+		assertFalse(fogOfWar.isVisible(80, 60));
+	}
+
+	@Test
+	public void testOtherPlayerIsIgnored() {
+		grid.buildings.add(new TestViewer(50, 50, 10, (byte) 1));
+		fogOfWar.update();
+		assertFalse(fogOfWar.isVisible(50, 50));
+		assertEquals(0, fogOfWar.getVisibleStatus(50, 50));
+	}
+
+	@Test
+	public void testDimDownToExplored() {
+		TestViewer viewer = new TestViewer(50, 50, 10, PLAYER);
+		grid.movables.add(viewer);
+		fogOfWar.update();
+		grid.movables.remove(viewer);
+		fogOfWar.update();
+
+		for (int i = 0; i < 10; i++) {
+			fogOfWar.dimDown();
+		}
+		assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, fogOfWar.getVisibleStatus(50, 50));
+		assertEquals(0, fogOfWar.getVisibleStatus(10, 10));
+	}
+
+	@Test
+	public void testRandomUpdatesEqualRecomputation() {
+		ArrayList<TestViewer> viewers = new ArrayList<TestViewer>();
+		for (int i = 0; i < 40; i++) {
+			TestViewer viewer = createRandomViewer();
+			viewers.add(viewer);
+			grid.movables.add(viewer);
+		}
+
+		for (int step = 0; step < 50; step++) {
+			for (TestViewer viewer : viewers) {
+				if (random.nextInt(3) == 0) {
+					viewer.setPos(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+				}
+				if (random.nextInt(10) == 0) {
+					viewer.viewDistance = (short) random.nextInt(FogOfWar.MAX_VIEWDISTANCE + 10);
+				}
+			}
+			if (random.nextInt(3) == 0) {
+				TestViewer removed = viewers.remove(random.nextInt(viewers.size()));
+				grid.movables.remove(removed);
+				grid.buildings.remove(removed);
+			}
+			if (random.nextInt(3) == 0) {
+				TestViewer added = createRandomViewer();
+				viewers.add(added);
+				grid.buildings.add(added);
+			}
+
+			fogOfWar.update();
+			assertEqualsRecomputation(viewers);
+		}
+	}
+
+	@Test
+	public void testListenerGetsChangedRegions() {
+		final ArrayList<int[]> regions = new ArrayList<int[]>();
+		fogOfWar.setListener(new IGraphicsFogOfWarListener() {
+			@Override
+			public void fogOfWarChanged(int minX, int minY, int maxX, int maxY) {
+				regions.add(new int[] { minX, minY, maxX, maxY });
+			}
+		});
+
+		grid.movables.add(new TestViewer(WIDTH - 1, HEIGHT - 1, 1, PLAYER)); // the circle and its rim are inside of the last region
+		fogOfWar.update();
+		fogOfWar.publishChangedRegions();
+
+		assertEquals(1, regions.size());
+		int[] region = regions.get(0);
+		assertEquals(4 * FogOfWar.CHANGED_REGION_SIZE, region[0]);
+		assertEquals(3 * FogOfWar.CHANGED_REGION_SIZE, region[1]);
+		assertEquals(WIDTH - 1, region[2]);
+		assertEquals(HEIGHT - 1, region[3]);
+
+		regions.clear();
+		fogOfWar.update();
+		fogOfWar.publishChangedRegions();
+		assertTrue(regions.isEmpty());
+	}
+
+	@Test
+	public void testListenerGetsWholeMapWhenToggled() {
+		final ArrayList<int[]> regions = new ArrayList<int[]>();
+		fogOfWar.setListener(new IGraphicsFogOfWarListener() {
+			@Override
+			public void fogOfWarChanged(int minX, int minY, int maxX, int maxY) {
+				regions.add(new int[] { minX, minY, maxX, maxY });
+			}
+		});
+
+		fogOfWar.toggleEnabled();
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(10, 10));
+
+		assertEquals(1, regions.size());
+		int[] region = regions.get(0);
+		assertEquals(0, region[0]);
+		assertEquals(0, region[1]);
+		assertEquals(WIDTH - 1, region[2]);
+		assertEquals(HEIGHT - 1, region[3]);
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		TestViewer viewer = new TestViewer(50, 50, 10, PLAYER);
+		grid.movables.add(viewer);
+		fogOfWar.update();
+
+		FogOfWar readFogOfWar = TestUtils.serializeAndDeserialize(fogOfWar);
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				assertEquals(fogOfWar.getVisibleStatus(x, y), readFogOfWar.getVisibleStatus(x, y));
+			}
+		}
+
+		for (int i = 0; i < 10; i++) { // without any viewers, the read fog of war dims down
+			readFogOfWar.dimDown();
+		}
+		assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, readFogOfWar.getVisibleStatus(50, 50));
+	}
+
+	@Test
+	public void testRimGradient() {
+		TestViewer viewer = new TestViewer(50, 60, 10, PLAYER);
+		grid.movables.add(viewer);
+		fogOfWar.update();
+
+		int rimPositions = 0;
+		for (int x = 50; x < WIDTH; x++) {
+			byte sight = fogOfWar.getVisibleStatus(x, 60);
+			if (isInCore(viewer, x, 60)) {
+				assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, sight);
+			} else {
+				assertTrue(sight <= fogOfWar.getVisibleStatus(x - 1, 60));
+				if (sight > 0 && sight < CommonConstants.FOG_OF_WAR_VISIBLE) {
+					rimPositions++;
+				}
+			}
+		}
+		assertTrue(rimPositions >= FogOfWar.PADDING / 2);
+
+		// the rim of a viewer that stays at its position doesn't fade
+		byte[] rim = getRow(60);
+		for (int i = 0; i < 10; i++) {
+			fogOfWar.dimDown();
+		}
+		assertArrayEquals(rim, getRow(60));
+
+		grid.movables.remove(viewer);
+		fogOfWar.update();
+		for (int i = 0; i < 10; i++) {
+			fogOfWar.dimDown();
+		}
+		for (int x = 0; x < WIDTH; x++) {
+			if (rim[x] >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+				assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, fogOfWar.getVisibleStatus(x, 60));
+			} else {
+				assertEquals(rim[x], fogOfWar.getVisibleStatus(x, 60));
+			}
+		}
+	}
+
+	@Test
+	public void testVisibleAfterLoad() throws IOException, ClassNotFoundException {
+		ArrayList<TestViewer> viewers = new ArrayList<TestViewer>();
+		for (int i = 0; i < 20; i++) {
+			TestViewer viewer = createRandomViewer();
+			viewers.add(viewer);
+			grid.movables.add(viewer);
+		}
+		fogOfWar.update();
+
+		fogOfWar = TestUtils.serializeAndDeserialize(fogOfWar);
+		fogOfWar.start(grid);
+		fogOfWar.cancel();
+		assertEqualsRecomputation(viewers);
+
+		// the viewers of the savegame are known, so the fog of war doesn't change until they move
+		final ArrayList<int[]> regions = new ArrayList<int[]>();
+		fogOfWar.setListener(new IGraphicsFogOfWarListener() {
+			@Override
+			public void fogOfWarChanged(int minX, int minY, int maxX, int maxY) {
+				regions.add(new int[] { minX, minY, maxX, maxY });
+			}
+		});
+		fogOfWar.update();
+		fogOfWar.dimDown();
+		fogOfWar.publishChangedRegions();
+		assertTrue(regions.isEmpty());
+	}
+
+	private byte[] getRow(int y) {
+		byte[] row = new byte[WIDTH];
+		for (int x = 0; x < WIDTH; x++) {
+			row[x] = fogOfWar.getVisibleStatus(x, y);
+		}
+		return row;
+	}
+
+	private TestViewer createRandomViewer() {
+		return new TestViewer(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(30), (byte) random.nextInt(2));
+	}
+
+	private void assertVisible(TestViewer viewer) {
+		assertTrue(fogOfWar.isVisible(viewer.pos.x, viewer.pos.y));
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(viewer.pos.x, viewer.pos.y));
+	}
+
+	private void assertEqualsRecomputation(ArrayList<TestViewer> viewers) {
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				boolean expected = false;
+				for (TestViewer viewer : viewers) {
+					if (viewer.getPlayerId() == PLAYER && viewer.viewDistance > 0 && isInCore(viewer, x, y)) {
+						expected = true;
+						break;
+					}
+				}
+				assertEquals("(" + x + "|" + y + ")", expected, fogOfWar.isVisible(x, y));
+			}
+		}
+	}
+
+	private static boolean isInCore(TestViewer viewer, int x, int y) {
+		int radius = Math.min(viewer.viewDistance + FogOfWar.PADDING, FogOfWar.MAX_VIEWDISTANCE - 1) - FogOfWar.PADDING / 2;
+		return MapCircle.getSquaredDistance(x - viewer.pos.x, y - viewer.pos.y) < radius * radius;
+	}
+
+	private static class TestViewer implements IViewDistancable {
+		private final byte player;
+		ShortPoint2D pos;
+		short viewDistance;
+
+		TestViewer(int x, int y, int viewDistance, byte player) {
+			this.player = player;
+			this.viewDistance = (short) viewDistance;
+			setPos(x, y);
+		}
+
+		void setPos(int x, int y) {
+			this.pos = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return pos;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return player;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+
+	private static class TestFogOfWarGrid implements IFogOfWarGrid {
+		final ConcurrentLinkedQueue<TestViewer> movables = new ConcurrentLinkedQueue<TestViewer>();
+		final ConcurrentLinkedQueue<TestViewer> buildings = new ConcurrentLinkedQueue<TestViewer>();
+
+		@Override
+		public IMovable getMovableAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public IMapObject getMapObjectsAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
+			return movables;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
+			return buildings;
+		}
+	}
+}
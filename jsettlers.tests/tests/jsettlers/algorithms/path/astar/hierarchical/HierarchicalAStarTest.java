@@ -0,0 +1,187 @@
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.test.DummyEmptyAStarMap;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link HierarchicalAStar}.
+ */
+public class HierarchicalAStarTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+	private static final short PLAYERS_BORDER = 100;
+
+	private final PlayerGroundMap map = new PlayerGroundMap(WIDTH, HEIGHT);
+	private final SectorGraphs graphs = new SectorGraphs(map, WIDTH, HEIGHT);
+	private final HierarchicalAStar hierarchicalAStar = createHierarchicalAStar(graphs);
+	private final BucketQueueAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+
+	@Test
+	public void testPathsAreValid() {
+		buildWalls();
+
+		Random random = new Random(123);
+		for (int i = 0; i < 200; i++) {
+			IPathCalculatable requester = getPathable(getFreePosition(random), false);
+			ShortPoint2D target = getFreePosition(random);
+			Path path = hierarchicalAStar.findPath(requester, target);
+			Path aStarPath = aStar.findPath(requester, target);
+
+			if (aStarPath == null) {
+				assertNull(path);
+			} else {
+				assertValidPath(requester, target, path);
+				assertTrue(path.getLength() <= aStarPath.getLength() * 1.3f + 2);
+			}
+		}
+	}
+
+	@Test
+	public void testUnreachableTarget() {
+		for (int x = 140; x <= 160; x++) {
+			map.setBlocked(x, 140, true);
+			map.setBlocked(x, 160, true);
+			graphs.blockingChanged(x, 140);
+			graphs.blockingChanged(x, 160);
+		}
+		for (int y = 140; y <= 160; y++) {
+			map.setBlocked(140, y, true);
+			map.setBlocked(160, y, true);
+			graphs.blockingChanged(140, y);
+			graphs.blockingChanged(160, y);
+		}
+
+		assertNull(hierarchicalAStar.findPath(getPathable(new ShortPoint2D(10, 10), false), new ShortPoint2D(150, 150)));
+	}
+
+	@Test
+	public void testIncrementalUpdateEqualsNewGraph() {
+		Random random = new Random(42);
+		ShortPoint2D[] starts = new ShortPoint2D[50];
+		ShortPoint2D[] targets = new ShortPoint2D[starts.length];
+		for (int i = 0; i < starts.length; i++) {
+			starts[i] = getFreePosition(random);
+			targets[i] = getFreePosition(random);
+		}
+		findPaths(hierarchicalAStar, starts, targets); // build the graph before changing the map
+
+		buildWalls();
+
+		HierarchicalAStar newHierarchicalAStar = createHierarchicalAStar(new SectorGraphs(map, WIDTH, HEIGHT));
+		assertEquals(findPaths(newHierarchicalAStar, starts, targets), findPaths(hierarchicalAStar, starts, targets));
+		assertTrue(graphs.getGraph(getPathable(starts[0], false)).getRebuiltSectors() > 0);
+	}
+
+	@Test
+	public void testPlayersGround() {
+		IPathCalculatable requester = getPathable(new ShortPoint2D(10, 100), true);
+		assertNull(hierarchicalAStar.findPath(requester, new ShortPoint2D(180, 100)));
+
+		Path path = hierarchicalAStar.findPath(requester, new ShortPoint2D(90, 190));
+		assertValidPath(requester, new ShortPoint2D(90, 190), path);
+
+		IPathCalculatable otherRequester = getPathable(new ShortPoint2D(10, 100), false);
+		assertValidPath(otherRequester, new ShortPoint2D(180, 100), hierarchicalAStar.findPath(otherRequester, new ShortPoint2D(180, 100)));
+	}
+
+	private void buildWalls() {
+		for (int y = 0; y < 170; y++) {
+			setBlocked(60, y);
+		}
+		for (int y = 30; y < HEIGHT; y++) {
+			setBlocked(130, y);
+		}
+		for (int x = 20; x < 180; x++) {
+			if (x % 40 != 0) {
+				setBlocked(x, 100);
+			}
+		}
+	}
+
+	private void setBlocked(int x, int y) {
+		map.setBlocked(x, y, true);
+		graphs.blockingChanged(x, y);
+	}
+
+	private String findPaths(HierarchicalAStar astar, ShortPoint2D[] starts, ShortPoint2D[] targets) {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < starts.length; i++) {
+			if (!map.isBlocked(null, starts[i].x, starts[i].y)) {
+				result.append(astar.findPath(getPathable(starts[i], false), targets[i])).append('\n');
+			}
+		}
+		return result.toString();
+	}
+
+	private void assertValidPath(IPathCalculatable requester, ShortPoint2D target, Path path) {
+		assertNotNull(path);
+		ShortPoint2D current = requester.getPos();
+		while (!path.isFinished()) {
+			ShortPoint2D next = path.getNextPos();
+			assertEquals(1, ShortPoint2D.getOnGridDist(next.x - current.x, next.y - current.y));
+			assertFalse(map.isBlocked(requester, next.x, next.y));
+			current = next;
+			path.goToNextStep();
+		}
+		assertEquals(target, current);
+	}
+
+	private ShortPoint2D getFreePosition(Random random) {
+		short x, y;
+		do {
+			x = (short) random.nextInt(WIDTH);
+			y = (short) random.nextInt(HEIGHT);
+		} while (map.isBlocked(null, x, y));
+		return new ShortPoint2D(x, y);
+	}
+
+	private HierarchicalAStar createHierarchicalAStar(SectorGraphs sectorGraphs) {
+		return new HierarchicalAStar(map, sectorGraphs, new BucketQueueAStar(map, WIDTH, HEIGHT), WIDTH, HEIGHT);
+	}
+
+	private static IPathCalculatable getPathable(final ShortPoint2D pos, final boolean needsPlayersGround) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPos() {
+				return pos;
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return needsPlayersGround;
+			}
+		};
+	}
+
+	/**
+	 * Map where the ground of the player ends at {@link HierarchicalAStarTest#PLAYERS_BORDER}.
+	 */
+	private static class PlayerGroundMap extends DummyEmptyAStarMap {
+		PlayerGroundMap(short width, short height) {
+			super(width, height);
+		}
+
+		@Override
+		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+			return super.isBlocked(requester, x, y) || (requester != null && requester.needsPlayersGround() && x >= PLAYERS_BORDER);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package jsettlers.algorithms.path.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.Random;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.test.DummyEmptyAStarMap;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+/**
+ * Test for the classes {@link PathCache} and {@link CachingAStar}.
+ */
+public class PathCacheTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final PathCache cache = new PathCache(WIDTH, HEIGHT);
+	private final CachingAStar cachingAStar = new CachingAStar(new BucketQueueAStar(map, WIDTH, HEIGHT), cache);
+	private final BucketQueueAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+
+	@Test
+	public void testHitsAndMisses() {
+		Path first = findPath(10, 10, 40, 30);
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		Path second = findPath(10, 10, 40, 30);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertNotSame(first, second);
+		assertEquals(first.toString(), second.toString());
+
+		findPath(10, 11, 40, 30);
+		assertEquals(2, cache.getMisses());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testReturnedPathsAreIndependent() {
+		Path first = findPath(10, 10, 40, 30);
+		ShortPoint2D firstStep = first.getNextPos();
+		while (!first.isFinished()) {
+			first.goToNextStep();
+		}
+
+		Path second = findPath(10, 10, 40, 30);
+		assertFalse(second.isFinished());
+		assertEquals(firstStep, second.getNextPos());
+	}
+
+	@Test
+	public void testRequesterConstraints() {
+		findPath(getPathable(10, 10, false, (byte) 0), 40, 30);
+		findPath(getPathable(10, 10, true, (byte) 0), 40, 30);
+		findPath(getPathable(10, 10, true, (byte) 1), 40, 30);
+		findPath(getPathable(10, 10, false, (byte) 1), 40, 30);
+
+		assertEquals(3, cache.getMisses());
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void testInvalidation() {
+		Path path = findPath(10, 100, 60, 100);
+		assertEquals(1, cache.size());
+
+		invalidateBlocking(150, 150, true);
+		assertEquals(1, cache.size());
+
+		ShortPoint2D middle = new ShortPoint2D(35, 100);
+		invalidateBlocking(middle.x, middle.y, true);
+		assertEquals(0, cache.size());
+
+		Path newPath = findPath(10, 100, 60, 100);
+		assertFalse(path.toString().equals(newPath.toString()));
+		assertEquals(aStar.findPath(getPathable(10, 100, false, (byte) 0), new ShortPoint2D(60, 100)).toString(), newPath.toString());
+	}
+
+	@Test
+	public void testCachedPathsEqualNewSearches() {
+		Random random = new Random(42);
+		int[][] routes = new int[30][];
+		for (int i = 0; i < routes.length; i++) {
+			routes[i] = new int[] { random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(WIDTH), random.nextInt(HEIGHT) };
+		}
+
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 100; i++) {
+				invalidateBlocking(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextBoolean());
+			}
+
+			for (int[] route : routes) {
+				for (int repeat = 0; repeat < 2; repeat++) {
+					IPathCalculatable requester = getPathable(route[0], route[1], false, (byte) 0);
+					Path expected = aStar.findPath(requester, new ShortPoint2D(route[2], route[3]));
+					Path actual = cachingAStar.findPath(requester, new ShortPoint2D(route[2], route[3]));
+					assertEquals(String.valueOf(expected), String.valueOf(actual));
+				}
+			}
+		}
+
+		assertNotNull(cache.toString());
+		assertEquals(true, cache.getHits() > 0);
+		assertEquals(true, cache.getInvalidations() > 0);
+	}
+
+	@Test
+	public void testMaximumSize() {
+		PathCache smallCache = new PathCache(WIDTH, HEIGHT, 5);
+		CachingAStar smallCachingAStar = new CachingAStar(new BucketQueueAStar(map, WIDTH, HEIGHT), smallCache);
+		for (int i = 0; i < 10; i++) {
+			smallCachingAStar.findPath(getPathable(10, 10 + i, false, (byte) 0), new ShortPoint2D(50, 50));
+		}
+
+		assertEquals(5, smallCache.size());
+		smallCache.invalidate(30, 30);
+		assertEquals(0, smallCache.size());
+	}
+
+	private void invalidateBlocking(int x, int y, boolean blocked) {
+		map.setBlocked(x, y, blocked);
+		cache.invalidate(x, y);
+	}
+
+	private Path findPath(int sx, int sy, int tx, int ty) {
+		return findPath(getPathable(sx, sy, false, (byte) 0), tx, ty);
+	}
+
+	private Path findPath(IPathCalculatable requester, int tx, int ty) {
+		return cachingAStar.findPath(requester, new ShortPoint2D(tx, ty));
+	}
+
+	private static IPathCalculatable getPathable(final int x, final int y, final boolean needsPlayersGround, final byte player) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return player;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return needsPlayersGround;
+			}
+		};
+	}
+}
@@ -0,0 +1,242 @@
+package jsettlers.algorithms.path.dijkstra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm.DijkstraContinuableRequest;
+import jsettlers.algorithms.path.test.DummyEmptyAStarMap;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link DijkstraAlgorithm}.
+ */
+public class DijkstraAlgorithmTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+
+	private final Set<ShortPoint2D> targets = new HashSet<ShortPoint2D>();
+	/**
+	 * The positions the flood expanded, that are the positions the costs to a neighbor have been requested for.
+	 */
+	private final Set<ShortPoint2D> expanded = new HashSet<ShortPoint2D>();
+	private final DummyEmptyAStarMap aStarMap = new DummyEmptyAStarMap(WIDTH, HEIGHT) {
+		@Override
+		public float getCost(int sx, int sy, int tx, int ty) {
+			expanded.add(new ShortPoint2D(sx, sy));
+			return super.getCost(sx, sy, tx, ty);
+		}
+	};
+	private final DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(new IDijkstraPathMap() {
+		@Override
+		public boolean fitsSearchType(int x, int y, ESearchType type, IPathCalculatable requester) {
+			return targets.contains(new ShortPoint2D(x, y));
+		}
+
+		@Override
+		public void setDijkstraSearched(int x, int y) {
+		}
+	}, aStarMap, WIDTH, HEIGHT);
+
+	@Test
+	public void testFindsNearestTarget() {
+		targets.add(new ShortPoint2D(110, 100));
+		targets.add(new ShortPoint2D(100, 95));
+		targets.add(new ShortPoint2D(120, 120));
+
+		Path path = dijkstra.find(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 30, null);
+
+		assertEquals(new ShortPoint2D(100, 95), path.getTargetPos());
+		assertEquals(5 - 1, path.getLength());
+	}
+
+	@Test
+	public void testFindsNearestTargetByWalkingDistance() {
+		targets.add(new ShortPoint2D(104, 100));
+		targets.add(new ShortPoint2D(100, 92));
+		for (int y = 90; y <= 110; y++) {
+			aStarMap.setBlocked(102, y, true);
+		}
+
+		Path path = dijkstra.find(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 30, null);
+
+		assertEquals(new ShortPoint2D(100, 92), path.getTargetPos());
+		assertEquals(8 - 1, path.getLength());
+	}
+
+	@Test
+	public void testPathIsConnected() {
+		targets.add(new ShortPoint2D(115, 93));
+		for (int y = 80; y <= 99; y++) {
+			aStarMap.setBlocked(105, y, true);
+		}
+
+		Path path = dijkstra.find(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 30, null);
+
+		ShortPoint2D last = new ShortPoint2D(100, 100);
+		while (!path.isFinished()) {
+			ShortPoint2D next = path.getNextPos();
+			assertEquals(1, last.getOnGridDistTo(next));
+			assertEquals(false, aStarMap.isBlocked(null, next.x, next.y));
+			last = next;
+			path.goToNextStep();
+		}
+		assertEquals(new ShortPoint2D(115, 93), last);
+	}
+
+	@Test
+	public void testFindsTargetBehindLongObstacle() {
+		targets.add(new ShortPoint2D(100, 110));
+		for (int x = 40; x <= 160; x++) {
+			aStarMap.setBlocked(x, 105, true);
+		}
+
+		Path path = dijkstra.find(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 30, null);
+
+		assertNotNull(path);
+		assertEquals(new ShortPoint2D(100, 110), path.getTargetPos());
+	}
+
+	@Test
+	public void testContinuableRequestFindsTargetBehindLongObstacle() {
+		targets.add(new ShortPoint2D(100, 110));
+		for (int x = 40; x <= 160; x++) {
+			aStarMap.setBlocked(x, 105, true);
+		}
+		DijkstraContinuableRequest request = new DijkstraContinuableRequest(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 20);
+
+		Path path = null;
+		for (int i = 0; i < 20 && path == null; i++) {
+			path = dijkstra.find(request);
+		}
+		assertNotNull(path);
+		assertEquals(new ShortPoint2D(100, 110), path.getTargetPos());
+	}
+
+	@Test
+	public void testSearchWithoutTargetStaysBounded() {
+		for (int x = 40; x <= 160; x++) {
+			aStarMap.setBlocked(x, 105, true);
+		}
+
+		assertNull(dijkstra.find(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 30, null));
+		// only the positions within two times the distance to the border of the search area are expanded, not the whole map.
+		assertTrue(expanded.size() <= getPositionsInRadius(2 * 30));
+	}
+
+	@Test
+	public void testContinuableRequestWithoutTargetStaysBounded() {
+		for (int x = 40; x <= 160; x++) {
+			aStarMap.setBlocked(x, 105, true);
+		}
+		DijkstraContinuableRequest request = new DijkstraContinuableRequest(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 20);
+
+		for (int i = 0; i < 40; i++) {
+			expanded.clear();
+			assertNull(dijkstra.find(request));
+			assertTrue(expanded.size() <= getPositionsInRadius(2 * 20));
+		}
+	}
+
+	@Test
+	public void testBlockedTargetBehindLongObstacleIsNotSearched() {
+		targets.add(new ShortPoint2D(100, 110));
+		aStarMap.setBlocked(100, 110, true);
+		for (int x = 40; x <= 160; x++) {
+			aStarMap.setBlocked(x, 105, true);
+		}
+
+		assertNull(dijkstra.find(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 30, null));
+		assertTrue(expanded.size() <= getPositionsInRadius(2 * 30));
+	}
+
+	@Test
+	public void testRadiusBounds() {
+		targets.add(new ShortPoint2D(102, 100));
+		targets.add(new ShortPoint2D(100, 130));
+
+		assertNull(dijkstra.find(getPathable(100, 100), (short) 100, (short) 100, (short) 3, (short) 30, null));
+
+		targets.add(new ShortPoint2D(100, 110));
+		Path path = dijkstra.find(getPathable(100, 100), (short) 100, (short) 100, (short) 3, (short) 30, null);
+		assertEquals(new ShortPoint2D(100, 110), path.getTargetPos());
+	}
+
+	@Test
+	public void testRequesterOutsideOfSearchArea() {
+		targets.add(new ShortPoint2D(60, 100));
+		targets.add(new ShortPoint2D(90, 100));
+
+		Path path = dijkstra.find(getPathable(100, 100), (short) 60, (short) 100, (short) 0, (short) 5, null);
+
+		assertEquals(new ShortPoint2D(60, 100), path.getTargetPos());
+	}
+
+	@Test
+	public void testBlockedStartPosition() {
+		aStarMap.setBlocked(100, 100, true);
+		aStarMap.setBlocked(101, 100, true);
+		targets.add(new ShortPoint2D(101, 100));
+		targets.add(new ShortPoint2D(103, 100));
+
+		Path path = dijkstra.find(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 30, null);
+
+		assertEquals(new ShortPoint2D(103, 100), path.getTargetPos());
+	}
+
+	@Test
+	public void testContinuableRequest() {
+		targets.add(new ShortPoint2D(100, 108));
+		DijkstraContinuableRequest request = new DijkstraContinuableRequest(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 20);
+
+		assertNull(dijkstra.find(request));
+		assertNull(dijkstra.find(request));
+		Path path = dijkstra.find(request);
+		assertNotNull(path);
+		assertEquals(new ShortPoint2D(100, 108), path.getTargetPos());
+
+		targets.clear();
+		for (int i = 0; i < 20; i++) {
+			assertNull(dijkstra.find(request));
+		}
+
+		targets.add(new ShortPoint2D(100, 102));
+		path = null;
+		for (int i = 0; i < 20 && path == null; i++) {
+			path = dijkstra.find(request);
+		}
+		assertEquals(new ShortPoint2D(100, 102), path.getTargetPos());
+	}
+
+	private static int getPositionsInRadius(int radius) {
+		return 3 * radius * (radius + 1) + 1;
+	}
+
+	private static IPathCalculatable getPathable(final int x, final int y) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+}
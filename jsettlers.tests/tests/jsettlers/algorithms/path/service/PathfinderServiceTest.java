@@ -0,0 +1,142 @@
+package jsettlers.algorithms.path.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.test.DummyEmptyAStarMap;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link PathfinderService}.
+ */
+public class PathfinderServiceTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final PathfinderService service = new PathfinderService(new IAStarFactory() {
+		@Override
+		public AbstractAStar createAStar() {
+			return new BucketQueueAStar(map, WIDTH, HEIGHT);
+		}
+	});
+
+	@Test
+	public void testParallelResultsEqualSequentialResults() {
+		for (int y = 20; y < 180; y++) {
+			map.setBlocked(100, y, true);
+		}
+
+		List<PathRequest> requests = new ArrayList<PathRequest>();
+		for (int i = 0; i < 100; i++) {
+			requests.add(service.requestPath(getPathable(50 + i % 20, 30 + i), new ShortPoint2D(150 - i % 7, 170 - i), null));
+		}
+		assertEquals(requests.size(), service.getNumberOfQueuedRequests());
+
+		service.resolveRequests();
+		assertEquals(0, service.getNumberOfQueuedRequests());
+		assertFalse(requests.get(0).isResolved());
+		service.deliverResults();
+
+		AbstractAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+		for (PathRequest request : requests) {
+			assertTrue(request.isResolved());
+			Path expected = aStar.findPath(request.requester, request.start.x, request.start.y, request.target.x, request.target.y);
+			assertNotNull(request.getPath());
+			assertEquals(expected.toString(), request.getPath().toString());
+		}
+	}
+
+	@Test
+	public void testDeliveryOrder() {
+		final List<PathRequest> delivered = new ArrayList<PathRequest>();
+		IPathRequestListener listener = new IPathRequestListener() {
+			@Override
+			public void pathCalculated(PathRequest request, Path path) {
+				delivered.add(request);
+			}
+		};
+
+		List<PathRequest> requests = new ArrayList<PathRequest>();
+		for (int i = 0; i < 50; i++) {
+			requests.add(service.requestPath(getPathable(10, 10 + i), new ShortPoint2D(190 - 3 * i, 100), listener));
+		}
+		service.resolveRequests();
+		service.deliverResults();
+
+		assertEquals(requests, delivered);
+	}
+
+	@Test
+	public void testRequestDuringDelivery() {
+		final List<PathRequest> followUps = new ArrayList<PathRequest>();
+		IPathRequestListener listener = new IPathRequestListener() {
+			@Override
+			public void pathCalculated(PathRequest request, Path path) {
+				if (followUps.isEmpty()) {
+					followUps.add(service.requestPath(getPathable(20, 20), new ShortPoint2D(30, 30), null));
+				}
+			}
+		};
+
+		service.requestPath(getPathable(10, 10), new ShortPoint2D(30, 30), listener);
+		service.resolveRequests();
+		service.deliverResults();
+
+		assertEquals(1, service.getNumberOfQueuedRequests());
+		assertFalse(followUps.get(0).isResolved());
+		assertNull(followUps.get(0).getPath());
+
+		service.resolveRequests();
+		service.deliverResults();
+		assertTrue(followUps.get(0).isResolved());
+		assertNotNull(followUps.get(0).getPath());
+	}
+
+	@Test
+	public void testWorkspacesAreReused() {
+		for (int i = 0; i < 10; i++) {
+			assertNotNull(service.findPath(getPathable(10, 10), new ShortPoint2D(20 + i, 40)));
+		}
+		assertEquals(1, service.getNumberOfWorkspaces());
+
+		for (int i = 0; i < 200; i++) {
+			service.requestPath(getPathable(10, 10), new ShortPoint2D(20 + i % 100, 40), null);
+		}
+		service.resolveRequests();
+		service.deliverResults();
+
+		assertTrue(service.getNumberOfWorkspaces() <= Runtime.getRuntime().availableProcessors() + 1);
+	}
+
+	private static IPathCalculatable getPathable(final int x, final int y) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+}
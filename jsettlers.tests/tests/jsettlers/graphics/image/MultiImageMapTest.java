@@ -0,0 +1,284 @@
+package jsettlers.graphics.image;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import jsettlers.graphics.map.MockGLDrawContext;
+import jsettlers.graphics.reader.AdvancedDatFileReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
+import jsettlers.graphics.reader.bytereader.MappedByteReader;
+import jsettlers.graphics.sequence.Sequence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for the cache and the parallel decoding of the {@link MultiImageMap}. The sequences are read from a generated dat file.
+ */
+public class MultiImageMapTest {
+	private static final int MAP_SIZE = 512;
+	private static final int SEQUENCES = 12;
+	private static final int IMAGES_PER_SEQUENCE = 8;
+	private static final int[] SEQUENCE_INDEXES = { 0, 3, 4, 5, 7, 8, 9, 11 };
+
+	private File directory;
+	private File cacheFile;
+	private GeneratedDatFileReader dfr;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("multiimagemap", "");
+		directory.delete();
+		directory.mkdirs();
+		cacheFile = new File(directory, "cache-test");
+		dfr = new GeneratedDatFileReader(new File(directory, "siedler3_00.7c003e01f.dat"));
+	}
+
+	@After
+	public void tearDown() {
+		MultiImageMap.setDecodePool(null);
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testCacheIsWrittenAndRead() throws IOException {
+		RecordingGLDrawContext decoded = load(cacheFile, SEQUENCE_INDEXES);
+		assertTrue(cacheFile.isFile());
+		int decodedImages = dfr.readImages;
+		assertEquals(SEQUENCE_INDEXES.length * IMAGES_PER_SEQUENCE * 2, decodedImages);
+
+		RecordingGLDrawContext cached = load(cacheFile, SEQUENCE_INDEXES);
+		assertEquals(decodedImages, dfr.readImages);
+		assertLayoutEquals(decoded, cached);
+	}
+
+	@Test
+	public void testChangedSequencesAreDecoded() throws IOException {
+		load(cacheFile, SEQUENCE_INDEXES);
+		int decodedImages = dfr.readImages;
+
+		int[] otherSequences = { 1, 2, 3 };
+		RecordingGLDrawContext decoded = load(cacheFile, otherSequences);
+		assertEquals(decodedImages + otherSequences.length * IMAGES_PER_SEQUENCE * 2, dfr.readImages);
+		assertLayoutEquals(load(new File(directory, "cache-reference"), otherSequences), decoded);
+
+		// the cache now belongs to the new sequences
+		decodedImages = dfr.readImages;
+		assertLayoutEquals(decoded, load(cacheFile, otherSequences));
+		assertEquals(decodedImages, dfr.readImages);
+	}
+
+	@Test
+	public void testChangedDatFileIsDecoded() throws IOException {
+		RecordingGLDrawContext first = load(cacheFile, SEQUENCE_INDEXES);
+		int decodedImages = dfr.readImages;
+
+		assertTrue(dfr.getFile().setLastModified(dfr.getFile().lastModified() - 60000));
+		RecordingGLDrawContext second = load(cacheFile, SEQUENCE_INDEXES);
+		assertEquals(2 * decodedImages, dfr.readImages);
+		assertLayoutEquals(first, second);
+	}
+
+	@Test
+	public void testTruncatedCacheIsDecoded() throws IOException {
+		RecordingGLDrawContext decoded = load(cacheFile, SEQUENCE_INDEXES);
+		int decodedImages = dfr.readImages;
+
+		RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+		try {
+			file.setLength(file.length() / 2);
+		} finally {
+			file.close();
+		}
+
+		assertLayoutEquals(decoded, load(cacheFile, SEQUENCE_INDEXES));
+		assertEquals(2 * decodedImages, dfr.readImages);
+	}
+
+	@Test
+	public void testCorruptCacheIsDecoded() throws IOException {
+		RecordingGLDrawContext decoded = load(cacheFile, SEQUENCE_INDEXES);
+		int decodedImages = dfr.readImages;
+
+		// overwrite a part of the compressed image data, the prefix and the positions stay valid
+		RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+		try {
+			long position = file.length() - 100;
+			file.seek(position);
+			for (int i = 0; i < 50; i++) {
+				file.write(0x5a);
+			}
+		} finally {
+			file.close();
+		}
+
+		assertLayoutEquals(decoded, load(cacheFile, SEQUENCE_INDEXES));
+		assertEquals(2 * decodedImages, dfr.readImages);
+	}
+
+	@Test
+	public void testParallelDecodingEqualsSerialDecoding() throws IOException {
+		ForkJoinPool serialPool = new ForkJoinPool(1);
+		ForkJoinPool parallelPool = new ForkJoinPool(4);
+		try {
+			MultiImageMap.setDecodePool(serialPool);
+			RecordingGLDrawContext serial = load(new File(directory, "cache-serial"), SEQUENCE_INDEXES);
+			MultiImageMap.setDecodePool(parallelPool);
+			RecordingGLDrawContext parallel = load(new File(directory, "cache-parallel"), SEQUENCE_INDEXES);
+
+			assertEquals(2 * SEQUENCE_INDEXES.length * IMAGES_PER_SEQUENCE * 2, dfr.readImages);
+			assertLayoutEquals(serial, parallel);
+		} finally {
+			serialPool.shutdown();
+			parallelPool.shutdown();
+		}
+	}
+
+	/**
+	 * Loads the sequences into a new map and draws all of their images.
+	 */
+	private RecordingGLDrawContext load(File cacheFile, int[] sequenceIndexes) throws IOException {
+		MultiImageMap map = new MultiImageMap(MAP_SIZE, MAP_SIZE, "test", cacheFile);
+		@SuppressWarnings("unchecked")
+		Sequence<Image>[] sequences = (Sequence<Image>[]) new Sequence<?>[SEQUENCES];
+		map.load(dfr, sequenceIndexes, sequences);
+
+		RecordingGLDrawContext gl = new RecordingGLDrawContext();
+		for (int sequenceIndex : sequenceIndexes) {
+			Sequence<Image> sequence = sequences[sequenceIndex];
+			assertEquals(IMAGES_PER_SEQUENCE, sequence.length());
+			for (int i = 0; i < sequence.length(); i++) {
+				sequence.getImage(i).draw(gl, null);
+			}
+		}
+		return gl;
+	}
+
+	private static void assertLayoutEquals(RecordingGLDrawContext expected, RecordingGLDrawContext actual) {
+		assertEquals(expected.geometries.size(), actual.geometries.size());
+		for (int i = 0; i < expected.geometries.size(); i++) {
+			assertArrayEquals(expected.geometries.get(i), actual.geometries.get(i), 0);
+		}
+		assertArrayEquals(expected.texture, actual.texture);
+	}
+
+	/**
+	 * Records the texture and the geometry of the drawn images.
+	 */
+	private static class RecordingGLDrawContext extends MockGLDrawContext {
+		final List<float[]> geometries = new ArrayList<float[]>();
+		short[] texture;
+
+		@Override
+		public int generateTexture(int width, int height, ShortBuffer data) {
+			texture = new short[data.remaining()];
+			data.get(texture);
+			return super.generateTexture(width, height, data);
+		}
+
+		@Override
+		public void drawQuadWithTexture(int textureid, float[] geometry) {
+			geometries.add(geometry.clone());
+		}
+	}
+
+	/**
+	 * A dat file reader for a generated file that only contains settler and torso images of different sizes.
+	 */
+	private static class GeneratedDatFileReader extends AdvancedDatFileReader {
+		private final long[][] settlers = new long[SEQUENCES][IMAGES_PER_SEQUENCE];
+		private final long[][] torsos = new long[SEQUENCES][IMAGES_PER_SEQUENCE];
+		private final MappedByteReader mapping;
+		private volatile int readImages;
+
+		GeneratedDatFileReader(File file) throws IOException {
+			super(file);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			for (int sequence = 0; sequence < SEQUENCES; sequence++) {
+				for (int image = 0; image < IMAGES_PER_SEQUENCE; image++) {
+					int width = 5 + (sequence * 7 + image * 11) % 40;
+					int height = 3 + (sequence * 5 + image * 3) % 30;
+					settlers[sequence][image] = out.size();
+					writeImage(out, width, height, sequence * 100 + image, false);
+					torsos[sequence][image] = out.size();
+					writeImage(out, width / 2 + 1, height / 2 + 1, sequence * 100 + image, true);
+				}
+			}
+
+			FileOutputStream fileOut = new FileOutputStream(file);
+			try {
+				out.writeTo(fileOut);
+			} finally {
+				fileOut.close();
+			}
+			mapping = MappedByteReader.map(file);
+		}
+
+		/**
+		 * Writes an image with a displaced header and one meta short per line. The header is padded like in the original files.
+		 */
+		private static void writeImage(ByteArrayOutputStream out, int width, int height, int seed, boolean torso) {
+			out.write(0x0c);
+			out.write(0);
+			out.write(0);
+			out.write(0);
+			write16(out, width);
+			write16(out, height);
+			write16(out, -width / 2);
+			write16(out, seed % 7 - height);
+			if (out.size() % 2 == 1) {
+				out.write(0);
+			}
+
+			for (int y = 0; y < height; y++) {
+				int skip = (y + seed) % 3;
+				write16(out, 0x8000 | skip << 8 | (width - skip));
+				for (int x = skip; x < width; x++) {
+					int color = seed * 31 + y * 17 + x;
+					if (torso) {
+						out.write(color & 0x1f);
+					} else {
+						write16(out, color & 0x7fff);
+					}
+				}
+			}
+		}
+
+		private static void write16(ByteArrayOutputStream out, int value) {
+			out.write(value & 0xff);
+			out.write((value >> 8) & 0xff);
+		}
+
+		@Override
+		public long[] getSettlerPointers(int seqindex) {
+			return settlers[seqindex];
+		}
+
+		@Override
+		public long[] getTorsoPointers(int seqindex) {
+			return torsos[seqindex];
+		}
+
+		@Override
+		public synchronized IByteReader getReaderForPointer(long pointer) throws IOException {
+			readImages++;
+			return mapping.createReaderAt(pointer);
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package jsettlers.graphics.map.draw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.map.EDebugColorModes;
+import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.map.partition.IPartitionSettings;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.graphics.map.MapDrawContext;
+import jsettlers.graphics.map.MockGLDrawContext;
+
+import org.junit.Test;
+
+/**
+ * Test for the chunks of the {@link Background}: which chunks are written again after a change and which chunks are deleted when they have not
+ * been drawn for a while.
+ */
+public class BackgroundChunkTest {
+	private static final int CHUNK_SIZE = 32;
+	private static final int MAX_CACHED_CHUNKS = 64;
+
+	private final RecordingGLDrawContext gl = new RecordingGLDrawContext();
+	private final Background background = new Background();
+
+	@Test
+	public void testUnchangedChunksAreNotWritten() {
+		MapDrawContext context = createWholeMapContext(new BackgroundMap(2 * CHUNK_SIZE));
+
+		drawFrame(context);
+		assertEquals(4, gl.drawnChunks.size());
+		assertEquals(4, gl.getGeometryWrites());
+		assertEquals(4, gl.getColorWrites());
+
+		for (int i = 0; i < 5; i++) {
+			drawFrame(context);
+			assertEquals(4, gl.drawnChunks.size());
+			assertEquals(0, gl.getGeometryWrites());
+			assertEquals(0, gl.getColorWrites());
+		}
+	}
+
+	@Test
+	public void testLandscapeChangeWritesAffectedChunks() {
+		MapDrawContext context = createWholeMapContext(new BackgroundMap(3 * CHUNK_SIZE));
+		drawFrame(context);
+		drawFrame(context);
+
+		// inside of the center chunk
+		background.backgroundChangedAt(CHUNK_SIZE + 10, CHUNK_SIZE + 10);
+		drawFrame(context);
+		assertEquals(1, gl.getGeometryWrites());
+		assertEquals(1, gl.getColorWrites());
+
+		// on the left border of a chunk, the triangles of the point are shared with the chunk on the left
+		background.backgroundChangedAt(CHUNK_SIZE, CHUNK_SIZE + 10);
+		drawFrame(context);
+		assertEquals(2, gl.getGeometryWrites());
+		assertEquals(2, gl.getColorWrites());
+
+		drawFrame(context);
+		assertEquals(0, gl.getGeometryWrites());
+		assertEquals(0, gl.getColorWrites());
+	}
+
+	@Test
+	public void testFogOfWarChangeWritesColorsOfAffectedChunk() {
+		BackgroundMap map = new BackgroundMap(3 * CHUNK_SIZE);
+		MapDrawContext context = createWholeMapContext(map);
+		drawFrame(context);
+		drawFrame(context);
+
+		map.setVisibleStatus(CHUNK_SIZE + 10, CHUNK_SIZE + 10, (byte) CommonConstants.FOG_OF_WAR_EXPLORED);
+		background.fogOfWarChanged(CHUNK_SIZE + 10, CHUNK_SIZE + 10, CHUNK_SIZE + 10, CHUNK_SIZE + 10);
+
+		// the point is dimmed over several frames, only the colors of its chunk are written during that time.
+		int frames = 0;
+		do {
+			drawFrame(context);
+			assertEquals(9, gl.drawnChunks.size());
+			assertEquals(0, gl.getGeometryWrites());
+			frames++;
+		} while (gl.getColorWrites() == 1 && frames < 100);
+
+		assertTrue(frames > 2);
+		assertEquals(0, gl.getColorWrites());
+	}
+
+	@Test
+	public void testFogOfWarIsNotPolledWithoutChange() {
+		BackgroundMap map = new BackgroundMap(2 * CHUNK_SIZE);
+		MapDrawContext context = createWholeMapContext(map);
+		drawFrame(context);
+
+		map.setVisibleStatus(10, 10, (byte) CommonConstants.FOG_OF_WAR_EXPLORED);
+		for (int i = 0; i < 5; i++) {
+			drawFrame(context);
+			assertEquals(0, gl.getColorWrites());
+		}
+
+		background.fogOfWarChanged(10, 10, 10, 10);
+		drawFrame(context);
+		assertEquals(1, gl.getColorWrites());
+	}
+
+	@Test
+	public void testLeastRecentlyDrawnChunksAreDeleted() {
+		int chunks = 16;
+		MapDrawContext context = new MapDrawContext(new BackgroundMap(chunks * CHUNK_SIZE), null);
+		context.setSize(200, 150);
+
+		ShortPoint2D first = getChunkCenter(1, 1);
+		context.scrollTo(first);
+		drawFrame(context);
+		Set<Integer> firstChunks = new HashSet<Integer>(gl.drawnChunks);
+
+		// visits more chunks than are cached
+		ShortPoint2D last = null;
+		for (int chunkY = 3; chunkY < chunks - 1; chunkY++) {
+			for (int chunkX = 3; chunkX < chunks - 1; chunkX++) {
+				last = getChunkCenter(chunkX, chunkY);
+				context.scrollTo(last);
+				drawFrame(context);
+
+				for (int geometry : gl.drawnChunks) {
+					assertTrue(gl.validGeometries.contains(geometry));
+				}
+				// every chunk uses two geometries: one chunk near the screen may be prepared.
+				assertTrue(gl.validGeometries.size() <= 2 * Math.max(MAX_CACHED_CHUNKS, gl.drawnChunks.size() + 1));
+			}
+		}
+		assertTrue(gl.removedGeometries > 0);
+		for (int geometry : firstChunks) {
+			assertFalse(gl.validGeometries.contains(geometry));
+		}
+
+		// the chunks that were drawn recently are kept
+		context.scrollTo(last);
+		drawFrame(context);
+		assertEquals(0, gl.getGeometryWrites());
+
+		// the chunks that were drawn first need to be written again
+		context.scrollTo(first);
+		drawFrame(context);
+		assertEquals(firstChunks.size(), gl.getGeometryWrites());
+	}
+
+	private static ShortPoint2D getChunkCenter(int chunkX, int chunkY) {
+		return new ShortPoint2D(chunkX * CHUNK_SIZE + CHUNK_SIZE / 2, chunkY * CHUNK_SIZE + CHUNK_SIZE / 2);
+	}
+
+	/**
+	 * Creates a context with a screen that shows the whole map.
+	 */
+	private static MapDrawContext createWholeMapContext(BackgroundMap map) {
+		MapDrawContext context = new MapDrawContext(map, null);
+		context.setSize(map.getWidth() * DrawConstants.DISTANCE_X * 2, map.getHeight() * DrawConstants.DISTANCE_Y * 2);
+		context.scrollTo(new ShortPoint2D(map.getWidth() / 2, map.getHeight() / 2));
+		return context;
+	}
+
+	private void drawFrame(MapDrawContext context) {
+		gl.startFrame();
+		context.begin(gl);
+		background.drawMapContent(context, context.getScreen().getPosition());
+		context.end();
+	}
+
+	/**
+	 * Records which geometries are written, drawn and deleted.
+	 */
+	private static class RecordingGLDrawContext extends MockGLDrawContext {
+		final Set<Integer> validGeometries = new HashSet<Integer>();
+		final Set<Integer> positionGeometries = new HashSet<Integer>();
+		final Set<Integer> colorGeometries = new HashSet<Integer>();
+		/**
+		 * The position geometries of the chunks drawn in the current frame.
+		 */
+		final Set<Integer> drawnChunks = new HashSet<Integer>();
+		final Set<Integer> writtenGeometries = new HashSet<Integer>();
+		int removedGeometries = 0;
+
+		void startFrame() {
+			drawnChunks.clear();
+			writtenGeometries.clear();
+		}
+
+		int getGeometryWrites() {
+			return countIn(positionGeometries);
+		}
+
+		int getColorWrites() {
+			return countIn(colorGeometries);
+		}
+
+		private int countIn(Set<Integer> geometries) {
+			int count = 0;
+			for (int geometry : writtenGeometries) {
+				if (geometries.contains(geometry)) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public int generateGeometry(int bytes) {
+			int geometry = super.generateGeometry(bytes);
+			validGeometries.add(geometry);
+			return geometry;
+		}
+
+		@Override
+		public boolean isGeometryValid(int geometryindex) {
+			return validGeometries.contains(geometryindex);
+		}
+
+		@Override
+		public void removeGeometry(int geometryindex) {
+			assertTrue(validGeometries.remove(geometryindex));
+			assertFalse(drawnChunks.contains(geometryindex));
+			removedGeometries++;
+		}
+
+		@Override
+		public GLBuffer startWriteGeometry(int geometryindex) {
+			assertTrue(validGeometries.contains(geometryindex));
+			writtenGeometries.add(geometryindex);
+			return super.startWriteGeometry(geometryindex);
+		}
+
+		@Override
+		public void drawTrianglesWithTextureColored(int textureid, int geometryindex, int colorindex, int triangleCount) {
+			positionGeometries.add(geometryindex);
+			colorGeometries.add(colorindex);
+			drawnChunks.add(geometryindex);
+			super.drawTrianglesWithTextureColored(textureid, geometryindex, colorindex, triangleCount);
+		}
+	}
+
+	/**
+	 * A flat grass map that is completely visible, unless the visible status of a position is changed.
+	 */
+	private static class BackgroundMap implements IGraphicsGrid {
+		private final short size;
+		private final byte[] visibleStatus;
+
+		BackgroundMap(int size) {
+			this.size = (short) size;
+			this.visibleStatus = new byte[size * size];
+			Arrays.fill(visibleStatus, (byte) CommonConstants.FOG_OF_WAR_VISIBLE);
+		}
+
+		void setVisibleStatus(int x, int y, byte status) {
+			visibleStatus[y * size + x] = status;
+		}
+
+		@Override
+		public short getWidth() {
+			return size;
+		}
+
+		@Override
+		public short getHeight() {
+			return size;
+		}
+
+		@Override
+		public IMovable getMovableAt(int x, int y) {
+			return null;
+		}
+
+		@Override
+		public IMapObject getMapObjectsAt(int x, int y) {
+			return null;
+		}
+
+		@Override
+		public byte getHeightAt(int x, int y) {
+			return 0;
+		}
+
+		@Override
+		public ELandscapeType getLandscapeTypeAt(int x, int y) {
+			return ELandscapeType.GRASS;
+		}
+
+		@Override
+		public int getDebugColorAt(int x, int y, EDebugColorModes debugColorMode) {
+			return -1;
+		}
+
+		@Override
+		public boolean isBorder(int x, int y) {
+			return false;
+		}
+
+		@Override
+		public byte getPlayerIdAt(int x, int y) {
+			return -1;
+		}
+
+		@Override
+		public byte getVisibleStatus(int x, int y) {
+			return visibleStatus[y * size + x];
+		}
+
+		@Override
+		public boolean isFogOfWarVisible(int x, int y) {
+			return true;
+		}
+
+		@Override
+		public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
+		}
+
+		@Override
+		public void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+		}
+
+		@Override
+		public int nextDrawableX(int x, int y, int maxX) {
+			return maxX + 1;
+		}
+
+		@Override
+		public IPartitionSettings getPartitionSettings(int x, int y) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package jsettlers.graphics.map.draw;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ShortBuffer;
+
+import jsettlers.graphics.reader.AdvancedDatFileReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
+import jsettlers.graphics.reader.bytereader.MappedByteReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for the cache of the background texture. The landscape images are read from a generated dat file.
+ */
+public class BackgroundTextureCacheTest {
+	private static final int LANDSCAPES = 256;
+	private static final int LANDSCAPE_SIZE = 16;
+	/**
+	 * Length of the header of the cache file.
+	 */
+	private static final int CACHE_HEADER_LENGTH = 32;
+
+	private File directory;
+	private File cacheFile;
+	private GeneratedLandscapeFileReader reader;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("backgroundcache", "");
+		directory.delete();
+		directory.mkdirs();
+		cacheFile = new File(directory, "cache-background");
+		reader = new GeneratedLandscapeFileReader(new File(directory, "siedler3_00.f8007e01f.dat"));
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testTextureIsCachedAndRead() {
+		short[] generated = getTexture();
+		assertTrue(cacheFile.isFile());
+		int readLandscapes = reader.readLandscapes;
+		assertTrue(readLandscapes > 0);
+		assertTrue(containsColor(generated));
+
+		assertArrayEquals(generated, getTexture());
+		assertEquals(readLandscapes, reader.readLandscapes);
+	}
+
+	@Test
+	public void testChecksumMismatchRegeneratesTexture() throws IOException {
+		short[] generated = getTexture();
+		int readLandscapes = reader.readLandscapes;
+
+		RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+		try {
+			file.seek(CACHE_HEADER_LENGTH + 1000);
+			int value = file.read();
+			file.seek(CACHE_HEADER_LENGTH + 1000);
+			file.write(~value);
+		} finally {
+			file.close();
+		}
+
+		assertArrayEquals(generated, getTexture());
+		assertEquals(2 * readLandscapes, reader.readLandscapes);
+
+		// the regenerated cache is used again
+		assertArrayEquals(generated, getTexture());
+		assertEquals(2 * readLandscapes, reader.readLandscapes);
+	}
+
+	@Test
+	public void testChangedKeyRegeneratesTexture() {
+		short[] generated = getTexture();
+		int readLandscapes = reader.readLandscapes;
+
+		assertTrue(reader.getFile().setLastModified(reader.getFile().lastModified() - 60000));
+		assertArrayEquals(generated, getTexture());
+		assertEquals(2 * readLandscapes, reader.readLandscapes);
+
+		// the cache now belongs to the new key
+		assertArrayEquals(generated, getTexture());
+		assertEquals(2 * readLandscapes, reader.readLandscapes);
+	}
+
+	@Test
+	public void testTruncatedCacheRegeneratesTexture() throws IOException {
+		short[] generated = getTexture();
+		int readLandscapes = reader.readLandscapes;
+
+		RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+		try {
+			file.setLength(file.length() - 2);
+		} finally {
+			file.close();
+		}
+
+		assertArrayEquals(generated, getTexture());
+		assertEquals(2 * readLandscapes, reader.readLandscapes);
+	}
+
+	private short[] getTexture() {
+		ShortBuffer buffer = Background.getTexture(reader, cacheFile);
+		short[] data = new short[buffer.remaining()];
+		buffer.get(data);
+		return data;
+	}
+
+	private static boolean containsColor(short[] data) {
+		for (short color : data) {
+			if (color != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A dat file reader for a generated file that only contains landscape images.
+	 */
+	private static class GeneratedLandscapeFileReader extends AdvancedDatFileReader {
+		private final long[] landscapes = new long[LANDSCAPES];
+		private final MappedByteReader mapping;
+		private int readLandscapes;
+
+		GeneratedLandscapeFileReader(File file) throws IOException {
+			super(file);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			for (int index = 0; index < LANDSCAPES; index++) {
+				landscapes[index] = out.size();
+				writeLandscape(out, index);
+			}
+
+			FileOutputStream fileOut = new FileOutputStream(file);
+			try {
+				out.writeTo(fileOut);
+			} finally {
+				fileOut.close();
+			}
+			mapping = MappedByteReader.map(file);
+		}
+
+		/**
+		 * Writes a square image with a landscape header and one meta short per line.
+		 */
+		private static void writeLandscape(ByteArrayOutputStream out, int index) {
+			write16(out, LANDSCAPE_SIZE);
+			write16(out, LANDSCAPE_SIZE);
+			write16(out, 0);
+
+			for (int y = 0; y < LANDSCAPE_SIZE; y++) {
+				write16(out, 0x8000 | LANDSCAPE_SIZE);
+				for (int x = 0; x < LANDSCAPE_SIZE; x++) {
+					write16(out, (index * 97 + y * 13 + x) & 0x7fff);
+				}
+			}
+		}
+
+		private static void write16(ByteArrayOutputStream out, int value) {
+			out.write(value & 0xff);
+			out.write((value >> 8) & 0xff);
+		}
+
+		@Override
+		public IByteReader getReaderForLandscape(int index) throws IOException {
+			readLandscapes++;
+			return mapping.createReaderAt(landscapes[index]);
+		}
+	}
+}
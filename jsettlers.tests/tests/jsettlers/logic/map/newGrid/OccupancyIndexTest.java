@@ -0,0 +1,77 @@
+package jsettlers.logic.map.newGrid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link OccupancyIndex}. The results are compared with a {@link BitSet} that is searched position by position.
+ */
+public class OccupancyIndexTest {
+	private static final int WIDTH = 150;
+	private static final int HEIGHT = 20;
+
+	private final Random random = new Random(1234);
+	private final OccupancyIndex index = new OccupancyIndex(WIDTH, HEIGHT);
+	private final BitSet reference = new BitSet(WIDTH * HEIGHT);
+
+	@Test
+	public void testEmpty() {
+		assertEquals(WIDTH, index.nextOccupiedX(0, 0, WIDTH - 1));
+		assertEquals(11, index.nextOccupiedX(0, 5, 10));
+	}
+
+	@Test
+	public void testWordBorders() {
+		index.setOccupied(63, 1, true);
+		index.setOccupied(64, 1, true);
+		index.setOccupied(WIDTH - 1, 1, true);
+
+		assertEquals(63, index.nextOccupiedX(0, 1, WIDTH - 1));
+		assertEquals(64, index.nextOccupiedX(64, 1, WIDTH - 1));
+		assertEquals(WIDTH - 1, index.nextOccupiedX(65, 1, WIDTH - 1));
+		assertEquals(101, index.nextOccupiedX(65, 1, 100));
+		assertEquals(WIDTH, index.nextOccupiedX(0, 0, WIDTH - 1));
+		assertEquals(WIDTH, index.nextOccupiedX(0, 2, WIDTH - 1));
+
+		index.setOccupied(63, 1, false);
+		assertFalse(index.isOccupied(63, 1));
+		assertTrue(index.isOccupied(64, 1));
+		assertEquals(64, index.nextOccupiedX(-1, 1, WIDTH - 1));
+	}
+
+	@Test
+	public void testRandomOperationsEqualBitSet() {
+		for (int i = 0; i < 20000; i++) {
+			int x = random.nextInt(WIDTH);
+			int y = random.nextInt(HEIGHT);
+			boolean occupied = random.nextInt(3) == 0;
+			index.setOccupied(x, y, occupied);
+			reference.set(x + y * WIDTH, occupied);
+
+			int maxX = x + random.nextInt(WIDTH - x);
+			int fromX = random.nextInt(WIDTH);
+			assertEquals(nextOccupiedX(fromX, y, maxX), index.nextOccupiedX(fromX, y, maxX));
+		}
+
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				assertEquals(reference.get(x + y * WIDTH), index.isOccupied(x, y));
+			}
+		}
+	}
+
+	private int nextOccupiedX(int x, int y, int maxX) {
+		for (; x <= maxX; x++) {
+			if (reference.get(x + y * WIDTH)) {
+				return x;
+			}
+		}
+		return maxX + 1;
+	}
+}
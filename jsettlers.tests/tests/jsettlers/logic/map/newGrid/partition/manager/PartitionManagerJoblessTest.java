@@ -0,0 +1,119 @@
+package jsettlers.logic.map.newGrid.partition.manager;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import jsettlers.common.material.EMaterialType;
+import jsettlers.common.movable.EMovableType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBearer;
+import jsettlers.logic.map.newGrid.partition.manager.manageables.interfaces.IBarrack;
+import jsettlers.logic.map.newGrid.partition.manager.materials.interfaces.IMaterialRequest;
+
+import org.junit.Test;
+
+/**
+ * Test for the position updates of jobless that are moved to another {@link PartitionManager} by a partition change.
+ */
+public class PartitionManagerJoblessTest {
+	private static final int MAP_SIZE = 200;
+	/**
+	 * Enough jobless to make the jobless lists use their position buckets.
+	 */
+	private static final int OTHER_JOBLESS = 200;
+
+	private final Random random = new Random(1234);
+	private final PartitionManager manager1 = new PartitionManager();
+	private final PartitionManager manager2 = new PartitionManager();
+
+	@Test
+	public void testJoblessWalksAcrossBucketsAfterPositionChange() {
+		addOtherJobless(manager1);
+		addOtherJobless(manager2);
+		Bearer bearer = new Bearer(40, 40);
+		manager1.addJobless(bearer);
+
+		manager1.removePositionTo(40, 40, manager2, true);
+		assertSame(manager2, bearer.getJoblessManager());
+
+		walk(bearer, 100, 40);
+		assertNull(manager1.removeJobless(bearer.getPos()));
+		assertSame(bearer, manager2.removeJobless(bearer.getPos()));
+	}
+
+	@Test
+	public void testJoblessWalksAcrossBucketsAfterMerge() {
+		addOtherJobless(manager1);
+		addOtherJobless(manager2);
+		Bearer bearer = new Bearer(40, 40);
+		manager1.addJobless(bearer);
+
+		manager1.mergeInto(manager2);
+		assertSame(manager2, bearer.getJoblessManager());
+
+		walk(bearer, 40, 100);
+		assertSame(bearer, manager2.removeJobless(bearer.getPos()));
+	}
+
+	/**
+	 * Moves the bearer step by step and reports every step like the strategy grid does.
+	 */
+	private static void walk(Bearer bearer, int targetX, int targetY) {
+		while (!bearer.getPos().equals(new ShortPoint2D(targetX, targetY))) {
+			ShortPoint2D pos = bearer.getPos();
+			bearer.pos = new ShortPoint2D(pos.x + Integer.signum(targetX - pos.x), pos.y + Integer.signum(targetY - pos.y));
+			bearer.getJoblessManager().joblessPositionChanged(bearer);
+		}
+	}
+
+	private void addOtherJobless(PartitionManager manager) {
+		for (int i = 0; i < OTHER_JOBLESS; i++) {
+			manager.addJobless(new Bearer(120 + random.nextInt(MAP_SIZE - 120), random.nextInt(MAP_SIZE)));
+		}
+	}
+
+	private static class Bearer implements IManageableBearer {
+		private static final long serialVersionUID = 1L;
+
+		private ShortPoint2D pos;
+		private PartitionManager joblessManager;
+
+		Bearer(int x, int y) {
+			this.pos = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return pos;
+		}
+
+		@Override
+		public void setJoblessManager(PartitionManager manager) {
+			this.joblessManager = manager;
+		}
+
+		@Override
+		public PartitionManager getJoblessManager() {
+			return joblessManager;
+		}
+
+		@Override
+		public boolean deliver(EMaterialType materialType, ShortPoint2D offerPosition, IMaterialRequest request) {
+			return false;
+		}
+
+		@Override
+		public void becomeWorker(IWorkerRequester requester, EMovableType movableType) {
+		}
+
+		@Override
+		public void becomeWorker(IWorkerRequester requester, EMovableType movableType, ShortPoint2D offer) {
+		}
+
+		@Override
+		public void becomeSoldier(IBarrack barrack) {
+		}
+	}
+}
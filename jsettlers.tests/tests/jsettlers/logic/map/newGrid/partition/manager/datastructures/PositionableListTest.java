@@ -0,0 +1,174 @@
+package jsettlers.logic.map.newGrid.partition.manager.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+
+import jsettlers.TestUtils;
+import jsettlers.algorithms.queue.ITypeAcceptor;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link PositionableList}. The results are compared with the former list based implementation.
+ */
+public class PositionableListTest {
+	private static final int MAP_SIZE = 400;
+
+	private static final ITypeAcceptor<MovingLocatable> EVEN_ACCEPTOR = new ITypeAcceptor<MovingLocatable>() {
+		@Override
+		public boolean accepts(MovingLocatable type) {
+			return type.getId() % 2 == 0;
+		}
+	};
+
+	private final Random random = new Random(1234);
+	private final PositionableList<MovingLocatable> list = new PositionableList<MovingLocatable>();
+	private final LinearPositionableList<MovingLocatable> reference = new LinearPositionableList<MovingLocatable>();
+	private int nextId = 0;
+
+	@Test
+	public void testEmpty() {
+		assertTrue(list.isEmpty());
+		assertNull(list.getObjectCloseTo(new ShortPoint2D(10, 10)));
+		assertNull(list.removeObjectNextTo(new ShortPoint2D(10, 10)));
+		assertNull(list.removeObjectAt(new ShortPoint2D(10, 10)));
+	}
+
+	@Test
+	public void testRandomOperationsEqualLinearList() {
+		for (int i = 0; i < 20000; i++) {
+			ShortPoint2D position = getRandomPosition();
+			int operation = random.nextInt(10);
+
+			if (operation < 4 || reference.size() < 20) {
+				insert(position);
+			} else if (operation == 4) {
+				assertSame(reference.getObjectCloseTo(position, null), list.getObjectCloseTo(position));
+			} else if (operation == 5) {
+				assertSame(reference.removeObjectNextTo(position, EVEN_ACCEPTOR), list.removeObjectNextTo(position, EVEN_ACCEPTOR));
+			} else if (operation == 6) {
+				assertSame(reference.removeObjectNextTo(position, null), list.removeObjectNextTo(position));
+			} else if (operation == 7) {
+				MovingLocatable object = reference.getData().get(random.nextInt(reference.size()));
+				assertSame(reference.removeObjectAt(object.getPos()), list.removeObjectAt(object.getPos()));
+			} else if (operation == 8) {
+				MovingLocatable object = reference.getData().get(random.nextInt(reference.size()));
+				reference.remove(object);
+				list.remove(object);
+			} else {
+				MovingLocatable object = reference.getData().get(random.nextInt(reference.size()));
+				object.setPos(getRandomPosition());
+				list.updatePosition(object);
+			}
+			assertEquals(reference.size(), list.size());
+		}
+
+		assertEquals(reference.getData(), toList(list));
+	}
+
+	@Test
+	public void testGrowAndShrink() {
+		for (int round = 0; round < 3; round++) {
+			while (reference.size() < 500) {
+				insert(getRandomPosition());
+			}
+			while (reference.size() > 10) {
+				ShortPoint2D position = getRandomPosition();
+				assertSame(reference.removeObjectNextTo(position, null), list.removeObjectNextTo(position));
+			}
+		}
+		assertEquals(reference.getData(), toList(list));
+	}
+
+	@Test
+	public void testEqualDistancesReturnFirstInserted() {
+		for (int i = 0; i < 30; i++) {
+			insert(new ShortPoint2D(100 + (i % 2 == 0 ? 20 : -20), 100));
+		}
+		ShortPoint2D center = new ShortPoint2D(100, 100);
+		for (int i = 0; i < 30; i++) {
+			assertSame(reference.removeObjectNextTo(center, null), list.removeObjectNextTo(center));
+		}
+	}
+
+	@Test
+	public void testGetAndMoveObjectsAtPosition() {
+		ShortPoint2D position = new ShortPoint2D(50, 60);
+		for (int i = 0; i < 40; i++) {
+			insert(getRandomPosition());
+			insert(position);
+		}
+		assertSame(reference.getObjectAt(position), list.getObjectAt(position));
+
+		PositionableList<MovingLocatable> newList = new PositionableList<MovingLocatable>();
+		list.moveObjectsAtPositionTo(position, newList);
+		assertEquals(40, newList.size());
+		assertEquals(40, list.size());
+		assertNull(list.getObjectAt(position));
+
+		ArrayList<MovingLocatable> expected = new ArrayList<MovingLocatable>();
+		for (MovingLocatable curr : reference.getData()) {
+			if (curr.getPos().equals(position)) {
+				expected.add(curr);
+			}
+		}
+		assertEquals(expected, toList(newList));
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		for (int i = 0; i < 50; i++) {
+			insert(getRandomPosition());
+		}
+		Iterator<MovingLocatable> iter = list.iterator();
+		while (iter.hasNext()) {
+			if (iter.next().getId() % 2 == 0) {
+				iter.remove();
+			}
+		}
+		assertEquals(25, list.size());
+		for (MovingLocatable curr : list) {
+			assertEquals(curr, list.getObjectAt(curr.getPos()));
+		}
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			insert(getRandomPosition());
+		}
+		PositionableList<MovingLocatable> readList = TestUtils.serializeAndDeserialize(list);
+
+		assertEquals(list.toString(), readList.toString());
+		for (int i = 0; i < 100; i++) {
+			ShortPoint2D position = getRandomPosition();
+			assertEquals(list.removeObjectNextTo(position).getId(), readList.removeObjectNextTo(position).getId());
+		}
+		assertTrue(readList.isEmpty());
+	}
+
+	private void insert(ShortPoint2D position) {
+		MovingLocatable object = new MovingLocatable(nextId++, position);
+		list.insert(object);
+		reference.insert(object);
+	}
+
+	private ShortPoint2D getRandomPosition() {
+		return new ShortPoint2D(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+	}
+
+	private static ArrayList<MovingLocatable> toList(PositionableList<MovingLocatable> list) {
+		ArrayList<MovingLocatable> result = new ArrayList<MovingLocatable>();
+		for (MovingLocatable curr : list) {
+			result.add(curr);
+		}
+		return result;
+	}
+}
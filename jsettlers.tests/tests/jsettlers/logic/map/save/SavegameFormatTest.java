@@ -0,0 +1,137 @@
+package jsettlers.logic.map.save;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test for the {@link SavegameObjectOutputStream} and {@link SavegameObjectInputStream}.
+ */
+public class SavegameFormatTest {
+	private static final int GRID_SIZE = 200 * 170;
+
+	private final Random random = new Random(3456);
+
+	@Test
+	public void testUncompressed() throws IOException, ClassNotFoundException {
+		testRoundTrip(false);
+	}
+
+	@Test
+	public void testCompressed() throws IOException, ClassNotFoundException {
+		testRoundTrip(true);
+	}
+
+	@Test
+	public void testOldFormatIsLoaded() throws IOException, ClassNotFoundException {
+		TestGrid grid = createGrid();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeInt(42);
+		oos.writeObject(grid);
+		oos.close();
+
+		ObjectInputStream ois = SavegameObjectInputStream.open(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(42, ois.readInt());
+		assertGridEquals(grid, (TestGrid) ois.readObject());
+	}
+
+	@Test
+	public void testArraysAreWrittenRaw() throws IOException {
+		TestGrid grid = createGrid();
+
+		ByteArrayOutputStream javaOut = new ByteArrayOutputStream();
+		ObjectOutputStream javaStream = new ObjectOutputStream(javaOut);
+		javaStream.writeObject(grid);
+		javaStream.close();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SavegameObjectOutputStream oos = new SavegameObjectOutputStream(out, false);
+		oos.writeObject(grid);
+		oos.close();
+
+		// only the class descriptions and a few bytes per array are added
+		assertTrue(out.size() < javaOut.size() + 200);
+	}
+
+	@Test
+	public void testArraysAreWrittenDirectly() throws IOException {
+		TestGrid grid = createGrid();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SavegameObjectOutputStream oos = new SavegameObjectOutputStream(out, false);
+		oos.writeObject(grid);
+		oos.flush();
+
+		// byte, short, int and float per position
+		assertTrue(out.size() >= GRID_SIZE * (1 + 2 + 4 + 4));
+		oos.close();
+	}
+
+	private void testRoundTrip(boolean compressed) throws IOException, ClassNotFoundException {
+		TestGrid grid = createGrid();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SavegameObjectOutputStream oos = new SavegameObjectOutputStream(out, compressed);
+		oos.writeInt(42);
+		oos.writeObject(grid);
+		oos.writeObject("end");
+		oos.close();
+
+		ObjectInputStream ois = SavegameObjectInputStream.open(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(42, ois.readInt());
+		TestGrid readGrid = (TestGrid) ois.readObject();
+		assertEquals("end", ois.readObject());
+		ois.close();
+
+		assertGridEquals(grid, readGrid);
+		assertSame(readGrid.heights, readGrid.sharedHeights);
+	}
+
+	private TestGrid createGrid() {
+		TestGrid grid = new TestGrid();
+		random.nextBytes(grid.heights);
+		for (int i = 0; i < GRID_SIZE; i++) {
+			grid.partitions[i] = (short) random.nextInt();
+			grid.ids[i] = random.nextInt();
+			grid.costs[i] = random.nextFloat();
+			grid.flags.set(i, random.nextBoolean());
+		}
+		grid.small[3] = 17;
+		return grid;
+	}
+
+	private static void assertGridEquals(TestGrid expected, TestGrid actual) {
+		assertArrayEquals(expected.heights, actual.heights);
+		assertArrayEquals(expected.partitions, actual.partitions);
+		assertArrayEquals(expected.ids, actual.ids);
+		assertArrayEquals(expected.costs, actual.costs, 0f);
+		assertArrayEquals(expected.small, actual.small);
+		assertEquals(expected.flags, actual.flags);
+	}
+
+	private static class TestGrid implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		final byte[] heights = new byte[GRID_SIZE];
+		final byte[] sharedHeights = heights;
+		final short[] partitions = new short[GRID_SIZE];
+		final int[] ids = new int[GRID_SIZE];
+		final float[] costs = new float[GRID_SIZE];
+		final byte[] small = new byte[10];
+		final BitSet flags = new BitSet(GRID_SIZE);
+	}
+}
@@ -0,0 +1,158 @@
+package jsettlers.logic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link ParallelTickPhase}.
+ */
+public class ParallelTickPhaseTest {
+	private static final int NUMBER_OF_TIMERABLES = 200;
+
+	private final ParallelTickPhase phase = new ParallelTickPhase();
+	private final List<TestTimerable> applyOrder = new ArrayList<TestTimerable>();
+
+	@Test
+	public void testApplyOrderIsAddOrder() {
+		List<TestTimerable> timerables = addTimerables(NUMBER_OF_TIMERABLES, Integer.MAX_VALUE);
+
+		for (int tick = 0; tick < 10; tick++) {
+			applyOrder.clear();
+			phase.timerEvent();
+			assertEquals(timerables, applyOrder);
+		}
+
+		for (TestTimerable timerable : timerables) {
+			assertEquals(10, timerable.prepared);
+		}
+	}
+
+	@Test
+	public void testRemoval() {
+		List<TestTimerable> timerables = addTimerables(NUMBER_OF_TIMERABLES, Integer.MAX_VALUE);
+		for (int i = 0; i < timerables.size(); i += 3) {
+			timerables.get(i).remainingTicks = 2;
+		}
+
+		phase.timerEvent();
+		phase.timerEvent();
+		applyOrder.clear();
+		phase.timerEvent();
+
+		List<TestTimerable> expected = new ArrayList<TestTimerable>();
+		for (int i = 0; i < timerables.size(); i++) {
+			if (i % 3 != 0) {
+				expected.add(timerables.get(i));
+			}
+		}
+		assertEquals(expected, applyOrder);
+	}
+
+	@Test
+	public void testTimerablesAddedWhileApplyingStartInNextTick() {
+		List<TestTimerable> timerables = addTimerables(NUMBER_OF_TIMERABLES, Integer.MAX_VALUE);
+		final TestTimerable lateTimerable = new TestTimerable(this, Integer.MAX_VALUE);
+		timerables.get(5).toAdd = lateTimerable;
+
+		phase.timerEvent();
+		assertEquals(0, lateTimerable.prepared);
+
+		applyOrder.clear();
+		phase.timerEvent();
+		assertEquals(1, lateTimerable.prepared);
+		assertEquals(lateTimerable, applyOrder.get(applyOrder.size() - 1));
+	}
+
+	@Test
+	public void testCrashedTimerableIsKilled() {
+		List<TestTimerable> timerables = addTimerables(NUMBER_OF_TIMERABLES, Integer.MAX_VALUE);
+		timerables.get(17).crash = true;
+
+		phase.timerEvent();
+		applyOrder.clear();
+		phase.timerEvent();
+
+		assertTrue(timerables.get(17).killed);
+		assertEquals(NUMBER_OF_TIMERABLES - 1, applyOrder.size());
+	}
+
+	@Test
+	public void testAddingTwiceExecutesOnce() {
+		TestTimerable timerable = new TestTimerable(this, Integer.MAX_VALUE);
+		phase.addTimerable(timerable);
+		phase.addTimerable(timerable);
+		phase.timerEvent();
+		phase.addTimerable(timerable);
+		phase.timerEvent();
+
+		assertEquals(2, timerable.prepared);
+	}
+
+	@Test
+	public void testFinishedTimerableCanBeAddedAgainInSameTick() {
+		List<TestTimerable> timerables = addTimerables(NUMBER_OF_TIMERABLES, Integer.MAX_VALUE);
+		TestTimerable finishing = timerables.get(3);
+		finishing.remainingTicks = 0;
+		timerables.get(10).toAdd = finishing;
+
+		phase.timerEvent();
+		assertEquals(1, finishing.prepared);
+
+		phase.timerEvent();
+		assertEquals(2, finishing.prepared);
+	}
+
+	private List<TestTimerable> addTimerables(int number, int ticks) {
+		List<TestTimerable> timerables = new ArrayList<TestTimerable>();
+		for (int i = 0; i < number; i++) {
+			TestTimerable timerable = new TestTimerable(this, ticks);
+			timerables.add(timerable);
+			phase.addTimerable(timerable);
+		}
+		return timerables;
+	}
+
+	private static class TestTimerable implements IParallelTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final ParallelTickPhaseTest test;
+		private int remainingTicks;
+		private int prepared;
+		private boolean crash;
+		private boolean killed;
+		private TestTimerable toAdd;
+
+		TestTimerable(ParallelTickPhaseTest test, int ticks) {
+			this.test = test;
+			this.remainingTicks = ticks;
+		}
+
+		@Override
+		public boolean prepareTimerEvent() {
+			if (crash) {
+				throw new IllegalStateException("test crash");
+			}
+			prepared++;
+			return remainingTicks-- > 0;
+		}
+
+		@Override
+		public void applyTimerEvent() {
+			test.applyOrder.add(this);
+			if (toAdd != null) {
+				test.phase.addTimerable(toAdd);
+				toAdd = null;
+			}
+		}
+
+		@Override
+		public void kill() {
+			killed = true;
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package jsettlers.logic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jsettlers.TestUtils;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link RescheduleTimer}.
+ */
+public class RescheduleTimerTest {
+	private static final int TIME_SLICE = 25;
+
+	private final RescheduleTimer timer = new RescheduleTimer();
+	private int currentTick = 0;
+
+	@Test
+	public void testExecutionTimes() {
+		int[] delays = { 1, 25, 49, 100, 10975, 12800, 13000, 20000, 15 * 60 * 1000, 3 * 60 * 60 * 1000 };
+		List<TestTimerable> timerables = new ArrayList<TestTimerable>();
+		for (int delay : delays) {
+			TestTimerable timerable = new TestTimerable(this, -1);
+			timerables.add(timerable);
+			timer.scheduleHandle(new TimerHandle(timerable), delay);
+		}
+		assertEquals(delays.length, timer.size());
+
+		runTicks(3 * 60 * 60 * 1000 / TIME_SLICE + 2);
+
+		for (int i = 0; i < delays.length; i++) {
+			assertEquals(1, timerables.get(i).executionTicks.size());
+			assertEquals(Math.max(1, delays[i] / TIME_SLICE), (int) timerables.get(i).executionTicks.get(0));
+		}
+		assertEquals(0, timer.size());
+	}
+
+	@Test
+	public void testRescheduleByReturnValue() {
+		TestTimerable timerable = new TestTimerable(this, 20 * TIME_SLICE);
+		timer.scheduleHandle(new TimerHandle(timerable), 10 * TIME_SLICE);
+
+		runTicks(71);
+
+		assertEquals(4, timerable.executionTicks.size());
+		for (int i = 0; i < 4; i++) {
+			assertEquals(10 + i * 20, (int) timerable.executionTicks.get(i));
+		}
+	}
+
+	@Test
+	public void testExecutionOrderInSlot() {
+		List<TestTimerable> executed = new ArrayList<TestTimerable>();
+		List<TestTimerable> timerables = new ArrayList<TestTimerable>();
+		for (int i = 0; i < 10; i++) {
+			TestTimerable timerable = new TestTimerable(this, -1, executed);
+			timerables.add(timerable);
+			timer.scheduleHandle(new TimerHandle(timerable), 5 * TIME_SLICE);
+		}
+
+		runTicks(6);
+
+		assertEquals(timerables, executed);
+	}
+
+	@Test
+	public void testCancel() {
+		TestTimerable timerable1 = new TestTimerable(this, 10);
+		TestTimerable timerable2 = new TestTimerable(this, 10);
+		TimerHandle handle1 = new TimerHandle(timerable1);
+		TimerHandle handle2 = new TimerHandle(timerable2);
+		timer.scheduleHandle(handle1, 100);
+		timer.scheduleHandle(handle2, 60000);
+		assertTrue(handle1.isScheduled());
+
+		timer.cancelHandle(handle1);
+		timer.cancelHandle(handle2);
+		assertFalse(handle1.isScheduled());
+		assertEquals(0, timer.size());
+
+		runTicks(3000);
+		assertTrue(timerable1.executionTicks.isEmpty());
+		assertTrue(timerable2.executionTicks.isEmpty());
+	}
+
+	@Test
+	public void testCancelWhileRunning() {
+		TestTimerable timerable = new TestTimerable(this, TIME_SLICE);
+		TimerHandle handle = new TimerHandle(timerable);
+		timerable.cancelHandle = handle;
+		timer.scheduleHandle(handle, TIME_SLICE);
+
+		runTicks(10);
+
+		assertEquals(1, timerable.executionTicks.size());
+		assertFalse(handle.isScheduled());
+	}
+
+	@Test
+	public void testReschedule() {
+		TestTimerable timerable = new TestTimerable(this, -1);
+		TimerHandle handle = new TimerHandle(timerable);
+		timer.scheduleHandle(handle, 100 * TIME_SLICE);
+
+		runTicks(10);
+		timer.rescheduleHandle(handle, 5 * TIME_SLICE);
+		assertEquals(1, timer.size());
+		runTicks(100);
+
+		assertEquals(1, timerable.executionTicks.size());
+		assertEquals(15, (int) timerable.executionTicks.get(0));
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		int[] delays = { 25, 5000, 10975, 11000, 20000, 15 * 60 * 1000 };
+		for (int delay : delays) {
+			timer.scheduleHandle(new TimerHandle(new TestTimerable(null, -1)), delay);
+		}
+		runTicks(17);
+
+		RescheduleTimer readTimer = TestUtils.serializeAndDeserialize(timer);
+		assertEquals(delays.length - 1, readTimer.size());
+
+		int[] expectedTicks = new int[delays.length - 1];
+		for (int i = 1; i < delays.length; i++) {
+			expectedTicks[i - 1] = delays[i] / TIME_SLICE - 17;
+		}
+
+		int[] executedTicks = new int[expectedTicks.length];
+		int executed = 0;
+		for (int tick = 0; executed < executedTicks.length && tick <= expectedTicks[expectedTicks.length - 1]; tick++) {
+			int before = readTimer.size();
+			readTimer.timerEvent();
+			for (int i = readTimer.size(); i < before; i++) {
+				executedTicks[executed++] = tick;
+			}
+		}
+
+		for (int i = 0; i < expectedTicks.length; i++) {
+			assertEquals(expectedTicks[i], executedTicks[i]);
+		}
+	}
+
+	private void runTicks(int ticks) {
+		for (int i = 0; i < ticks; i++) {
+			timer.timerEvent();
+			currentTick++;
+		}
+	}
+
+	private static class TestTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final transient RescheduleTimerTest test;
+		private final int delay;
+		private final transient List<TestTimerable> executionOrder;
+		private final transient List<Integer> executionTicks = new ArrayList<Integer>();
+		private transient TimerHandle cancelHandle;
+
+		TestTimerable(RescheduleTimerTest test, int delay) {
+			this(test, delay, null);
+		}
+
+		TestTimerable(RescheduleTimerTest test, int delay, List<TestTimerable> executionOrder) {
+			this.test = test;
+			this.delay = delay;
+			this.executionOrder = executionOrder;
+		}
+
+		@Override
+		public int timerEvent() {
+			if (test != null) {
+				executionTicks.add(test.currentTick);
+				if (cancelHandle != null) {
+					test.timer.cancelHandle(cancelHandle);
+				}
+			}
+			if (executionOrder != null) {
+				executionOrder.add(this);
+			}
+			return delay;
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+}
@@ -9,6 +9,7 @@ import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.mapobject.IMapObject;
@@ -206,6 +207,10 @@ public class LandmarksThreadTester {
 		public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 		}
 
+		@Override
+		public void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+		}
+
 		@Override
 		public IPartitionSettings getPartitionSettings(int x, int y) {
 			return null;
@@ -2,7 +2,6 @@ package jsettlers.algorithms;
 
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
-import jsettlers.algorithms.path.astar.normal.HexAStar;
 import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
 import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
 import jsettlers.algorithms.path.test.DummyEmptyAStarMap;
@@ -34,7 +33,7 @@ public class SimpleDijkstraTester {
 		DummyEmptyAStarMap aStarMap = new DummyEmptyAStarMap(WIDTH, HEIGHT);
 		aStarMap.setBlocked(120, 100, true);
 
-		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(map, new HexAStar(aStarMap, WIDTH, HEIGHT), WIDTH, HEIGHT);
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(map, aStarMap, WIDTH, HEIGHT);
 
 		IPathCalculatable requester = new IPathCalculatable() {
 
@@ -4,8 +4,11 @@ import java.io.File;
 import java.util.Random;
 
 import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
 import jsettlers.algorithms.path.astar.AbstractAStar;
 import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.hierarchical.HierarchicalAStar;
+import jsettlers.algorithms.path.astar.hierarchical.SectorGraphs;
 import jsettlers.algorithms.path.astar.normal.AStarJPS;
 import jsettlers.algorithms.path.astar.normal.HexAStar;
 import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
@@ -29,20 +32,29 @@ public class PathfinderSpeedComparision {
 		short height = mainGrid.getGraphicsGrid().getHeight();
 		IAStarPathMap map = mainGrid.getPathfinderGrid();
 
-		AbstractAStar astars[] = { new BucketQueueAStar(map, width, height), new HexAStar(map, width, height), new AStarJPS(map, width, height) };
+		SectorGraphs sectorGraphs = new SectorGraphs(map, width, height);
+		MilliStopWatch graphWatch = new MilliStopWatch();
+		sectorGraphs.getGraph(new TestPathRequester()).update();
+		long graphBuildTime = graphWatch.getDiff();
+
+		AbstractAStar astars[] = { new BucketQueueAStar(map, width, height), new HexAStar(map, width, height), new AStarJPS(map, width, height),
+				new HierarchicalAStar(map, sectorGraphs, new BucketQueueAStar(map, width, height), width, height) };
 
 		for (int i = 0; i < 30; i++) {
 			System.out.println("\n");
 		}
 
 		long aStarTimes[] = new long[astars.length];
+		long pathLengths[] = new long[astars.length];
 		for (int i = 0; i < astars.length; i++) {
-			testAStar(PATH_RANDOM_SEED, astars[i], map, 10, width, height); // just to get the arrays in the cache
-			aStarTimes[i] = testAStar(PATH_RANDOM_SEED, astars[i], map, NUMBER_OF_PATHS, width, height);
+			testAStar(PATH_RANDOM_SEED, astars[i], map, 10, width, height, null, 0); // just to get the arrays in the cache
+			aStarTimes[i] = testAStar(PATH_RANDOM_SEED, astars[i], map, NUMBER_OF_PATHS, width, height, pathLengths, i);
 		}
 
+		System.out.println("sector graph build time: " + graphBuildTime + " ms");
 		for (int i = 0; i < astars.length; i++) {
-			System.out.println("aStar" + i + " (" + astars[i].getClass() + ") avg: " + ((float) aStarTimes[i]) / NUMBER_OF_PATHS + " ms");
+			System.out.println("aStar" + i + " (" + astars[i].getClass() + ") avg: " + ((float) aStarTimes[i]) / NUMBER_OF_PATHS + " ms, avg length: "
+					+ ((float) pathLengths[i]) / NUMBER_OF_PATHS);
 		}
 
 		System.exit(0);
@@ -55,8 +67,8 @@ public class PathfinderSpeedComparision {
 		return loader.loadMainGrid(null).getMainGrid();
 	}
 
-	private static long testAStar(int randomSeed, AbstractAStar astar, IAStarPathMap map, int numberOfPaths, short width, short height)
-			throws InterruptedException {
+	private static long testAStar(int randomSeed, AbstractAStar astar, IAStarPathMap map, int numberOfPaths, short width, short height,
+			long[] pathLengths, int astarIdx) throws InterruptedException {
 
 		Random random = new Random(randomSeed);
 		IPathCalculatable requester = new TestPathRequester();
@@ -76,7 +88,10 @@ public class PathfinderSpeedComparision {
 				continue;
 			}
 
-			astar.findPath(requester, start.x, start.y, target.x, target.y);
+			Path path = astar.findPath(requester, start.x, start.y, target.x, target.y);
+			if (pathLengths != null && path != null) {
+				pathLengths[astarIdx] += path.getLength();
+			}
 			System.out.print(i + ", ");
 		}
 
@@ -0,0 +1,260 @@
+package jsettlers.graphics.map;
+
+import go.graphics.sound.ISoundDataRetriever;
+import go.graphics.sound.SoundPlayer;
+
+import java.io.File;
+
+import jsettlers.algorithms.fogofwar.FogOfWar;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.map.EDebugColorModes;
+import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.map.IMapData;
+import jsettlers.common.map.object.MapObject;
+import jsettlers.common.map.object.MapStoneObject;
+import jsettlers.common.map.object.MapTreeObject;
+import jsettlers.common.map.partition.IPartitionSettings;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.graphics.action.Action;
+import jsettlers.graphics.action.EActionType;
+import jsettlers.graphics.map.draw.ImageProvider;
+import jsettlers.graphics.startscreen.interfaces.FakeMapGame;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Measures the time {@link MapContent#drawContent(go.graphics.GLDrawContext, int, int)} needs to prepare a frame of a generated map with
+ * {@link MockGLDrawContext}.
+ * <p />
+ * The frame time with the graphics grid of the {@link MainGrid}, that only returns the positions with something to draw, is compared with the
+ * frame time when every position of the screen is probed.
+ * <p />
+ * Usage: MapContentBenchmark &lt;GFX directory&gt; [map size] [frames]
+ */
+public class MapContentBenchmark {
+	private static final int[][] WINDOW_SIZES = { { 1280, 720 }, { 1920, 1080 }, { 3840, 2160 } };
+	private static final int WARMUP_FRAMES = 100;
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: MapContentBenchmark <GFX directory> [map size] [frames]");
+			System.exit(1);
+		}
+		ImageProvider.getInstance().addLookupPath(new File(args[0]));
+		int size = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+		int frames = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+
+		RandomSingleton.load(0);
+		MatchConstants.clock = new NetworkTimer(true);
+
+		MainGrid grid = new MainGrid("benchmark", "benchmark", new GeneratedMapData(size), new boolean[] { true });
+		FogOfWar fogOfWar = new FogOfWar((short) size, (short) size, (byte) 0, true);
+		fogOfWar.toggleEnabled();
+		grid.initForPlayer((byte) 0, fogOfWar);
+
+		IGraphicsGrid indexed = grid.getGraphicsGrid();
+		IGraphicsGrid probing = new ProbingGraphicsGrid(indexed);
+
+		for (boolean zoomedOut : new boolean[] { false, true }) {
+			for (int[] window : WINDOW_SIZES) {
+				double probingTime = measure(probing, size, window[0], window[1], zoomedOut, frames);
+				double indexedTime = measure(indexed, size, window[0], window[1], zoomedOut, frames);
+				System.out.println(String.format("%4dx%4d%s: probing %6.3f ms, indexed %6.3f ms per frame", window[0], window[1],
+						zoomedOut ? " zoomed out" : "           ", probingTime, indexedTime));
+			}
+		}
+		System.exit(0);
+	}
+
+	private static double measure(IGraphicsGrid map, int size, int width, int height, boolean zoomedOut, int frames) {
+		MapContent content = new MapContent(new FakeMapGame(map), new NullSoundPlayer());
+		MockGLDrawContext gl = new MockGLDrawContext();
+		content.drawContent(gl, width, height);
+		if (zoomedOut) {
+			content.action(new Action(EActionType.ZOOM_OUT));
+		}
+		content.scrollTo(new ShortPoint2D(size / 2, size / 2), false);
+
+		for (int i = 0; i < WARMUP_FRAMES; i++) {
+			content.drawContent(gl, width, height);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < frames; i++) {
+			content.drawContent(gl, width, height);
+		}
+		return (System.nanoTime() - start) / 1e6 / frames;
+	}
+
+	/**
+	 * A grassland with lakes, forests and stones.
+	 */
+	private static class GeneratedMapData implements IMapData {
+		private final int size;
+
+		GeneratedMapData(int size) {
+			this.size = size;
+		}
+
+		@Override
+		public int getWidth() {
+			return size;
+		}
+
+		@Override
+		public int getHeight() {
+			return size;
+		}
+
+		@Override
+		public ELandscapeType getLandscape(int x, int y) {
+			return x % 100 < 20 && y % 80 < 15 ? ELandscapeType.WATER1 : ELandscapeType.GRASS;
+		}
+
+		@Override
+		public MapObject getMapObject(int x, int y) {
+			if (getLandscape(x, y) != ELandscapeType.GRASS || (x * 7 + y * 13) % 5 != 0) {
+				return null;
+			} else if (x % 60 >= 30 && y % 50 < 20) {
+				return MapTreeObject.getInstance();
+			} else if (x % 90 >= 70 && y % 70 >= 55) {
+				return MapStoneObject.getInstance(10);
+			} else {
+				return null;
+			}
+		}
+
+		@Override
+		public byte getLandscapeHeight(int x, int y) {
+			return (byte) (x % 16 + y % 8);
+		}
+
+		@Override
+		public ShortPoint2D getStartPoint(int player) {
+			return new ShortPoint2D(size / 2, size / 2);
+		}
+
+		@Override
+		public int getPlayerCount() {
+			return 1;
+		}
+
+		@Override
+		public EResourceType getResourceType(short x, short y) {
+			return EResourceType.FISH;
+		}
+
+		@Override
+		public byte getResourceAmount(short x, short y) {
+			return 0;
+		}
+
+		@Override
+		public short getBlockedPartition(short x, short y) {
+			return getLandscape(x, y).isBlocking ? (short) 0 : (short) 1;
+		}
+	}
+
+	/**
+	 * Uses the given grid, but lets the {@link MapContent} probe every position like it did before the drawable positions were indexed.
+	 */
+	private static class ProbingGraphicsGrid implements IGraphicsGrid {
+		private final IGraphicsGrid grid;
+
+		ProbingGraphicsGrid(IGraphicsGrid grid) {
+			this.grid = grid;
+		}
+
+		@Override
+		public short getWidth() {
+			return grid.getWidth();
+		}
+
+		@Override
+		public short getHeight() {
+			return grid.getHeight();
+		}
+
+		@Override
+		public IMovable getMovableAt(int x, int y) {
+			return grid.getMovableAt(x, y);
+		}
+
+		@Override
+		public IMapObject getMapObjectsAt(int x, int y) {
+			return grid.getMapObjectsAt(x, y);
+		}
+
+		@Override
+		public byte getHeightAt(int x, int y) {
+			return grid.getHeightAt(x, y);
+		}
+
+		@Override
+		public ELandscapeType getLandscapeTypeAt(int x, int y) {
+			return grid.getLandscapeTypeAt(x, y);
+		}
+
+		@Override
+		public int getDebugColorAt(int x, int y, EDebugColorModes debugColorMode) {
+			return grid.getDebugColorAt(x, y, debugColorMode);
+		}
+
+		@Override
+		public boolean isBorder(int x, int y) {
+			return grid.isBorder(x, y);
+		}
+
+		@Override
+		public byte getPlayerIdAt(int x, int y) {
+			return grid.getPlayerIdAt(x, y);
+		}
+
+		@Override
+		public byte getVisibleStatus(int x, int y) {
+			return grid.getVisibleStatus(x, y);
+		}
+
+		@Override
+		public boolean isFogOfWarVisible(int x, int y) {
+			return grid.isFogOfWarVisible(x, y);
+		}
+
+		@Override
+		public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
+			grid.setBackgroundListener(backgroundListener);
+		}
+
+		@Override
+		public void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+			grid.setFogOfWarListener(fogOfWarListener);
+		}
+
+		@Override
+		public int nextDrawableX(int x, int y, int maxX) {
+			return x + 1;
+		}
+
+		@Override
+		public IPartitionSettings getPartitionSettings(int x, int y) {
+			return grid.getPartitionSettings(x, y);
+		}
+	}
+
+	private static class NullSoundPlayer implements SoundPlayer {
+		@Override
+		public void playSound(int soundStart, float lvolume, float rvolume) {
+		}
+
+		@Override
+		public void setSoundDataRetriever(ISoundDataRetriever soundDataRetriever) {
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package jsettlers.graphics.map;
+
+import go.graphics.GLDrawContext;
+import go.graphics.text.EFontSize;
+import go.graphics.text.TextDrawer;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * A {@link GLDrawContext} that draws nothing. It only counts the draw calls, so that the cost of preparing a frame can be measured without a
+ * graphics card.
+ */
+public class MockGLDrawContext implements GLDrawContext {
+	private static final GLBuffer NULL_BUFFER = new GLBuffer() {
+		@Override
+		public void putFloat(float f) {
+		}
+
+		@Override
+		public void putByte(byte b) {
+		}
+
+		@Override
+		public void position(int position) {
+		}
+	};
+
+	private static final TextDrawer NULL_TEXT_DRAWER = new TextDrawer() {
+		@Override
+		public void renderCentered(float cx, float cy, String text) {
+		}
+
+		@Override
+		public void drawString(float x, float y, String string) {
+		}
+
+		@Override
+		public double getWidth(String string) {
+			return string.length();
+		}
+
+		@Override
+		public double getHeight(String string) {
+			return 1;
+		}
+
+		@Override
+		public void setColor(float red, float green, float blue, float alpha) {
+		}
+	};
+
+	private int nextId = 1;
+	private long drawCalls = 0;
+
+	public long getDrawCalls() {
+		return drawCalls;
+	}
+
+	@Override
+	public void fillQuad(float x1, float y1, float x2, float y2) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawLine(float[] points, boolean loop) {
+		drawCalls++;
+	}
+
+	@Override
+	public void glPushMatrix() {
+	}
+
+	@Override
+	public void glTranslatef(float x, float y, float z) {
+	}
+
+	@Override
+	public void glScalef(float x, float y, float z) {
+	}
+
+	@Override
+	public void glPopMatrix() {
+	}
+
+	@Override
+	public void color(float red, float green, float blue, float alpha) {
+	}
+
+	@Override
+	public int generateTexture(int width, int height, ShortBuffer data) {
+		return nextId++;
+	}
+
+	@Override
+	public void deleteTexture(int textureid) {
+	}
+
+	@Override
+	public void drawQuadWithTexture(int textureid, float[] geometry) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawQuadWithTexture(int textureid, int geometryindex) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawTrianglesWithTexture(int textureid, float[] geometry) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawTrianglesWithTexture(int textureid, int geometryindex, int triangleCount) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int textureid, float[] geometry) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int textureid, int geometryindex, int triangleCount) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int textureid, int geometryindex, int colorindex, int triangleCount) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int currentTexture, ByteBuffer byteBuffer, int currentTriangles) {
+		drawCalls++;
+	}
+
+	@Override
+	public int makeWidthValid(int width) {
+		return width;
+	}
+
+	@Override
+	public int makeHeightValid(int height) {
+		return height;
+	}
+
+	@Override
+	public void glMultMatrixf(float[] matrix, int offset) {
+	}
+
+	@Override
+	public void updateTexture(int textureIndex, int left, int bottom, int width, int height, ShortBuffer data) {
+	}
+
+	@Override
+	public TextDrawer getTextDrawer(EFontSize size) {
+		return NULL_TEXT_DRAWER;
+	}
+
+	@Override
+	public int storeGeometry(float[] geometry) {
+		return nextId++;
+	}
+
+	@Override
+	public boolean isGeometryValid(int geometryindex) {
+		return geometryindex > 0;
+	}
+
+	@Override
+	public void removeGeometry(int geometryindex) {
+	}
+
+	@Override
+	public GLBuffer startWriteGeometry(int geometryindex) {
+		return NULL_BUFFER;
+	}
+
+	@Override
+	public void endWriteGeometry(int geometryindex) {
+	}
+
+	@Override
+	public int generateGeometry(int bytes) {
+		return nextId++;
+	}
+}
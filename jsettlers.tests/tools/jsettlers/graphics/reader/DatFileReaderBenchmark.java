@@ -0,0 +1,210 @@
+package jsettlers.graphics.reader;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jsettlers.graphics.image.Image;
+import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.bytereader.IByteReader;
+import jsettlers.graphics.reader.bytereader.MappedByteReader;
+import jsettlers.graphics.reader.translator.DatBitmapTranslator;
+
+/**
+ * Measures the startup cost of reading all dat files the ImageProvider uses: the time to read the index of every file and to decode every
+ * settler, torso, landscape and gui image.
+ * <p />
+ * The images are decoded with the {@link ByteReader} reading the file with a {@link RandomAccessFile}, with one {@link MappedByteReader} and with
+ * one {@link MappedByteReader} per thread sharing the same mapping. The checksums of the decoded images must be the same for all readers.
+ * <p />
+ * Usage: DatFileReaderBenchmark &lt;GFX directory&gt; [threads]
+ */
+public class DatFileReaderBenchmark {
+	private static final String FILE_PATTERN = "siedler3_\\d\\d\\.7c003e01f\\.dat";
+	private static final int RUNS = 3;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: DatFileReaderBenchmark <GFX directory> [threads]");
+			System.exit(1);
+		}
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		File[] files = new File(args[0]).listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.matches(FILE_PATTERN);
+			}
+		});
+		if (files == null || files.length == 0) {
+			System.err.println("No dat files found in " + args[0]);
+			System.exit(1);
+		}
+		Arrays.sort(files);
+
+		for (int run = 0; run < RUNS; run++) {
+			System.out.println("==== run " + (run + 1) + " of " + RUNS);
+			long indexNanos = 0;
+			long byteReaderNanos = 0;
+			long mappedNanos = 0;
+			long parallelNanos = 0;
+			int images = 0;
+
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			for (File file : files) {
+				long start = System.nanoTime();
+				AdvancedDatFileReader reader = new AdvancedDatFileReader(file);
+				reader.initialize();
+				List<ImagePointer> pointers = getImagePointers(reader);
+				indexNanos += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				long byteReaderChecksum = decodeWithByteReader(file, pointers);
+				byteReaderNanos += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				long mappedChecksum = decode(MappedByteReader.map(file), pointers, 0, pointers.size());
+				mappedNanos += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				long parallelChecksum = decodeParallel(executor, MappedByteReader.map(file), pointers, threads);
+				parallelNanos += System.nanoTime() - start;
+
+				if (byteReaderChecksum != mappedChecksum || byteReaderChecksum != parallelChecksum) {
+					System.err.println("Checksums of " + file.getName() + " differ: " + byteReaderChecksum + " / " + mappedChecksum + " / "
+							+ parallelChecksum);
+				}
+				images += pointers.size();
+			}
+			executor.shutdown();
+
+			System.out.println(files.length + " files, " + images + " images");
+			System.out.println(String.format("read index:                %8.1f ms", indexNanos / 1e6));
+			System.out.println(String.format("decode ByteReader:         %8.1f ms", byteReaderNanos / 1e6));
+			System.out.println(String.format("decode MappedByteReader:   %8.1f ms", mappedNanos / 1e6));
+			System.out.println(String.format("decode with %2d threads:    %8.1f ms", threads, parallelNanos / 1e6));
+		}
+	}
+
+	private static List<ImagePointer> getImagePointers(AdvancedDatFileReader reader) throws IOException {
+		List<ImagePointer> pointers = new ArrayList<ImagePointer>();
+
+		int settlers = reader.getSettlers().size();
+		for (int i = 0; i < settlers; i++) {
+			for (long pointer : reader.getSettlerPointers(i)) {
+				pointers.add(new ImagePointer(AdvancedDatFileReader.SETTLER_TRANSLATOR, pointer));
+			}
+			long[] torsos = reader.getTorsoPointers(i);
+			if (torsos != null) {
+				for (long pointer : torsos) {
+					pointers.add(new ImagePointer(AdvancedDatFileReader.TORSO_TRANSLATOR, pointer));
+				}
+			}
+		}
+
+		int landscapes = reader.getLandscapes().length();
+		for (int i = 0; i < landscapes; i++) {
+			pointers.add(new ImagePointer(AdvancedDatFileReader.LANDSCAPE_TRANSLATOR, reader.getReaderForLandscape(i).getReadBytes()));
+		}
+
+		int guis = reader.getGuis().length();
+		for (int i = 0; i < guis; i++) {
+			pointers.add(new ImagePointer(AdvancedDatFileReader.GUI_TRANSLATOR, reader.getReaderForGui(i).getReadBytes()));
+		}
+		return pointers;
+	}
+
+	private static long decodeWithByteReader(File file, List<ImagePointer> pointers) throws IOException {
+		ByteReader reader = new ByteReader(new RandomAccessFile(file, "r"));
+		try {
+			long checksum = 0;
+			for (ImagePointer pointer : pointers) {
+				reader.skipTo(pointer.position);
+				checksum += decode(reader, pointer.translator);
+			}
+			return checksum;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static long decode(MappedByteReader mapping, List<ImagePointer> pointers, int from, int to) throws IOException {
+		IByteReader reader = mapping.createReaderAt(0);
+		long checksum = 0;
+		for (int i = from; i < to; i++) {
+			ImagePointer pointer = pointers.get(i);
+			reader.skipTo(pointer.position);
+			checksum += decode(reader, pointer.translator);
+		}
+		return checksum;
+	}
+
+	private static long decodeParallel(ExecutorService executor, final MappedByteReader mapping, final List<ImagePointer> pointers, int threads)
+			throws Exception {
+		List<Future<Long>> results = new ArrayList<Future<Long>>();
+		int chunkSize = (pointers.size() + threads - 1) / threads;
+		for (int from = 0; from < pointers.size(); from += chunkSize) {
+			final int chunkFrom = from;
+			final int chunkTo = Math.min(from + chunkSize, pointers.size());
+			results.add(executor.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws IOException {
+					return decode(mapping, pointers, chunkFrom, chunkTo);
+				}
+			}));
+		}
+
+		long checksum = 0;
+		for (Future<Long> result : results) {
+			checksum += result.get();
+		}
+		return checksum;
+	}
+
+	private static long decode(IByteReader reader, DatBitmapTranslator<? extends Image> translator) throws IOException {
+		ChecksumWriter writer = new ChecksumWriter();
+		DatBitmapReader.uncompressImage(reader, translator, new ImageMetadata(), writer);
+		return writer.checksum;
+	}
+
+	/**
+	 * The position of an image in a dat file.
+	 */
+	private static class ImagePointer {
+		final DatBitmapTranslator<? extends Image> translator;
+		final long position;
+
+		ImagePointer(DatBitmapTranslator<? extends Image> translator, long position) {
+			this.translator = translator;
+			this.position = position;
+		}
+	}
+
+	/**
+	 * Calculates a checksum of the decoded image instead of storing it.
+	 */
+	private static class ChecksumWriter implements ImageArrayProvider {
+		long checksum = 17;
+
+		@Override
+		public void startImage(int width, int height) {
+			checksum = checksum * 31 + width;
+			checksum = checksum * 31 + height;
+		}
+
+		@Override
+		public void writeLine(short[] data, int length) {
+			for (int i = 0; i < length; i++) {
+				checksum = checksum * 31 + data[i];
+			}
+		}
+	}
+}
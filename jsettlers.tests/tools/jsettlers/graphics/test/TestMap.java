@@ -13,6 +13,7 @@ import jsettlers.common.buildings.IBuilding;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.map.shapes.MapCircle;
@@ -507,6 +508,10 @@ public class TestMap implements IGraphicsGrid {
 	public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 	}
 
+	@Override
+	public void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+	}
+
 	@Override
 	public int nextDrawableX(int x, int y, int maxX) {
 		return x + 1;
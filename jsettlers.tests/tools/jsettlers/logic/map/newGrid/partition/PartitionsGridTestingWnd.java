@@ -10,6 +10,7 @@ import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.logging.MilliStopWatch;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.map.shapes.FreeMapArea;
@@ -142,6 +143,10 @@ public class PartitionsGridTestingWnd {
 			public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 			}
 
+			@Override
+			public void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+			}
+
 			@Override
 			public int nextDrawableX(int x, int y, int maxX) {
 				return x + 1;
@@ -0,0 +1,80 @@
+package jsettlers.logic.map.newGrid.partition.manager.datastructures;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import jsettlers.algorithms.queue.ITypeAcceptor;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.MathUtils;
+
+/**
+ * The former list based implementation of the {@link PositionableList}. It's used as reference in tests and benchmarks.
+ * 
+ * @param <T>
+ */
+public class LinearPositionableList<T extends ILocatable> {
+	private final ArrayList<T> data = new ArrayList<T>();
+
+	public void insert(T object) {
+		data.add(object);
+	}
+
+	public T removeObjectAt(ShortPoint2D position) {
+		Iterator<T> iter = data.iterator();
+		while (iter.hasNext()) {
+			T curr = iter.next();
+			if (curr.getPos().equals(position)) {
+				iter.remove();
+				return curr;
+			}
+		}
+		return null;
+	}
+
+	public T getObjectAt(ShortPoint2D position) {
+		for (T curr : data) {
+			if (curr.getPos().equals(position)) {
+				return curr;
+			}
+		}
+		return null;
+	}
+
+	public T removeObjectNextTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+		T currBest = getObjectCloseTo(position, acceptor);
+		if (currBest != null) {
+			data.remove(currBest);
+		}
+		return currBest;
+	}
+
+	public T getObjectCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+		int bestDistance = Integer.MAX_VALUE;
+		T currBest = null;
+
+		for (T currEntry : data) {
+			if (acceptor != null && !acceptor.accepts(currEntry))
+				continue;
+
+			int currDist = MathUtils.squareHypot(position, currEntry.getPos());
+			if (bestDistance > currDist) {
+				bestDistance = currDist;
+				currBest = currEntry;
+			}
+		}
+		return currBest;
+	}
+
+	public void remove(T object) {
+		data.remove(object);
+	}
+
+	public int size() {
+		return data.size();
+	}
+
+	public ArrayList<T> getData() {
+		return data;
+	}
+}
@@ -0,0 +1,39 @@
+package jsettlers.logic.map.newGrid.partition.manager.datastructures;
+
+import java.io.Serializable;
+
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * {@link ILocatable} with a changeable position for tests of the {@link PositionableList}.
+ */
+public class MovingLocatable implements ILocatable, Serializable {
+	private static final long serialVersionUID = -5330284633893146707L;
+
+	private final int id;
+	private ShortPoint2D pos;
+
+	public MovingLocatable(int id, ShortPoint2D pos) {
+		this.id = id;
+		this.pos = pos;
+	}
+
+	@Override
+	public ShortPoint2D getPos() {
+		return pos;
+	}
+
+	public void setPos(ShortPoint2D pos) {
+		this.pos = pos;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return "MovingLocatable(" + id + ", " + pos + ")";
+	}
+}
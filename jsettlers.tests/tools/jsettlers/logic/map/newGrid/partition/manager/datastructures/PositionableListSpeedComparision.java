@@ -0,0 +1,65 @@
+package jsettlers.logic.map.newGrid.partition.manager.datastructures;
+
+import java.util.Random;
+
+import jsettlers.common.logging.MilliStopWatch;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Compares the speed of the {@link PositionableList} with the former {@link LinearPositionableList} by simulating the material assignment of a
+ * partition: objects are inserted and the nearest ones are removed.
+ */
+public class PositionableListSpeedComparision {
+	private static final int MAP_SIZE = 1024;
+	private static final int[] NUMBER_OF_OBJECTS = { 100, 300, 1000, 5000, 20000 };
+	private static final int NUMBER_OF_OPERATIONS = 20000;
+	private static final int RANDOM_SEED = 1234;
+
+	public static void main(String args[]) {
+		for (int numberOfObjects : NUMBER_OF_OBJECTS) {
+			testLinearList(numberOfObjects); // warm up
+			testPositionableList(numberOfObjects);
+
+			long linearTime = testLinearList(numberOfObjects);
+			long indexedTime = testPositionableList(numberOfObjects);
+
+			System.out.println(numberOfObjects + " objects: linear list: " + linearTime + " ms,  positionable list: " + indexedTime + " ms");
+		}
+	}
+
+	private static long testLinearList(int numberOfObjects) {
+		Random random = new Random(RANDOM_SEED);
+		LinearPositionableList<MovingLocatable> list = new LinearPositionableList<MovingLocatable>();
+		for (int i = 0; i < numberOfObjects; i++) {
+			list.insert(new MovingLocatable(i, getRandomPosition(random)));
+		}
+
+		MilliStopWatch watch = new MilliStopWatch();
+		for (int i = 0; i < NUMBER_OF_OPERATIONS; i++) {
+			MovingLocatable removed = list.removeObjectNextTo(getRandomPosition(random), null);
+			removed.setPos(getRandomPosition(random));
+			list.insert(removed);
+		}
+		return watch.getDiff();
+	}
+
+	private static long testPositionableList(int numberOfObjects) {
+		Random random = new Random(RANDOM_SEED);
+		PositionableList<MovingLocatable> list = new PositionableList<MovingLocatable>();
+		for (int i = 0; i < numberOfObjects; i++) {
+			list.insert(new MovingLocatable(i, getRandomPosition(random)));
+		}
+
+		MilliStopWatch watch = new MilliStopWatch();
+		for (int i = 0; i < NUMBER_OF_OPERATIONS; i++) {
+			MovingLocatable removed = list.removeObjectNextTo(getRandomPosition(random));
+			removed.setPos(getRandomPosition(random));
+			list.insert(removed);
+		}
+		return watch.getDiff();
+	}
+
+	private static ShortPoint2D getRandomPosition(Random random) {
+		return new ShortPoint2D(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+	}
+}
@@ -0,0 +1,83 @@
+package jsettlers.logic.map.save;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import jsettlers.common.map.MapLoadException;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Measures how long it takes to save the game state of a map with plain Java serialization and with the {@link SavegameFormat}.
+ * <p />
+ * The game state is written like {@link MapList#saveMap(jsettlers.input.PlayerState[], MainGrid)} does it, but without waiting for the game
+ * threads.
+ * <p />
+ * Usage: SavegameBenchmark &lt;map file&gt; [repetitions]
+ */
+public class SavegameBenchmark {
+	private static final int WARMUP_REPETITIONS = 5;
+
+	private enum EFormat {
+		JAVA_SERIALIZATION,
+		SAVEGAME_UNCOMPRESSED,
+		SAVEGAME_COMPRESSED
+	}
+
+	public static void main(String[] args) throws MapLoadException, IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: SavegameBenchmark <map file> [repetitions]");
+			System.exit(1);
+		}
+		int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		RandomSingleton.load(123456L);
+		MatchConstants.clock = new NetworkTimer(true);
+		MapLoader loader = MapLoader.getLoaderForFile(new DirectoryMapLister.ListedMapFile(new File(args[0]), false));
+		MainGrid grid = loader.loadMainGrid(null).getMainGrid();
+
+		File file = File.createTempFile("savegame", ".map");
+		file.deleteOnExit();
+
+		for (EFormat format : EFormat.values()) {
+			for (int i = 0; i < WARMUP_REPETITIONS; i++) {
+				save(grid, file, format);
+			}
+
+			long[] times = new long[repetitions];
+			for (int i = 0; i < repetitions; i++) {
+				long start = System.nanoTime();
+				save(grid, file, format);
+				times[i] = System.nanoTime() - start;
+			}
+			Arrays.sort(times);
+			System.out.println(String.format("%-22s median %7.1f ms, min %7.1f ms, %6d KiB", format, times[repetitions / 2] / 1e6, times[0] / 1e6,
+					file.length() / 1024));
+		}
+		System.exit(0);
+	}
+
+	private static void save(MainGrid grid, File file, EFormat format) throws IOException {
+		BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		ObjectOutputStream oos;
+		if (format == EFormat.JAVA_SERIALIZATION) {
+			oos = new ObjectOutputStream(out);
+		} else {
+			oos = new SavegameObjectOutputStream(out, format == EFormat.SAVEGAME_COMPRESSED);
+		}
+
+		oos.writeInt(MatchConstants.clock.getTime());
+		RandomSingleton.serialize(oos);
+		oos.writeObject(grid);
+		RescheduleTimer.saveTo(oos);
+		oos.close();
+	}
+}
@@ -4,14 +4,19 @@ import java.util.LinkedList;
 
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
 import jsettlers.algorithms.path.astar.normal.HexAStar;
 import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.algorithms.path.service.IAStarFactory;
+import jsettlers.algorithms.path.service.PathRequest;
+import jsettlers.algorithms.path.service.PathfinderService;
 import jsettlers.common.Color;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.landscape.EResourceType;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsFogOfWarListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.mapobject.EMapObjectType;
@@ -21,6 +26,7 @@ import jsettlers.common.material.ESearchType;
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.movable.IMovable;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageable;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBearer;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableBricklayer;
 import jsettlers.logic.map.newGrid.partition.manager.manageables.IManageableDigger;
@@ -43,6 +49,7 @@ public class MovableTestsMap implements IGraphicsGrid, IAStarPathMap {
 	private final EMaterialType materialTypeMap[][];
 	private final byte materialAmmountMap[][];
 	private final HexAStar aStar;
+	private final PathfinderService pathfinderService;
 
 	public MovableTestsMap(int width, int height, Player defaultPlayer) {
 		this.width = (short) width;
@@ -54,6 +61,12 @@ public class MovableTestsMap implements IGraphicsGrid, IAStarPathMap {
 		this.materialAmmountMap = new byte[width][height];
 
 		aStar = new HexAStar(this, this.width, this.height);
+		pathfinderService = new PathfinderService(new IAStarFactory() {
+			@Override
+			public AbstractAStar createAStar() {
+				return new HexAStar(MovableTestsMap.this, MovableTestsMap.this.width, MovableTestsMap.this.height);
+			}
+		});
 	}
 
 	@Override
@@ -124,6 +137,10 @@ public class MovableTestsMap implements IGraphicsGrid, IAStarPathMap {
 	public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 	}
 
+	@Override
+	public void setFogOfWarListener(IGraphicsFogOfWarListener fogOfWarListener) {
+	}
+
 	private final AbstractNewMovableGrid movableGrid = new AbstractNewMovableGrid() {
 		private static final long serialVersionUID = 610513829074598238L;
 
@@ -157,6 +174,14 @@ public class MovableTestsMap implements IGraphicsGrid, IAStarPathMap {
 			return aStar.findPath(pathRequester, targetPos);
 		}
 
+		@Override
+		public PathRequest requestPath(IPathCalculatable pathRequester, ShortPoint2D targetPos) {
+			PathRequest request = pathfinderService.requestPath(pathRequester, targetPos, null);
+			pathfinderService.resolveRequests();
+			pathfinderService.deliverResults();
+			return request;
+		}
+
 		@Override
 		public void addJobless(IManageableBearer bearer) {
 			if (!materials.isEmpty()) {
@@ -351,6 +376,10 @@ public class MovableTestsMap implements IGraphicsGrid, IAStarPathMap {
 		public void removeJobless(IManageableBricklayer bricklayer) {
 		}
 
+		@Override
+		public void joblessPositionChanged(IManageable jobless, ShortPoint2D oldPosition) {
+		}
+
 		@Override
 		public ELandscapeType getLandscapeTypeAt(short x, short y) {
 			return ELandscapeType.GRASS;
@@ -0,0 +1,80 @@
+package jsettlers.network.client.task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.input.tasks.DestroyBuildingGuiTask;
+import jsettlers.input.tasks.EGuiAction;
+import jsettlers.input.tasks.GuiTaskTypes;
+import jsettlers.input.tasks.MoveToGuiTask;
+import jsettlers.input.tasks.SimpleGuiTask;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.client.task.packets.TaskPacketRegistry;
+
+/**
+ * Compares the size and the speed of encoding {@link SyncTasksPacket}s with the task class names and with the ids of the
+ * {@link TaskPacketRegistry}.
+ */
+public class TaskPacketEncodingBenchmark {
+	private static final int ITERATIONS = 200000;
+
+	public static void main(String[] args) throws IOException {
+		SyncTasksPacket packet = createPacket();
+
+		System.out.println("class names (unregistered tasks):");
+		benchmark(packet);
+
+		GuiTaskTypes.register();
+
+		System.out.println("type ids (registered tasks):");
+		benchmark(packet);
+	}
+
+	private static SyncTasksPacket createPacket() {
+		List<TaskPacket> tasks = new ArrayList<TaskPacket>();
+		tasks.add(new SimpleGuiTask(EGuiAction.STOP_WORKING, (byte) 1));
+		tasks.add(new MoveToGuiTask((byte) 1, new ShortPoint2D(100, 200), Arrays.asList(3, 4, 5)));
+		tasks.add(new DestroyBuildingGuiTask((byte) 1, new ShortPoint2D(50, 60)));
+		return new SyncTasksPacket(4711, tasks);
+	}
+
+	private static void benchmark(SyncTasksPacket packet) throws IOException {
+		byte[] data = serialize(packet);
+		System.out.println("\tencoded size: " + data.length + " bytes for " + packet.getTasks().size() + " tasks");
+
+		for (int warmup = 0; warmup < 2; warmup++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				serialize(packet);
+			}
+			long serializeTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				new SyncTasksPacket().deserialize(new DataInputStream(new ByteArrayInputStream(data)));
+			}
+			long deserializeTime = System.nanoTime() - start;
+
+			if (warmup > 0) {
+				System.out.println("\tserialize: " + (ITERATIONS * 1000000000L / serializeTime) + " packets/s   deserialize: "
+						+ (ITERATIONS * 1000000000L / deserializeTime) + " packets/s");
+			}
+		}
+	}
+
+	private static byte[] serialize(SyncTasksPacket packet) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		packet.serialize(out);
+		out.flush();
+		return buffer.toByteArray();
+	}
+}
@@ -0,0 +1,191 @@
+package jsettlers.network.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.common.packets.ArrayOfMatchInfosPacket;
+import jsettlers.network.common.packets.MapInfoPacket;
+import jsettlers.network.common.packets.MatchInfoPacket;
+import jsettlers.network.common.packets.PlayerInfoPacket;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.socket.ISocket;
+import jsettlers.network.server.db.inMemory.InMemoryDB;
+import jsettlers.network.server.match.EPlayerState;
+import jsettlers.network.server.match.Match;
+import jsettlers.network.server.match.MatchesListSendingTimerTask;
+import jsettlers.network.server.match.Player;
+import jsettlers.network.server.packets.ServersideSyncTasksPacket;
+import jsettlers.network.server.packets.ServersideTaskPacket;
+
+/**
+ * Compares serializing packets for every player with serializing them once for all players. The lobby contains 500 users and the matches have 8
+ * players. The channels discard the written data, so only the serialization and the framing are measured.
+ */
+public class MatchBroadcastBenchmark {
+	private static final int LOBBY_USERS = 500;
+	private static final int NUMBER_OF_MATCHES = 20;
+	private static final int PLAYERS_PER_MATCH = 8;
+	private static final int ITERATIONS = 2000;
+
+	public static void main(String[] args) throws IOException {
+		InMemoryDB db = new InMemoryDB();
+		for (int i = 0; i < LOBBY_USERS; i++) {
+			db.storePlayer(createPlayer("lobby" + i));
+		}
+
+		List<Match> matches = new ArrayList<Match>();
+		for (int m = 0; m < NUMBER_OF_MATCHES; m++) {
+			Match match = new Match("match" + m, PLAYERS_PER_MATCH + 1, new MapInfoPacket("map" + m, "map", "author", "author", 8), m);
+			db.storeMatch(match);
+			for (int p = 0; p < PLAYERS_PER_MATCH; p++) {
+				Player player = createPlayer("match" + m + "player" + p);
+				db.storePlayer(player);
+				player.joinMatch(match);
+			}
+			matches.add(match);
+		}
+
+		List<ServersideTaskPacket> tasks = new ArrayList<ServersideTaskPacket>();
+		for (int i = 0; i < 4; i++) {
+			tasks.add(new ServersideTaskPacket(new byte[40]));
+		}
+		ServersideSyncTasksPacket syncTasksPacket = new ServersideSyncTasksPacket(4711, tasks);
+
+		for (int run = 0; run < 2; run++) { // the first run warms up
+			boolean print = run > 0;
+
+			long start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				for (Match match : matches) {
+					sendToEveryPlayer(db, match, syncTasksPacket);
+				}
+			}
+			print(print, "lockstep, serialized per player", start, ITERATIONS * NUMBER_OF_MATCHES);
+
+			start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				for (Match match : matches) {
+					match.broadcastMessage(ENetworkKey.SYNCHRONOUS_TASK, syncTasksPacket);
+				}
+			}
+			print(print, "lockstep, serialized once", start, ITERATIONS * NUMBER_OF_MATCHES);
+
+			int listIterations = ITERATIONS / 20;
+			long startBytes = getSentBytes(db);
+			start = System.nanoTime();
+			for (int i = 0; i < listIterations; i++) {
+				ArrayOfMatchInfosPacket packet = createMatchesList(db);
+				for (Player player : db.getPlayers(EPlayerState.LOGGED_IN)) {
+					player.sendPacket(ENetworkKey.ARRAY_OF_MATCHES, packet);
+				}
+			}
+			print(print, "matches list, full list every tick", start, listIterations);
+			printBytes(print, db, startBytes, listIterations);
+
+			MatchesListSendingTimerTask task = new MatchesListSendingTimerTask(db);
+			task.run(); // initial full lists
+			Player changingPlayer = db.getPlayer("match0player0");
+			startBytes = getSentBytes(db);
+			start = System.nanoTime();
+			for (int i = 0; i < listIterations; i++) {
+				changingPlayer.setReady(i % 2 == 0); // one match changes every tick
+				task.run();
+			}
+			print(print, "matches list, delta with one change per tick", start, listIterations);
+			printBytes(print, db, startBytes, listIterations);
+		}
+	}
+
+	private static void sendToEveryPlayer(InMemoryDB db, Match match, ServersideSyncTasksPacket packet) {
+		for (PlayerInfoPacket playerInfo : match.getPlayerInfos()) {
+			db.getPlayer(playerInfo.getId()).sendPacket(ENetworkKey.SYNCHRONOUS_TASK, packet);
+		}
+	}
+
+	private static ArrayOfMatchInfosPacket createMatchesList(InMemoryDB db) {
+		List<Match> matches = db.getJoinableMatches();
+		MatchInfoPacket[] matchInfoPackets = new MatchInfoPacket[matches.size()];
+		int i = 0;
+		for (Match curr : matches) {
+			matchInfoPackets[i++] = new MatchInfoPacket(curr);
+		}
+		return new ArrayOfMatchInfosPacket(matchInfoPackets);
+	}
+
+	private static void print(boolean print, String name, long startNanos, int operations) {
+		if (print) {
+			long nanos = System.nanoTime() - startNanos;
+			System.out.println(name + ": " + (nanos / operations / 1000) + " us per broadcast");
+		}
+	}
+
+	private static long getSentBytes(InMemoryDB db) {
+		long bytes = 0;
+		for (Player player : db.getPlayers(EPlayerState.LOGGED_IN)) {
+			bytes += player.getChannel().getSentBytes();
+		}
+		return bytes;
+	}
+
+	private static void printBytes(boolean print, InMemoryDB db, long startBytes, int ticks) {
+		if (print) {
+			System.out.println("\tlobby bytes per tick: " + (getSentBytes(db) - startBytes) / ticks);
+		}
+	}
+
+	private static Player createPlayer(String id) throws IOException {
+		return new Player(new PlayerInfoPacket(id, id, false), new Channel(new DiscardingSocket(id)));
+	}
+
+	/**
+	 * {@link ISocket} discarding all written data. Nothing can be read from it.
+	 */
+	private static class DiscardingSocket implements ISocket {
+		private final String name;
+
+		DiscardingSocket(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+				}
+			};
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new InputStream() {
+				@Override
+				public int read() {
+					return -1;
+				}
+			};
+		}
+
+		@Override
+		public boolean isClosed() {
+			return false;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package jsettlers.network.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.TestPacket;
+import jsettlers.network.infrastructure.channel.listeners.PacketChannelListener;
+import jsettlers.network.infrastructure.channel.nio.IChannelAcceptedListener;
+import jsettlers.network.infrastructure.channel.nio.NioChannel;
+import jsettlers.network.infrastructure.channel.nio.NioSelectorThread;
+import jsettlers.network.infrastructure.channel.nio.NioServer;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+
+/**
+ * Simulates many clients connecting to a local {@link NioServer}. Every client sends packets that are echoed by the server. The throughput,
+ * the round trip times and the number of threads are printed.
+ * <p />
+ * Arguments: [number of clients] [packets per client]
+ */
+public class NioServerLoadTester {
+	private static final int CLIENT_SELECTOR_THREADS = 2;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int numberOfClients = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int packetsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+		NioServer server = new NioServer(new ConsoleLogger("server"), 0, NetworkConstants.Server.NIO_SELECTOR_THREADS, new IChannelAcceptedListener() {
+			@Override
+			public void channelAccepted(final Channel channel) {
+				channel.registerListener(new PacketChannelListener<TestPacket>(ENetworkKey.TEST_PACKET, TestPacket.DEFAULT_DESERIALIZER) {
+					@Override
+					protected void receivePacket(ENetworkKey key, TestPacket packet) {
+						channel.sendPacket(key, packet); // echo
+					}
+				});
+				channel.start();
+			}
+		});
+		server.startSelectorThreads();
+		Thread acceptThread = new Thread(server, "NioServerAcceptThread");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+
+		NioSelectorThread[] clientThreads = new NioSelectorThread[CLIENT_SELECTOR_THREADS];
+		for (int i = 0; i < CLIENT_SELECTOR_THREADS; i++) {
+			clientThreads[i] = new NioSelectorThread("ClientSelectorThread_" + i);
+			clientThreads[i].start();
+		}
+
+		final CountDownLatch receivedLatch = new CountDownLatch(numberOfClients * packetsPerClient);
+		final AtomicLong summedRoundTripNanos = new AtomicLong();
+		final long startNanos = System.nanoTime();
+
+		long connectStart = System.currentTimeMillis();
+		ArrayList<Channel> clients = new ArrayList<Channel>();
+		for (int i = 0; i < numberOfClients; i++) {
+			Channel client = NioChannel.connect("localhost", server.getPort(), clientThreads[i % CLIENT_SELECTOR_THREADS], server.getBufferPool());
+			client.registerListener(new PacketChannelListener<TestPacket>(ENetworkKey.TEST_PACKET, TestPacket.DEFAULT_DESERIALIZER) {
+				@Override
+				protected void receivePacket(ENetworkKey key, TestPacket packet) {
+					long sentNanos = startNanos + Long.parseLong(packet.getTestString());
+					summedRoundTripNanos.addAndGet(System.nanoTime() - sentNanos);
+					receivedLatch.countDown();
+				}
+			});
+			client.start();
+			clients.add(client);
+		}
+		System.out.println("connected " + numberOfClients + " clients in " + (System.currentTimeMillis() - connectStart) + " ms");
+		System.out.println("server channels: " + waitForChannels(server, numberOfClients) + "   threads: " + Thread.activeCount());
+
+		long sendStart = System.currentTimeMillis();
+		for (int packet = 0; packet < packetsPerClient; packet++) {
+			for (Channel client : clients) {
+				client.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(Long.toString(System.nanoTime() - startNanos), packet));
+			}
+		}
+
+		boolean finished = receivedLatch.await(60, TimeUnit.SECONDS);
+		long duration = System.currentTimeMillis() - sendStart;
+		long received = numberOfClients * packetsPerClient - receivedLatch.getCount();
+
+		System.out.println("finished: " + finished + "   echoed packets: " + received + "   time: " + duration + " ms   packets/s: "
+				+ (received * 1000 / Math.max(1, duration)));
+		System.out.println("average round trip: " + (summedRoundTripNanos.get() / Math.max(1, received) / 1000) + " us   pooled buffers: "
+				+ server.getBufferPool().getPooledBuffers());
+
+		for (Channel client : clients) {
+			client.close();
+		}
+		for (NioSelectorThread clientThread : clientThreads) {
+			clientThread.shutdown();
+		}
+		server.shutdown();
+	}
+
+	private static int waitForChannels(NioServer server, int expected) throws InterruptedException {
+		for (int i = 0; i < 100 && server.getNumberOfChannels() < expected; i++) {
+			Thread.sleep(20);
+		}
+		return server.getNumberOfChannels();
+	}
+}